@@ -231,7 +231,7 @@ public class GeneralActions
 
             if (seq != null)
             {
-                final ImagePlus ip = ImageJUtil.convertToImageJImage(seq, true, progressFrame);
+                final ImagePlus ip = ImageJUtil.convertToImageJImage(seq, true, true, progressFrame);
 
                 ThreadUtil.invokeLater(new Runnable()
                 {
@@ -283,7 +283,7 @@ public class GeneralActions
 
             if (ip != null)
             {
-                final Sequence seq = ImageJUtil.convertToIcySequence(ip, progressFrame);
+                final Sequence seq = ImageJUtil.convertToIcySequence(ip, true, progressFrame);
 
                 ThreadUtil.invokeLater(new Runnable()
                 {
@@ -41,10 +41,12 @@ import icy.math.SmoothMover.SmoothMoverAdapter;
 import icy.painter.ImageOverlay;
 import icy.painter.Overlay;
 import icy.preferences.CanvasPreferences;
+import icy.preferences.GeneralPreferences;
 import icy.preferences.XMLPreferences;
 import icy.resource.ResourceUtil;
 import icy.resource.icon.IcyIcon;
 import icy.roi.ROI;
+import icy.roi.ROI.ROIPainter;
 import icy.sequence.DimensionId;
 import icy.sequence.Sequence;
 import icy.sequence.SequenceEvent.SequenceEventType;
@@ -88,7 +90,13 @@ import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.swing.BorderFactory;
@@ -700,9 +708,9 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
             @Deprecated
             public BufferedImage getImage()
             {
-                // get original image
-                final IcyBufferedImage icyImage = Canvas2D.this.getImage(getPositionT(), getPositionZ(),
-                        getPositionC());
+                // get original image (single channel image is only read so we can use the cached one)
+                final IcyBufferedImage src = Canvas2D.this.getImage(getPositionT(), getPositionZ(), -1);
+                final IcyBufferedImage icyImage = (src != null) ? src.getCachedImage(getPositionC()) : null;
 
                 return IcyBufferedImageUtil.toBufferedImage(icyImage, null);
             }
@@ -727,9 +735,9 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
                 // important to set it to false at beginning
                 needRebuild = false;
 
-                // get original image
-                final IcyBufferedImage icyImage = Canvas2D.this.getImage(getPositionT(), getPositionZ(),
-                        getPositionC());
+                // get original image (single channel image is only read so we can use the cached one)
+                final IcyBufferedImage src = Canvas2D.this.getImage(getPositionT(), getPositionZ(), -1);
+                final IcyBufferedImage icyImage = (src != null) ? src.getCachedImage(getPositionC()) : null;
 
                 // clear cache so we know we don't have any image at this position
                 if (icyImage == null)
@@ -792,10 +800,427 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
             }
         }
 
+        /**
+         * Retained mode rendering of ROI overlays.<br>
+         * Unselected ROI overlays are rendered in image aligned tiles at the current zoom level so panning or
+         * repainting doesn't need to paint them again. Tiles are invalidated on the ROI bounds when a ROI changes while
+         * selected, focused or in creation ROIs (and others overlays) are still painted live.
+         */
+        public class OverlayCache
+        {
+            public class OverlayCacheTile
+            {
+                final static int TILE_SIZE = 256;
+
+                public final BufferedImage image;
+                boolean valid;
+
+                public OverlayCacheTile()
+                {
+                    super();
+
+                    image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_ARGB);
+                    valid = false;
+                }
+            }
+
+            /**
+             * Minimum number of cacheable overlay to use the cache
+             */
+            final static int MIN_OVERLAY = 32;
+            /**
+             * Extra margin (in canvas pixel) around ROI bounds for stroke and decorations
+             */
+            final static int PAINT_MARGIN = 16;
+            /**
+             * Number of extra tile row / column kept around the visible area
+             */
+            final static int TILE_KEEP = 2;
+
+            /**
+             * tiles (packed tile X and Y position as key)
+             */
+            private final Map<Long, OverlayCacheTile> tiles;
+            /**
+             * painted bounds (image coordinates) of each cached overlay since last invalidation
+             */
+            private final Map<Overlay, Rectangle2D> paintedBounds;
+            /**
+             * internals
+             */
+            private double cacheScaleX;
+            private double cacheScaleY;
+            private int cacheZ;
+            private int cacheT;
+            private int cacheC;
+
+            public OverlayCache()
+            {
+                super();
+
+                tiles = new HashMap<Long, OverlayCacheTile>();
+                paintedBounds = new HashMap<Overlay, Rectangle2D>();
+                cacheScaleX = -1d;
+                cacheScaleY = -1d;
+                cacheZ = -1;
+                cacheT = -1;
+                cacheC = -1;
+            }
+
+            /**
+             * Returns the ROI painted by the specified layer if it can be cached (<code>null</code> otherwise).
+             */
+            ROI getCacheableROI(Layer layer)
+            {
+                final Overlay overlay = layer.getOverlay();
+
+                if (overlay instanceof ROIPainter)
+                {
+                    final ROI roi = ((ROIPainter) overlay).getROI();
+
+                    // ROI being modified or interacting with user are painted live
+                    if (!roi.isSelected() && !roi.isFocused() && !roi.isCreating())
+                        return roi;
+                }
+
+                return null;
+            }
+
+            /**
+             * Returns visible layers which can be drawn from the cache (in painting order) or <code>null</code> if the
+             * cache cannot be used.
+             */
+            public List<Layer> getCacheableLayers(List<Layer> layers)
+            {
+                if (!CanvasPreferences.getOverlayCache() || (getRotationZ() != 0d))
+                    return null;
+
+                final List<Layer> result = new ArrayList<Layer>();
+
+                for (int i = layers.size() - 1; i >= 0; i--)
+                {
+                    final Layer layer = layers.get(i);
+
+                    if (layer.isVisible() && (getCacheableROI(layer) != null))
+                        result.add(layer);
+                }
+
+                // not worth it
+                if (result.size() < MIN_OVERLAY)
+                    return null;
+
+                return result;
+            }
+
+            /**
+             * Returns the region (image coordinates) painted by the specified ROI (<code>null</code> if infinite).
+             */
+            Rectangle2D getPaintBounds(ROI roi, double scaleX, double scaleY)
+            {
+                final Rectangle5D bounds = roi.getBounds5D();
+
+                if (bounds.isInfiniteX() || bounds.isInfiniteY())
+                    return null;
+
+                double marginX = PAINT_MARGIN;
+                double marginTop = PAINT_MARGIN;
+                double marginBottom = PAINT_MARGIN;
+
+                // name is displayed above ROI bounds (see ROI2D.drawName(..))
+                if (roi.getShowName())
+                {
+                    final double fontSize = (GeneralPreferences.getGuiFontSize() - 4)
+                            + (int) (Math.log(scaleX + 1) * 10d);
+                    final String name = roi.getName();
+
+                    if (name != null)
+                        marginX += (name.length() * fontSize) / 2d;
+                    marginTop += fontSize * 3d;
+                }
+
+                return new Rectangle2D.Double(bounds.getX() - (marginX / scaleX), bounds.getY() - (marginTop / scaleY),
+                        bounds.getSizeX() + ((marginX * 2d) / scaleX),
+                        bounds.getSizeY() + ((marginTop + marginBottom) / scaleY));
+            }
+
+            private Long getKey(int tx, int ty)
+            {
+                return Long.valueOf((((long) tx) << 32) | (ty & 0xFFFFFFFFL));
+            }
+
+            private int floorDiv(int value, int div)
+            {
+                if (value >= 0)
+                    return value / div;
+
+                return -(((-value) + div) - 1) / div;
+            }
+
+            /**
+             * Invalidate the whole cache.
+             */
+            public synchronized void invalidate()
+            {
+                for (OverlayCacheTile tile : tiles.values())
+                    tile.valid = false;
+                paintedBounds.clear();
+            }
+
+            /**
+             * Invalidate cache tiles intersecting the specified region (image coordinates).
+             */
+            synchronized void invalidate(Rectangle2D region)
+            {
+                if (region == null)
+                {
+                    invalidate();
+                    return;
+                }
+                if (tiles.isEmpty())
+                    return;
+
+                final int ts = OverlayCacheTile.TILE_SIZE;
+                final int minX = floorDiv((int) Math.floor(region.getMinX() * cacheScaleX), ts);
+                final int maxX = floorDiv((int) Math.ceil(region.getMaxX() * cacheScaleX), ts);
+                final int minY = floorDiv((int) Math.floor(region.getMinY() * cacheScaleY), ts);
+                final int maxY = floorDiv((int) Math.ceil(region.getMaxY() * cacheScaleY), ts);
+
+                // large region --> faster to iterate over tiles
+                if ((((long) (maxX - minX) + 1) * ((maxY - minY) + 1)) > tiles.size())
+                {
+                    for (Entry<Long, OverlayCacheTile> entry : tiles.entrySet())
+                    {
+                        final long key = entry.getKey().longValue();
+                        final int tx = (int) (key >> 32);
+                        final int ty = (int) key;
+
+                        if ((tx >= minX) && (tx <= maxX) && (ty >= minY) && (ty <= maxY))
+                            entry.getValue().valid = false;
+                    }
+                }
+                else
+                {
+                    for (int ty = minY; ty <= maxY; ty++)
+                    {
+                        for (int tx = minX; tx <= maxX; tx++)
+                        {
+                            final OverlayCacheTile tile = tiles.get(getKey(tx, ty));
+
+                            if (tile != null)
+                                tile.valid = false;
+                        }
+                    }
+                }
+            }
+
+            /**
+             * Invalidate cache for the specified overlay (previous and new painted region).
+             */
+            public void invalidate(Overlay overlay)
+            {
+                final double scaleX;
+                final double scaleY;
+                final Rectangle2D oldBounds;
+
+                synchronized (this)
+                {
+                    // nothing cached
+                    if (tiles.isEmpty())
+                        return;
+
+                    scaleX = cacheScaleX;
+                    scaleY = cacheScaleY;
+                    oldBounds = paintedBounds.remove(overlay);
+
+                    // previous region
+                    if (oldBounds != null)
+                        invalidate(oldBounds);
+                }
+
+                // new region
+                if (overlay instanceof ROIPainter)
+                    invalidate(getPaintBounds(((ROIPainter) overlay).getROI(), scaleX, scaleY));
+            }
+
+            /**
+             * Release all cached tiles
+             */
+            public synchronized void clear()
+            {
+                tiles.clear();
+                paintedBounds.clear();
+            }
+
+            /**
+             * Draw the specified layers from the cache (layers should be returned by
+             * {@link #getCacheableLayers(List)}).
+             */
+            public void paint(Graphics2D g, Sequence seq, List<Layer> layers)
+            {
+                final double scaleX = getScaleX();
+                final double scaleY = getScaleY();
+                final int offX = getOffsetX();
+                final int offY = getOffsetY();
+                final int ts = OverlayCacheTile.TILE_SIZE;
+                // visible tiles
+                final int minX = floorDiv(-offX, ts);
+                final int maxX = floorDiv((getCanvasSizeX() - 1) - offX, ts);
+                final int minY = floorDiv(-offY, ts);
+                final int maxY = floorDiv((getCanvasSizeY() - 1) - offY, ts);
+                final List<Point> toRender = new ArrayList<Point>();
+                final List<OverlayCacheTile> toRenderTiles = new ArrayList<OverlayCacheTile>();
+                final OverlayCacheTile[] visibleTiles = new OverlayCacheTile[((maxX - minX) + 1) * ((maxY - minY) + 1)];
+
+                synchronized (this)
+                {
+                    // zoom or position changed --> clear cache
+                    if ((cacheScaleX != scaleX) || (cacheScaleY != scaleY) || (cacheZ != getPositionZ())
+                            || (cacheT != getPositionT()) || (cacheC != getPositionC()))
+                    {
+                        clear();
+                        cacheScaleX = scaleX;
+                        cacheScaleY = scaleY;
+                        cacheZ = getPositionZ();
+                        cacheT = getPositionT();
+                        cacheC = getPositionC();
+                    }
+
+                    // release tiles far from visible area
+                    final Iterator<Long> it = tiles.keySet().iterator();
+                    while (it.hasNext())
+                    {
+                        final long key = it.next().longValue();
+                        final int tx = (int) (key >> 32);
+                        final int ty = (int) key;
+
+                        if ((tx < (minX - TILE_KEEP)) || (tx > (maxX + TILE_KEEP)) || (ty < (minY - TILE_KEEP))
+                                || (ty > (maxY + TILE_KEEP)))
+                            it.remove();
+                    }
+
+                    int ind = 0;
+                    for (int ty = minY; ty <= maxY; ty++)
+                    {
+                        for (int tx = minX; tx <= maxX; tx++)
+                        {
+                            final Long key = getKey(tx, ty);
+                            OverlayCacheTile tile = tiles.get(key);
+
+                            if (tile == null)
+                            {
+                                tile = new OverlayCacheTile();
+                                tiles.put(key, tile);
+                            }
+
+                            if (!tile.valid)
+                            {
+                                // set valid now so we can detect invalidation done during rendering
+                                tile.valid = true;
+                                toRender.add(new Point(tx, ty));
+                                toRenderTiles.add(tile);
+                            }
+
+                            visibleTiles[ind++] = tile;
+                        }
+                    }
+                }
+
+                if (!toRender.isEmpty())
+                {
+                    // painted region of each layer
+                    final Rectangle2D[] layerBounds = new Rectangle2D[layers.size()];
+
+                    for (int i = 0; i < layerBounds.length; i++)
+                    {
+                        final ROI roi = getCacheableROI(layers.get(i));
+
+                        // can be null if ROI state changed in the meantime (empty bounds --> not painted)
+                        if (roi != null)
+                            layerBounds[i] = getPaintBounds(roi, scaleX, scaleY);
+                        else
+                            layerBounds[i] = new Rectangle2D.Double();
+                    }
+
+                    synchronized (this)
+                    {
+                        // keep trace of painted region for invalidation
+                        for (int i = 0; i < layerBounds.length; i++)
+                        {
+                            final Overlay overlay = layers.get(i).getOverlay();
+                            final Rectangle2D bounds = layerBounds[i];
+                            final Rectangle2D oldBounds = paintedBounds.get(overlay);
+
+                            if ((bounds == null) || bounds.isEmpty())
+                                continue;
+
+                            if (oldBounds != null)
+                                paintedBounds.put(overlay, bounds.createUnion(oldBounds));
+                            else
+                                paintedBounds.put(overlay, bounds);
+                        }
+                    }
+
+                    for (int i = 0; i < toRender.size(); i++)
+                        renderTile(toRenderTiles.get(i), toRender.get(i), seq, layers, layerBounds);
+                }
+
+                final Graphics2D g2 = (Graphics2D) g.create();
+
+                // go to canvas coordinates
+                g2.transform(getInverseTransform());
+                g2.setComposite(AlphaComposite.SrcOver);
+
+                int ind = 0;
+                for (int ty = minY; ty <= maxY; ty++)
+                    for (int tx = minX; tx <= maxX; tx++)
+                        g2.drawImage(visibleTiles[ind++].image, offX + (tx * ts), offY + (ty * ts), null);
+
+                g2.dispose();
+            }
+
+            void renderTile(OverlayCacheTile tile, Point pos, Sequence seq, List<Layer> layers,
+                    Rectangle2D[] layerBounds)
+            {
+                final int ts = OverlayCacheTile.TILE_SIZE;
+                final Graphics2D g = tile.image.createGraphics();
+
+                // clear tile
+                g.setComposite(AlphaComposite.Clear);
+                g.fillRect(0, 0, ts, ts);
+
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+                // tile origin in canvas coordinates
+                g.translate(-((pos.x * ts) + getOffsetX()), -((pos.y * ts) + getOffsetY()));
+                g.transform(getTransform());
+
+                // tile region (image coordinates)
+                final Rectangle2D region = new Rectangle2D.Double((pos.x * ts) / getScaleX(), (pos.y * ts)
+                        / getScaleY(), ts / getScaleX(), ts / getScaleY());
+
+                for (int i = 0; i < layerBounds.length; i++)
+                {
+                    final Rectangle2D bounds = layerBounds[i];
+
+                    // only paint layers intersecting the tile
+                    if ((bounds == null) || bounds.intersects(region))
+                        drawLayer(g, seq, layers.get(i));
+                }
+
+                g.dispose();
+            }
+        }
+
         /**
          * Image cache
          */
         final ImageCache imageCache;
+        /**
+         * Overlay (ROI) cache
+         */
+        final OverlayCache overlayCache;
 
         /**
          * internals
@@ -827,6 +1252,7 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
             super();
 
             imageCache = new ImageCache();
+            overlayCache = new OverlayCache();
             actived = false;
             handlingMouseMoveEvent = false;
             startDragPosition = null;
@@ -938,6 +1364,7 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
             rotationInfoTimer.removeActionListener(this);
             zoomInfoAlphaMover.shutDown();
             rotationInfoAlphaMover.shutDown();
+            overlayCache.clear();
         }
 
         /**
@@ -1443,6 +1870,16 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
          * Draw specified image layer and others layers on specified {@link Graphics2D} object.
          */
         void drawImageAndLayers(Graphics2D g, Layer imageLayer)
+        {
+            drawImageAndLayers(g, imageLayer, false);
+        }
+
+        /**
+         * Draw specified image layer and others layers on specified {@link Graphics2D} object.<br>
+         * If <code>useCache</code> is <code>true</code> then unselected ROI layers are drawn from the overlay cache
+         * (in place of the first of them).
+         */
+        void drawImageAndLayers(Graphics2D g, Layer imageLayer, boolean useCache)
         {
             final Sequence seq = getSequence();
             final Layer defaultImageLayer = getImageLayer();
@@ -1451,6 +1888,9 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
             if (isLayersVisible())
             {
                 final List<Layer> layers = getLayers(true);
+                final List<Layer> cachedLayers = useCache ? overlayCache.getCacheableLayers(layers) : null;
+                final Set<Layer> cachedSet = (cachedLayers != null) ? new HashSet<Layer>(cachedLayers) : null;
+                boolean cacheDrawn = false;
 
                 // draw them in inverse order to have first painter event at top
                 for (int i = layers.size() - 1; i >= 0; i--)
@@ -1460,6 +1900,14 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
                     // replace the default image layer by the specified one
                     if (layer == defaultImageLayer)
                         drawLayer(g, seq, imageLayer);
+                    else if ((cachedSet != null) && cachedSet.contains(layer))
+                    {
+                        if (!cacheDrawn)
+                        {
+                            overlayCache.paint(g, seq, cachedLayers);
+                            cacheDrawn = true;
+                        }
+                    }
                     else
                         drawLayer(g, seq, layer);
                 }
@@ -1502,7 +1950,7 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
                 g2.transform(getTransform());
 
                 // draw image and layers
-                drawImageAndLayers(g2, getImageLayer());
+                drawImageAndLayers(g2, getImageLayer(), true);
 
                 g2.dispose();
             }
@@ -1770,6 +2218,14 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
             // nothing here
         }
 
+        /**
+         * Specified overlay changed (invalidate it in overlay cache)
+         */
+        public void overlayChanged(Overlay overlay)
+        {
+            overlayCache.invalidate(overlay);
+        }
+
         public boolean isDragging()
         {
             return !areaSelection && (startDragPosition != null);
@@ -2889,7 +3345,9 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
      */
     public BufferedImage getARGBImage(int t, int z, int c, BufferedImage out)
     {
-        final IcyBufferedImage img = Canvas2D.this.getImage(t, z, c);
+        final IcyBufferedImage src = Canvas2D.this.getImage(t, z, -1);
+        // rendering only reads the image so we can use the cached single channel image
+        final IcyBufferedImage img = (src != null) ? src.getCachedImage(c) : null;
 
         if (img != null)
         {
@@ -3266,10 +3724,14 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
             // layer refresh
             if (canvasView != null)
             {
+                canvasView.overlayChanged(event.getSource().getOverlay());
                 canvasView.layersChanged();
                 canvasView.refresh();
             }
         }
+        // layer added or removed
+        else if ((event.getType() != LayersEventType.CHANGED) && (canvasView != null))
+            canvasView.overlayChanged(event.getSource().getOverlay());
     }
 
     @Override
@@ -3280,6 +3742,7 @@ public class Canvas2D extends IcyCanvas2D implements ROITaskListener
         // layer refresh
         if (canvasView != null)
         {
+            canvasView.overlayChanged(overlay);
             canvasView.layersChanged();
             canvasView.refresh();
         }
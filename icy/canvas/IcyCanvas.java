@@ -209,7 +209,7 @@ public abstract class IcyCanvas extends JPanel
     {
         try
         {
-            if (plugin != null)
+            if ((plugin != null) && (plugin.getPluginClass() != null))
             {
                 final PluginCanvas pluginCanvas = (PluginCanvas) plugin.getPluginClass().newInstance();
                 // return canvas class name
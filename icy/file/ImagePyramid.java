@@ -0,0 +1,448 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.file;
+
+import icy.image.IcyBufferedImageUtil;
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+import icy.type.collection.array.ArrayUtil;
+import icy.type.collection.array.ByteArrayConvert;
+
+import java.awt.Rectangle;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Multi resolution pyramid of an image series stored in a local disk cache file.<br>
+ * Level <code>n</code> contains all planes (C, Z, T) of the image at <code>original resolution / (2^n)</code>, each
+ * level is built from the previous one (using {@link IcyBufferedImageUtil#downscaleBy2(Object, int, int, boolean, boolean, Object)})
+ * so the original image only need to be read once.<br>
+ * Levels are made available as soon as they are built (see {@link #getAvailableLevel()}).<br>
+ * <br>
+ * File layout: header (see {@link #writeHeader(RandomAccessFile)}) then raw planes data (big endian) ordered by level,
+ * T, Z and C.
+ */
+public class ImagePyramid
+{
+    static final int PYRAMID_MAGIC = 0x50595231;
+    /**
+     * Change it when file format change.
+     */
+    static final int PYRAMID_VERSION = 1;
+    /**
+     * Position of the available level field in the file header.
+     */
+    static final long AVAILABLE_LEVEL_OFFSET = 8;
+
+    final File file;
+    final String path;
+    final int series;
+    final int sizeX;
+    final int sizeY;
+    final int sizeC;
+    final int sizeZ;
+    final int sizeT;
+    final DataType dataType;
+    final int numLevel;
+
+    long dataOffset;
+    volatile int availableLevel;
+    volatile boolean canceled;
+    volatile boolean building;
+    // number of opened providers using this pyramid (guarded by ImagePyramidService)
+    int users;
+    // transfer buffer reused for all strips while building (only accessed by the builder thread)
+    ByteBuffer transferBuffer;
+
+    ImagePyramid(File file, String path, int series, int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT,
+            DataType dataType, int numLevel)
+    {
+        super();
+
+        this.file = file;
+        this.path = path;
+        this.series = series;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeC = sizeC;
+        this.sizeZ = sizeZ;
+        this.sizeT = sizeT;
+        this.dataType = dataType;
+        this.numLevel = numLevel;
+
+        dataOffset = 0L;
+        availableLevel = 0;
+        canceled = false;
+        building = false;
+        users = 0;
+        transferBuffer = null;
+    }
+
+    /**
+     * Open an existing pyramid file.<br>
+     * Returns <code>null</code> if the file doesn't exist or doesn't match the specified image.
+     */
+    static ImagePyramid open(File file, String path, int series)
+    {
+        if (!file.exists())
+            return null;
+
+        try
+        {
+            final RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+            try
+            {
+                if ((raf.readInt() != PYRAMID_MAGIC) || (raf.readInt() != PYRAMID_VERSION))
+                    return null;
+
+                final int level = raf.readInt();
+
+                // store source to detect filename collision
+                if (!raf.readUTF().equals(path) || (raf.readInt() != series))
+                    return null;
+
+                final int sx = raf.readInt();
+                final int sy = raf.readInt();
+                final int sc = raf.readInt();
+                final int sz = raf.readInt();
+                final int st = raf.readInt();
+                final DataType type = DataType.getDataType(raf.readUTF());
+                final int nl = raf.readInt();
+
+                if ((type == null) || (level < 0) || (level > nl))
+                    return null;
+
+                final ImagePyramid result = new ImagePyramid(file, path, series, sx, sy, sc, sz, st, type, nl);
+
+                result.dataOffset = raf.getFilePointer();
+                result.availableLevel = level;
+
+                // truncated file ?
+                if (raf.length() < result.getLevelOffset(nl + 1))
+                    return null;
+
+                return result;
+            }
+            finally
+            {
+                raf.close();
+            }
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of level needed so the smallest level doesn't go below the given size.
+     */
+    public static int getNumLevel(int sizeX, int sizeY, int minSize)
+    {
+        int result = 0;
+        int sx = sizeX;
+        int sy = sizeY;
+
+        while (Math.max(sx, sy) > minSize)
+        {
+            sx /= 2;
+            sy /= 2;
+            result++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the size (in bytes) of all levels of the pyramid for the given image dimension.
+     */
+    public static long getDataSize(int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT, DataType dataType,
+            int numLevel)
+    {
+        long result = 0L;
+
+        for (int l = 1; l <= numLevel; l++)
+            result += (long) (sizeX >> l) * (long) (sizeY >> l);
+
+        return result * sizeC * sizeZ * sizeT * dataType.getSize();
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    public int getSeries()
+    {
+        return series;
+    }
+
+    /**
+     * Returns the number of level of the pyramid (level 0 (original resolution) is not stored).
+     */
+    public int getNumLevel()
+    {
+        return numLevel;
+    }
+
+    /**
+     * Returns the highest level available for reading (0 means nothing available yet).
+     */
+    public int getAvailableLevel()
+    {
+        return availableLevel;
+    }
+
+    /**
+     * Returns <code>true</code> if all levels are built.
+     */
+    public boolean isComplete()
+    {
+        return availableLevel == numLevel;
+    }
+
+    /**
+     * Returns <code>true</code> if the given resolution level can be read from this pyramid.
+     */
+    public boolean isAvailable(int level)
+    {
+        return (level > 0) && (level <= availableLevel);
+    }
+
+    /**
+     * Request build cancellation.
+     */
+    public void cancel()
+    {
+        canceled = true;
+    }
+
+    public boolean isCanceled()
+    {
+        return canceled;
+    }
+
+    public int getLevelSizeX(int level)
+    {
+        return sizeX >> level;
+    }
+
+    public int getLevelSizeY(int level)
+    {
+        return sizeY >> level;
+    }
+
+    long getPlaneSize(int level)
+    {
+        return (long) getLevelSizeX(level) * (long) getLevelSizeY(level) * dataType.getSize();
+    }
+
+    long getLevelOffset(int level)
+    {
+        long result = dataOffset;
+
+        for (int l = 1; l < level; l++)
+            result += getPlaneSize(l) * sizeC * sizeZ * sizeT;
+
+        return result;
+    }
+
+    long getPlaneOffset(int level, int z, int t, int c)
+    {
+        return getLevelOffset(level) + ((((long) t * sizeZ) + z) * sizeC + c) * getPlaneSize(level);
+    }
+
+    /**
+     * Write file header and allocate file space for all levels.
+     */
+    void writeHeader(RandomAccessFile raf) throws IOException
+    {
+        raf.seek(0);
+        raf.writeInt(PYRAMID_MAGIC);
+        raf.writeInt(PYRAMID_VERSION);
+        raf.writeInt(availableLevel);
+        raf.writeUTF(path);
+        raf.writeInt(series);
+        raf.writeInt(sizeX);
+        raf.writeInt(sizeY);
+        raf.writeInt(sizeC);
+        raf.writeInt(sizeZ);
+        raf.writeInt(sizeT);
+        raf.writeUTF(dataType.toString(false));
+        raf.writeInt(numLevel);
+
+        dataOffset = raf.getFilePointer();
+        raf.setLength(getLevelOffset(numLevel + 1));
+    }
+
+    /**
+     * Mark the given level as available (file header is updated first).
+     */
+    void setAvailableLevel(RandomAccessFile raf, int level) throws IOException
+    {
+        raf.seek(AVAILABLE_LEVEL_OFFSET);
+        raf.writeInt(level);
+        availableLevel = level;
+    }
+
+    /**
+     * Returns the transfer buffer ready to receive the given number of bytes (buffer is allocated or enlarged if
+     * needed).
+     */
+    ByteBuffer getTransferBuffer(int size)
+    {
+        if ((transferBuffer == null) || (transferBuffer.capacity() < size))
+            // direct buffer so file channel doesn't need an extra copy (big endian by default)
+            transferBuffer = ByteBuffer.allocateDirect(size);
+
+        transferBuffer.clear();
+        transferBuffer.limit(size);
+
+        return transferBuffer;
+    }
+
+    /**
+     * Release the transfer buffer (should be called when build is done).
+     */
+    void releaseTransferBuffer()
+    {
+        transferBuffer = null;
+    }
+
+    /**
+     * Write a full width strip of lines for the specified level and plane.
+     */
+    void writeLines(RandomAccessFile raf, int level, int z, int t, int c, int y, Object data) throws IOException
+    {
+        final ByteBuffer buffer = getTransferBuffer(ArrayUtil.getLength(data) * dataType.getSize());
+        final FileChannel channel = raf.getChannel();
+        long position = getPlaneOffset(level, z, t, c) + ((long) y * getLevelSizeX(level) * dataType.getSize());
+
+        ByteArrayConvert.toByteBuffer(data, 0, buffer, -1);
+        buffer.flip();
+
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * Read a full width strip of lines for the specified level and plane.
+     */
+    Object readLines(RandomAccessFile raf, int level, int z, int t, int c, int y, int numLines) throws IOException
+    {
+        final int sx = getLevelSizeX(level);
+        final ByteBuffer buffer = getTransferBuffer(sx * numLines * dataType.getSize());
+        final FileChannel channel = raf.getChannel();
+        long position = getPlaneOffset(level, z, t, c) + ((long) y * sx * dataType.getSize());
+
+        while (buffer.hasRemaining())
+        {
+            final int read = channel.read(buffer, position);
+
+            if (read < 0)
+                throw new EOFException("Unexpected end of pyramid file: " + file.getPath());
+
+            position += read;
+        }
+
+        buffer.flip();
+
+        return ByteArrayConvert.byteBufferTo(buffer, Array1DUtil.createArray(dataType, sx * numLines), 0, -1);
+    }
+
+    /**
+     * Returns the pixel data for the specified resolution level and plane.<br>
+     * If the wanted level is not yet built, the closest available level is used and down scaled to the wanted
+     * resolution.
+     * 
+     * @param resolution
+     *        wanted resolution level (should be > 0)
+     * @param region
+     *        The 2D region we want to retrieve (considering the original image resolution).<br>
+     *        If set to <code>null</code> then the whole image is returned.
+     * @return native type array containing image pixel data or <code>null</code> if no level is available yet.
+     */
+    public Object getPixels(int resolution, Rectangle region, int z, int t, int c) throws IOException
+    {
+        final int level = Math.min(resolution, availableLevel);
+
+        if (level <= 0)
+            return null;
+
+        final int sx = getLevelSizeX(level);
+        final int sy = getLevelSizeY(level);
+        final int bpp = dataType.getSize();
+        final Rectangle levelRegion;
+
+        if (region == null)
+            levelRegion = new Rectangle(0, 0, sx, sy);
+        else
+            levelRegion = new Rectangle(region.x >> level, region.y >> level, region.width >> level,
+                    region.height >> level).intersection(new Rectangle(0, 0, sx, sy));
+
+        if (levelRegion.isEmpty())
+            return null;
+
+        final byte[] data = new byte[levelRegion.width * levelRegion.height * bpp];
+        final int lineSize = levelRegion.width * bpp;
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try
+        {
+            final long planeOffset = getPlaneOffset(level, z, t, c);
+
+            for (int y = 0; y < levelRegion.height; y++)
+            {
+                raf.seek(planeOffset + (((long) (levelRegion.y + y) * sx) + levelRegion.x) * bpp);
+                raf.readFully(data, y * lineSize, lineSize);
+            }
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        Object result = ByteArrayConvert.byteArrayTo(data, 0, dataType, -1, false);
+        int w = levelRegion.width;
+        int h = levelRegion.height;
+
+        // wanted level not yet available --> down scale from the closest one
+        for (int l = level; l < resolution; l++)
+        {
+            result = IcyBufferedImageUtil.downscaleBy2(result, w, h, dataType.isSigned(), true);
+            w /= 2;
+            h /= 2;
+        }
+
+        return result;
+    }
+
+    /**
+     * Delete the pyramid file.
+     */
+    void delete()
+    {
+        FileUtil.delete(file, false);
+    }
+}
@@ -0,0 +1,530 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.file;
+
+import icy.image.IcyBufferedImageUtil;
+import icy.preferences.ApplicationPreferences;
+import icy.preferences.GeneralPreferences;
+import icy.sequence.MetaDataUtil;
+import icy.sequence.SequenceIdImporter;
+import icy.system.IcyExceptionHandler;
+import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
+import icy.type.DataType;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import ome.xml.meta.OMEXMLMetadata;
+
+/**
+ * Background service building multi resolution pyramids (see {@link ImagePyramid}) for large images which don't
+ * provide native sub resolutions.<br>
+ * Pyramids are stored in the local cache folder and reused as long as the source file doesn't change. They are served
+ * through the {@link PyramidImageProvider} wrapper so the viewer and thumbnails transparently use them through the
+ * {@link icy.image.ImageProvider} resolution API.<br>
+ * Building is done by a single low priority thread, it can be canceled at any time and is resumed from the last
+ * complete level the next time the image is opened. Background building is disabled by default (see
+ * {@link GeneralPreferences#getPyramidBuild()}), already built pyramids are still used in that case.
+ */
+public class ImagePyramidService
+{
+    public static final String CACHE_FOLDER = "pyramids";
+    public static final String PYRAMID_EXTENSION = "pyr";
+    /**
+     * Minimum image size (width or height) to build a pyramid.
+     */
+    public static final int MIN_IMAGE_SIZE = 4096;
+    /**
+     * Pyramid levels are built until image size (width and height) goes below this value.
+     */
+    public static final int MIN_LEVEL_SIZE = 256;
+    /**
+     * Maximum disk size used by the pyramid cache (least recently used pyramids are removed first).
+     */
+    public static final long MAX_DISK_SIZE = 4L * 1024L * 1024L * 1024L;
+    /**
+     * Maximum size of the strip of lines processed at once while building a level.
+     */
+    static final int STRIP_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * Opened pyramids (key = path#series)
+     */
+    static final Map<String, ImagePyramid> pyramids = new HashMap<String, ImagePyramid>();
+    static final Processor builder = new Processor(-1, 1, Processor.MIN_PRIORITY);
+
+    static
+    {
+        builder.setThreadName("Pyramid builder");
+        builder.setLane(TaskScheduler.Lane.BACKGROUND);
+    }
+
+    static String getKey(String path, int series)
+    {
+        return path + "#" + series;
+    }
+
+    /**
+     * Returns the pyramid cache folder path.
+     */
+    public static String getCacheFolder()
+    {
+        return FileUtil.getGenericPath(ApplicationPreferences.getCachePath() + FileUtil.separator + CACHE_FOLDER);
+    }
+
+    /**
+     * Returns the pyramid file for the specified image series (SHA-1 digest of the key as for thumbnail files).
+     */
+    static File getPyramidFile(String path, int series, long modified)
+    {
+        return new File(getCacheFolder() + FileUtil.separator + ThumbnailCache.getDigest(getKey(path, series)) + "_"
+                + Long.toHexString(modified) + "." + PYRAMID_EXTENSION);
+    }
+
+    /**
+     * Returns <code>true</code> if a pyramid should be built for the specified image series (large enough and
+     * without native sub resolution).
+     */
+    public static boolean isPyramidNeeded(SequenceIdImporter importer, int series)
+    {
+        try
+        {
+            final OMEXMLMetadata meta = importer.getOMEXMLMetaData();
+
+            if (Math.max(MetaDataUtil.getSizeX(meta, series), MetaDataUtil.getSizeY(meta, series)) < MIN_IMAGE_SIZE)
+                return false;
+
+            return !importer.isResolutionAvailable(series, 1);
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the pyramid (complete or not) for the specified image file and series if it exists, <code>null</code>
+     * otherwise.
+     */
+    public static synchronized ImagePyramid getPyramid(String path, int series)
+    {
+        final String genericPath = FileUtil.getGenericPath(path);
+        final String key = getKey(genericPath, series);
+        final ImagePyramid result = pyramids.get(key);
+
+        if (result != null)
+            return result;
+
+        final long modified = new File(path).lastModified();
+        // not a local file
+        if (modified == 0L)
+            return null;
+
+        final File file = getPyramidFile(genericPath, series, modified);
+        final ImagePyramid pyramid = ImagePyramid.open(file, genericPath, series);
+
+        if (pyramid != null)
+        {
+            // used recently
+            file.setLastModified(System.currentTimeMillis());
+            pyramids.put(key, pyramid);
+        }
+
+        return pyramid;
+    }
+
+    /**
+     * Returns the complete pyramid for the specified image file and series if it exists, <code>null</code> otherwise.
+     * <br>
+     * Contrary to {@link #getPyramid(String, int)} an opened pyramid is not retained by the service (used for one shot
+     * access as thumbnail loading).
+     */
+    public static synchronized ImagePyramid getCompletePyramid(String path, int series)
+    {
+        final String genericPath = FileUtil.getGenericPath(path);
+        ImagePyramid result = pyramids.get(getKey(genericPath, series));
+
+        if (result == null)
+        {
+            final long modified = new File(path).lastModified();
+            // not a local file
+            if (modified == 0L)
+                return null;
+
+            result = ImagePyramid.open(getPyramidFile(genericPath, series, modified), genericPath, series);
+        }
+
+        if ((result != null) && result.isComplete())
+            return result;
+
+        return null;
+    }
+
+    /**
+     * Returns an {@link SequenceIdImporter} serving sub resolutions from a pyramid for the specified opened importer
+     * and series.<br>
+     * If the image doesn't need a pyramid then the importer itself is returned, otherwise the pyramid build is started
+     * in background if needed (and enabled) and a {@link PyramidImageProvider} wrapping the importer is returned.<br>
+     * The returned provider should be closed when not anymore used so the pyramid build can be stopped.
+     */
+    public static SequenceIdImporter getImageProvider(SequenceIdImporter importer, int series)
+    {
+        if ((importer == null) || (importer.getOpened() == null) || !isPyramidNeeded(importer, series))
+            return importer;
+
+        final ImagePyramid pyramid;
+
+        // background build disabled --> only use already built pyramid
+        if (GeneralPreferences.getPyramidBuild())
+            pyramid = request(importer, series);
+        else
+            pyramid = getCompletePyramid(importer.getOpened(), series);
+
+        if (pyramid == null)
+            return importer;
+
+        acquire(pyramid);
+
+        return new PyramidImageProvider(importer, pyramid, true);
+    }
+
+    /**
+     * Register a new user of the specified pyramid.
+     */
+    static synchronized void acquire(ImagePyramid pyramid)
+    {
+        pyramid.users++;
+    }
+
+    /**
+     * Unregister a user of the specified pyramid, the build is canceled when the last user releases it (already built
+     * levels are kept and the build will be resumed on next request).
+     */
+    static synchronized void release(ImagePyramid pyramid)
+    {
+        if (pyramid.users > 0)
+            pyramid.users--;
+
+        // still used or nothing to cancel
+        if ((pyramid.users > 0) || pyramid.isComplete())
+            return;
+
+        pyramid.cancel();
+        remove(pyramid);
+    }
+
+    /**
+     * Request pyramid build for the specified opened importer and series.<br>
+     * The build is done in background using a new instance of the importer so the given importer can be freely used
+     * meanwhile.
+     * 
+     * @return the pyramid (may not be yet built) or <code>null</code> if it can't be built for this image.
+     */
+    public static synchronized ImagePyramid request(SequenceIdImporter importer, int series)
+    {
+        final String path = importer.getOpened();
+
+        if (path == null)
+            return null;
+
+        ImagePyramid result = getPyramid(path, series);
+
+        // already complete
+        if ((result != null) && result.isComplete())
+            return result;
+
+        if (result == null)
+        {
+            final String genericPath = FileUtil.getGenericPath(path);
+            final long modified = new File(path).lastModified();
+
+            // not a local file --> can't cache it
+            if (modified == 0L)
+                return null;
+
+            try
+            {
+                final OMEXMLMetadata meta = importer.getOMEXMLMetaData();
+                final int sizeX = MetaDataUtil.getSizeX(meta, series);
+                final int sizeY = MetaDataUtil.getSizeY(meta, series);
+                final int sizeC = MetaDataUtil.getSizeC(meta, series);
+                final int sizeZ = MetaDataUtil.getSizeZ(meta, series);
+                final int sizeT = MetaDataUtil.getSizeT(meta, series);
+                final DataType dataType = MetaDataUtil.getDataType(meta, series);
+                final int numLevel = ImagePyramid.getNumLevel(sizeX, sizeY, MIN_LEVEL_SIZE);
+
+                if ((numLevel == 0) || (dataType == null) || (sizeC * sizeZ * sizeT == 0))
+                    return null;
+
+                final long dataSize = ImagePyramid.getDataSize(sizeX, sizeY, sizeC, sizeZ, sizeT, dataType, numLevel);
+
+                // too large for the cache
+                if (dataSize > (MAX_DISK_SIZE / 2))
+                    return null;
+
+                // free space for the new pyramid
+                ensureDiskSpace(dataSize);
+
+                result = new ImagePyramid(getPyramidFile(genericPath, series, modified), genericPath, series, sizeX,
+                        sizeY, sizeC, sizeZ, sizeT, dataType, numLevel);
+            }
+            catch (Exception e)
+            {
+                System.err.println("ImagePyramidService: cannot get image informations for '" + path + "':");
+                System.err.println(e.getMessage());
+                return null;
+            }
+
+            pyramids.put(getKey(genericPath, series), result);
+        }
+        // building (or waiting for build) --> nothing more to do
+        else if (result.building)
+            return result;
+
+        final SequenceIdImporter buildImporter;
+
+        try
+        {
+            buildImporter = importer.getClass().newInstance();
+        }
+        catch (Exception e)
+        {
+            // can't create the importer used for building
+            return null;
+        }
+
+        final ImagePyramid pyramid = result;
+
+        pyramid.canceled = false;
+        pyramid.building = true;
+        builder.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                build(buildImporter, pyramid);
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Cancel pyramid build for the specified image file and series.<br>
+     * Already built levels are kept and the build will be resumed on next request.
+     */
+    public static synchronized void cancel(String path, int series)
+    {
+        final String key = getKey(FileUtil.getGenericPath(path), series);
+        final ImagePyramid pyramid = pyramids.get(key);
+
+        if ((pyramid != null) && !pyramid.isComplete())
+        {
+            pyramid.cancel();
+            pyramids.remove(key);
+        }
+    }
+
+    /**
+     * Cancel all builds and remove all pyramids from the cache.
+     */
+    public static synchronized void clear()
+    {
+        for (ImagePyramid pyramid : pyramids.values())
+            pyramid.cancel();
+        pyramids.clear();
+
+        builder.removeAllWaitingTasks();
+
+        FileUtil.delete(getCacheFolder(), true);
+    }
+
+    static synchronized void remove(ImagePyramid pyramid)
+    {
+        final String key = getKey(pyramid.getPath(), pyramid.getSeries());
+
+        if (pyramids.get(key) == pyramid)
+            pyramids.remove(key);
+    }
+
+    /**
+     * Remove least recently used pyramid files so the cache can store the given amount of data.
+     */
+    static void ensureDiskSpace(long needed)
+    {
+        final File[] files = FileUtil.getFiles(new File(getCacheFolder()), PYRAMID_EXTENSION, true, false);
+        long diskSize = needed;
+
+        for (File file : files)
+            diskSize += file.length();
+
+        if (diskSize <= MAX_DISK_SIZE)
+            return;
+
+        // oldest first
+        Arrays.sort(files, new Comparator<File>()
+        {
+            @Override
+            public int compare(File f1, File f2)
+            {
+                final long m1 = f1.lastModified();
+                final long m2 = f2.lastModified();
+
+                if (m1 < m2)
+                    return -1;
+                if (m1 > m2)
+                    return 1;
+                return 0;
+            }
+        });
+
+        for (File file : files)
+        {
+            if (diskSize <= MAX_DISK_SIZE)
+                break;
+
+            // don't remove pyramids in use
+            if (isInUse(file))
+                continue;
+
+            diskSize -= file.length();
+            FileUtil.delete(file, false);
+        }
+    }
+
+    static boolean isInUse(File file)
+    {
+        for (ImagePyramid pyramid : pyramids.values())
+            if (pyramid.file.equals(file))
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Build all missing levels of the pyramid.
+     */
+    static void build(SequenceIdImporter importer, ImagePyramid pyramid)
+    {
+        try
+        {
+            if (pyramid.isCanceled())
+                return;
+
+            if (!importer.open(pyramid.getPath(), 0))
+            {
+                remove(pyramid);
+                return;
+            }
+
+            try
+            {
+                FileUtil.ensureParentDirExist(pyramid.file);
+
+                final RandomAccessFile raf = new RandomAccessFile(pyramid.file, "rw");
+
+                try
+                {
+                    // new pyramid
+                    if (pyramid.getAvailableLevel() == 0)
+                        pyramid.writeHeader(raf);
+
+                    for (int level = pyramid.getAvailableLevel() + 1; level <= pyramid.getNumLevel(); level++)
+                    {
+                        for (int t = 0; t < pyramid.sizeT; t++)
+                        {
+                            for (int z = 0; z < pyramid.sizeZ; z++)
+                            {
+                                for (int c = 0; c < pyramid.sizeC; c++)
+                                {
+                                    if (pyramid.isCanceled() || Thread.currentThread().isInterrupted())
+                                        return;
+
+                                    buildPlane(importer, pyramid, raf, level, z, t, c);
+                                }
+                            }
+                        }
+
+                        pyramid.setAvailableLevel(raf, level);
+                    }
+                }
+                finally
+                {
+                    raf.close();
+                }
+            }
+            finally
+            {
+                importer.close();
+            }
+        }
+        catch (Exception e)
+        {
+            System.err.println("ImagePyramidService: cannot build pyramid for '" + pyramid.getPath() + "':");
+            IcyExceptionHandler.showErrorMessage(e, false, false);
+
+            // invalid pyramid
+            remove(pyramid);
+            pyramid.delete();
+        }
+        finally
+        {
+            pyramid.releaseTransferBuffer();
+            pyramid.building = false;
+        }
+    }
+
+    /**
+     * Build a plane of the given level from the previous level (or from the original image for the first level).
+     */
+    static void buildPlane(SequenceIdImporter importer, ImagePyramid pyramid, RandomAccessFile raf, int level, int z,
+            int t, int c) throws Exception
+    {
+        final int srcLevel = level - 1;
+        final int srcSizeX = pyramid.getLevelSizeX(srcLevel);
+        // only complete pairs of lines are used
+        final int srcSizeY = pyramid.getLevelSizeY(level) * 2;
+        final boolean signed = pyramid.dataType.isSigned();
+        // number of lines per strip (should be even)
+        final int stripLines = Math.max(2, (STRIP_SIZE / (srcSizeX * pyramid.dataType.getSize())) & ~1);
+
+        for (int y = 0; y < srcSizeY; y += stripLines)
+        {
+            if (pyramid.isCanceled())
+                return;
+
+            final int numLines = Math.min(stripLines, srcSizeY - y);
+            final Object src;
+
+            if (srcLevel == 0)
+                src = importer.getPixels(pyramid.getSeries(), 0, new Rectangle(0, y, srcSizeX, numLines), z, t, c);
+            else
+                src = pyramid.readLines(raf, srcLevel, z, t, c, y, numLines);
+
+            pyramid.writeLines(raf, level, z, t, c, y / 2,
+                    IcyBufferedImageUtil.downscaleBy2(src, srcSizeX, numLines, signed, true));
+        }
+    }
+}
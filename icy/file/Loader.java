@@ -37,6 +37,7 @@ import icy.common.exception.UnsupportedFormatException;
 import icy.file.SequenceFileSticher.SequenceFileGroup;
 import icy.file.SequenceFileSticher.SequenceIdent;
 import icy.file.SequenceFileSticher.SequencePosition;
+import icy.file.ThumbnailCache.ImageInfos;
 import icy.gui.dialog.ImporterSelectionDialog;
 import icy.gui.dialog.SeriesSelectionDialog;
 import icy.gui.frame.progress.FailedAnnounceFrame;
@@ -1243,11 +1244,31 @@ public class Loader
     public static IcyBufferedImage loadThumbnail(SequenceFileImporter importer, String path, int series)
             throws UnsupportedFormatException, IOException
     {
+        // try thumbnail cache first
+        final IcyBufferedImage cached = ThumbnailCache.getInstance().getThumbnail(path, series);
+        if (cached != null)
+            return cached;
+
         if (importer.open(path, 0))
         {
             try
             {
-                return importer.getThumbnail(series);
+                // don't request (or retain) pyramid here, only use it if already built
+                final ImagePyramid pyramid = ImagePyramidService.getCompletePyramid(path, series);
+                final IcyBufferedImage result;
+
+                // use the pyramid if we already have it (much faster for large image)
+                if (pyramid != null)
+                    result = new PyramidImageProvider(importer, pyramid).getThumbnail(series);
+                else
+                    result = importer.getThumbnail(series);
+
+                // store it in cache (asynchronous)
+                if (result != null)
+                    ThumbnailCache.getInstance().put(path, series, result,
+                            new ImageInfos(importer.getOMEXMLMetaData(), series));
+
+                return result;
             }
             finally
             {
@@ -3796,8 +3817,9 @@ public class Loader
         sequence.setName(name);
         sequence.setFilename(path);
 
-        // set importer (for caching / delayed loading...)
-        sequence.setImageProvider(importer);
+        // set importer (for caching / delayed loading...), sub resolutions are served from a pyramid built in
+        // background for large images
+        sequence.setImageProvider(ImagePyramidService.getImageProvider(importer, series));
     }
 
     /**
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.file;
+
+import icy.common.exception.UnsupportedFormatException;
+import icy.image.AbstractImageProvider;
+import icy.image.IcyBufferedImage;
+import icy.sequence.MetaDataUtil;
+import icy.sequence.SequenceIdImporter;
+import icy.util.StringUtil;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+
+import loci.formats.ome.OMEXMLMetadataImpl;
+import ome.xml.meta.OMEXMLMetadata;
+
+/**
+ * {@link SequenceIdImporter} wrapper serving sub resolutions from an {@link ImagePyramid} built in background by the
+ * {@link ImagePyramidService}.<br>
+ * Original resolution (and sub resolutions not yet available) are directly read from the wrapped importer.
+ */
+public class PyramidImageProvider extends AbstractImageProvider implements SequenceIdImporter
+{
+    final SequenceIdImporter importer;
+    final ImagePyramid pyramid;
+    // registered as pyramid user (see ImagePyramidService#acquire(ImagePyramid))
+    boolean acquired;
+
+    PyramidImageProvider(SequenceIdImporter importer, ImagePyramid pyramid, boolean acquired)
+    {
+        super();
+
+        this.importer = importer;
+        this.pyramid = pyramid;
+        this.acquired = acquired;
+    }
+
+    public PyramidImageProvider(SequenceIdImporter importer, ImagePyramid pyramid)
+    {
+        this(importer, pyramid, false);
+    }
+
+    /**
+     * Returns the wrapped importer.
+     */
+    public SequenceIdImporter getImporter()
+    {
+        return importer;
+    }
+
+    public ImagePyramid getPyramid()
+    {
+        return pyramid;
+    }
+
+    /**
+     * Returns <code>true</code> if the pyramid can be used for the specified series and resolution.
+     */
+    boolean isPyramidUsable(int series, int resolution)
+    {
+        return (resolution > 0) && (series == pyramid.getSeries()) && (pyramid.getAvailableLevel() > 0)
+                && StringUtil.equals(pyramid.getPath(), FileUtil.getGenericPath(importer.getOpened()));
+    }
+
+    @Override
+    public String getOpened()
+    {
+        return importer.getOpened();
+    }
+
+    @Override
+    public boolean open(String id, int flags) throws UnsupportedFormatException, IOException
+    {
+        return importer.open(id, flags);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            // stop building if we were the last user (already built levels are kept)
+            if (acquired)
+            {
+                acquired = false;
+                ImagePyramidService.release(pyramid);
+            }
+        }
+
+        importer.close();
+    }
+
+    @Override
+    public OMEXMLMetadata getOMEXMLMetaData() throws UnsupportedFormatException, IOException
+    {
+        return importer.getOMEXMLMetaData();
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public OMEXMLMetadataImpl getMetaData() throws UnsupportedFormatException, IOException
+    {
+        return importer.getMetaData();
+    }
+
+    @Override
+    public int getTileWidth(int series) throws UnsupportedFormatException, IOException
+    {
+        return importer.getTileWidth(series);
+    }
+
+    @Override
+    public int getTileHeight(int series) throws UnsupportedFormatException, IOException
+    {
+        return importer.getTileHeight(series);
+    }
+
+    @Override
+    public boolean isResolutionAvailable(int series, int resolution) throws UnsupportedFormatException, IOException
+    {
+        if (isPyramidUsable(series, resolution) && pyramid.isAvailable(resolution))
+            return true;
+
+        return importer.isResolutionAvailable(series, resolution);
+    }
+
+    @Override
+    public IcyBufferedImage getThumbnail(int series) throws UnsupportedFormatException, IOException
+    {
+        // use pyramid only when complete so we get the smallest level
+        if (pyramid.isComplete() && isPyramidUsable(series, 1))
+            return super.getThumbnail(series);
+
+        return importer.getThumbnail(series);
+    }
+
+    @Override
+    public Object getPixels(int series, int resolution, Rectangle region, int z, int t, int c)
+            throws UnsupportedFormatException, IOException
+    {
+        if (isPyramidUsable(series, resolution))
+        {
+            final Object result = pyramid.getPixels(resolution, region, z, t, c);
+
+            if (result != null)
+                return result;
+        }
+
+        return importer.getPixels(series, resolution, region, z, t, c);
+    }
+
+    @Override
+    public IcyBufferedImage getImage(int series, int resolution, Rectangle region, int z, int t, int c)
+            throws UnsupportedFormatException, IOException
+    {
+        if (isPyramidUsable(series, resolution))
+        {
+            final OMEXMLMetadata meta = importer.getOMEXMLMetaData();
+            final Rectangle imageRegion = new Rectangle(0, 0, MetaDataUtil.getSizeX(meta, series),
+                    MetaDataUtil.getSizeY(meta, series));
+            final Rectangle adjRegion;
+
+            if (region == null)
+                adjRegion = imageRegion;
+            else
+                adjRegion = region.intersection(imageRegion);
+
+            final int minC = (c == -1) ? 0 : c;
+            final int maxC = (c == -1) ? MetaDataUtil.getSizeC(meta, series) - 1 : c;
+            final Object[] datas = new Object[(maxC - minC) + 1];
+
+            for (int ch = minC; ch <= maxC; ch++)
+            {
+                final Object data = pyramid.getPixels(resolution, adjRegion, z, t, ch);
+
+                // not available --> use importer
+                if (data == null)
+                    return importer.getImage(series, resolution, region, z, t, c);
+
+                datas[ch - minC] = data;
+            }
+
+            final int divider = (int) Math.pow(2, resolution);
+
+            return new IcyBufferedImage(adjRegion.width / divider, adjRegion.height / divider, datas,
+                    MetaDataUtil.getDataType(meta, series).isSigned());
+        }
+
+        return importer.getImage(series, resolution, region, z, t, c);
+    }
+}
@@ -18,40 +18,55 @@
  */
 package icy.file;
 
+import icy.common.exception.UnsupportedFormatException;
+import icy.common.listener.ProgressListener;
 import icy.gui.frame.progress.FailedAnnounceFrame;
 import icy.gui.frame.progress.FileFrame;
 import icy.gui.menu.ApplicationMenu;
+import icy.image.AbstractImageProvider;
 import icy.image.IcyBufferedImage;
 import icy.image.IcyBufferedImageUtil;
+import icy.image.ImageProvider;
+import icy.image.ImageUtil;
 import icy.image.colormodel.IcyColorModel;
 import icy.image.lut.LUT;
 import icy.main.Icy;
+import icy.math.Scaler;
 import icy.painter.Overlay;
 import icy.preferences.GeneralPreferences;
 import icy.roi.ROI;
 import icy.sequence.MetaDataUtil;
 import icy.sequence.Sequence;
+import icy.sequence.SequenceIdImporter;
 import icy.system.IcyExceptionHandler;
 import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+import icy.type.collection.array.ArrayUtil;
+import icy.type.collection.array.ByteArrayConvert;
 import icy.util.OMEUtil;
 import icy.util.StringUtil;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.List;
 
 import loci.common.services.ServiceException;
 import loci.formats.FormatException;
 import loci.formats.IFormatWriter;
 import loci.formats.UnknownFormatException;
 import loci.formats.meta.MetadataRetrieve;
+import loci.formats.ome.OMEXMLMetadataImpl;
 import loci.formats.out.APNGWriter;
 import loci.formats.out.AVIWriter;
 import loci.formats.out.JPEG2000Writer;
 import loci.formats.out.JPEGWriter;
 import loci.formats.out.OMETiffWriter;
 import loci.formats.out.TiffWriter;
+import loci.formats.tiff.IFD;
 import ome.xml.meta.OMEXMLMetadata;
 
 /**
@@ -1143,6 +1158,304 @@ public class Saver
         return compatibleSequence;
     }
 
+    /**
+     * Used to read tiles from an in memory Sequence for streaming export.
+     *
+     * @author Stephane
+     */
+    private static class SequenceImageProvider extends AbstractImageProvider
+    {
+        final Sequence sequence;
+
+        public SequenceImageProvider(Sequence sequence)
+        {
+            super();
+
+            this.sequence = sequence;
+        }
+
+        @Override
+        public OMEXMLMetadata getOMEXMLMetaData()
+        {
+            return sequence.getOMEXMLMetadata();
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public OMEXMLMetadataImpl getMetaData()
+        {
+            return sequence.getMetadata();
+        }
+
+        @Override
+        public IcyBufferedImage getImage(int series, int resolution, Rectangle rectangle, int z, int t, int c)
+        {
+            final IcyBufferedImage image = sequence.getImage(t, z);
+            final Rectangle region = (rectangle == null) ? sequence.getBounds2D() : rectangle;
+            final int sizeC = (c == -1) ? sequence.getSizeC() : 1;
+
+            // empty image
+            if (image == null)
+            {
+                final int divider = (int) Math.pow(2, resolution);
+
+                return new IcyBufferedImage(region.width / divider, region.height / divider, sizeC,
+                        sequence.getDataType_());
+            }
+
+            return IcyBufferedImageUtil.downscaleBy2(
+                    IcyBufferedImageUtil.getSubImage(image, region, (c == -1) ? 0 : c, sizeC), true, resolution);
+        }
+    }
+
+    /**
+     * Tile size used for streaming export (see
+     * {@link #saveRegion(ImageProvider, int, int, Rectangle, int, int, int, int, DataType, Scaler[], LUT, File, ProgressListener)}
+     * ).
+     */
+    public static final int EXPORT_TILE_SIZE = 512;
+
+    /**
+     * Save a region of the specified image as a tiled BigTIFF file.<br>
+     * Data is pulled tile by tile from the image provider, converted on the fly and written incrementally so the whole
+     * image is never loaded in memory (this is the way to export a part or a sub resolution of an image too large to
+     * be opened as a {@link Sequence}).
+     *
+     * @param provider
+     *        image provider to read data from (should be opened for {@link SequenceIdImporter})
+     * @param series
+     *        series index (use 0 if unsure)
+     * @param resolution
+     *        wanted resolution level (0 = original resolution, 1 = resolution / 2, ...)
+     * @param region
+     *        the 2D region to export (considering the original image resolution), <code>null</code> for whole image
+     * @param zMin
+     *        first slice to export (-1 = first slice)
+     * @param zMax
+     *        last slice to export (-1 = last slice)
+     * @param tMin
+     *        first frame to export (-1 = first frame)
+     * @param tMax
+     *        last frame to export (-1 = last frame)
+     * @param dataType
+     *        wanted data type for saved image (<code>null</code> to keep original data type), not used if
+     *        <code>lut</code> is defined
+     * @param scalers
+     *        scalers used to convert channel values to the wanted data type (1 scaler per channel).<br>
+     *        Can be set to <code>null</code> to avoid value conversion.
+     * @param lut
+     *        if defined then image is converted in RGB (byte data) using this LUT
+     * @param file
+     *        destination file
+     * @param listener
+     *        progression listener (can be <code>null</code>), export is interrupted if cancel is requested
+     */
+    public static void saveRegion(ImageProvider provider, int series, int resolution, Rectangle region, int zMin,
+            int zMax, int tMin, int tMax, DataType dataType, Scaler[] scalers, LUT lut, File file,
+            ProgressListener listener) throws UnsupportedFormatException, ServiceException, FormatException,
+            IOException
+    {
+        final OMEXMLMetadata srcMeta = provider.getOMEXMLMetaData();
+        final int srcSizeX = MetaDataUtil.getSizeX(srcMeta, series);
+        final int srcSizeY = MetaDataUtil.getSizeY(srcMeta, series);
+        final int srcSizeC = MetaDataUtil.getSizeC(srcMeta, series);
+        final int srcSizeZ = MetaDataUtil.getSizeZ(srcMeta, series);
+        final int srcSizeT = MetaDataUtil.getSizeT(srcMeta, series);
+        final DataType srcDataType = MetaDataUtil.getDataType(srcMeta, series);
+
+        // define XY region to export
+        Rectangle adjRegion = new Rectangle(srcSizeX, srcSizeY);
+        if (region != null)
+            adjRegion = adjRegion.intersection(region);
+
+        final int divider = (int) Math.pow(2, resolution);
+        final int sizeX = adjRegion.width / divider;
+        final int sizeY = adjRegion.height / divider;
+        final int adjZMin = Math.max(0, zMin);
+        final int adjZMax = (zMax < 0) ? srcSizeZ - 1 : Math.min(zMax, srcSizeZ - 1);
+        final int adjTMin = Math.max(0, tMin);
+        final int adjTMax = (tMax < 0) ? srcSizeT - 1 : Math.min(tMax, srcSizeT - 1);
+
+        if ((sizeX <= 0) || (sizeY <= 0) || (adjZMin > adjZMax) || (adjTMin > adjTMax))
+            throw new IllegalArgumentException("Saver.saveRegion(...) error: empty region to export.");
+
+        final boolean rgb = (lut != null);
+        final DataType outDataType = rgb ? DataType.UBYTE : ((dataType == null) ? srcDataType : dataType);
+        final int sizeC = rgb ? 3 : srcSizeC;
+        // RGB is saved interleaved, others channels are saved in separated planes
+        final OMEXMLMetadata metadata = OMEUtil.generateMetaData(sizeX, sizeY, sizeC, (adjZMax - adjZMin) + 1,
+                (adjTMax - adjTMin) + 1, outDataType, !rgb);
+
+        // preserve pixel size (adapted to resolution)
+        MetaDataUtil.setPixelSizeX(metadata, 0, MetaDataUtil.getPixelSizeX(srcMeta, series, 1d) * divider);
+        MetaDataUtil.setPixelSizeY(metadata, 0, MetaDataUtil.getPixelSizeY(srcMeta, series, 1d) * divider);
+        MetaDataUtil.setPixelSizeZ(metadata, 0, MetaDataUtil.getPixelSizeZ(srcMeta, series, 1d));
+
+        // first delete the file else LOCI won't save it correctly
+        if (file.exists())
+            file.delete();
+        // ensure parent directory exist
+        FileUtil.ensureParentDirExist(file);
+
+        final TiffWriter writer = new TiffWriter();
+
+        // always use big tiff as we may export very large image (important to do it before setId(..) call)
+        writer.setBigTiff(true);
+        writer.setMetadataRetrieve((MetadataRetrieve) metadata);
+        writer.setInterleaved(rgb);
+        writer.setId(file.getAbsolutePath());
+        writer.setSeries(0);
+        // needed for incremental tile writing
+        writer.setWriteSequentially(true);
+
+        // get endianess
+        final boolean littleEndian = !writer.getMetadataRetrieve().getPixelsBinDataBigEndian(0, 0).booleanValue();
+        // tiles description
+        final IFD ifd = new IFD();
+        ifd.put(Integer.valueOf(IFD.TILE_WIDTH), Long.valueOf(EXPORT_TILE_SIZE));
+        ifd.put(Integer.valueOf(IFD.TILE_LENGTH), Long.valueOf(EXPORT_TILE_SIZE));
+
+        final Rectangle bounds = new Rectangle(sizeX, sizeY);
+        final List<Rectangle> tiles = ImageUtil.getTileList(bounds, EXPORT_TILE_SIZE, EXPORT_TILE_SIZE);
+        final double numStep = (double) ((adjTMax - adjTMin) + 1) * ((adjZMax - adjZMin) + 1) * (rgb ? 1 : sizeC)
+                * tiles.size();
+        double step = 0d;
+
+        try
+        {
+            // tile buffer (reused while tile size doesn't change)
+            byte[] data = null;
+            int imageIndex = 0;
+            // XYCZT order is important here (see metadata)
+            for (int t = adjTMin; t <= adjTMax; t++)
+            {
+                for (int z = adjZMin; z <= adjZMax; z++)
+                {
+                    for (int c = 0; c < (rgb ? 1 : sizeC); c++)
+                    {
+                        for (Rectangle tile : tiles)
+                        {
+                            // interrupt process (partial save)
+                            if ((listener != null) && !listener.notifyProgress(step, numStep))
+                                return;
+
+                            final Rectangle adjTile = tile.intersection(bounds);
+                            // tile region in original resolution
+                            final Rectangle srcTile = new Rectangle(adjRegion.x + (adjTile.x * divider), adjRegion.y
+                                    + (adjTile.y * divider), adjTile.width * divider, adjTile.height * divider);
+
+                            if (rgb)
+                                data = getRGBTileData(provider.getImage(series, resolution, srcTile, z, t), adjTile,
+                                        lut, data);
+                            else
+                                data = getTileData(provider.getPixels(series, resolution, srcTile, z, t, c),
+                                        srcDataType, outDataType, ((scalers != null) && (c < scalers.length))
+                                                ? scalers[c] : null, littleEndian, data);
+
+                            writer.saveBytes(imageIndex, data, ifd, adjTile.x, adjTile.y, adjTile.width,
+                                    adjTile.height);
+
+                            step++;
+                        }
+
+                        imageIndex++;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            // always close writer after a file has been saved
+            writer.close();
+        }
+    }
+
+    /**
+     * Save a region of the specified sequence as a tiled BigTIFF file.<br>
+     * Unlike {@link #save(Sequence, File)} this method doesn't create any converted copy of the sequence, data is
+     * converted and written tile by tile.
+     *
+     * @see #saveRegion(ImageProvider, int, int, Rectangle, int, int, int, int, DataType, Scaler[], LUT, File,
+     *      ProgressListener)
+     */
+    public static void saveRegion(Sequence sequence, int resolution, Rectangle region, int zMin, int zMax, int tMin,
+            int tMax, DataType dataType, Scaler[] scalers, LUT lut, File file, ProgressListener listener)
+            throws ServiceException, FormatException, IOException
+    {
+        try
+        {
+            saveRegion(new SequenceImageProvider(sequence), 0, resolution, region, zMin, zMax, tMin, tMax, dataType,
+                    scalers, lut, file, listener);
+        }
+        catch (UnsupportedFormatException e)
+        {
+            // should never happen here
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Returns a buffer of the given size, <code>out</code> is reused when it has the exact wanted size (as
+     * saveBytes(..) expects it).
+     */
+    private static byte[] getTileBuffer(byte[] out, int size)
+    {
+        if ((out != null) && (out.length == size))
+            return out;
+
+        return new byte[size];
+    }
+
+    /**
+     * Convert tile pixels to the wanted data type and returns it as raw data.
+     */
+    private static byte[] getTileData(Object pixels, DataType srcDataType, DataType dstDataType, Scaler scaler,
+            boolean littleEndian, byte[] out)
+    {
+        final Object data;
+
+        // no rescale ?
+        if ((scaler == null) || scaler.isNull())
+        {
+            if (srcDataType == dstDataType)
+                data = pixels;
+            else
+                // simple type change
+                data = ArrayUtil.arrayToSafeArray(pixels,
+                        Array1DUtil.createArray(dstDataType, ArrayUtil.getLength(pixels)), srcDataType.isSigned(),
+                        dstDataType.isSigned());
+        }
+        else
+            // scale and convert in wanted datatype (single pass)
+            data = Array1DUtil.arrayToSafeArray(pixels,
+                    Array1DUtil.createArray(dstDataType, ArrayUtil.getLength(pixels)), scaler, srcDataType.isSigned(),
+                    dstDataType.isSigned());
+
+        return ByteArrayConvert.toByteArray(data, 0,
+                getTileBuffer(out, ArrayUtil.getLength(data) * dstDataType.getSize()), 0, littleEndian);
+    }
+
+    /**
+     * Convert tile image to RGB using given LUT and returns it as interleaved raw data.
+     */
+    private static byte[] getRGBTileData(IcyBufferedImage image, Rectangle tile, LUT lut, byte[] out)
+    {
+        final BufferedImage rgbImage = IcyBufferedImageUtil.toBufferedImage(image, new BufferedImage(tile.width,
+                tile.height, BufferedImage.TYPE_INT_RGB), lut);
+        final int[] rgb = ((DataBufferInt) rgbImage.getRaster().getDataBuffer()).getData();
+        final byte[] result = getTileBuffer(out, rgb.length * 3);
+
+        int offset = 0;
+        for (int value : rgb)
+        {
+            result[offset++] = (byte) (value >> 16);
+            result[offset++] = (byte) (value >> 8);
+            result[offset++] = (byte) value;
+        }
+
+        return result;
+    }
+
     /**
      * Returns a compatible Sequence representing the input sequence so it can be saved with the specified writer.<br>
      * If the writer support the input sequence then the input sequence is directly returned.
@@ -18,14 +18,20 @@
  */
 package icy.file;
 
+import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.filechooser.FileFilter;
 
@@ -41,8 +47,11 @@ import icy.image.ImageUtil;
 import icy.image.colormap.IcyColorMap;
 import icy.sequence.MetaDataUtil;
 import icy.system.IcyExceptionHandler;
+import icy.system.SystemUtil;
+import icy.system.thread.Processor;
 import icy.type.collection.CollectionUtil;
 import icy.type.collection.array.Array1DUtil;
+import icy.type.collection.array.ArrayUtil;
 import icy.util.OMEUtil;
 import icy.util.StringUtil;
 import loci.formats.FormatTools;
@@ -94,6 +103,63 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
         }
     }
 
+    /**
+     * Identify a decoded tile image (full image of a tile file) in the tile cache
+     */
+    static class TileKey
+    {
+        final String path;
+        final int series;
+        final int resolution;
+        final int z;
+        final int t;
+        final int c;
+        private final int hc;
+
+        public TileKey(String path, int series, int resolution, int z, int t, int c)
+        {
+            super();
+
+            this.path = path;
+            this.series = series;
+            this.resolution = resolution;
+            this.z = z;
+            this.t = t;
+            this.c = c;
+
+            hc = path.hashCode() ^ (series << 24) ^ (resolution << 20) ^ (z << 12) ^ (t << 4) ^ c;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hc;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (obj instanceof TileKey)
+            {
+                final TileKey key = (TileKey) obj;
+
+                return path.equals(key.path) && (series == key.series) && (resolution == key.resolution)
+                        && (z == key.z) && (t == key.t) && (c == key.c);
+            }
+
+            return super.equals(obj);
+        }
+    }
+
+    /**
+     * Maximum number of tile files read in parallel for a stitched image
+     */
+    public static final int MAX_TILE_FETCH = 8;
+    /**
+     * Maximum size (in bytes) of the recently decoded tiles cache
+     */
+    public static final long TILE_CACHE_MAX_SIZE = 64L * 1024L * 1024L;
+
     protected SequenceFileGroup currentGroup;
     protected OMEXMLMetadata currentMetadata;
     // position index array (stored in XYZTC order) to quickly find an image given its (XY)ZTC position
@@ -112,6 +178,15 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
      * Shared importer for multi threading
      */
     protected final Map<String, SequenceFileImporter> importersPool;
+    /**
+     * Recently decoded tiles (LRU order) to speed up panning in stitched image
+     */
+    protected final LinkedHashMap<TileKey, Object> tileCache;
+    protected long tileCacheSize;
+    /**
+     * Processor used to fetch tiles in parallel
+     */
+    protected Processor tileProcessor;
 
     public SequenceFileGroupImporter()
     {
@@ -120,6 +195,9 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
         currentGroup = null;
         currentMetadata = null;
         importersPool = new HashMap<String, SequenceFileImporter>();
+        tileCache = new LinkedHashMap<TileKey, Object>(16, 0.75f, true);
+        tileCacheSize = 0L;
+        tileProcessor = null;
     }
 
     @Override
@@ -405,6 +483,20 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
         return new FileCursor(positions[idInd], idInd, internalZ, internalT, internalC);
     }
 
+    /**
+     * Returns the specified region (contained in a single tile) in tile image coordinates.
+     */
+    protected Rectangle getTileLocalRegion(Rectangle region)
+    {
+        final SequenceType baseType = currentGroup.ident.baseType;
+        final Rectangle result = new Rectangle(region);
+
+        result.translate(-((region.x / baseType.sizeX) * baseType.sizeX),
+                -((region.y / baseType.sizeY) * baseType.sizeY));
+
+        return result;
+    }
+
     /**
      * @return all required TileIndex for the given XY region
      */
@@ -476,6 +568,16 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
     public void close() throws IOException
     {
         closeInternalsImporters();
+        clearTileCache();
+
+        synchronized (this)
+        {
+            if (tileProcessor != null)
+            {
+                tileProcessor.shutdownNow();
+                tileProcessor = null;
+            }
+        }
 
         // release position indexes array
         positions = null;
@@ -746,6 +848,146 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
         }
     }
 
+    /**
+     * Clear the decoded tiles cache
+     */
+    public void clearTileCache()
+    {
+        synchronized (tileCache)
+        {
+            tileCache.clear();
+            tileCacheSize = 0L;
+        }
+    }
+
+    protected Object getCachedTile(TileKey key)
+    {
+        synchronized (tileCache)
+        {
+            return tileCache.get(key);
+        }
+    }
+
+    protected static long getTileSize(Object pixels)
+    {
+        return (long) ArrayUtil.getLength(pixels) * ArrayUtil.getDataType(pixels).getSize();
+    }
+
+    protected void putCachedTile(TileKey key, Object pixels)
+    {
+        final long size = getTileSize(pixels);
+
+        // don't keep big tiles
+        if (size > (TILE_CACHE_MAX_SIZE / 4))
+            return;
+
+        synchronized (tileCache)
+        {
+            final Object old = tileCache.put(key, pixels);
+
+            if (old != null)
+                tileCacheSize -= getTileSize(old);
+            tileCacheSize += size;
+
+            // remove least recently used tiles
+            final Iterator<Object> it = tileCache.values().iterator();
+            while ((tileCacheSize > TILE_CACHE_MAX_SIZE) && it.hasNext())
+            {
+                tileCacheSize -= getTileSize(it.next());
+                it.remove();
+            }
+        }
+    }
+
+    protected synchronized Processor getTileProcessor()
+    {
+        if (tileProcessor == null)
+        {
+            tileProcessor = new Processor(-1, Math.max(1, Math.min(SystemUtil.getNumberOfCPUs(), MAX_TILE_FETCH)));
+            tileProcessor.setThreadName("Group importer tile reader");
+        }
+
+        return tileProcessor;
+    }
+
+    /**
+     * Read the given tile and copy it in the destination buffer (internal use only).<br>
+     * Tiles small enough to be cached are entirely read and kept in the tile cache, for larger
+     * tiles we only read the wanted part.
+     */
+    void readTile(TileIndex tile, FileCursor cursor, int series, int resolution, Rectangle region, Object result,
+            Rectangle finalRegion) throws UnsupportedFormatException, IOException
+    {
+        final SequenceType baseType = currentGroup.ident.baseType;
+        final SequencePosition pos = positions[cursor.index + tile.index];
+        // adjusted tile region
+        final Rectangle tileRegion = tile.region.intersection(region);
+        // same region in tile image coordinates
+        final Rectangle localRegion = getTileLocalRegion(tileRegion);
+        // tile region (wanted resolution)
+        final Rectangle finalTileRegion = new Rectangle(tileRegion.x >> resolution, tileRegion.y >> resolution,
+                tileRegion.width >> resolution, tileRegion.height >> resolution);
+        final Dimension tileDim = new Dimension(baseType.sizeX >> resolution, baseType.sizeY >> resolution);
+        // same limit than putCachedTile(..)
+        final boolean cacheable = ((long) tileDim.width * tileDim.height
+                * baseType.dataType.getSize()) <= (TILE_CACHE_MAX_SIZE / 4);
+        final Dimension srcDim;
+        final Rectangle srcRegion;
+        Object pixels = null;
+
+        if (cacheable)
+        {
+            TileKey key = null;
+
+            if (pos != null)
+            {
+                key = new TileKey(pos.getPath(), series, resolution, cursor.internalZ, cursor.internalT,
+                        cursor.internalC);
+                pixels = getCachedTile(key);
+            }
+
+            // not in cache ? --> read the whole tile image
+            if (pixels == null)
+            {
+                pixels = getPixelsInternal(pos, series, resolution,
+                        new Rectangle(0, 0, baseType.sizeX, baseType.sizeY), cursor.internalZ, cursor.internalT,
+                        cursor.internalC);
+
+                // cannot retrieve pixels for this tile ? --> ignore
+                if (pixels == null)
+                    return;
+
+                putCachedTile(key, pixels);
+            }
+
+            // source region in whole tile image
+            srcDim = tileDim;
+            srcRegion = new Rectangle(localRegion.x >> resolution, localRegion.y >> resolution,
+                    finalTileRegion.width, finalTileRegion.height);
+        }
+        else
+        {
+            // big tile --> only read the part we want
+            pixels = getPixelsInternal(pos, series, resolution, localRegion, cursor.internalZ, cursor.internalT,
+                    cursor.internalC);
+
+            // cannot retrieve pixels for this tile ? --> ignore
+            if (pixels == null)
+                return;
+
+            srcDim = new Dimension(localRegion.width >> resolution, localRegion.height >> resolution);
+            srcRegion = new Rectangle(0, 0, finalTileRegion.width, finalTileRegion.height);
+        }
+
+        // destination
+        final Point pt = finalTileRegion.getLocation();
+        pt.translate(-finalRegion.x, -finalRegion.y);
+
+        // copy tile to result (tiles don't overlap so we can do it concurrently)
+        Array1DUtil.copyRect(pixels, srcDim, srcRegion, result, finalRegion.getSize(), pt,
+                baseType.dataType.isSigned());
+    }
+
     @Override
     public Object getPixels(int series, int resolution, Rectangle rectangle, int z, int t, int c)
             throws UnsupportedFormatException, IOException
@@ -766,10 +1008,10 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
         final FileCursor cursor = getCursor(z, t, c);
         final List<TileIndex> tiles = getTileIndexes(region);
 
-        // single tile ?
+        // single tile ? (region given in tile image coordinates)
         if (tiles.size() == 1)
-            return getPixelsInternal(positions[cursor.index + tiles.get(0).index], series, resolution, region,
-                    cursor.internalZ, cursor.internalT, cursor.internalC);
+            return getPixelsInternal(positions[cursor.index + tiles.get(0).index], series, resolution,
+                    getTileLocalRegion(region), cursor.internalZ, cursor.internalT, cursor.internalC);
 
         // define XY region to load (wanted resolution)
         final Rectangle finalRegion = new Rectangle(region.x >> resolution, region.y >> resolution,
@@ -777,33 +1019,56 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
 
         // multiple tiles, create result buffer
         final Object result = Array1DUtil.createArray(baseType.dataType, finalRegion.width * finalRegion.height);
-        final boolean signed = baseType.dataType.isSigned();
-        // deltas to put tile to region origin
-        final int dx = -finalRegion.x;
-        final int dy = -finalRegion.y;
+        final Rectangle adjRegion = region;
+        final int s = series;
+        final int r = resolution;
+        final Processor processor = getTileProcessor();
+        final List<Future<Object>> futures = new ArrayList<Future<Object>>(tiles.size());
+
+        // each tile represent a single image, read them in parallel
+        for (final TileIndex tile : tiles)
+        {
+            futures.add(processor.submit(new Callable<Object>()
+            {
+                @Override
+                public Object call() throws Exception
+                {
+                    readTile(tile, cursor, s, r, adjRegion, result, finalRegion);
+                    return null;
+                }
+            }));
+        }
 
-        // each tile represent a single image
-        for (TileIndex tile : tiles)
+        // wait for completion
+        try
         {
-            // adjusted tile region
-            final Rectangle tileRegion = tile.region.intersection(region);
-            // get tile pixels
-            final Object pixels = getPixelsInternal(positions[cursor.index + tile.index], series, resolution,
-                    tileRegion, cursor.internalZ, cursor.internalT, cursor.internalC);
+            for (Future<Object> future : futures)
+                future.get();
+        }
+        catch (InterruptedException e)
+        {
+            // cancel remaining tasks
+            for (Future<Object> future : futures)
+                future.cancel(true);
 
-            // cannot retrieve pixels for this tile ? --> ignore
-            if (pixels == null)
-                continue;
+            throw new IOException("Tiles reading interrupted");
+        }
+        catch (ExecutionException e)
+        {
+            // cancel remaining tasks
+            for (Future<Object> future : futures)
+                future.cancel(true);
 
-            // tile region (wanted resolution)
-            final Rectangle finalTileRegion = new Rectangle(tileRegion.x >> resolution, tileRegion.y >> resolution,
-                    tileRegion.width >> resolution, tileRegion.height >> resolution);
-            // destination
-            final Point pt = finalTileRegion.getLocation();
-            pt.translate(dx, dy);
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof UnsupportedFormatException)
+                throw (UnsupportedFormatException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
 
-            // copy tile to result
-            Array1DUtil.copyRect(pixels, finalTileRegion.getSize(), null, result, finalRegion.getSize(), pt, signed);
+            throw new IOException(cause);
         }
 
         // return full region pixels object
@@ -864,10 +1129,10 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
         final FileCursor cursor = getCursor(z, t, c);
         final List<TileIndex> tiles = getTileIndexes(region);
 
-        // single tile ?
+        // single tile ? (region given in tile image coordinates)
         if (tiles.size() == 1)
-            return getImageInternal(positions[cursor.index + tiles.get(0).index], series, resolution, region,
-                    cursor.internalZ, cursor.internalT, cursor.internalC);
+            return getImageInternal(positions[cursor.index + tiles.get(0).index], series, resolution,
+                    getTileLocalRegion(region), cursor.internalZ, cursor.internalT, cursor.internalC);
 
         // define XY region to load (wanted resolution)
         final Rectangle finalRegion = new Rectangle(region.x >> resolution, region.y >> resolution,
@@ -887,9 +1152,11 @@ public class SequenceFileGroupImporter extends AbstractImageProvider implements
         {
             // adjusted tile region
             final Rectangle tileRegion = tile.region.intersection(region);
+            // same region in tile image coordinates
+            final Rectangle localRegion = getTileLocalRegion(tileRegion);
             // get tile pixels
             final IcyBufferedImage image = getImageInternal(positions[cursor.index + tile.index], series, resolution,
-                    tileRegion, cursor.internalZ, cursor.internalT, cursor.internalC);
+                    localRegion, cursor.internalZ, cursor.internalT, cursor.internalC);
 
             // cannot retrieve pixels for this tile ? --> ignore
             if (image == null)
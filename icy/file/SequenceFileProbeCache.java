@@ -0,0 +1,342 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.file;
+
+import icy.file.SequenceFileSticher.SequenceType;
+import icy.main.Icy;
+import icy.plugin.PluginDescriptor;
+import icy.plugin.PluginLauncher;
+import icy.plugin.PluginLoader;
+import icy.preferences.ApplicationPreferences;
+import icy.type.DataType;
+import icy.util.StringUtil;
+import icy.util.XMLUtil;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Persistent cache of image file probe results used by {@link SequenceFileSticher}.<br>
+ * For each probed file we store the importer which successfully opened it and the image type
+ * (dimensions, data type, pixel size...) so re-opening the same dataset doesn't require to open
+ * each file again.<br>
+ * An entry is identified by the file path, size and last modification date.
+ */
+public class SequenceFileProbeCache
+{
+    /**
+     * Change it when cache format change.
+     */
+    public static final int CACHE_VERSION = 1;
+    public static final String CACHE_FILENAME = "file_probe.xml";
+    /**
+     * Maximum number of entries kept in the cache (oldest entries are removed first).
+     */
+    public static final int MAX_ENTRIES = 100000;
+
+    static final String ID_VERSION = "version";
+    static final String ID_KERNEL_VERSION = "kernelVersion";
+    static final String ID_FILE = "file";
+    static final String ID_PATH = "path";
+    static final String ID_SIZE = "size";
+    static final String ID_MODIFIED = "modified";
+    static final String ID_IMPORTER = "importer";
+    static final String ID_SIZE_X = "sizeX";
+    static final String ID_SIZE_Y = "sizeY";
+    static final String ID_SIZE_Z = "sizeZ";
+    static final String ID_SIZE_T = "sizeT";
+    static final String ID_SIZE_C = "sizeC";
+    static final String ID_DATATYPE = "dataType";
+    static final String ID_PIXELSIZE_X = "pixelSizeX";
+    static final String ID_PIXELSIZE_Y = "pixelSizeY";
+    static final String ID_PIXELSIZE_Z = "pixelSizeZ";
+    static final String ID_TIME_INTERVAL = "timeInterval";
+
+    /**
+     * Cached probe result for a file.
+     */
+    public static class ProbeEntry
+    {
+        final String path;
+        final long size;
+        final long modified;
+        /**
+         * class name of the importer which opened the file
+         */
+        public final String importerClassName;
+        /**
+         * image type read from file metadata
+         */
+        final SequenceType type;
+
+        ProbeEntry(String path, long size, long modified, String importerClassName, SequenceType type)
+        {
+            super();
+
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.importerClassName = importerClassName;
+            this.type = type;
+        }
+
+        ProbeEntry(Element node)
+        {
+            super();
+
+            path = XMLUtil.getAttributeValue(node, ID_PATH, "");
+            size = XMLUtil.getAttributeLongValue(node, ID_SIZE, -1L);
+            modified = XMLUtil.getAttributeLongValue(node, ID_MODIFIED, -1L);
+            importerClassName = XMLUtil.getAttributeValue(node, ID_IMPORTER, "");
+            type = new SequenceType();
+            type.sizeX = XMLUtil.getAttributeIntValue(node, ID_SIZE_X, 0);
+            type.sizeY = XMLUtil.getAttributeIntValue(node, ID_SIZE_Y, 0);
+            type.sizeZ = XMLUtil.getAttributeIntValue(node, ID_SIZE_Z, 0);
+            type.sizeT = XMLUtil.getAttributeIntValue(node, ID_SIZE_T, 0);
+            type.sizeC = XMLUtil.getAttributeIntValue(node, ID_SIZE_C, 0);
+            type.dataType = DataType.getDataType(XMLUtil.getAttributeValue(node, ID_DATATYPE, ""));
+            type.pixelSizeX = XMLUtil.getAttributeDoubleValue(node, ID_PIXELSIZE_X, 0d);
+            type.pixelSizeY = XMLUtil.getAttributeDoubleValue(node, ID_PIXELSIZE_Y, 0d);
+            type.pixelSizeZ = XMLUtil.getAttributeDoubleValue(node, ID_PIXELSIZE_Z, 0d);
+            type.timeInterval = XMLUtil.getAttributeDoubleValue(node, ID_TIME_INTERVAL, 0d);
+            type.computeHashCode();
+        }
+
+        void saveToXML(Element node)
+        {
+            XMLUtil.setAttributeValue(node, ID_PATH, path);
+            XMLUtil.setAttributeLongValue(node, ID_SIZE, size);
+            XMLUtil.setAttributeLongValue(node, ID_MODIFIED, modified);
+            XMLUtil.setAttributeValue(node, ID_IMPORTER, importerClassName);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_X, type.sizeX);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_Y, type.sizeY);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_Z, type.sizeZ);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_T, type.sizeT);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_C, type.sizeC);
+            XMLUtil.setAttributeValue(node, ID_DATATYPE, type.dataType.toString(false));
+            XMLUtil.setAttributeDoubleValue(node, ID_PIXELSIZE_X, type.pixelSizeX);
+            XMLUtil.setAttributeDoubleValue(node, ID_PIXELSIZE_Y, type.pixelSizeY);
+            XMLUtil.setAttributeDoubleValue(node, ID_PIXELSIZE_Z, type.pixelSizeZ);
+            XMLUtil.setAttributeDoubleValue(node, ID_TIME_INTERVAL, type.timeInterval);
+        }
+
+        /**
+         * Returns a copy of the cached image type (so the cached one cannot be modified).
+         */
+        public SequenceType getType()
+        {
+            final SequenceType result = new SequenceType();
+
+            result.sizeX = type.sizeX;
+            result.sizeY = type.sizeY;
+            result.sizeZ = type.sizeZ;
+            result.sizeT = type.sizeT;
+            result.sizeC = type.sizeC;
+            result.dataType = type.dataType;
+            result.pixelSizeX = type.pixelSizeX;
+            result.pixelSizeY = type.pixelSizeY;
+            result.pixelSizeZ = type.pixelSizeZ;
+            result.timeInterval = type.timeInterval;
+            result.computeHashCode();
+
+            return result;
+        }
+
+        /**
+         * Returns a new instance of the importer which opened the file (<code>null</code> if the
+         * importer plugin is not anymore available).
+         */
+        public SequenceFileImporter createImporter()
+        {
+            final PluginDescriptor plugin = PluginLoader.getPlugin(importerClassName);
+
+            if ((plugin == null) || !plugin.isInstanceOf(SequenceFileImporter.class))
+                return null;
+
+            try
+            {
+                return (SequenceFileImporter) PluginLauncher.create(plugin);
+            }
+            catch (Throwable t)
+            {
+                // can't create it
+                return null;
+            }
+        }
+
+        boolean isValid()
+        {
+            return !StringUtil.isEmpty(path) && !StringUtil.isEmpty(importerClassName) && (type.dataType != null);
+        }
+
+        /**
+         * Returns <code>true</code> if this entry still describes the specified file.
+         */
+        public boolean isUpToDate(File file)
+        {
+            return (file.length() == size) && (file.lastModified() == modified);
+        }
+    }
+
+    private static SequenceFileProbeCache instance = null;
+
+    /**
+     * Returns the probe cache (loaded from disk on first call).
+     */
+    public static synchronized SequenceFileProbeCache getInstance()
+    {
+        if (instance == null)
+            instance = load();
+
+        return instance;
+    }
+
+    /**
+     * Returns the cache file path.
+     */
+    public static String getCacheFilePath()
+    {
+        return FileUtil.getGenericPath(ApplicationPreferences.getCachePath() + FileUtil.separator + CACHE_FILENAME);
+    }
+
+    private static SequenceFileProbeCache load()
+    {
+        final SequenceFileProbeCache result = new SequenceFileProbeCache();
+        final String path = getCacheFilePath();
+
+        if (!FileUtil.exists(path))
+            return result;
+
+        final Document doc = XMLUtil.loadDocument(path, false);
+        if (doc == null)
+            return result;
+
+        final Element root = XMLUtil.getRootElement(doc);
+        // incompatible cache --> ignore it
+        if ((root == null) || (XMLUtil.getAttributeIntValue(root, ID_VERSION, 0) != CACHE_VERSION)
+                || !StringUtil.equals(XMLUtil.getAttributeValue(root, ID_KERNEL_VERSION, ""), Icy.version.toString()))
+            return result;
+
+        for (Element fileNode : XMLUtil.getElements(root, ID_FILE))
+        {
+            final ProbeEntry entry = new ProbeEntry(fileNode);
+
+            if (entry.isValid())
+                result.entries.put(entry.path, entry);
+        }
+
+        return result;
+    }
+
+    final Map<String, ProbeEntry> entries;
+    boolean changed;
+
+    SequenceFileProbeCache()
+    {
+        super();
+
+        // use access order so we remove the least recently used entries first
+        entries = new LinkedHashMap<String, ProbeEntry>(1024, 0.75f, true)
+        {
+            /**
+             * 
+             */
+            private static final long serialVersionUID = 5290375306212349813L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ProbeEntry> eldest)
+            {
+                return size() > MAX_ENTRIES;
+            }
+        };
+        changed = false;
+    }
+
+    /**
+     * Returns the cached probe result for the specified file path or <code>null</code> if not
+     * cached or if the file changed since.
+     */
+    public synchronized ProbeEntry get(String path)
+    {
+        final ProbeEntry result = entries.get(FileUtil.getGenericPath(path));
+
+        if ((result != null) && result.isUpToDate(new File(path)))
+            return result;
+
+        return null;
+    }
+
+    /**
+     * Store probe result for the specified file path.
+     */
+    public synchronized void put(String path, String importerClassName, SequenceType type)
+    {
+        final File file = new File(path);
+        final long modified = file.lastModified();
+
+        // not a local file --> can't cache it
+        if ((modified == 0L) || (type.dataType == null))
+            return;
+
+        final String genericPath = FileUtil.getGenericPath(path);
+
+        entries.put(genericPath, new ProbeEntry(genericPath, file.length(), modified, importerClassName, type));
+        changed = true;
+    }
+
+    /**
+     * Remove all entries.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        changed = true;
+    }
+
+    /**
+     * Save the cache on disk if it changed since last save.
+     */
+    public synchronized boolean save()
+    {
+        if (!changed)
+            return true;
+
+        final Document doc = XMLUtil.createDocument(true);
+        final Element root = XMLUtil.getRootElement(doc);
+
+        XMLUtil.setAttributeIntValue(root, ID_VERSION, CACHE_VERSION);
+        XMLUtil.setAttributeValue(root, ID_KERNEL_VERSION, Icy.version.toString());
+
+        for (ProbeEntry entry : entries.values())
+            entry.saveToXML(XMLUtil.addElement(root, ID_FILE));
+
+        final File file = new File(getCacheFilePath());
+        FileUtil.ensureParentDirExist(file);
+
+        if (!XMLUtil.saveDocument(doc, file))
+            return false;
+
+        changed = false;
+        return true;
+    }
+}
@@ -21,6 +21,9 @@ package icy.file;
 import icy.gui.frame.progress.FileFrame;
 import icy.sequence.DimensionId;
 import icy.sequence.MetaDataUtil;
+import icy.system.SystemUtil;
+import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
 import icy.type.DataType;
 import icy.util.StringUtil;
 import icy.util.StringUtil.AlphanumComparator;
@@ -30,9 +33,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import ome.xml.meta.OMEXMLMetadata;
 import plugins.kernel.importer.LociImporterPlugin;
@@ -44,6 +50,11 @@ import plugins.kernel.importer.LociImporterPlugin;
  */
 public class SequenceFileSticher
 {
+    /**
+     * Maximum number of files we open in parallel to retrieve image informations
+     */
+    public static final int MAX_PROBE_THREAD = 8;
+
     public static class SequenceType
     {
         public int sizeX;
@@ -1436,8 +1447,9 @@ public class SequenceFileSticher
         }
 
         final Map<SequenceIdent, SequenceFileGroup> result = new HashMap<SequenceIdent, SequenceFileGroup>();
+        final List<SequencePosition> sequencePositions = new ArrayList<SequencePosition>();
 
-        // clean FilePosition grouped by base path and add them to group
+        // clean FilePosition grouped by base path
         for (Entry<String, List<FilePosition>> entry : pathPositionsMap.entrySet())
         {
             // get positions
@@ -1457,11 +1469,23 @@ public class SequenceFileSticher
             while (cleanPositions(positions, DimensionId.X))
                 ;
 
-            // add position to group(s)
             for (FilePosition pos : positions)
-                addToGroup(result, new SequencePosition(pos), importer);
+                sequencePositions.add(new SequencePosition(pos));
         }
 
+        if (loadingFrame != null)
+            loadingFrame.setAction("Reading images informations...");
+
+        // open the first image of each group in parallel to get group informations
+        final Map<SequenceIdent, SequenceIdent> probedIdents = getSequenceIdents(importer, sequencePositions);
+
+        // add position to group(s)
+        for (SequencePosition pos : sequencePositions)
+            addToGroup(result, pos, importer, probedIdents);
+
+        // save probe results for next time
+        SequenceFileProbeCache.getInstance().save();
+
         /*
          * if (loadingFrame != null)
          * loadingFrame.setAction("Get positions information from metadata...");
@@ -1713,15 +1737,21 @@ public class SequenceFileSticher
     // }
 
     private static void addToGroup(Map<SequenceIdent, SequenceFileGroup> groups, SequencePosition position,
-            SequenceFileImporter importer)
+            SequenceFileImporter importer, Map<SequenceIdent, SequenceIdent> probedIdents)
     {
-        SequenceFileGroup group = groups.get(new SequenceIdent(position.getBase(), position.getIndexS()));
+        final SequenceIdent key = new SequenceIdent(position.getBase(), position.getIndexS());
+        SequenceFileGroup group = groups.get(key);
 
         // no group yet for this base path
         if (group == null)
         {
-            // get complete ident for this position
-            final SequenceIdent ident = getSequenceIdent(importer, position);
+            final SequenceIdent ident;
+
+            // get complete ident for this position (already probed or probe it now)
+            if (probedIdents.containsKey(key))
+                ident = probedIdents.remove(key);
+            else
+                ident = getSequenceIdent(importer, position);
 
             // can't add this position...
             if (ident == null)
@@ -1736,13 +1766,119 @@ public class SequenceFileSticher
         group.positions.add(position);
     }
 
+    /**
+     * Build sequence ident for the first position of each group (group is defined by base path and
+     * series index).<br>
+     * Images are opened in parallel using a separate importer instance for each task when possible.
+     * The returned map use a (base path, series) ident as key and the complete ident (or
+     * <code>null</code> if image cannot be opened) as value.
+     */
+    private static Map<SequenceIdent, SequenceIdent> getSequenceIdents(final SequenceFileImporter importer,
+            List<SequencePosition> positions)
+    {
+        final Map<SequenceIdent, SequencePosition> firstPositions = new LinkedHashMap<SequenceIdent, SequencePosition>();
+
+        for (SequencePosition position : positions)
+        {
+            final SequenceIdent key = new SequenceIdent(position.getBase(), position.getIndexS());
+
+            if (!firstPositions.containsKey(key))
+                firstPositions.put(key, position);
+        }
+
+        final Map<SequenceIdent, SequenceIdent> result = new HashMap<SequenceIdent, SequenceIdent>();
+        boolean parallel = firstPositions.size() > 1;
+
+        // we need a separate importer instance for each task
+        if (parallel && (importer != null))
+        {
+            try
+            {
+                importer.getClass().newInstance();
+            }
+            catch (Throwable t)
+            {
+                // can't create importer instance --> don't use parallel processing
+                parallel = false;
+            }
+        }
+
+        // not parallel ? --> groups will be probed when added
+        if (!parallel)
+            return result;
+
+        final Processor processor = new Processor(-1,
+                Math.max(1, Math.min(SystemUtil.getNumberOfCPUs(), MAX_PROBE_THREAD)));
+        processor.setThreadName("Image file probe");
+        processor.setLane(TaskScheduler.Lane.IO);
+
+        final Map<SequenceIdent, Future<SequenceIdent>> futures = new LinkedHashMap<SequenceIdent, Future<SequenceIdent>>();
+
+        for (Entry<SequenceIdent, SequencePosition> entry : firstPositions.entrySet())
+        {
+            final SequencePosition position = entry.getValue();
+
+            futures.put(entry.getKey(), processor.submit(new Callable<SequenceIdent>()
+            {
+                @Override
+                public SequenceIdent call() throws Exception
+                {
+                    final SequenceFileImporter imp;
+
+                    if (importer != null)
+                        imp = importer.getClass().newInstance();
+                    else
+                        imp = null;
+
+                    return getSequenceIdent(imp, position);
+                }
+            }));
+        }
+
+        try
+        {
+            for (Entry<SequenceIdent, Future<SequenceIdent>> entry : futures.entrySet())
+            {
+                try
+                {
+                    result.put(entry.getKey(), entry.getValue().get());
+                }
+                catch (Exception e)
+                {
+                    // can't get ident for this one
+                    result.put(entry.getKey(), null);
+                }
+            }
+        }
+        finally
+        {
+            processor.shutdownNow();
+        }
+
+        return result;
+    }
+
     /**
      * Build and return sequence ident for specified {@link SequencePosition}
      */
     private static SequenceIdent getSequenceIdent(SequenceFileImporter importer, SequencePosition position)
     {
+        final String path = position.getPath();
+        final SequenceFileProbeCache.ProbeEntry cached = SequenceFileProbeCache.getInstance().get(path);
+
+        // already probed ? --> no need to open the file
+        if (cached != null)
+        {
+            // no importer specified --> directly use the one which opened the file last time
+            final SequenceFileImporter imp = (importer != null) ? importer : cached.createImporter();
+
+            // same importer ? --> use cached informations
+            if ((imp != null) && imp.getClass().getName().equals(cached.importerClassName))
+                return new SequenceIdent(position.getBase(), position.getIndexS(), cached.getType(), imp);
+        }
+
         // try to open the image
-        final SequenceFileImporter imp = tryOpen(importer, position.getPath());
+        final SequenceFileImporter imp = tryOpen(importer, path);
 
         // can't open it ? --> return null
         if (imp == null)
@@ -1769,6 +1905,9 @@ public class SequenceFileSticher
             // can compute hash code
             type.computeHashCode();
 
+            // store it for next time
+            SequenceFileProbeCache.getInstance().put(path, imp.getClass().getName(), type);
+
             return new SequenceIdent(position.getBase(), position.getIndexS(), type, imp);
         }
         catch (Throwable t)
@@ -0,0 +1,665 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.file;
+
+import icy.image.IcyBufferedImage;
+import icy.image.colormap.IcyColorMap;
+import icy.main.Icy;
+import icy.preferences.ApplicationPreferences;
+import icy.sequence.MetaDataUtil;
+import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
+import icy.type.DataType;
+import icy.type.collection.array.ByteArrayConvert;
+import icy.util.StringUtil;
+import icy.util.XMLUtil;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.xml.transform.TransformerException;
+
+import ome.xml.meta.OMEXMLMetadata;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.SAXException;
+
+/**
+ * Persistent cache of image file thumbnails and basic image informations (dimensions, data type,
+ * series count) used by the open dialog preview and {@link Loader#loadThumbnail(String, int)}.<br>
+ * Entries are identified by file path, series, file size and last modification date, the cache
+ * is limited in number of entries and disk size (least recently used entries are removed first).
+ * Thumbnails are written to disk asynchronously.
+ */
+public class ThumbnailCache
+{
+    /**
+     * Change it when cache format change.
+     */
+    public static final int CACHE_VERSION = 2;
+    public static final String CACHE_FOLDER = "thumbnails";
+    public static final String INDEX_FILENAME = "index.xml";
+    public static final String THUMBNAIL_EXTENSION = ".thb";
+    /**
+     * Maximum number of cached thumbnails.
+     */
+    public static final int MAX_ENTRIES = 2000;
+    /**
+     * Maximum disk size (in bytes) used by cached thumbnails.
+     */
+    public static final long MAX_DISK_SIZE = 64L * 1024L * 1024L;
+
+    static final int THUMBNAIL_MAGIC = 0x49435954;
+
+    static final String ID_VERSION = "version";
+    static final String ID_KERNEL_VERSION = "kernelVersion";
+    static final String ID_ENTRY = "entry";
+    static final String ID_PATH = "path";
+    static final String ID_SERIES = "series";
+    static final String ID_SIZE = "size";
+    static final String ID_MODIFIED = "modified";
+    static final String ID_FILENAME = "filename";
+    static final String ID_DATASIZE = "dataSize";
+    static final String ID_SIZE_X = "sizeX";
+    static final String ID_SIZE_Y = "sizeY";
+    static final String ID_SIZE_Z = "sizeZ";
+    static final String ID_SIZE_T = "sizeT";
+    static final String ID_SIZE_C = "sizeC";
+    static final String ID_DATATYPE = "dataType";
+    static final String ID_NUM_SERIES = "numSeries";
+
+    /**
+     * Basic image informations stored with the thumbnail.
+     */
+    public static class ImageInfos
+    {
+        public int sizeX;
+        public int sizeY;
+        public int sizeZ;
+        public int sizeT;
+        public int sizeC;
+        public DataType dataType;
+        public int numSeries;
+
+        public ImageInfos()
+        {
+            super();
+
+            sizeX = 0;
+            sizeY = 0;
+            sizeZ = 0;
+            sizeT = 0;
+            sizeC = 0;
+            dataType = null;
+            numSeries = 0;
+        }
+
+        public ImageInfos(OMEXMLMetadata metadata, int series)
+        {
+            this();
+
+            sizeX = MetaDataUtil.getSizeX(metadata, series);
+            sizeY = MetaDataUtil.getSizeY(metadata, series);
+            sizeZ = MetaDataUtil.getSizeZ(metadata, series);
+            sizeT = MetaDataUtil.getSizeT(metadata, series);
+            sizeC = MetaDataUtil.getSizeC(metadata, series);
+            dataType = MetaDataUtil.getDataType(metadata, series);
+            numSeries = MetaDataUtil.getNumSeries(metadata);
+        }
+
+        ImageInfos(Element node)
+        {
+            this();
+
+            sizeX = XMLUtil.getAttributeIntValue(node, ID_SIZE_X, 0);
+            sizeY = XMLUtil.getAttributeIntValue(node, ID_SIZE_Y, 0);
+            sizeZ = XMLUtil.getAttributeIntValue(node, ID_SIZE_Z, 0);
+            sizeT = XMLUtil.getAttributeIntValue(node, ID_SIZE_T, 0);
+            sizeC = XMLUtil.getAttributeIntValue(node, ID_SIZE_C, 0);
+            dataType = DataType.getDataType(XMLUtil.getAttributeValue(node, ID_DATATYPE, ""));
+            numSeries = XMLUtil.getAttributeIntValue(node, ID_NUM_SERIES, 0);
+        }
+
+        void saveToXML(Element node)
+        {
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_X, sizeX);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_Y, sizeY);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_Z, sizeZ);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_T, sizeT);
+            XMLUtil.setAttributeIntValue(node, ID_SIZE_C, sizeC);
+            if (dataType != null)
+                XMLUtil.setAttributeValue(node, ID_DATATYPE, dataType.toString(false));
+            XMLUtil.setAttributeIntValue(node, ID_NUM_SERIES, numSeries);
+        }
+
+        /**
+         * Returns informations in the form used by the open dialog preview.
+         */
+        @Override
+        public String toString()
+        {
+            return sizeX + " x " + sizeY + " - " + sizeZ + "Z x " + sizeT + "T - " + sizeC + " ch (" + dataType + ")";
+        }
+    }
+
+    static class CacheEntry
+    {
+        final String path;
+        final int series;
+        final long size;
+        final long modified;
+        final String filename;
+        final long dataSize;
+        final ImageInfos infos;
+
+        CacheEntry(String path, int series, long size, long modified, String filename, long dataSize,
+                ImageInfos infos)
+        {
+            super();
+
+            this.path = path;
+            this.series = series;
+            this.size = size;
+            this.modified = modified;
+            this.filename = filename;
+            this.dataSize = dataSize;
+            this.infos = infos;
+        }
+
+        CacheEntry(Element node)
+        {
+            super();
+
+            path = XMLUtil.getAttributeValue(node, ID_PATH, "");
+            series = XMLUtil.getAttributeIntValue(node, ID_SERIES, 0);
+            size = XMLUtil.getAttributeLongValue(node, ID_SIZE, -1L);
+            modified = XMLUtil.getAttributeLongValue(node, ID_MODIFIED, -1L);
+            filename = XMLUtil.getAttributeValue(node, ID_FILENAME, "");
+            dataSize = XMLUtil.getAttributeLongValue(node, ID_DATASIZE, 0L);
+            infos = new ImageInfos(node);
+        }
+
+        void saveToXML(Element node)
+        {
+            XMLUtil.setAttributeValue(node, ID_PATH, path);
+            XMLUtil.setAttributeIntValue(node, ID_SERIES, series);
+            XMLUtil.setAttributeLongValue(node, ID_SIZE, size);
+            XMLUtil.setAttributeLongValue(node, ID_MODIFIED, modified);
+            XMLUtil.setAttributeValue(node, ID_FILENAME, filename);
+            XMLUtil.setAttributeLongValue(node, ID_DATASIZE, dataSize);
+            infos.saveToXML(node);
+        }
+
+        String getKey()
+        {
+            return ThumbnailCache.getKey(path, series);
+        }
+
+        boolean isUpToDate(File file)
+        {
+            return (file.length() == size) && (file.lastModified() == modified);
+        }
+    }
+
+    private static ThumbnailCache instance = null;
+
+    /**
+     * Returns the thumbnail cache (loaded from disk on first call).
+     */
+    public static synchronized ThumbnailCache getInstance()
+    {
+        if (instance == null)
+            instance = load();
+
+        return instance;
+    }
+
+    static String getKey(String path, int series)
+    {
+        return path + "#" + series;
+    }
+
+    /**
+     * Returns the SHA-1 digest (hexadecimal string) of the specified entry key, used to build cache
+     * file names so two different entries don't share the same file.
+     */
+    static String getDigest(String key)
+    {
+        try
+        {
+            final MessageDigest md = MessageDigest.getInstance("SHA-1");
+            final StringBuilder sb = new StringBuilder();
+
+            for (byte b : md.digest(key.getBytes("UTF-8")))
+                sb.append(StringUtil.toHexaString(b & 0xFF, 2));
+
+            return sb.toString();
+        }
+        catch (Exception e)
+        {
+            // should not happen, collision is still detected when reading cache file
+            return StringUtil.toHexaString(key.hashCode(), 8) + StringUtil.toHexaString(key.length(), 8);
+        }
+    }
+
+    /**
+     * Returns the thumbnail file name for the specified entry key.
+     */
+    static String getFilename(String key, long modified)
+    {
+        return getDigest(key) + "_" + Long.toHexString(modified) + THUMBNAIL_EXTENSION;
+    }
+
+    /**
+     * Returns the cache folder path.
+     */
+    public static String getCacheFolder()
+    {
+        return FileUtil.getGenericPath(ApplicationPreferences.getCachePath() + FileUtil.separator + CACHE_FOLDER);
+    }
+
+    private static ThumbnailCache load()
+    {
+        final ThumbnailCache result = new ThumbnailCache();
+        final String path = getCacheFolder() + FileUtil.separator + INDEX_FILENAME;
+
+        if (!FileUtil.exists(path))
+            return result;
+
+        final Document doc = XMLUtil.loadDocument(path, false);
+        if (doc == null)
+            return result;
+
+        final Element root = XMLUtil.getRootElement(doc);
+        // incompatible cache --> ignore it
+        if ((root == null) || (XMLUtil.getAttributeIntValue(root, ID_VERSION, 0) != CACHE_VERSION)
+                || !StringUtil.equals(XMLUtil.getAttributeValue(root, ID_KERNEL_VERSION, ""), Icy.version.toString()))
+            return result;
+
+        for (Element entryNode : XMLUtil.getElements(root, ID_ENTRY))
+        {
+            final CacheEntry entry = new CacheEntry(entryNode);
+
+            if (!StringUtil.isEmpty(entry.path) && !StringUtil.isEmpty(entry.filename))
+            {
+                result.entries.put(entry.getKey(), entry);
+                result.diskSize += entry.dataSize;
+            }
+        }
+
+        return result;
+    }
+
+    final LinkedHashMap<String, CacheEntry> entries;
+    long diskSize;
+    boolean changed;
+    /**
+     * Thumbnails are written in background
+     */
+    final Processor writer;
+
+    ThumbnailCache()
+    {
+        super();
+
+        // use access order so we remove the least recently used entries first
+        entries = new LinkedHashMap<String, CacheEntry>(256, 0.75f, true);
+        diskSize = 0L;
+        changed = false;
+        writer = new Processor(64, 1);
+        writer.setThreadName("Thumbnail cache writer");
+        writer.setLane(TaskScheduler.Lane.IO);
+    }
+
+    private synchronized CacheEntry getEntry(String path, int series)
+    {
+        final String genericPath = FileUtil.getGenericPath(path);
+        final CacheEntry result = entries.get(getKey(genericPath, series));
+
+        if ((result != null) && result.isUpToDate(new File(path)))
+            return result;
+
+        return null;
+    }
+
+    /**
+     * Returns cached image informations for the specified image file and series (<code>null</code>
+     * if not cached or if the file changed since).
+     */
+    public ImageInfos getInfos(String path, int series)
+    {
+        final CacheEntry entry = getEntry(path, series);
+
+        if (entry != null)
+            return entry.infos;
+
+        return null;
+    }
+
+    /**
+     * Returns cached thumbnail for the specified image file and series (<code>null</code> if not
+     * cached or if the file changed since).
+     */
+    public IcyBufferedImage getThumbnail(String path, int series)
+    {
+        final CacheEntry entry = getEntry(path, series);
+
+        if (entry == null)
+            return null;
+
+        try
+        {
+            final IcyBufferedImage result = readThumbnail(entry);
+
+            // thumbnail file belongs to another entry ? --> only forget this entry
+            if (result == null)
+                remove(entry, false);
+
+            return result;
+        }
+        catch (IOException e)
+        {
+            // invalid entry --> remove it
+            remove(entry, true);
+            return null;
+        }
+    }
+
+    /**
+     * Store the thumbnail and image informations for the specified image file and series (written
+     * asynchronously).
+     */
+    public void put(String path, final int series, final IcyBufferedImage thumbnail, final ImageInfos infos)
+    {
+        if ((thumbnail == null) || (infos == null))
+            return;
+
+        final File file = new File(path);
+        final long modified = file.lastModified();
+
+        // not a local file --> can't cache it
+        if (modified == 0L)
+            return;
+
+        final String genericPath = FileUtil.getGenericPath(path);
+        final String filename = getFilename(getKey(genericPath, series), modified);
+        final long size = file.length();
+
+        try
+        {
+            writer.submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        final long dataSize = writeThumbnail(filename, genericPath, series, thumbnail);
+
+                        add(new CacheEntry(genericPath, series, size, modified, filename, dataSize, infos));
+
+                        // no more pending thumbnail ? --> save index
+                        if (!writer.hasWaitingTasks())
+                            save();
+                    }
+                    catch (IOException e)
+                    {
+                        System.err.println("ThumbnailCache: cannot write thumbnail for '" + genericPath + "':");
+                        System.err.println(e.getMessage());
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // too many pending thumbnails, just ignore
+        }
+    }
+
+    synchronized void add(CacheEntry entry)
+    {
+        final CacheEntry old = entries.put(entry.getKey(), entry);
+
+        if (old != null)
+        {
+            diskSize -= old.dataSize;
+            // thumbnail file changed ? --> remove old one
+            if (!old.filename.equals(entry.filename))
+                deleteFile(old);
+        }
+        diskSize += entry.dataSize;
+
+        // remove least recently used entries
+        final Iterator<CacheEntry> it = entries.values().iterator();
+        while (((entries.size() > MAX_ENTRIES) || (diskSize > MAX_DISK_SIZE)) && it.hasNext())
+        {
+            final CacheEntry e = it.next();
+
+            it.remove();
+            diskSize -= e.dataSize;
+            deleteFile(e);
+        }
+
+        changed = true;
+    }
+
+    synchronized void remove(CacheEntry entry, boolean deleteFile)
+    {
+        if (entries.remove(entry.getKey()) != null)
+        {
+            diskSize -= entry.dataSize;
+            if (deleteFile)
+                deleteFile(entry);
+            changed = true;
+        }
+    }
+
+    /**
+     * Remove all cached thumbnails.
+     */
+    public synchronized void clear()
+    {
+        for (CacheEntry entry : entries.values())
+            deleteFile(entry);
+
+        entries.clear();
+        diskSize = 0L;
+        changed = true;
+    }
+
+    static void deleteFile(CacheEntry entry)
+    {
+        FileUtil.delete(getCacheFolder() + FileUtil.separator + entry.filename, false);
+    }
+
+    static long writeThumbnail(String filename, String path, int series, IcyBufferedImage thumbnail)
+            throws IOException
+    {
+        final File file = new File(getCacheFolder() + FileUtil.separator + filename);
+        FileUtil.ensureParentDirExist(file);
+
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+
+        try
+        {
+            out.writeInt(THUMBNAIL_MAGIC);
+            // store source to detect filename collision
+            out.writeUTF(path);
+            out.writeInt(series);
+            out.writeInt(thumbnail.getSizeX());
+            out.writeInt(thumbnail.getSizeY());
+            out.writeInt(thumbnail.getSizeC());
+            out.writeUTF(thumbnail.getDataType_().toString(false));
+
+            for (int c = 0; c < thumbnail.getSizeC(); c++)
+            {
+                final byte[] data = ByteArrayConvert.toByteArray(thumbnail.getDataXY(c), null, false);
+
+                out.writeInt(data.length);
+                out.write(data);
+            }
+
+            // LUT informations (channel bounds and colormap)
+            for (int c = 0; c < thumbnail.getSizeC(); c++)
+            {
+                final double[] bounds = thumbnail.getChannelBounds(c);
+                final Document doc = XMLUtil.createDocument(true);
+
+                thumbnail.getColorMap(c).saveToXML(XMLUtil.getRootElement(doc));
+
+                final byte[] colormap;
+
+                try
+                {
+                    colormap = XMLUtil.getXMLString(doc).getBytes("UTF-8");
+                }
+                catch (TransformerException e)
+                {
+                    throw new IOException(e.getMessage());
+                }
+
+                out.writeDouble(bounds[0]);
+                out.writeDouble(bounds[1]);
+                out.writeInt(colormap.length);
+                out.write(colormap);
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+
+        return file.length();
+    }
+
+    /**
+     * Read the thumbnail of the specified entry.<br>
+     * Returns <code>null</code> if the thumbnail file was written for another entry.
+     * 
+     * @throws IOException
+     *         if the thumbnail file is missing or corrupted
+     */
+    static IcyBufferedImage readThumbnail(CacheEntry entry) throws IOException
+    {
+        final File file = new File(getCacheFolder() + FileUtil.separator + entry.filename);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+        try
+        {
+            if (in.readInt() != THUMBNAIL_MAGIC)
+                throw new IOException("Invalid thumbnail file: " + file.getPath());
+            // verify full key before trusting the file
+            if (!in.readUTF().equals(entry.path) || (in.readInt() != entry.series))
+                return null;
+
+            final int sizeX = in.readInt();
+            final int sizeY = in.readInt();
+            final int sizeC = in.readInt();
+            final DataType dataType = DataType.getDataType(in.readUTF());
+
+            if (dataType == null)
+                throw new IOException("Invalid thumbnail file: " + file.getPath());
+
+            final List<Object> datas = new ArrayList<Object>(sizeC);
+
+            for (int c = 0; c < sizeC; c++)
+            {
+                final byte[] data = new byte[in.readInt()];
+
+                in.readFully(data);
+                datas.add(ByteArrayConvert.byteArrayTo(data, 0, dataType, -1, false));
+            }
+
+            final IcyBufferedImage result = new IcyBufferedImage(sizeX, sizeY, datas.toArray(), dataType.isSigned());
+
+            // restore LUT informations
+            for (int c = 0; c < sizeC; c++)
+            {
+                final double min = in.readDouble();
+                final double max = in.readDouble();
+                final byte[] colormap = new byte[in.readInt()];
+
+                in.readFully(colormap);
+
+                final IcyColorMap map = new IcyColorMap();
+
+                try
+                {
+                    if (!map.loadFromXML(XMLUtil.getRootElement(XMLUtil.createDocument(new String(colormap,
+                            "UTF-8")))))
+                        throw new IOException("Invalid thumbnail file: " + file.getPath());
+                }
+                catch (SAXException e)
+                {
+                    throw new IOException("Invalid thumbnail file: " + file.getPath());
+                }
+
+                result.setChannelBounds(c, min, max);
+                result.setColorMap(c, map, true);
+            }
+
+            return result;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Save the cache index on disk if it changed since last save.
+     */
+    public synchronized boolean save()
+    {
+        if (!changed)
+            return true;
+
+        final Document doc = XMLUtil.createDocument(true);
+        final Element root = XMLUtil.getRootElement(doc);
+
+        XMLUtil.setAttributeIntValue(root, ID_VERSION, CACHE_VERSION);
+        XMLUtil.setAttributeValue(root, ID_KERNEL_VERSION, Icy.version.toString());
+
+        for (Map.Entry<String, CacheEntry> entry : entries.entrySet())
+            entry.getValue().saveToXML(XMLUtil.addElement(root, ID_ENTRY));
+
+        final File file = new File(getCacheFolder() + FileUtil.separator + INDEX_FILENAME);
+        FileUtil.ensureParentDirExist(file);
+
+        if (!XMLUtil.saveDocument(doc, file))
+            return false;
+
+        changed = false;
+        return true;
+    }
+}
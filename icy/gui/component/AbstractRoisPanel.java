@@ -44,10 +44,13 @@ import icy.roi.ROIEvent.ROIEventType;
 import icy.roi.ROIListener;
 import icy.roi.ROIUtil;
 import icy.sequence.Sequence;
+import icy.sequence.SequenceBatchListener;
 import icy.sequence.SequenceEvent;
 import icy.sequence.SequenceEvent.SequenceEventSourceType;
+import icy.sequence.SequenceEventBatch;
 import icy.system.IcyExceptionHandler;
 import icy.system.thread.InstanceProcessor;
+import icy.system.thread.TaskScheduler;
 import icy.system.thread.ThreadUtil;
 import icy.type.rectangle.Rectangle5D;
 import icy.util.ClassUtil;
@@ -138,7 +141,8 @@ import plugins.kernel.roi.descriptor.property.ROISizeZDescriptor;
  * Abstract ROI panel component
  */
 public abstract class AbstractRoisPanel extends ExternalizablePanel
-        implements ActiveSequenceListener, TextChangeListener, ListSelectionListener, PluginLoaderListener
+        implements ActiveSequenceListener, SequenceBatchListener, TextChangeListener, ListSelectionListener,
+        PluginLoaderListener
 {
     /**
      * 
@@ -363,6 +367,7 @@ public abstract class AbstractRoisPanel extends ExternalizablePanel
         processor = new InstanceProcessor();
         processor.setThreadName("ROI panel GUI refresher");
         processor.setKeepAliveTime(30, TimeUnit.SECONDS);
+        processor.setLane(TaskScheduler.Lane.INTERACTIVE);
 
         primaryDescriptorComputer = new DescriptorComputer(DescriptorType.PRIMARY);
         basicDescriptorComputer = new DescriptorComputer(DescriptorType.BASIC);
@@ -1548,6 +1553,10 @@ public abstract class AbstractRoisPanel extends ExternalizablePanel
     @Override
     public void sequenceActivated(Sequence value)
     {
+        // data and meta data changes are received through batched events (can be heavy)
+        if (value != null)
+            value.addBatchListener(this);
+
         // refresh table columns
         refreshColumnInfoList();
         // refresh ROI list
@@ -1557,7 +1566,8 @@ public abstract class AbstractRoisPanel extends ExternalizablePanel
     @Override
     public void sequenceDeactivated(Sequence sequence)
     {
-        // nothing here
+        if (sequence != null)
+            sequence.removeBatchListener(this);
     }
 
     @Override
@@ -1585,42 +1595,79 @@ public abstract class AbstractRoisPanel extends ExternalizablePanel
                 }
                 break;
 
-            case SEQUENCE_META:
-                // refresh column name (unit can change when pixel size changed)
-                for (ColumnInfo col : columnInfoList)
-                    col.refreshName();
+            case SEQUENCE_TYPE:
+                // number of channel can have changed
+                refreshColumnInfoList();
+                break;
+        }
+    }
 
-                // refresh column model
-                final TableColumnModel model = roiTable.getColumnModel();
-                if (model instanceof ROITableColumnModel)
-                    ((ROITableColumnModel) model).updateHeaders();
+    @Override
+    public void sequenceChanged(SequenceEventBatch batch)
+    {
+        // ignore if not anymore the active sequence
+        if (batch.getSequence() != getSequence())
+            return;
 
-                // don't use break, we also need to send the event to descriptors
+        final boolean metaChanged = batch.contains(SequenceEventSourceType.SEQUENCE_META);
 
-            case SEQUENCE_DATA:
-                final ROIResults[] allRoiResults;
+        if (metaChanged)
+        {
+            // refresh column name (unit can change when pixel size changed)
+            for (ColumnInfo col : columnInfoList)
+                col.refreshName();
 
-                // get all ROI results
-                synchronized (roiResultsMap)
+            // refresh column model
+            ThreadUtil.invokeLater(new Runnable()
+            {
+                @Override
+                public void run()
                 {
-                    allRoiResults = roiResultsMap.values().toArray(new ROIResults[roiResultsMap.size()]);
+                    final TableColumnModel model = roiTable.getColumnModel();
+                    if (model instanceof ROITableColumnModel)
+                        ((ROITableColumnModel) model).updateHeaders();
                 }
+            });
+        }
 
-                // notify ROI results that sequence has changed
-                for (ROIResults roiResults : allRoiResults)
-                    roiResults.sequenceChanged(event);
+        if (metaChanged || batch.contains(SequenceEventSourceType.SEQUENCE_DATA))
+        {
+            final ROIResults[] allRoiResults;
 
-                // refresh table data
-                refreshTableData();
-                break;
+            // get all ROI results
+            synchronized (roiResultsMap)
+            {
+                allRoiResults = roiResultsMap.values().toArray(new ROIResults[roiResultsMap.size()]);
+            }
 
-            case SEQUENCE_TYPE:
-                // number of channel can have changed
-                refreshColumnInfoList();
-                break;
+            // notify ROI results that sequence has changed
+            for (SequenceEvent event : batch.getEvents())
+            {
+                switch (event.getSourceType())
+                {
+                    case SEQUENCE_META:
+                    case SEQUENCE_DATA:
+                        for (ROIResults roiResults : allRoiResults)
+                            roiResults.sequenceChanged(event);
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+
+            // refresh table data
+            refreshTableData();
         }
     }
 
+    @Override
+    public boolean isEDTRequired()
+    {
+        // table refresh and descriptors computation are done in background
+        return false;
+    }
+
     @Override
     public void pluginLoaderChanged(PluginLoaderEvent e)
     {
@@ -2113,9 +2160,18 @@ public abstract class AbstractRoisPanel extends ExternalizablePanel
 
                 if (seq != null)
                 {
-                    // start with primaries descriptors
-                    for (ROIResults roiResults : roiResultsList)
-                        computeROIResults(roiResults, seq);
+                    // share CPU with others background tasks
+                    TaskScheduler.enter(TaskScheduler.Lane.BACKGROUND);
+                    try
+                    {
+                        // start with primaries descriptors
+                        for (ROIResults roiResults : roiResultsList)
+                            computeROIResults(roiResults, seq);
+                    }
+                    finally
+                    {
+                        TaskScheduler.exit();
+                    }
                 }
             }
         }
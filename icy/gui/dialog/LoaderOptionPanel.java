@@ -49,12 +49,15 @@ import icy.file.Loader;
 import icy.file.SequenceFileGroupImporter;
 import icy.file.SequenceFileImporter;
 import icy.file.SequenceFileSticher.SequenceFileGroup;
+import icy.file.ThumbnailCache;
+import icy.file.ThumbnailCache.ImageInfos;
 import icy.gui.component.PopupPanel;
 import icy.gui.component.RangeComponent;
 import icy.gui.component.Region2DComponent;
 import icy.gui.component.SpecialValueSpinner;
 import icy.gui.component.ThumbnailComponent;
 import icy.gui.component.model.SpecialValueSpinnerModel;
+import icy.image.IcyBufferedImage;
 import icy.resource.ResourceUtil;
 import icy.sequence.MetaDataUtil;
 import icy.sequence.SequenceIdImporter;
@@ -171,6 +174,43 @@ public class LoaderOptionPanel extends JPanel
             return false;
         }
 
+        /**
+         * Returns the path used to cache the preview (only single file selection is cached), <code>null</code> if
+         * preview should not be cached.
+         */
+        public String getCachePath()
+        {
+            if ((files.size() == 1) && !(importer instanceof SequenceFileGroupImporter))
+                return files.get(0);
+
+            return null;
+        }
+
+        /**
+         * Returns the thumbnail from the thumbnail cache if possible, otherwise get it from importer and store it in
+         * the cache (importer should be opened).
+         */
+        public IcyBufferedImage getThumbnail(int s) throws UnsupportedFormatException, IOException
+        {
+            final String path = getCachePath();
+
+            if (path != null)
+            {
+                final IcyBufferedImage result = ThumbnailCache.getInstance().getThumbnail(path, s);
+
+                if (result != null)
+                    return result;
+            }
+
+            final IcyBufferedImage result = importer.getThumbnail(s);
+
+            // store it in cache (asynchronous)
+            if ((path != null) && (result != null) && (metadata != null))
+                ThumbnailCache.getInstance().put(path, s, result, new ImageInfos(metadata, s));
+
+            return result;
+        }
+
         // PreviewSingleUpdate(SequenceFileImporter importer, String[] files, int z, int t, boolean imageRefreshOnly)
         // {
         // this(importer, CollectionUtil.asList(files), z, t, imageRefreshOnly);
@@ -251,7 +291,7 @@ public class LoaderOptionPanel extends JPanel
 
                         // default position --> use thumbnail
                         if ((z == 0) && (t == 0) && (pCh == -1))
-                            preview.setImage(importer.getThumbnail(s));
+                            preview.setImage(getThumbnail(s));
                         // all channel
                         else if (pCh == -1)
                             preview.setImage(importer.getImage(s, res, z, t));
@@ -309,9 +349,28 @@ public class LoaderOptionPanel extends JPanel
                     return;
                 }
 
-                // loading...
-                preview.setImage(ResourceUtil.ICON_WAIT);
-                preview.setInfos("loading...");
+                final String cachePath = getCachePath();
+                final ImageInfos cachedInfos;
+
+                if (cachePath != null)
+                    cachedInfos = ThumbnailCache.getInstance().getInfos(cachePath, s);
+                else
+                    cachedInfos = null;
+
+                // cached preview ? --> display it while we are loading metadata
+                if (cachedInfos != null)
+                {
+                    final IcyBufferedImage cachedThumbnail = ThumbnailCache.getInstance().getThumbnail(cachePath, s);
+
+                    preview.setImage((cachedThumbnail != null) ? cachedThumbnail : ResourceUtil.ICON_WAIT);
+                    preview.setInfos(cachedInfos.toString());
+                }
+                else
+                {
+                    // loading...
+                    preview.setImage(ResourceUtil.ICON_WAIT);
+                    preview.setInfos("loading...");
+                }
 
                 // use Callable as we can get interrupted here...
                 ThreadUtil.invokeNow(new Callable<Boolean>()
@@ -393,7 +452,7 @@ public class LoaderOptionPanel extends JPanel
                         return;
 
                     // initial preview --> use thumbnail
-                    preview.setImage(importer.getThumbnail(s));
+                    preview.setImage(getThumbnail(s));
                 }
                 finally
                 {
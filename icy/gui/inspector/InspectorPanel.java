@@ -256,7 +256,8 @@ public class InspectorPanel extends ExternalizablePanel implements ActiveViewerL
     @Override
     public void sequenceDeactivated(Sequence sequence)
     {
-        // nothing to do here
+        sequencePanel.sequenceDeactivated(sequence);
+        roisPanel.sequenceDeactivated(sequence);
     }
 
     /**
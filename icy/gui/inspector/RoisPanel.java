@@ -24,8 +24,8 @@ import icy.preferences.GeneralPreferences;
 import icy.roi.ROI;
 import icy.roi.ROIEvent;
 import icy.sequence.Sequence;
-import icy.sequence.SequenceEvent;
 import icy.sequence.SequenceEvent.SequenceEventSourceType;
+import icy.sequence.SequenceEventBatch;
 
 import java.awt.BorderLayout;
 
@@ -121,13 +121,13 @@ public class RoisPanel extends AbstractRoisPanel
     }
 
     @Override
-    public void activeSequenceChanged(SequenceEvent event)
+    public void sequenceChanged(SequenceEventBatch batch)
     {
-        super.activeSequenceChanged(event);
+        super.sequenceChanged(batch);
 
         // if data changed (more or less Z, T or C) we need to refresh action
         // so we can change ROI position correctly
-        if (event.getSourceType() == SequenceEventSourceType.SEQUENCE_DATA)
+        if (batch.contains(SequenceEventSourceType.SEQUENCE_DATA))
             roiControlPanel.refreshROIActions();
     }
 
@@ -187,7 +187,7 @@ public class SequencePanel extends JPanel implements ActiveSequenceListener, Act
     @Override
     public void sequenceDeactivated(Sequence sequence)
     {
-        // nothing here
+        sequenceInfosPanel.sequenceDeactivated(sequence);
     }
 
     @Override
@@ -33,9 +33,9 @@ import icy.math.Histogram;
 import icy.math.MathUtil;
 import icy.math.Scaler;
 import icy.sequence.Sequence;
-import icy.sequence.SequenceEvent;
+import icy.sequence.SequenceBatchListener;
 import icy.sequence.SequenceEvent.SequenceEventSourceType;
-import icy.sequence.SequenceListener;
+import icy.sequence.SequenceEventBatch;
 import icy.system.thread.ThreadUtil;
 import icy.type.DataType;
 import icy.type.collection.array.Array1DUtil;
@@ -72,7 +72,7 @@ import javax.swing.event.EventListenerList;
 /**
  * @author stephane
  */
-public class ScalerViewer extends JPanel implements SequenceListener, LUTChannelListener, ViewerListener
+public class ScalerViewer extends JPanel implements SequenceBatchListener, LUTChannelListener, ViewerListener
 {
     protected static enum actionType
     {
@@ -576,8 +576,9 @@ public class ScalerViewer extends JPanel implements SequenceListener, LUTChannel
         // add listeners
         final Sequence sequence = viewer.getSequence();
 
+        // histogram refresh is heavy, use batched events
         if (sequence != null)
-            sequence.addListener(this);
+            sequence.addBatchListener(this);
         viewer.addListener(this);
         lutChannel.addListener(this);
     }
@@ -922,19 +923,24 @@ public class ScalerViewer extends JPanel implements SequenceListener, LUTChannel
     @Override
     public void viewerClosed(Viewer viewer)
     {
+        final Sequence sequence = viewer.getSequence();
+
+        if (sequence != null)
+            sequence.removeBatchListener(this);
         viewer.removeListener(this);
     }
 
     @Override
-    public void sequenceChanged(SequenceEvent sequenceEvent)
+    public void sequenceChanged(SequenceEventBatch batch)
     {
-        if (sequenceEvent.getSourceType() == SequenceEventSourceType.SEQUENCE_DATA)
+        if (batch.contains(SequenceEventSourceType.SEQUENCE_DATA))
             onSequenceDataChanged();
     }
 
     @Override
-    public void sequenceClosed(Sequence sequence)
+    public boolean isEDTRequired()
     {
-        sequence.removeListener(this);
+        // histogram refresh is done in background anyway
+        return false;
     }
 }
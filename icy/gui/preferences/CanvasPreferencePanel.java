@@ -45,6 +45,7 @@ public class CanvasPreferencePanel extends PreferencePanel
      */
     private final JCheckBox filteringCheckBox;
     private final JCheckBox invertWheelAxisCheckBox;
+    private final JCheckBox overlayCacheCheckBox;
     private final JSpinner wheelAxisSensitivity;
 
     /**
@@ -60,6 +61,9 @@ public class CanvasPreferencePanel extends PreferencePanel
         invertWheelAxisCheckBox.setToolTipText("Invert the mouse wheel axis for canvas operation");
         wheelAxisSensitivity = new JSpinner(new SpinnerNumberModel(5d, 1d, 10d, 0.5d));
         wheelAxisSensitivity.setToolTipText("Set mouse wheel sensivity for canvas operation (1-10)");
+        overlayCacheCheckBox = new JCheckBox("Cache ROI rendering");
+        overlayCacheCheckBox.setToolTipText(
+                "Keep unselected ROIs rendering in cache to improve display speed when there is many ROIs");
 
         load();
 
@@ -69,6 +73,8 @@ public class CanvasPreferencePanel extends PreferencePanel
         mainPanel.add(Box.createVerticalStrut(6));
         mainPanel.add(GuiUtil.createLineBoxPanel(invertWheelAxisCheckBox, Box.createHorizontalGlue()));
         mainPanel.add(Box.createVerticalStrut(6));
+        mainPanel.add(GuiUtil.createLineBoxPanel(overlayCacheCheckBox, Box.createHorizontalGlue()));
+        mainPanel.add(Box.createVerticalStrut(6));
         mainPanel.add(GuiUtil.createLineBoxPanel(new JLabel(" Mouse wheel sensivity "), wheelAxisSensitivity,
                 Box.createHorizontalGlue()));
         mainPanel.add(Box.createVerticalStrut(6));
@@ -83,6 +89,7 @@ public class CanvasPreferencePanel extends PreferencePanel
         wheelAxisSensitivity.setValue(Double.valueOf(CanvasPreferences.getMouseWheelSensitivity()));
         invertWheelAxisCheckBox.setSelected(CanvasPreferences.getInvertMouseWheelAxis());
         filteringCheckBox.setSelected(CanvasPreferences.getFiltering());
+        overlayCacheCheckBox.setSelected(CanvasPreferences.getOverlayCache());
     }
 
     @Override
@@ -91,6 +98,7 @@ public class CanvasPreferencePanel extends PreferencePanel
         CanvasPreferences.setMouseWheelSensitivity(((Double) wheelAxisSensitivity.getValue()).doubleValue());
         CanvasPreferences.setInvertMouseWheelAxis(invertWheelAxisCheckBox.isSelected());
         CanvasPreferences.setFiltering(filteringCheckBox.isSelected());
+        CanvasPreferences.setOverlayCache(overlayCacheCheckBox.isSelected());
     }
 
 }
@@ -60,6 +60,7 @@ public class GeneralPreferencePanel extends PreferencePanel
     final JCheckBox exitConfirm;
     private final JCheckBox sequencePersistence;
     private final JCheckBox saveNewSequence;
+    private final JCheckBox pyramidBuild;
     final JCheckBox autoUpdateCheckBox;
     private final JCheckBox alwaysOnTopCheckBox;
     private final JCheckBox usageStatistics;
@@ -83,6 +84,9 @@ public class GeneralPreferencePanel extends PreferencePanel
         sequencePersistence.setToolTipText(
                 "Enable the XML persistence for sequence (file is automatically loaded/saved when sequence is opened/closed)");
         saveNewSequence = new JCheckBox("Ask to save new sequence when closing them");
+        pyramidBuild = new JCheckBox("Build resolution pyramid for large images");
+        pyramidBuild.setToolTipText(
+                "Build sub resolutions of large images in background for faster display (uses disk space in cache folder)");
         autoUpdateCheckBox = new JCheckBox("Enable application update");
         autoUpdateCheckBox.setToolTipText("Enable automatic update for application as soon a new version is available");
         alwaysOnTopCheckBox = new JCheckBox("Application window always on top");
@@ -171,6 +175,8 @@ public class GeneralPreferencePanel extends PreferencePanel
         topPanel.add(Box.createVerticalStrut(6));
         topPanel.add(GuiUtil.createLineBoxPanel(saveNewSequence, Box.createHorizontalGlue()));
         topPanel.add(Box.createVerticalStrut(6));
+        topPanel.add(GuiUtil.createLineBoxPanel(pyramidBuild, Box.createHorizontalGlue()));
+        topPanel.add(Box.createVerticalStrut(6));
         topPanel.add(GuiUtil.createLineBoxPanel(usageStatistics, Box.createHorizontalGlue()));
         topPanel.add(Box.createVerticalStrut(18));
 
@@ -219,6 +225,7 @@ public class GeneralPreferencePanel extends PreferencePanel
         exitConfirm.setSelected(GeneralPreferences.getExitConfirm());
         sequencePersistence.setSelected(GeneralPreferences.getSequencePersistence());
         saveNewSequence.setSelected(GeneralPreferences.getSaveNewSequence());
+        pyramidBuild.setSelected(GeneralPreferences.getPyramidBuild());
         autoUpdateCheckBox.setSelected(GeneralPreferences.getAutomaticUpdate());
         alwaysOnTopCheckBox.setSelected(GeneralPreferences.getAlwaysOnTop());
         usageStatistics.setSelected(GeneralPreferences.getUsageStatisticsReport());
@@ -255,6 +262,7 @@ public class GeneralPreferencePanel extends PreferencePanel
         GeneralPreferences.setExitConfirm(exitConfirm.isSelected());
         GeneralPreferences.setSequencePersistence(sequencePersistence.isSelected());
         GeneralPreferences.setSaveNewSequence(saveNewSequence.isSelected());
+        GeneralPreferences.setPyramidBuild(pyramidBuild.isSelected());
         GeneralPreferences.setAutomaticUpdate(autoUpdateCheckBox.isSelected());
         GeneralPreferences.setUsageStatisticsReport(usageStatistics.isSelected());
 
@@ -28,7 +28,10 @@ import icy.math.UnitUtil.UnitPrefix;
 import icy.resource.ResourceUtil;
 import icy.resource.icon.IcyIcon;
 import icy.sequence.Sequence;
+import icy.sequence.SequenceBatchListener;
 import icy.sequence.SequenceEvent;
+import icy.sequence.SequenceEvent.SequenceEventSourceType;
+import icy.sequence.SequenceEventBatch;
 import icy.system.IcyExceptionHandler;
 import icy.system.SystemUtil;
 import icy.system.thread.ThreadUtil;
@@ -52,7 +55,7 @@ import javax.swing.JTextField;
 /**
  * @author Stephane
  */
-public class SequenceInfosPanel extends JPanel implements ActiveSequenceListener
+public class SequenceInfosPanel extends JPanel implements ActiveSequenceListener, SequenceBatchListener
 {
     /**
      * 
@@ -475,25 +478,39 @@ public class SequenceInfosPanel extends JPanel implements ActiveSequenceListener
     @Override
     public void sequenceActivated(Sequence sequence)
     {
+        // use batched events to avoid refresh storm on bulk modifications
+        if (sequence != null)
+            sequence.addBatchListener(this);
+
         updateInfos();
     }
 
     @Override
     public void sequenceDeactivated(Sequence sequence)
     {
-        // nothing to do here
+        if (sequence != null)
+            sequence.removeBatchListener(this);
     }
 
     @Override
     public void activeSequenceChanged(SequenceEvent event)
     {
-        switch (event.getSourceType())
-        {
-            case SEQUENCE_DATA:
-            case SEQUENCE_TYPE:
-            case SEQUENCE_META:
-                updateInfos();
-                break;
-        }
+        // handled by batched events
+    }
+
+    @Override
+    public void sequenceChanged(SequenceEventBatch batch)
+    {
+        if (batch.contains(SequenceEventSourceType.SEQUENCE_DATA)
+                || batch.contains(SequenceEventSourceType.SEQUENCE_TYPE)
+                || batch.contains(SequenceEventSourceType.SEQUENCE_META))
+            updateInfos();
+    }
+
+    @Override
+    public boolean isEDTRequired()
+    {
+        // infos refresh is done in background anyway
+        return false;
     }
 }
@@ -22,6 +22,7 @@ import icy.image.lut.LUT;
 import icy.math.Scaler;
 import icy.system.SystemUtil;
 import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
 import icy.system.thread.ThreadUtil;
 
 import java.awt.image.BufferedImage;
@@ -124,6 +125,8 @@ class ARGBImageBuilder
 
         processor.setThreadName("ARGB Image builder");
         processor.setPriority(Processor.NORM_PRIORITY - 1);
+        // rendering task
+        processor.setLane(TaskScheduler.Lane.INTERACTIVE);
 
         buffers = new ArrayList<int[][]>();
     }
@@ -464,6 +464,10 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      * listeners
      */
     private final List<IcyBufferedImageListener> listeners;
+    /**
+     * cached single channel images (see {@link #getCachedImage(int)}), released on data change
+     */
+    private volatile IcyBufferedImage[] channelImages;
 
     /**
      * Build an Icy formatted BufferedImage, takes an IcyColorModel and a WritableRaster as input
@@ -481,6 +485,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
 
         updater = new UpdateEventHandler(this, false);
         listeners = new ArrayList<IcyBufferedImageListener>();
+        channelImages = null;
 
         // automatic update of channel bounds
         this.autoUpdateChannelBounds = autoUpdateChannelBounds;
@@ -905,6 +910,7 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
      * if <code>((c == 0) || (sizeC == 1))</code> then current image is directly returned<br>
      * if <code>((c < 0) || (c >= sizeC))</code> then it returns <code>null</code>
      * 
+     * @see #getCachedImage(int)
      * @see IcyBufferedImageUtil#extractChannel(IcyBufferedImage, int)
      * @since version 1.0.3.3b
      */
@@ -923,6 +929,46 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         return new IcyBufferedImage(getWidth(), getHeight(), getDataXY(c), isSignedDataType());
     }
 
+    /**
+     * Same as {@link #getImage(int)} except the single component image is cached so successive calls return the same
+     * instance (no allocation) as long as image data isn't changed.<br>
+     * The returned image is shared so it should be considered as read only: don't modify its colormap, bounds or
+     * listeners, use {@link #getImage(int)} if you need your own instance.
+     */
+    public IcyBufferedImage getCachedImage(int c)
+    {
+        if (c == -1)
+            return this;
+
+        final int sizeC = getSizeC();
+
+        if ((c < 0) || (c >= sizeC))
+            return null;
+        if (sizeC == 1)
+            return this;
+
+        IcyBufferedImage[] images = channelImages;
+
+        if ((images == null) || (images.length != sizeC))
+        {
+            images = new IcyBufferedImage[sizeC];
+            channelImages = images;
+        }
+
+        final Object data = getDataXY(c);
+        IcyBufferedImage result = images[c];
+
+        // not yet created or data array replaced in between
+        if ((result == null) || (result.getDataXY(0) != data) || (result.getWidth() != getWidth())
+                || (result.getHeight() != getHeight()))
+        {
+            result = new IcyBufferedImage(getWidth(), getHeight(), data, isSignedDataType());
+            images[c] = result;
+        }
+
+        return result;
+    }
+
     /**
      * @deprecated Use {@link IcyBufferedImageUtil#extractChannel(IcyBufferedImage, int)} instead.
      */
@@ -3709,6 +3755,8 @@ public class IcyBufferedImage extends BufferedImage implements IcyColorModelList
         {
             // do here global process on image data change
             case DATA_CHANGED:
+                // release single channel images (their channel bounds are no more valid)
+                channelImages = null;
                 // update image components bounds
                 if (autoUpdateChannelBounds)
                     updateChannelsBounds();
@@ -306,14 +306,9 @@ public class IcyBufferedImageUtil
                 // simple type change
                 ArrayUtil.arrayToSafeArray(source.getDataXY(c), result.getDataXY(c), srcSigned, dstSigned);
             else
-            {
-                // first we convert in double
-                final double[] darray = Array1DUtil.arrayToDoubleArray(source.getDataXY(c), srcSigned);
-                // then we scale data
-                scalers[c].scale(darray);
-                // and finally we convert in wanted datatype
-                Array1DUtil.doubleArrayToSafeArray(darray, result.getDataXY(c), dstSigned);
-            }
+                // scale and convert in wanted datatype (single pass)
+                Array1DUtil.arrayToSafeArray(source.getDataXY(c), result.getDataXY(c), scalers[c], srcSigned,
+                        dstSigned);
         }
 
         // copy colormap from source image
@@ -351,14 +346,8 @@ public class IcyBufferedImageUtil
                 // simple type change
                 ArrayUtil.arrayToSafeArray(source.getDataXY(c), result.getDataXY(c), srcSigned, dstSigned);
             else
-            {
-                // first we convert in double
-                final double[] darray = Array1DUtil.arrayToDoubleArray(source.getDataXY(c), srcSigned);
-                // then we scale data
-                scaler.scale(darray);
-                // and finally we convert in wanted datatype
-                Array1DUtil.doubleArrayToSafeArray(darray, result.getDataXY(c), dstSigned);
-            }
+                // scale and convert in wanted datatype (single pass)
+                Array1DUtil.arrayToSafeArray(source.getDataXY(c), result.getDataXY(c), scaler, srcSigned, dstSigned);
         }
 
         // copy colormap from source image
@@ -20,7 +20,7 @@ package icy.image;
 
 import icy.roi.BooleanMask2D;
 import icy.roi.ROI;
-import icy.type.DataIterator;
+import icy.type.DataRunIterator;
 import icy.type.DataType;
 import icy.type.collection.array.Array1DUtil;
 
@@ -37,7 +37,7 @@ import java.util.NoSuchElementException;
  * 
  * @author Stephane
  */
-public class ImageDataIterator implements DataIterator
+public class ImageDataIterator implements DataRunIterator
 {
     protected final IcyBufferedImage image;
     protected final DataType dataType;
@@ -308,6 +308,90 @@ public class ImageDataIterator implements DataIterator
         Array1DUtil.setValue(data, imgOff, dataType, value);
     }
 
+    @Override
+    public DataType getDataType()
+    {
+        return dataType;
+    }
+
+    @Override
+    public int getRunLength()
+    {
+        if (done)
+            return 0;
+
+        // no mask --> end of line
+        if (mask == null)
+            return w - x;
+
+        final boolean[] m = mask.mask;
+        final int end = maskOff + (w - x);
+        int off = maskOff;
+
+        while ((off < end) && m[off])
+            off++;
+
+        return off - maskOff;
+    }
+
+    /**
+     * Move iterator after the specified number of element (should not exceed {@link #getRunLength()}).
+     */
+    protected void skipRun(int length)
+    {
+        if (length > 0)
+        {
+            // stay on same line here
+            imgOff += length - 1;
+            maskOff += length - 1;
+            x += length - 1;
+            // then let next() handle line change and mask
+            next();
+        }
+    }
+
+    @Override
+    public int readRun(double[] out, int offset, int length)
+    {
+        final int len = Math.min(length, getRunLength());
+
+        if (len > 0)
+        {
+            Array1DUtil.arrayToDoubleArray(data, imgOff, out, offset, len, dataType.isSigned());
+            skipRun(len);
+        }
+
+        return len;
+    }
+
+    @Override
+    public int readRawRun(Object out, int offset, int length)
+    {
+        final int len = Math.min(length, getRunLength());
+
+        if (len > 0)
+        {
+            System.arraycopy(data, imgOff, out, offset, len);
+            skipRun(len);
+        }
+
+        return len;
+    }
+
+    @Override
+    public int writeRun(double[] in, int offset, int length)
+    {
+        final int len = Math.min(length, getRunLength());
+
+        if (len > 0)
+        {
+            Array1DUtil.doubleArrayToArray(in, offset, data, imgOff, len);
+            skipRun(len);
+        }
+
+        return len;
+    }
+
     /**
      * Returns current X position.
      */
@@ -20,6 +20,8 @@ import icy.math.ArrayMath;
 import icy.roi.ROI;
 import icy.roi.ROI2D;
 import icy.sequence.Sequence;
+import icy.sequence.SequenceEvent;
+import icy.sequence.SequenceListener;
 import icy.system.thread.ThreadUtil;
 import icy.type.DataType;
 import icy.type.collection.array.Array1DUtil;
@@ -36,6 +38,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import ij.CompositeImage;
+import ij.ImageListener;
 import ij.ImagePlus;
 import ij.ImageStack;
 import ij.LookUpTable;
@@ -66,6 +69,94 @@ import plugins.kernel.roi.roi2d.ROI2DShape;
  */
 public class ImageJUtil
 {
+    /**
+     * Notify an Icy {@link Sequence} sharing its data arrays with an ImageJ {@link ImagePlus} when
+     * ImageJ updates the image (listener is automatically removed as soon as the image or the
+     * sequence is closed).
+     */
+    private static class SharedDataListener implements ImageListener, SequenceListener
+    {
+        final ImagePlus image;
+        final Sequence sequence;
+
+        public SharedDataListener(ImagePlus image, Sequence sequence)
+        {
+            super();
+
+            this.image = image;
+            this.sequence = sequence;
+        }
+
+        public void start()
+        {
+            ImagePlus.addImageListener(this);
+            sequence.addListener(this);
+        }
+
+        public void stop()
+        {
+            ImagePlus.removeImageListener(this);
+            sequence.removeListener(this);
+        }
+
+        @Override
+        public void imageOpened(ImagePlus imp)
+        {
+            // nothing to do here
+        }
+
+        @Override
+        public void imageClosed(ImagePlus imp)
+        {
+            if (imp == image)
+                stop();
+        }
+
+        @Override
+        public void imageUpdated(ImagePlus imp)
+        {
+            if (imp != image)
+                return;
+
+            // we don't know which planes were modified so we notify all of them
+            sequence.beginUpdate();
+            try
+            {
+                for (IcyBufferedImage img : sequence.getAllImage())
+                    img.dataChanged();
+            }
+            finally
+            {
+                sequence.endUpdate();
+            }
+        }
+
+        @Override
+        public void sequenceChanged(SequenceEvent sequenceEvent)
+        {
+            // nothing to do here
+        }
+
+        @Override
+        public void sequenceClosed(Sequence seq)
+        {
+            // shared arrays are still valid for ImageJ but we don't need to notify anymore
+            stop();
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the specified native 1D array can be directly used by ImageJ
+     * (ImageJ only supports unsigned byte, unsigned short and float data).
+     */
+    private static boolean isIJType(Object array, boolean signed)
+    {
+        if (array instanceof float[])
+            return true;
+
+        return !signed && ((array instanceof byte[]) || (array instanceof short[]));
+    }
+
     /**
      * Convert the specified native 1D array to supported ImageJ native data array.
      */
@@ -86,9 +177,11 @@ public class ImageJUtil
 
     /**
      * Append the specified {@link IcyBufferedImage} to the given ImageJ {@link ImageStack}.<br>
-     * If input {@link ImageStack} is <code>null</code> then a new {@link ImageStack} is returned.
+     * If input {@link ImageStack} is <code>null</code> then a new {@link ImageStack} is returned.<br>
+     * If <code>shareData</code> is true then data arrays are directly used by the stack when their
+     * type is supported by ImageJ (copy is done otherwise).
      */
-    private static ImageStack appendToStack(IcyBufferedImage img, ImageStack stack)
+    private static ImageStack appendToStack(IcyBufferedImage img, ImageStack stack, boolean shareData)
     {
         final ImageStack result;
 
@@ -98,7 +191,15 @@ public class ImageJUtil
             result = stack;
 
         for (int c = 0; c < img.getSizeC(); c++)
-            result.addSlice(null, convertToIJType(img.getDataXY(c), img.isSignedDataType()));
+        {
+            final Object data = img.getDataXY(c);
+            final boolean signed = img.isSignedDataType();
+
+            if (shareData && isIJType(data, signed))
+                result.addSlice(null, data);
+            else
+                result.addSlice(null, convertToIJType(data, signed));
+        }
 
         return result;
     }
@@ -106,7 +207,7 @@ public class ImageJUtil
     /**
      * Convert the specified Icy {@link Sequence} object to {@link ImagePlus}.
      */
-    private static ImagePlus createImagePlus(Sequence sequence, ProgressListener progressListener)
+    private static ImagePlus createImagePlus(Sequence sequence, boolean shareData, ProgressListener progressListener)
     {
         final int sizeZ = sequence.getSizeZ();
         final int sizeT = sequence.getSizeT();
@@ -122,7 +223,7 @@ public class ImageJUtil
                 if (progressListener != null)
                     progressListener.notifyProgress(position, len);
 
-                stack = appendToStack(sequence.getImage(t, z), stack);
+                stack = appendToStack(sequence.getImage(t, z), stack, shareData);
 
                 position++;
             }
@@ -189,10 +290,12 @@ public class ImageJUtil
     }
 
     /**
-     * Convert the ImageJ {@link ImagePlus} image at position [Z,T] into an Icy image
+     * Convert the ImageJ {@link ImagePlus} image at position [Z,T] into an Icy image.<br>
+     * If <code>shareData</code> is true then the ImageJ data arrays are directly used by the Icy
+     * image when possible (no copy).
      */
     public static IcyBufferedImage convertToIcyBufferedImage(ImagePlus image, int z, int t, int sizeX, int sizeY,
-            int sizeC, int type, boolean signed16)
+            int sizeC, int type, boolean signed16, boolean shareData)
     {
         // set position
         image.setPosition(1, z + 1, t + 1);
@@ -201,8 +304,10 @@ public class ImageJUtil
         if ((sizeC == 1) && ((type == ImagePlus.COLOR_256) || (type == ImagePlus.COLOR_RGB)))
             return IcyBufferedImage.createFrom(image.getBufferedImage());
 
+        // 16 bits signed data need to be converted
+        final boolean share = shareData && !signed16;
         final ImageProcessor ip = image.getProcessor();
-        final Object data = Array1DUtil.copyOf(ip.getPixels());
+        final Object data = share ? ip.getPixels() : Array1DUtil.copyOf(ip.getPixels());
         final DataType dataType = ArrayUtil.getDataType(data);
         final Object[] datas = Array2DUtil.createArray(dataType, sizeC);
 
@@ -216,16 +321,25 @@ public class ImageJUtil
         for (int c = 1; c < sizeC; c++)
         {
             image.setPosition(c + 1, z + 1, t + 1);
-            datas[c] = Array1DUtil.copyOf(image.getProcessor().getPixels());
+            datas[c] = share ? image.getProcessor().getPixels() : Array1DUtil.copyOf(image.getProcessor().getPixels());
             // special case of 16 bits signed data --> subtract 32768
             if (signed16)
-                datas[c] = ArrayMath.subtract(datas, Double.valueOf(32768));
+                datas[c] = ArrayMath.subtract(datas[c], Double.valueOf(32768));
         }
 
         // create a single image from all channels
         return new IcyBufferedImage(sizeX, sizeY, datas, signed16);
     }
 
+    /**
+     * Convert the ImageJ {@link ImagePlus} image at position [Z,T] into an Icy image
+     */
+    public static IcyBufferedImage convertToIcyBufferedImage(ImagePlus image, int z, int t, int sizeX, int sizeY,
+            int sizeC, int type, boolean signed16)
+    {
+        return convertToIcyBufferedImage(image, z, t, sizeX, sizeY, sizeC, type, signed16, false);
+    }
+
     /**
      * Convert the ImageJ {@link ImagePlus} image at position [Z,T] into an Icy image
      */
@@ -238,9 +352,11 @@ public class ImageJUtil
     }
 
     /**
-     * Convert the specified ImageJ {@link ImagePlus} object to Icy {@link Sequence}
+     * Convert the specified ImageJ {@link ImagePlus} object to Icy {@link Sequence}.<br>
+     * If <code>shareData</code> is true then the sequence directly uses the ImageJ data arrays when
+     * possible (no copy) and is notified of any later ImageJ update of the image.
      */
-    public static Sequence convertToIcySequence(ImagePlus image, ProgressListener progressListener)
+    public static Sequence convertToIcySequence(ImagePlus image, boolean shareData, ProgressListener progressListener)
     {
         final Sequence result = new Sequence(image.getTitle());
         final int[] dim = image.getDimensions(true);
@@ -268,7 +384,8 @@ public class ImageJUtil
                     if (progressListener != null)
                         progressListener.notifyProgress(position, len);
 
-                    result.setImage(t, z, convertToIcyBufferedImage(image, z, t, sizeX, sizeY, sizeC, type, signed16));
+                    result.setImage(t, z,
+                            convertToIcyBufferedImage(image, z, t, sizeX, sizeY, sizeC, type, signed16, shareData));
 
                     position++;
                 }
@@ -310,19 +427,35 @@ public class ImageJUtil
             result.endUpdate();
         }
 
+        if (shareData)
+            new SharedDataListener(image, result).start();
+
         return result;
     }
 
     /**
-     * Convert the specified Icy {@link Sequence} object to ImageJ {@link ImagePlus}
+     * Convert the specified ImageJ {@link ImagePlus} object to Icy {@link Sequence}
      */
-    public static ImagePlus convertToImageJImage(Sequence sequence, boolean useRoiManager,
+    public static Sequence convertToIcySequence(ImagePlus image, ProgressListener progressListener)
+    {
+        return convertToIcySequence(image, false, progressListener);
+    }
+
+    /**
+     * Convert the specified Icy {@link Sequence} object to ImageJ {@link ImagePlus}.<br>
+     * If <code>shareData</code> is true then the ImageJ stack directly uses the sequence data
+     * arrays when their type is supported by ImageJ (unsigned byte, unsigned short and float),
+     * others types are still converted. The sequence is then notified of any ImageJ update of the
+     * image. Note that sharing is lost if sequence images are replaced afterward.
+     */
+    public static ImagePlus convertToImageJImage(Sequence sequence, boolean useRoiManager, boolean shareData,
             ProgressListener progressListener)
     {
         // create the image
-        final ImagePlus result = createImagePlus(sequence, progressListener);
+        final ImagePlus image = createImagePlus(sequence, shareData, progressListener);
+        final ImagePlus result;
         // calibrate
-        calibrateImageJImage(result, sequence);
+        calibrateImageJImage(image, sequence);
 
         // convert ROI
         final List<Roi> ijRois = new ArrayList<Roi>();
@@ -350,20 +483,34 @@ public class ImageJUtil
                 roiManager = RoiManager.getInstance();
                 int n = 0;
                 for (Roi roi : ijRois)
-                    roiManager.add(result, roi, n++);
+                    roiManager.add(image, roi, n++);
             }
 
-            result.setRoi(ijRois.get(0));
+            image.setRoi(ijRois.get(0));
         }
 
-        if (result.getNChannels() > 4)
-            return new CompositeImage(result, CompositeImage.COLOR);
-        else if (result.getNChannels() > 1)
-            return new CompositeImage(result, CompositeImage.COMPOSITE);
+        if (image.getNChannels() > 4)
+            result = new CompositeImage(image, CompositeImage.COLOR);
+        else if (image.getNChannels() > 1)
+            result = new CompositeImage(image, CompositeImage.COMPOSITE);
+        else
+            result = image;
+
+        if (shareData)
+            new SharedDataListener(result, sequence).start();
 
         return result;
     }
 
+    /**
+     * Convert the specified Icy {@link Sequence} object to ImageJ {@link ImagePlus}
+     */
+    public static ImagePlus convertToImageJImage(Sequence sequence, boolean useRoiManager,
+            ProgressListener progressListener)
+    {
+        return convertToImageJImage(sequence, useRoiManager, false, progressListener);
+    }
+
     /**
      * Convert the specified Icy {@link Sequence} object to ImageJ {@link ImagePlus}
      */
@@ -20,6 +20,7 @@ package icy.math;
 
 import icy.type.DataIterator;
 import icy.type.DataIteratorUtil;
+import icy.type.DataRunIterator;
 
 /**
  * Math utilities for {@link DataIterator} classes.
@@ -28,6 +29,119 @@ import icy.type.DataIteratorUtil;
  */
 public class DataIteratorMath
 {
+    /**
+     * Basic statistics computed in a single pass over a {@link DataIterator} (see
+     * {@link DataIteratorMath#stats(DataIterator)}).
+     * 
+     * @author Stephane
+     */
+    public static class Statistics
+    {
+        long count;
+        double min;
+        double max;
+        double sum;
+        double sumSq;
+
+        public Statistics()
+        {
+            super();
+
+            count = 0L;
+            min = Double.MAX_VALUE;
+            max = -Double.MAX_VALUE;
+            sum = 0d;
+            sumSq = 0d;
+        }
+
+        /**
+         * Returns the number of values.
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * Returns the minimum value (<code>Double.MAX_VALUE</code> if no value).
+         */
+        public double getMin()
+        {
+            return min;
+        }
+
+        /**
+         * Returns the maximum value (<code>-Double.MAX_VALUE</code> if no value).
+         */
+        public double getMax()
+        {
+            return max;
+        }
+
+        /**
+         * Returns the sum of values.
+         */
+        public double getSum()
+        {
+            return sum;
+        }
+
+        /**
+         * Returns the sum of squared values.
+         */
+        public double getSumSq()
+        {
+            return sumSq;
+        }
+
+        /**
+         * Returns the mean value (<code>0</code> if no value).
+         */
+        public double getMean()
+        {
+            if (count == 0L)
+                return 0d;
+
+            return sum / count;
+        }
+
+        /**
+         * Returns the (population) variance (<code>0</code> if no value).
+         */
+        public double getVariance()
+        {
+            if (count == 0L)
+                return 0d;
+
+            final double mean = sum / count;
+
+            return Math.max(0d, (sumSq / count) - (mean * mean));
+        }
+
+        /**
+         * Returns the (population) standard deviation (<code>0</code> if no value).
+         */
+        public double getStandardDeviation()
+        {
+            return Math.sqrt(getVariance());
+        }
+
+        void add(double value)
+        {
+            if (value < min)
+                min = value;
+            if (value > max)
+                max = value;
+            sum += value;
+            sumSq += value * value;
+        }
+    }
+
+    /**
+     * Size of the buffer used to read runs of data (see {@link DataRunIterator})
+     */
+    static final int RUN_BUFFER_SIZE = 4096;
+
     /**
      * @deprecated Use {@link DataIteratorUtil#count(DataIterator)} instead.
      */
@@ -118,4 +232,43 @@ public class DataIteratorMath
 
         return result / numSample;
     }
+
+    /**
+     * Computes count, minimum, maximum, sum and sum of squares of all values contained in the specified
+     * {@link DataIterator} in a single pass.<br>
+     * Data is read by runs when the iterator is a {@link DataRunIterator} (much faster than per element access).
+     */
+    public static Statistics stats(DataIterator it)
+    {
+        final Statistics result = new Statistics();
+
+        it.reset();
+
+        if (it instanceof DataRunIterator)
+        {
+            final DataRunIterator runIt = (DataRunIterator) it;
+            final double[] buffer = new double[RUN_BUFFER_SIZE];
+
+            while (!runIt.done())
+            {
+                final int len = runIt.readRun(buffer, 0, RUN_BUFFER_SIZE);
+
+                for (int i = 0; i < len; i++)
+                    result.add(buffer[i]);
+
+                result.count += len;
+            }
+        }
+        else
+        {
+            while (!it.done())
+            {
+                result.add(it.get());
+                result.count++;
+                it.next();
+            }
+        }
+
+        return result;
+    }
 }
@@ -110,6 +110,10 @@ public abstract class Overlay implements Painter, ChangeListener, Comparable<Ove
      */
     public static final int LOD_SMALL = 10;
     public static final int LOD_TINY = 4;
+    /**
+     * Anything smaller than this (in screen pixel) can be drawn as a single point
+     */
+    public static final int LOD_POINT = 1;
 
     protected static int id_gen = 1;
 
@@ -25,11 +25,13 @@ import icy.file.xml.XMLPersistentHelper;
 import icy.image.ImageUtil;
 import icy.network.NetworkUtil;
 import icy.network.URLUtil;
+import icy.plugin.PluginIndex.IndexedPlugin;
 import icy.plugin.abstract_.Plugin;
 import icy.plugin.interface_.PluginBundled;
 import icy.plugin.interface_.PluginImageAnalysis;
 import icy.preferences.RepositoryPreferences.RepositoryInfo;
 import icy.resource.ResourceUtil;
+import icy.system.IcyExceptionHandler;
 import icy.util.ClassUtil;
 import icy.util.JarUtil;
 import icy.util.StringUtil;
@@ -87,8 +89,13 @@ public class PluginDescriptor implements XMLPersistent
     public static final String ID_DESCRIPTION = "description";
     public static final String ID_DEPENDENCIES = "dependencies";
     public static final String ID_DEPENDENCY = "dependency";
+    public static final String ID_LOCAL_XML_URL = "local_xml_url";
 
     protected Class<? extends Plugin> pluginClass;
+    // plugin index entry (local plugin which class is loaded on demand)
+    protected IndexedPlugin indexedPlugin;
+    // on demand class loading failed (plugin is not available anymore)
+    protected boolean classLoadFailed;
 
     protected ImageIcon icon;
     protected Image image;
@@ -310,6 +317,8 @@ public class PluginDescriptor implements XMLPersistent
         super();
 
         pluginClass = null;
+        indexedPlugin = null;
+        classLoadFailed = false;
 
         icon = DEFAULT_ICON;
         image = DEFAULT_IMAGE;
@@ -412,6 +421,28 @@ public class PluginDescriptor implements XMLPersistent
         imageLoaded = false;
     }
 
+    /**
+     * Create from plugin index entry, used for local plugin which class is loaded on demand (see
+     * {@link #getPluginClass()}).
+     */
+    PluginDescriptor(IndexedPlugin indexedPlugin)
+    {
+        this();
+
+        this.indexedPlugin = indexedPlugin;
+
+        loadFromXML(indexedPlugin.descriptor);
+        localXmlUrl = XMLUtil.getElementValue(indexedPlugin.descriptor, ID_LOCAL_XML_URL, "");
+        // overwrite class name from index
+        ident.setClassName(indexedPlugin.getClassName());
+
+        // only descriptor is loaded here
+        descriptorLoaded = true;
+        changeLogLoaded = false;
+        iconLoaded = false;
+        imageLoaded = false;
+    }
+
     /**
      * Create from plugin online identifier, used for online plugin only.
      * 
@@ -589,6 +620,10 @@ public class PluginDescriptor implements XMLPersistent
      */
     public boolean isInstanceOf(Class<?> baseClazz)
     {
+        // class not yet loaded --> use indexed informations
+        if ((pluginClass == null) && (indexedPlugin != null))
+            return (baseClazz != null) && indexedPlugin.getTypeNames().contains(baseClazz.getName());
+
         return ClassUtil.isSubClass(pluginClass, baseClazz);
     }
 
@@ -597,6 +632,9 @@ public class PluginDescriptor implements XMLPersistent
      */
     public boolean isAbstract()
     {
+        if ((pluginClass == null) && (indexedPlugin != null))
+            return indexedPlugin.isAbstract;
+
         return ClassUtil.isAbstract(pluginClass);
     }
 
@@ -605,6 +643,9 @@ public class PluginDescriptor implements XMLPersistent
      */
     public boolean isPrivate()
     {
+        if ((pluginClass == null) && (indexedPlugin != null))
+            return indexedPlugin.isPrivate;
+
         return ClassUtil.isPrivate(pluginClass);
     }
 
@@ -613,6 +654,9 @@ public class PluginDescriptor implements XMLPersistent
      */
     public boolean isInterface()
     {
+        if ((pluginClass == null) && (indexedPlugin != null))
+            return indexedPlugin.isInterface;
+
         return pluginClass.isInterface();
     }
 
@@ -621,7 +665,7 @@ public class PluginDescriptor implements XMLPersistent
      */
     public boolean isActionable()
     {
-        return isClassLoaded() && !isPrivate() && !isAbstract() && !isInterface()
+        return isClassAvailable() && !isPrivate() && !isAbstract() && !isInterface()
                 && isInstanceOf(PluginImageAnalysis.class);
     }
 
@@ -631,7 +675,7 @@ public class PluginDescriptor implements XMLPersistent
      */
     public boolean isBundled()
     {
-        return isClassLoaded() && isInstanceOf(PluginBundled.class);
+        return isClassAvailable() && isInstanceOf(PluginBundled.class);
     }
 
     /**
@@ -756,6 +800,34 @@ public class PluginDescriptor implements XMLPersistent
         return true;
     }
 
+    /**
+     * Save informations needed to rebuild the descriptor from the plugin index (see
+     * {@link PluginIndex}).
+     */
+    void saveToIndex(Node node)
+    {
+        ident.saveToXML(node);
+
+        XMLUtil.setElementValue(node, ID_NAME, getName());
+        XMLUtil.setElementValue(node, ID_URL, getXmlUrl());
+        XMLUtil.setElementValue(node, ID_LOCAL_XML_URL, localXmlUrl);
+        XMLUtil.setElementValue(node, ID_JAR_URL, getJarUrl());
+        XMLUtil.setElementValue(node, ID_IMAGE_URL, getImageUrl());
+        XMLUtil.setElementValue(node, ID_ICON_URL, getIconUrl());
+        XMLUtil.setElementValue(node, ID_AUTHOR, getAuthor());
+        XMLUtil.setElementValue(node, ID_WEB, getWeb());
+        XMLUtil.setElementValue(node, ID_EMAIL, getEmail());
+        XMLUtil.setElementValue(node, ID_DESCRIPTION, getDescription());
+
+        final Element dependances = XMLUtil.setElement(node, ID_DEPENDENCIES);
+        if (dependances != null)
+        {
+            XMLUtil.removeAllChildren(dependances);
+            for (PluginIdent dep : required)
+                dep.saveToXML(XMLUtil.addElement(dependances, ID_DEPENDENCY));
+        }
+    }
+
     public boolean saveToXML()
     {
         return XMLPersistentHelper.saveToXML(this, getXMLFilename());
@@ -806,11 +878,26 @@ public class PluginDescriptor implements XMLPersistent
         return true;
     }
 
+    /**
+     * Returns <code>true</code> if the plugin class is loaded.
+     * 
+     * @see #isClassAvailable()
+     */
     public boolean isClassLoaded()
     {
         return pluginClass != null;
     }
 
+    /**
+     * Returns <code>true</code> if the plugin class is loaded or can be loaded on demand (local
+     * plugin retrieved from the plugin index).<br>
+     * Returns <code>false</code> once on demand loading failed.
+     */
+    public boolean isClassAvailable()
+    {
+        return (pluginClass != null) || ((indexedPlugin != null) && !classLoadFailed);
+    }
+
     /**
      * Returns the plugin class name.<br>
      * Ex: "plugins.tutorial.Example1"
@@ -862,10 +949,34 @@ public class PluginDescriptor implements XMLPersistent
     }
 
     /**
-     * @return the pluginClass
+     * @return the pluginClass (<code>null</code> if the class cannot be loaded, see
+     *         {@link #isClassAvailable()})
      */
     public Class<? extends Plugin> getPluginClass()
     {
+        // load class on demand
+        if ((pluginClass == null) && (indexedPlugin != null) && !classLoadFailed)
+        {
+            synchronized (this)
+            {
+                if ((pluginClass == null) && !classLoadFailed)
+                {
+                    try
+                    {
+                        pluginClass = PluginLoader.getLoader().loadClass(indexedPlugin.getClassName())
+                                .asSubclass(Plugin.class);
+                    }
+                    catch (Throwable t)
+                    {
+                        // don't retry, plugin is now considered as unavailable
+                        classLoadFailed = true;
+                        System.err.println("Class '" + indexedPlugin.getClassName() + "' cannot be loaded :");
+                        IcyExceptionHandler.showErrorMessage(t, false);
+                    }
+                }
+            }
+        }
+
         return pluginClass;
     }
 
@@ -876,6 +987,8 @@ public class PluginDescriptor implements XMLPersistent
     {
         if (pluginClass != null)
             return ClassUtil.getJarPath(pluginClass);
+        if (indexedPlugin != null)
+            return indexedPlugin.getJarPath();
 
         return null;
     }
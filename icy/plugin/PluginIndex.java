@@ -0,0 +1,448 @@
+/*
+ * Copyright 2010-2015 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.plugin;
+
+import icy.file.FileUtil;
+import icy.main.Icy;
+import icy.preferences.ApplicationPreferences;
+import icy.util.StringUtil;
+import icy.util.XMLUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Persistent index of plugin classes found in plugin JAR files.<br>
+ * Each JAR file is identified by its path, size, last modification date and a digest of its
+ * content (computed from the JAR central directory: entry names, sizes and CRCs) so we only need
+ * to scan (and define classes from) new or modified JAR files at startup.<br>
+ * Plugins coming from an up to date JAR entry get a descriptor built from the index and their
+ * class is loaded on demand (see {@link PluginDescriptor#getPluginClass()}).
+ */
+public class PluginIndex
+{
+    /**
+     * Change it when index format or indexed informations change.
+     */
+    public static final int INDEX_VERSION = 2;
+    public static final String INDEX_FILENAME = "plugin_index.xml";
+
+    static final String ID_VERSION = "version";
+    static final String ID_KERNEL_VERSION = "kernelVersion";
+    static final String ID_JAR = "jar";
+    static final String ID_PATH = "path";
+    static final String ID_SIZE = "size";
+    static final String ID_MODIFIED = "modified";
+    static final String ID_DIGEST = "digest";
+    static final String ID_PLUGIN = "plugin";
+    static final String ID_FAILED = "failed";
+    static final String ID_CLASSNAME = "classname";
+    static final String ID_TYPE = "type";
+    static final String ID_ABSTRACT = "abstract";
+    static final String ID_INTERFACE = "interface";
+    static final String ID_PRIVATE = "private";
+    static final String ID_DESCRIPTOR = "descriptor";
+
+    /**
+     * Indexed informations about a plugin class (enough to build its descriptor and answer type
+     * queries without loading the class).
+     */
+    public static class IndexedPlugin
+    {
+        final String className;
+        final String jarPath;
+        final Set<String> typeNames;
+        final boolean isAbstract;
+        final boolean isInterface;
+        final boolean isPrivate;
+        final Element descriptor;
+
+        IndexedPlugin(PluginDescriptor plugin, String jarPath)
+        {
+            super();
+
+            final Class<?> clazz = plugin.getPluginClass();
+
+            className = clazz.getName();
+            this.jarPath = jarPath;
+            typeNames = PluginIndex.getTypeNames(clazz);
+            isAbstract = plugin.isAbstract();
+            isInterface = plugin.isInterface();
+            isPrivate = plugin.isPrivate();
+            descriptor = XMLUtil.createRootElement(XMLUtil.createDocument(false), ID_DESCRIPTOR);
+            plugin.saveToIndex(descriptor);
+        }
+
+        IndexedPlugin(Element node, String jarPath)
+        {
+            super();
+
+            this.jarPath = jarPath;
+            className = XMLUtil.getAttributeValue(node, ID_CLASSNAME, "");
+            isAbstract = XMLUtil.getAttributeBooleanValue(node, ID_ABSTRACT, false);
+            isInterface = XMLUtil.getAttributeBooleanValue(node, ID_INTERFACE, false);
+            isPrivate = XMLUtil.getAttributeBooleanValue(node, ID_PRIVATE, false);
+            typeNames = new HashSet<String>();
+            for (Element typeNode : XMLUtil.getElements(node, ID_TYPE))
+                typeNames.add(XMLUtil.getValue(typeNode, ""));
+            descriptor = XMLUtil.getElement(node, ID_DESCRIPTOR);
+        }
+
+        void saveToXML(Element node)
+        {
+            XMLUtil.setAttributeValue(node, ID_CLASSNAME, className);
+            XMLUtil.setAttributeBooleanValue(node, ID_ABSTRACT, isAbstract);
+            XMLUtil.setAttributeBooleanValue(node, ID_INTERFACE, isInterface);
+            XMLUtil.setAttributeBooleanValue(node, ID_PRIVATE, isPrivate);
+            for (String typeName : typeNames)
+                XMLUtil.addElement(node, ID_TYPE, typeName);
+            XMLUtil.addNode(node, node.getOwnerDocument().importNode(descriptor, true));
+        }
+
+        public String getClassName()
+        {
+            return className;
+        }
+
+        public String getJarPath()
+        {
+            return jarPath;
+        }
+
+        /**
+         * Returns name of all super classes and interfaces (including the class itself)
+         */
+        public Set<String> getTypeNames()
+        {
+            return typeNames;
+        }
+    }
+
+    /**
+     * Indexed informations for a plugin JAR file.
+     */
+    public static class JarIndex
+    {
+        final String path;
+        final long size;
+        final long modified;
+        final long digest;
+        final List<IndexedPlugin> plugins;
+        /**
+         * classes we failed to load (missing dependency for instance), we retry them at each
+         * startup as the dependency may be installed later.
+         */
+        final Set<String> failedClasses;
+
+        JarIndex(File file)
+        {
+            super();
+
+            path = FileUtil.getGenericPath(file.getAbsolutePath());
+            size = file.length();
+            modified = file.lastModified();
+            digest = computeDigest(file);
+            plugins = new ArrayList<IndexedPlugin>();
+            failedClasses = new HashSet<String>();
+        }
+
+        JarIndex(Element node)
+        {
+            super();
+
+            path = XMLUtil.getAttributeValue(node, ID_PATH, "");
+            size = XMLUtil.getAttributeLongValue(node, ID_SIZE, -1L);
+            modified = XMLUtil.getAttributeLongValue(node, ID_MODIFIED, -1L);
+            digest = XMLUtil.getAttributeLongValue(node, ID_DIGEST, -1L);
+            plugins = new ArrayList<IndexedPlugin>();
+            failedClasses = new HashSet<String>();
+
+            for (Element pluginNode : XMLUtil.getElements(node, ID_PLUGIN))
+            {
+                final IndexedPlugin plugin = new IndexedPlugin(pluginNode, path);
+
+                if (!StringUtil.isEmpty(plugin.className) && (plugin.descriptor != null))
+                    plugins.add(plugin);
+            }
+            for (Element failedNode : XMLUtil.getElements(node, ID_FAILED))
+                failedClasses.add(XMLUtil.getValue(failedNode, ""));
+        }
+
+        void saveToXML(Element node)
+        {
+            XMLUtil.setAttributeValue(node, ID_PATH, path);
+            XMLUtil.setAttributeLongValue(node, ID_SIZE, size);
+            XMLUtil.setAttributeLongValue(node, ID_MODIFIED, modified);
+            XMLUtil.setAttributeLongValue(node, ID_DIGEST, digest);
+
+            for (IndexedPlugin plugin : plugins)
+                plugin.saveToXML(XMLUtil.addElement(node, ID_PLUGIN));
+            for (String className : failedClasses)
+                XMLUtil.addElement(node, ID_FAILED, className);
+        }
+
+        /**
+         * Returns <code>true</code> if this entry still describes the specified file.
+         */
+        public boolean isUpToDate(File file)
+        {
+            // quick checks first
+            if ((file.length() != size) || (file.lastModified() != modified))
+                return false;
+
+            // then verify content (JAR replaced with same size and date)
+            return (digest != -1L) && (computeDigest(file) == digest);
+        }
+
+        public String getPath()
+        {
+            return path;
+        }
+
+        public List<IndexedPlugin> getPlugins()
+        {
+            return plugins;
+        }
+
+        public Set<String> getFailedClasses()
+        {
+            return failedClasses;
+        }
+
+        void addPlugin(PluginDescriptor plugin)
+        {
+            plugins.add(new IndexedPlugin(plugin, path));
+        }
+
+        void addFailedClass(String className)
+        {
+            failedClasses.add(className);
+        }
+    }
+
+    /**
+     * Returns the name of the class, all its super classes and all implemented interfaces.
+     */
+    public static Set<String> getTypeNames(Class<?> clazz)
+    {
+        final Set<String> result = new HashSet<String>();
+
+        addTypeNames(clazz, result);
+
+        return result;
+    }
+
+    private static void addTypeNames(Class<?> clazz, Set<String> result)
+    {
+        if ((clazz == null) || !result.add(clazz.getName()))
+            return;
+
+        addTypeNames(clazz.getSuperclass(), result);
+        for (Class<?> inter : clazz.getInterfaces())
+            addTypeNames(inter, result);
+    }
+
+    /**
+     * Returns all JAR files in the specified folder (recursive search, files or directories
+     * starting with "." are ignored as in class search).
+     */
+    public static List<File> getJarFiles(String path)
+    {
+        final List<File> result = new ArrayList<File>();
+
+        findJarFiles(new File(path), result);
+
+        return result;
+    }
+
+    private static void findJarFiles(File directory, List<File> result)
+    {
+        final File[] files = directory.listFiles();
+
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            if (file.getName().startsWith("."))
+                continue;
+
+            if (file.isDirectory())
+                findJarFiles(file, result);
+            else if (FileUtil.getFileExtension(file.getPath(), false).equalsIgnoreCase("jar"))
+                result.add(file);
+        }
+    }
+
+    /**
+     * Returns the index file path.
+     */
+    public static String getIndexPath()
+    {
+        return FileUtil.getGenericPath(ApplicationPreferences.getCachePath() + FileUtil.separator + INDEX_FILENAME);
+    }
+
+    /**
+     * Computes a digest of the specified JAR file content from its central directory (entry names,
+     * sizes and CRCs), entries data are not read so it remains fast.<br>
+     * Returns <code>-1</code> if the file cannot be read.
+     */
+    public static long computeDigest(File file)
+    {
+        ZipFile zipFile = null;
+
+        try
+        {
+            zipFile = new ZipFile(file);
+
+            final CRC32 crc = new CRC32();
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            long result = 0L;
+
+            while (entries.hasMoreElements())
+            {
+                final ZipEntry entry = entries.nextElement();
+
+                crc.update(entry.getName().getBytes("UTF-8"));
+                // mix entry size and CRC
+                result = (result * 31L) + entry.getSize();
+                result = (result * 31L) + entry.getCrc();
+            }
+
+            // keep it positive (-1 is reserved for unknown)
+            return ((result * 31L) + crc.getValue()) & Long.MAX_VALUE;
+        }
+        catch (IOException e)
+        {
+            return -1L;
+        }
+        finally
+        {
+            if (zipFile != null)
+            {
+                try
+                {
+                    zipFile.close();
+                }
+                catch (IOException e)
+                {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Load the plugin index from disk.<br>
+     * Returns an empty index if the file does not exist or is not compatible.
+     */
+    public static PluginIndex load()
+    {
+        final PluginIndex result = new PluginIndex();
+        final String path = getIndexPath();
+
+        if (!FileUtil.exists(path))
+            return result;
+
+        final Document doc = XMLUtil.loadDocument(path, false);
+        if (doc == null)
+            return result;
+
+        final Element root = XMLUtil.getRootElement(doc);
+        // incompatible index --> ignore it
+        if ((root == null) || (XMLUtil.getAttributeIntValue(root, ID_VERSION, 0) != INDEX_VERSION)
+                || !StringUtil.equals(XMLUtil.getAttributeValue(root, ID_KERNEL_VERSION, ""), Icy.version.toString()))
+            return result;
+
+        for (Element jarNode : XMLUtil.getElements(root, ID_JAR))
+        {
+            final JarIndex jarIndex = new JarIndex(jarNode);
+            result.jars.put(jarIndex.path, jarIndex);
+        }
+
+        return result;
+    }
+
+    final Map<String, JarIndex> jars;
+
+    public PluginIndex()
+    {
+        super();
+
+        jars = new HashMap<String, JarIndex>();
+    }
+
+    /**
+     * Returns index entry for the specified JAR file if it is still valid, <code>null</code>
+     * otherwise.
+     */
+    public JarIndex getUpToDate(File file)
+    {
+        final JarIndex result = jars.get(FileUtil.getGenericPath(file.getAbsolutePath()));
+
+        if ((result != null) && result.isUpToDate(file))
+            return result;
+
+        return null;
+    }
+
+    public Collection<JarIndex> getJarIndexes()
+    {
+        return jars.values();
+    }
+
+    void put(JarIndex jarIndex)
+    {
+        jars.put(jarIndex.path, jarIndex);
+    }
+
+    /**
+     * Save the plugin index on disk.
+     */
+    public boolean save()
+    {
+        final Document doc = XMLUtil.createDocument(true);
+        final Element root = XMLUtil.getRootElement(doc);
+
+        XMLUtil.setAttributeIntValue(root, ID_VERSION, INDEX_VERSION);
+        XMLUtil.setAttributeValue(root, ID_KERNEL_VERSION, Icy.version.toString());
+
+        for (JarIndex jarIndex : jars.values())
+            jarIndex.saveToXML(XMLUtil.addElement(root, ID_JAR));
+
+        final File file = new File(getIndexPath());
+        FileUtil.ensureParentDirExist(file);
+
+        return XMLUtil.saveDocument(doc, file);
+    }
+}
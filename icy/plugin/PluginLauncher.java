@@ -136,6 +136,10 @@ public class PluginLauncher
         final Class<? extends Plugin> clazz = plugin.getPluginClass();
         final Plugin result;
 
+        // class cannot be loaded (missing dependency for instance)
+        if (clazz == null)
+            throw new InstantiationException("Class '" + plugin.getClassName() + "' cannot be loaded.");
+
         // use the special PluginNoEDTConstructor interface or headless mode ?
         if (ClassUtil.isSubClass(clazz, PluginNoEDTConstructor.class) || Icy.getMainInterface().isHeadLess())
             result = clazz.newInstance();
@@ -25,6 +25,8 @@ import icy.main.Icy;
 import icy.network.NetworkUtil;
 import icy.plugin.PluginDescriptor.PluginIdent;
 import icy.plugin.PluginDescriptor.PluginKernelNameSorter;
+import icy.plugin.PluginIndex.IndexedPlugin;
+import icy.plugin.PluginIndex.JarIndex;
 import icy.plugin.abstract_.Plugin;
 import icy.plugin.classloader.JarClassLoader;
 import icy.plugin.interface_.PluginBundled;
@@ -35,6 +37,7 @@ import icy.system.thread.SingleProcessor;
 import icy.system.thread.ThreadUtil;
 import icy.util.ClassUtil;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -102,6 +105,11 @@ public class PluginLoader
     private boolean initialized;
     private boolean loading;
 
+    /**
+     * plugin JAR index (avoid loading all plugin classes at startup)
+     */
+    private PluginIndex index;
+
     // private boolean logError;
 
     /**
@@ -223,6 +231,9 @@ public class PluginLoader
         if (processor.hasWaitingTasks())
             return;
 
+        // class names already processed
+        final Set<String> done = new HashSet<String>();
+        // loose classes (JAR files from plugins directory are handled separately)
         final Set<String> classes = new HashSet<String>();
 
         try
@@ -230,7 +241,7 @@ public class PluginLoader
             // search for plugins in "Plugins" package (needed when working from JAR archive)
             ClassUtil.findClassNamesInPackage(PLUGIN_PACKAGE, true, classes);
             // search for plugins in "Plugins" directory with default plugin package name
-            ClassUtil.findClassNamesInPath(PLUGIN_PATH, PLUGIN_PACKAGE, true, classes);
+            ClassUtil.findClassNamesInPath(PLUGIN_PATH, PLUGIN_PACKAGE, true, false, classes);
         }
         catch (IOException e)
         {
@@ -240,64 +251,93 @@ public class PluginLoader
 
         for (String className : classes)
         {
-            // we only want to load classes from 'plugins' package
-            if (!className.startsWith(PLUGIN_PACKAGE))
-                continue;
-            // filter incorrect named classes (Jython classes for instances)
-            if (className.contains("$"))
-                continue;
-
             // no need to complete loading...
             if (processor.hasWaitingTasks())
                 return;
 
-            try
+            if (done.add(className))
             {
-                // try to load class and check we have a Plugin class at same time
-                final Class<? extends Plugin> pluginClass = newLoader.loadClass(className).asSubclass(Plugin.class);
-                // add to list
-                newPlugins.add(new PluginDescriptor(pluginClass));
-            }
-            catch (NoClassDefFoundError e)
-            {
-                // fatal error
-                System.err.println("Class '" + className + "' cannot be loaded :");
-                System.err.println(
-                        "Required class '" + ClassUtil.getQualifiedNameFromPath(e.getMessage()) + "' not found.");
-            }
-            catch (OutOfMemoryError e)
-            {
-                // fatal error
-                IcyExceptionHandler.showErrorMessage(e, false);
-                System.err.println("Class '" + className + "' is discarded");
-            }
-            catch (UnsupportedClassVersionError e)
-            {
-                // java version error (here we just notify in the console)
-                System.err.println(NEWER_JAVA_REQUIRED + " for class '" + className + "' (discarded)");
-            }
-            catch (Error e)
-            {
-                // fatal error
-                IcyExceptionHandler.showErrorMessage(e, false);
-                System.err.println("Class '" + className + "' is discarded");
-            }
-            catch (ClassCastException e)
-            {
-                // ignore ClassCastException (for classes which doesn't extend Plugin)
+                final PluginDescriptor plugin = loadPlugin(newLoader, className, null);
+
+                if (plugin != null)
+                    newPlugins.add(plugin);
             }
-            catch (ClassNotFoundException e)
+        }
+
+        // plugin JAR files: use index when possible so we don't need to load classes
+        final PluginIndex oldIndex = (index != null) ? index : PluginIndex.load();
+        final PluginIndex newIndex = new PluginIndex();
+        boolean indexChanged = false;
+
+        for (File jarFile : PluginIndex.getJarFiles(PLUGIN_PATH))
+        {
+            // no need to complete loading...
+            if (processor.hasWaitingTasks())
+                return;
+
+            JarIndex jarIndex = oldIndex.getUpToDate(jarFile);
+
+            if (jarIndex != null)
             {
-                // ignore ClassNotFoundException (for no public classes)
+                // get plugins from index
+                for (IndexedPlugin indexedPlugin : jarIndex.getPlugins())
+                    if (done.add(indexedPlugin.getClassName()))
+                        newPlugins.add(new PluginDescriptor(indexedPlugin));
+
+                // retry classes which previously failed to load (dependency may be present now)
+                final List<String> failedClasses = new ArrayList<String>(jarIndex.getFailedClasses());
+
+                for (String className : failedClasses)
+                {
+                    if (done.add(className))
+                    {
+                        // will be added back if it fails again
+                        jarIndex.getFailedClasses().remove(className);
+
+                        final PluginDescriptor plugin = loadPlugin(newLoader, className, jarIndex);
+
+                        if (plugin != null)
+                        {
+                            newPlugins.add(plugin);
+                            jarIndex.addPlugin(plugin);
+                            indexChanged = true;
+                        }
+                    }
+                }
             }
-            catch (Exception e)
+            else
             {
-                // fatal error
-                IcyExceptionHandler.showErrorMessage(e, false);
-                System.err.println("Class '" + className + "' is discarded");
+                // new or modified JAR file --> scan it
+                jarIndex = new JarIndex(jarFile);
+                indexChanged = true;
+
+                for (String className : ClassUtil.findClassNamesInJAR(jarFile.getPath()))
+                {
+                    if (done.add(className))
+                    {
+                        final PluginDescriptor plugin = loadPlugin(newLoader, className, jarIndex);
+
+                        if (plugin != null)
+                        {
+                            newPlugins.add(plugin);
+                            jarIndex.addPlugin(plugin);
+                        }
+                    }
+                }
             }
+
+            newIndex.put(jarIndex);
         }
 
+        // save index if changed
+        if (indexChanged || (newIndex.getJarIndexes().size() != oldIndex.getJarIndexes().size()))
+        {
+            if (!newIndex.save())
+                System.err.println("Cannot save plugin index file '" + PluginIndex.getIndexPath() + "'");
+        }
+
+        index = newIndex;
+
         // sort list
         Collections.sort(newPlugins, PluginKernelNameSorter.instance);
 
@@ -314,6 +354,73 @@ public class PluginLoader
         changed();
     }
 
+    /**
+     * Try to load the specified class as a {@link Plugin} class and returns its descriptor.<br>
+     * Returns <code>null</code> if the class is not a plugin or cannot be loaded (in which case
+     * it is reported as failed in the specified {@link JarIndex} if not null).
+     */
+    private static PluginDescriptor loadPlugin(ClassLoader loader, String className, JarIndex jarIndex)
+    {
+        // we only want to load classes from 'plugins' package
+        if (!className.startsWith(PLUGIN_PACKAGE))
+            return null;
+        // filter incorrect named classes (Jython classes for instances)
+        if (className.contains("$"))
+            return null;
+
+        try
+        {
+            // try to load class and check we have a Plugin class at same time
+            return new PluginDescriptor(loader.loadClass(className).asSubclass(Plugin.class));
+        }
+        catch (NoClassDefFoundError e)
+        {
+            // fatal error
+            System.err.println("Class '" + className + "' cannot be loaded :");
+            System.err.println(
+                    "Required class '" + ClassUtil.getQualifiedNameFromPath(e.getMessage()) + "' not found.");
+        }
+        catch (OutOfMemoryError e)
+        {
+            // fatal error
+            IcyExceptionHandler.showErrorMessage(e, false);
+            System.err.println("Class '" + className + "' is discarded");
+        }
+        catch (UnsupportedClassVersionError e)
+        {
+            // java version error (here we just notify in the console)
+            System.err.println(NEWER_JAVA_REQUIRED + " for class '" + className + "' (discarded)");
+        }
+        catch (Error e)
+        {
+            // fatal error
+            IcyExceptionHandler.showErrorMessage(e, false);
+            System.err.println("Class '" + className + "' is discarded");
+        }
+        catch (ClassCastException e)
+        {
+            // ignore ClassCastException (for classes which doesn't extend Plugin)
+            return null;
+        }
+        catch (ClassNotFoundException e)
+        {
+            // ignore ClassNotFoundException (for no public classes)
+            return null;
+        }
+        catch (Exception e)
+        {
+            // fatal error
+            IcyExceptionHandler.showErrorMessage(e, false);
+            System.err.println("Class '" + className + "' is discarded");
+        }
+
+        // class failed to load, we will retry it next time
+        if (jarIndex != null)
+            jarIndex.addFailedClass(className);
+
+        return null;
+    }
+
     /**
      * Returns the list of daemon type plugins.
      */
@@ -362,8 +469,8 @@ public class PluginLoader
 
         for (PluginDescriptor pluginDesc : getDaemonPlugins())
         {
-            // not found in inactives ?
-            if (inactives.indexOf(pluginDesc.getClassName()) == -1)
+            // not found in inactives and class available ?
+            if ((inactives.indexOf(pluginDesc.getClassName()) == -1) && (pluginDesc.getPluginClass() != null))
             {
                 try
                 {
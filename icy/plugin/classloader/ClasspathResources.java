@@ -100,7 +100,7 @@ public class ClasspathResources extends JarResources
         final byte[] result = NetworkUtil.download(url.openStream());
 
         if (result != null)
-            loadedSize += result.length;
+            loadedSize.addAndGet(result.length);
 
         return result;
     }
@@ -240,23 +240,17 @@ public class ClasspathResources extends JarResources
     }
 
     @Override
-    protected void loadContent(String name, URL url) throws IOException
+    protected byte[] readContent(String name, URL url) throws IOException
     {
         // JAR protocol
         if (url.getProtocol().equalsIgnoreCase(("jar")))
-            super.loadContent(name, url);
+            return super.readContent(name, url);
         // FILE protocol
-        else if (url.getProtocol().equalsIgnoreCase(("file")))
-        {
-            final byte[] content = loadResourceContent(url);
-            setResourceContent(name, content);
-        }
+        if (url.getProtocol().equalsIgnoreCase(("file")))
+            return loadResourceContent(url);
+
         // try remote loading
-        else
-        {
-            final byte content[] = loadRemoteResourceContent(url);
-            setResourceContent(name, content);
-        }
+        return loadRemoteResourceContent(url);
     }
 
     /**
@@ -269,7 +263,7 @@ public class ClasspathResources extends JarResources
         final byte[] result = NetworkUtil.download(url.openStream());
 
         if (result != null)
-            loadedSize += result.length;
+            loadedSize.addAndGet(result.length);
 
         return result;
     }
@@ -281,11 +275,12 @@ public class ClasspathResources extends JarResources
      */
     public void unload(String resource)
     {
-        if (entryContents.containsKey(resource))
+        // content is not necessarily retained (read on demand) so just check the resource exists
+        if (entryUrls.containsKey(resource))
         {
             if (logger.isLoggable(Level.FINEST))
                 logger.finest("Removing resource " + resource);
-            entryContents.remove(resource);
+            releaseResourceContent(resource);
         }
         else
             throw new ResourceNotFoundException(resource, "Resource not found in local ClasspathResources");
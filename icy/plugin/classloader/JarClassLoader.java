@@ -173,8 +173,8 @@ public class JarClassLoader extends AbstractClassLoader
      */
     public void unloadAll()
     {
-        // unload resources
-        classpathResources.entryContents.clear();
+        // unload resources (and close opened JAR files)
+        classpathResources.releaseAll();
         // unload classes
         loadedClasses.clear();
     }
@@ -189,7 +189,8 @@ public class JarClassLoader extends AbstractClassLoader
      */
     protected byte[] getClassBytes(String className) throws IOException
     {
-        return classpathResources.getResourceContent(formatClassName(className));
+        // class bytes are only needed to define the class so don't retain them
+        return classpathResources.getResourceContent(formatClassName(className), false);
     }
 
     /**
@@ -333,7 +334,8 @@ public class JarClassLoader extends AbstractClassLoader
         {
             try
             {
-                byte[] arr = classpathResources.getResourceContent(name);
+                // read on demand, we don't want to retain resource content
+                byte[] arr = classpathResources.getResourceContent(name, false);
 
                 if (arr != null)
                 {
@@ -431,6 +433,22 @@ public class JarClassLoader extends AbstractClassLoader
         return classpathResources.getLoadedResources();
     }
 
+    /**
+     * Returns the total size (in bytes) of class and resource content read from sources.
+     */
+    public long getLoadedSize()
+    {
+        return classpathResources.getLoadedSize();
+    }
+
+    /**
+     * Returns the size (in bytes) of resource content currently retained in memory.
+     */
+    public long getResidentSize()
+    {
+        return classpathResources.getResidentSize();
+    }
+
     /**
      * @return Local JCL ProxyClassLoader
      */
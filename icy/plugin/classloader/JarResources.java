@@ -36,6 +36,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.jar.JarEntry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -44,7 +45,9 @@ import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 /**
- * JarResources reads jar files and loads the class content/bytes in a HashMap
+ * JarResources reads jar files and index their entries (only the central directory is read).<br>
+ * Entry content is read on demand through a shared {@link ZipFile} view of each local JAR file and
+ * is only kept in memory when explicitly requested (see {@link #getResourceContent(String, boolean)}).
  * 
  * @author Kamran Zafar
  * @author Stephane Dallongeville
@@ -55,10 +58,16 @@ public class JarResources
     protected Map<String, byte[]> entryContents;
     // <resourceName, fileName> map
     protected Map<String, URL> entryUrls;
+    // <resourceName, local JAR file path> map
+    protected Map<String, String> entryJars;
+    // <local JAR file path, opened JAR file> map
+    protected Map<String, ZipFile> jarFiles;
 
     protected boolean collisionAllowed;
-    // keep trace of loaded resource size
-    protected int loadedSize;
+    // keep trace of loaded resource size (updated from several loader threads)
+    protected final AtomicLong loadedSize;
+    // size of resource content currently retained in memory
+    protected long residentSize;
 
     private static Logger logger = Logger.getLogger(JarResources.class.getName());
 
@@ -69,8 +78,11 @@ public class JarResources
     {
         entryContents = new HashMap<String, byte[]>();
         entryUrls = new HashMap<String, URL>();
+        entryJars = new HashMap<String, String>();
+        jarFiles = new HashMap<String, ZipFile>();
         collisionAllowed = Configuration.suppressCollisionException();
-        loadedSize = 0;
+        loadedSize = new AtomicLong(0L);
+        residentSize = 0L;
     }
 
     public URL getResource(String name)
@@ -78,9 +90,33 @@ public class JarResources
         return entryUrls.get(name);
     }
 
+    /**
+     * Returns the content of the specified resource and keep it in memory for further access.
+     * 
+     * @see #getResourceContent(String, boolean)
+     */
     public byte[] getResourceContent(String name) throws IOException
     {
-        byte content[] = entryContents.get(name);
+        return getResourceContent(name, true);
+    }
+
+    /**
+     * Returns the content of the specified resource (<code>null</code> if the resource does not
+     * exist).
+     * 
+     * @param cache
+     *        if <code>true</code> the content is kept in memory for further access, otherwise it
+     *        is read from its source on each call (preferred for class bytes which are only read
+     *        once to define the class).
+     */
+    public byte[] getResourceContent(String name, boolean cache) throws IOException
+    {
+        byte content[];
+
+        synchronized (entryContents)
+        {
+            content = entryContents.get(name);
+        }
 
         // we load the content
         if (content == null)
@@ -90,8 +126,10 @@ public class JarResources
             if (url != null)
             {
                 // load content and return it
-                loadContent(name, url);
-                content = entryContents.get(name);
+                content = readContent(name, url);
+
+                if (cache && (content != null))
+                    setResourceContent(name, content);
 
                 // try
                 // {
@@ -116,9 +154,92 @@ public class JarResources
 
     protected void loadContent(String name, URL url) throws IOException
     {
+        setResourceContent(name, readContent(name, url));
+    }
+
+    /**
+     * Reads and returns the content of the specified resource (not retained).
+     */
+    protected byte[] readContent(String name, URL url) throws IOException
+    {
+        final String jarPath = entryJars.get(name);
+
+        // local JAR file --> use random access on shared JAR file
+        if (jarPath != null)
+            return loadJarContent(jarPath, name);
+
         // only support JAR resource here
-        final byte[] content = loadJarContent(url);
-        setResourceContent(name, content);
+        return loadJarContent(url);
+    }
+
+    /**
+     * Release the retained content of the specified resource (if any).
+     */
+    public void releaseResourceContent(String name)
+    {
+        synchronized (entryContents)
+        {
+            final byte[] content = entryContents.remove(name);
+
+            if (content != null)
+                residentSize -= content.length;
+        }
+    }
+
+    /**
+     * Release all retained resource content and close opened JAR files.
+     */
+    public void releaseAll()
+    {
+        synchronized (entryContents)
+        {
+            entryContents.clear();
+            residentSize = 0L;
+        }
+
+        synchronized (jarFiles)
+        {
+            for (ZipFile zipFile : jarFiles.values())
+            {
+                try
+                {
+                    zipFile.close();
+                }
+                catch (IOException e)
+                {
+                    // not important
+                }
+            }
+
+            jarFiles.clear();
+        }
+    }
+
+    /**
+     * Returns the total size (in bytes) of resource content read since creation.
+     */
+    public long getLoadedSize()
+    {
+        return loadedSize.get();
+    }
+
+    /**
+     * Returns the size (in bytes) of resource content currently retained in memory.
+     */
+    public long getResidentSize()
+    {
+        return residentSize;
+    }
+
+    /**
+     * Returns the number of resources whose content is currently retained in memory.
+     */
+    public int getResidentCount()
+    {
+        synchronized (entryContents)
+        {
+            return entryContents.size();
+        }
     }
 
     /**
@@ -142,7 +263,10 @@ public class JarResources
      */
     public Map<String, byte[]> getLoadedResources()
     {
-        return Collections.unmodifiableMap(entryContents);
+        synchronized (entryContents)
+        {
+            return Collections.unmodifiableMap(new HashMap<String, byte[]>(entryContents));
+        }
     }
 
     /**
@@ -192,6 +316,7 @@ public class JarResources
 
                 // add to internal resource HashMap
                 entryUrls.put(name, new URL(urlPrefix + name));
+                entryJars.put(name, filePath);
             }
         }
         finally
@@ -321,6 +446,59 @@ public class JarResources
         }
     }
 
+    /**
+     * Returns the shared opened view of the specified local JAR file.
+     */
+    protected ZipFile getJarFile(String jarPath) throws IOException
+    {
+        synchronized (jarFiles)
+        {
+            ZipFile result = jarFiles.get(jarPath);
+
+            if (result == null)
+            {
+                result = new ZipFile(jarPath);
+                jarFiles.put(jarPath, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Load the content of specified entry from a local JAR file
+     * 
+     * @throws IOException
+     */
+    protected byte[] loadJarContent(String jarPath, String name) throws IOException
+    {
+        final ZipFile zipFile = getJarFile(jarPath);
+        final ZipEntry entry = zipFile.getEntry(name);
+
+        if (entry == null)
+            throw new IOException("JarResources.loadJarContent(" + jarPath + ", " + name
+                    + ") error:\nEntry not found !");
+
+        if (logger.isLoggable(Level.FINEST))
+            logger.finest(dump(entry));
+
+        final InputStream in = zipFile.getInputStream(entry);
+
+        try
+        {
+            final byte[] result = NetworkUtil.download(in, entry.getSize(), null);
+
+            if (result != null)
+                loadedSize.addAndGet(result.length);
+
+            return result;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
     /**
      * Load the jar contents from InputStream
      * 
@@ -336,7 +514,12 @@ public class JarResources
             if (logger.isLoggable(Level.FINEST))
                 logger.finest(dump(jarEntry));
 
-            return NetworkUtil.download(uc.getInputStream(), jarEntry.getSize(), null);
+            final byte[] result = NetworkUtil.download(uc.getInputStream(), jarEntry.getSize(), null);
+
+            if (result != null)
+                loadedSize.addAndGet(result.length);
+
+            return result;
         }
 
         throw new IOException("JarResources.loadJarContent(" + url.toString() + ") error:\nEntry not found !");
@@ -344,21 +527,25 @@ public class JarResources
 
     protected void setResourceContent(String name, byte content[])
     {
-        if (entryContents.containsKey(name))
+        synchronized (entryContents)
         {
-            if (!collisionAllowed)
-                throw new JclException("Class/Resource " + name + " already loaded");
+            if (entryContents.containsKey(name))
+            {
+                if (!collisionAllowed)
+                    throw new JclException("Class/Resource " + name + " already loaded");
 
-            if (logger.isLoggable(Level.FINEST))
-                logger.finest("Class/Resource " + name + " already loaded; ignoring entry...");
-            return;
-        }
+                if (logger.isLoggable(Level.FINEST))
+                    logger.finest("Class/Resource " + name + " already loaded; ignoring entry...");
+                return;
+            }
 
-        if (logger.isLoggable(Level.FINEST))
-            logger.finest("Entry Name: " + name + ", " + "Entry Size: " + content.length);
+            if (logger.isLoggable(Level.FINEST))
+                logger.finest("Entry Name: " + name + ", " + "Entry Size: " + content.length);
 
-        // add to internal resource HashMap
-        entryContents.put(name, content);
+            // add to internal resource HashMap
+            entryContents.put(name, content);
+            residentSize += content.length;
+        }
     }
 
     /**
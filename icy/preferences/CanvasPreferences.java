@@ -34,6 +34,7 @@ public class CanvasPreferences
     private static final String ID_FILTERING = "filtering";
     private static final String ID_INVERT_MOUSEWHEEL_AXIS = "invertMouseWheelAxis";
     private static final String ID_MOUSEWHEEL_SENSIBILITY = "mouseWheelSensibility";
+    private static final String ID_OVERLAY_CACHE = "overlayCache";
 
     /**
      * preferences
@@ -87,4 +88,17 @@ public class CanvasPreferences
         preferences.putDouble(ID_MOUSEWHEEL_SENSIBILITY, value);
     }
 
+    /**
+     * Cache ROI rendering (retained mode painting of unselected ROIs)
+     */
+    public static boolean getOverlayCache()
+    {
+        return preferences.getBoolean(ID_OVERLAY_CACHE, true);
+    }
+
+    public static void setOverlayCache(boolean value)
+    {
+        preferences.putBoolean(ID_OVERLAY_CACHE, value);
+    }
+
 }
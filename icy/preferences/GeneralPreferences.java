@@ -59,6 +59,7 @@ public class GeneralPreferences
     public static final String ID_HISTORY_SIZE = "historySize";
     public static final String ID_OUTPUT_LOG_SIZE = "outputLogSize";
     public static final String ID_OUTPUT_LOG_FILE = "outputLogFile";
+    public static final String ID_PYRAMID_BUILD = "pyramidBuild";
 
     /**
      * id confirm
@@ -223,6 +224,15 @@ public class GeneralPreferences
         return prefGeneral.getBoolean(ID_OUTPUT_LOG_FILE, false);
     }
 
+    /**
+     * Returns <code>true</code> if multi resolution pyramids are built in background for large images (disabled by
+     * default as it can use a lot of disk space).
+     */
+    public static boolean getPyramidBuild()
+    {
+        return prefGeneral.getBoolean(ID_PYRAMID_BUILD, false);
+    }
+
     public static void setExitConfirm(boolean value)
     {
         prefConfirms.putBoolean(ID_CONFIRM_EXIT, value);
@@ -248,6 +258,11 @@ public class GeneralPreferences
         prefGeneral.putBoolean(ID_USAGE_STATS_REPORT, value);
     }
 
+    public static void setPyramidBuild(boolean value)
+    {
+        prefGeneral.putBoolean(ID_PYRAMID_BUILD, value);
+    }
+
     public static void setLastUpdateCheckTime(long time)
     {
         prefGeneral.putLong(ID_LAST_UPDATECHECK_TIME, time);
@@ -1394,6 +1394,39 @@ public class BooleanMask3D implements Cloneable
         return result - overShoot;
     }
 
+    /**
+     * Computes and returns the surface area of the mask (surface nets surface) for the given voxel size.<br>
+     * This is more accurate and faster than {@link #getContourLength()}.
+     * 
+     * @param sizeX
+     *        voxel size in X dimension (pixel size X)
+     * @param sizeY
+     *        voxel size in Y dimension (pixel size Y)
+     * @param sizeZ
+     *        voxel size in Z dimension (pixel size Z)
+     * @see BooleanMask3DSurface#getSurfaceArea(BooleanMask3D, double, double, double)
+     */
+    public double getSurfaceArea(double sizeX, double sizeY, double sizeZ)
+    {
+        return BooleanMask3DSurface.getSurfaceArea(this, sizeX, sizeY, sizeZ);
+    }
+
+    /**
+     * Computes and returns the surface triangle mesh of the mask (surface nets surface) for the given voxel size.
+     * 
+     * @param sizeX
+     *        voxel size in X dimension (pixel size X)
+     * @param sizeY
+     *        voxel size in Y dimension (pixel size Y)
+     * @param sizeZ
+     *        voxel size in Z dimension (pixel size Z)
+     * @see BooleanMask3DSurface#getSurfaceMesh(BooleanMask3D, double, double, double)
+     */
+    public BooleanMask3DSurface.Mesh getSurfaceMesh(double sizeX, double sizeY, double sizeZ)
+    {
+        return BooleanMask3DSurface.getSurfaceMesh(this, sizeX, sizeY, sizeZ);
+    }
+
     @Override
     public Object clone()
     {
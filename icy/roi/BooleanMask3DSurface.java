@@ -0,0 +1,566 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.roi;
+
+import icy.system.SystemUtil;
+import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
+import icy.type.collection.array.DynamicArray;
+import icy.type.rectangle.Rectangle3D;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Surface extraction for {@link BooleanMask3D} (surface nets method).<br>
+ * The mask is considered as a grid of cubes (2x2x2 voxels), each cube crossed by the mask border gets a surface
+ * vertex placed at the centroid of its crossing edges middle points, then each voxel edge crossing the border
+ * generates a quad joining the vertices of the 4 cubes sharing it. This gives a closed surface a lot smoother (and so
+ * a more accurate surface area) than the voxel faces or a basic marching cubes on binary data.<br>
+ * The mask is processed by pair of slices (only 2 slices are needed at once) and large masks are processed in
+ * parallel by Z slabs.
+ */
+public class BooleanMask3DSurface
+{
+    /**
+     * Triangle mesh of a {@link BooleanMask3D} surface.<br>
+     * Vertices are stored as (x, y, z) triplets, 3 successive vertices define a triangle oriented toward the outside
+     * of the mask. Coordinates are expressed in pixel coordinates multiplied by the pixel size.
+     */
+    public static class Mesh
+    {
+        final float[] vertices;
+        final double area;
+
+        public Mesh(float[] vertices, double area)
+        {
+            super();
+
+            this.vertices = vertices;
+            this.area = area;
+        }
+
+        /**
+         * Returns the vertices array ((x, y, z) triplets, 3 vertices per triangle).
+         */
+        public float[] getVertices()
+        {
+            return vertices;
+        }
+
+        /**
+         * Returns the number of triangle of the mesh.
+         */
+        public int getTriangleCount()
+        {
+            return vertices.length / 9;
+        }
+
+        /**
+         * Returns the surface area of the mesh.
+         */
+        public double getArea()
+        {
+            return area;
+        }
+    }
+
+    /**
+     * Minimum number of cube to process the mask with several threads
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 20;
+    /**
+     * Minimum number of cube layer per slab
+     */
+    static final int MIN_SLAB_SIZE = 4;
+
+    /**
+     * Cube edges (corner index = x + (y * 2) + (z * 4))
+     */
+    static final int[][] EDGES = { {0, 1}, {2, 3}, {4, 5}, {6, 7}, {0, 2}, {1, 3}, {4, 6}, {5, 7}, {0, 4}, {1, 5},
+            {2, 6}, {3, 7}};
+
+    /**
+     * Surface vertex position (in unit cube coordinates) for each of the 256 cube configurations
+     */
+    static final float[] VERTICES = new float[256 * 3];
+
+    static
+    {
+        for (int config = 1; config < 255; config++)
+        {
+            float x = 0f;
+            float y = 0f;
+            float z = 0f;
+            int num = 0;
+
+            for (int[] edge : EDGES)
+            {
+                final boolean in0 = (config & (1 << edge[0])) != 0;
+                final boolean in1 = (config & (1 << edge[1])) != 0;
+
+                // edge crossing the border --> use its middle point
+                if (in0 != in1)
+                {
+                    x += ((edge[0] & 1) + (edge[1] & 1)) / 2f;
+                    y += (((edge[0] >> 1) & 1) + ((edge[1] >> 1) & 1)) / 2f;
+                    z += (((edge[0] >> 2) & 1) + ((edge[1] >> 2) & 1)) / 2f;
+                    num++;
+                }
+            }
+
+            VERTICES[(config * 3) + 0] = x / num;
+            VERTICES[(config * 3) + 1] = y / num;
+            VERTICES[(config * 3) + 2] = z / num;
+        }
+    }
+
+    private static Processor processor = null;
+
+    static synchronized Processor getProcessor()
+    {
+        if (processor == null)
+        {
+            processor = new Processor(SystemUtil.getNumberOfCPUs() * 2, Math.max(1, SystemUtil.getNumberOfCPUs() - 1));
+            processor.setThreadName("Mask surface");
+            processor.setLane(TaskScheduler.Lane.BACKGROUND);
+        }
+
+        return processor;
+    }
+
+    /**
+     * Process a range of cube layers of the mask.<br>
+     * Slabs are claimed on the fly so the calling thread always ends the job by itself if the processor is busy (no
+     * dead lock when called from a processor thread).
+     */
+    private static class SlabProcessor implements Runnable
+    {
+        final BooleanMask3D mask;
+        final Rectangle3D.Integer bounds;
+        final float sizeX;
+        final float sizeY;
+        final float sizeZ;
+        final boolean buildMesh;
+        // padded slice dimension (one empty pixel on each side)
+        final int sliceW;
+        final int sliceH;
+        // cube layer dimension
+        final int cubeW;
+        final int cubeH;
+        final int numLayer;
+        final int slabSize;
+        final int numSlab;
+        final double[] areas;
+        final DynamicArray.Float[] meshes;
+        final AtomicInteger nextSlab;
+        final CountDownLatch done;
+
+        public SlabProcessor(BooleanMask3D mask, double sizeX, double sizeY, double sizeZ, boolean buildMesh,
+                int slabSize)
+        {
+            super();
+
+            this.mask = mask;
+            this.bounds = mask.bounds;
+            this.sizeX = (float) sizeX;
+            this.sizeY = (float) sizeY;
+            this.sizeZ = (float) sizeZ;
+            this.buildMesh = buildMesh;
+            sliceW = bounds.sizeX + 2;
+            sliceH = bounds.sizeY + 2;
+            cubeW = sliceW - 1;
+            cubeH = sliceH - 1;
+            // cube layers cover the mask slices plus one empty slice on each side
+            numLayer = bounds.sizeZ + 1;
+            this.slabSize = slabSize;
+            numSlab = ((numLayer + slabSize) - 1) / slabSize;
+            areas = new double[numSlab];
+            meshes = buildMesh ? new DynamicArray.Float[numSlab] : null;
+            nextSlab = new AtomicInteger(0);
+            done = new CountDownLatch(numSlab);
+        }
+
+        @Override
+        public void run()
+        {
+            int slab;
+
+            while ((slab = nextSlab.getAndIncrement()) < numSlab)
+            {
+                try
+                {
+                    process(slab);
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            }
+        }
+
+        /**
+         * Returns the padded slice for the given padded Z index (0 and <code>sizeZ + 1</code> are empty slices).
+         */
+        boolean[] getSlice(int index, boolean[] out)
+        {
+            final boolean[] result;
+
+            if ((out != null) && (out.length == (sliceW * sliceH)))
+            {
+                result = out;
+                Arrays.fill(result, false);
+            }
+            else
+                result = new boolean[sliceW * sliceH];
+
+            // empty border slices
+            if ((index <= 0) || (index > bounds.sizeZ))
+                return result;
+
+            final BooleanMask2D mask2d = mask.getMask2D((bounds.z + index) - 1);
+
+            if ((mask2d == null) || mask2d.isEmpty())
+                return result;
+
+            final Rectangle mb = mask2d.bounds;
+            final Rectangle region = mb.intersection(new Rectangle(bounds.x, bounds.y, bounds.sizeX, bounds.sizeY));
+
+            if (region.isEmpty())
+                return result;
+
+            for (int y = region.y; y < (region.y + region.height); y++)
+                System.arraycopy(mask2d.mask, ((y - mb.y) * mb.width) + (region.x - mb.x), result,
+                        (((y - bounds.y) + 1) * sliceW) + (region.x - bounds.x) + 1, region.width);
+
+            return result;
+        }
+
+        /**
+         * Compute surface vertices of the given cube layer (made from <code>bottom</code> and <code>top</code>
+         * slices).
+         */
+        void computeVertices(int layer, boolean[] bottom, boolean[] top, float[] out)
+        {
+            final float oz = (bounds.z + layer) - 1;
+
+            for (int j = 0; j < cubeH; j++)
+            {
+                int off = j * sliceW;
+                int cube = j * cubeW * 3;
+                // left corners of first cube
+                int config = (bottom[off] ? 2 : 0) | (bottom[off + sliceW] ? 8 : 0) | (top[off] ? 32 : 0)
+                        | (top[off + sliceW] ? 128 : 0);
+                final float oy = (bounds.y + j) - 1;
+
+                for (int i = 0; i < cubeW; i++, off++, cube += 3)
+                {
+                    // previous right corners become left corners
+                    config = ((config >> 1) & 0x55) | (bottom[off + 1] ? 2 : 0) | (bottom[off + sliceW + 1] ? 8 : 0)
+                            | (top[off + 1] ? 32 : 0) | (top[off + sliceW + 1] ? 128 : 0);
+
+                    // not crossed by the border
+                    if ((config == 0) || (config == 255))
+                        continue;
+
+                    final int v = config * 3;
+
+                    out[cube + 0] = (((bounds.x + i) - 1) + VERTICES[v + 0]) * sizeX;
+                    out[cube + 1] = (oy + VERTICES[v + 1]) * sizeY;
+                    out[cube + 2] = (oz + VERTICES[v + 2]) * sizeZ;
+                }
+            }
+        }
+
+        /**
+         * Add the quad joining the given cube vertices (<code>reverse</code> to invert orientation) and returns its
+         * area.
+         */
+        double addQuad(float[] verts0, int c0, float[] verts1, int c1, float[] verts2, int c2, float[] verts3, int c3,
+                boolean reverse, DynamicArray.Float mesh, float[] buffer)
+        {
+            if (mesh != null)
+            {
+                if (reverse)
+                {
+                    putVertex(buffer, 0, verts0, c0);
+                    putVertex(buffer, 3, verts3, c3);
+                    putVertex(buffer, 6, verts2, c2);
+                    putVertex(buffer, 9, verts0, c0);
+                    putVertex(buffer, 12, verts2, c2);
+                    putVertex(buffer, 15, verts1, c1);
+                }
+                else
+                {
+                    putVertex(buffer, 0, verts0, c0);
+                    putVertex(buffer, 3, verts1, c1);
+                    putVertex(buffer, 6, verts2, c2);
+                    putVertex(buffer, 9, verts0, c0);
+                    putVertex(buffer, 12, verts2, c2);
+                    putVertex(buffer, 15, verts3, c3);
+                }
+
+                mesh.add(buffer, 0, 18);
+            }
+
+            return getTriangleArea(verts0, c0, verts1, c1, verts2, c2)
+                    + getTriangleArea(verts0, c0, verts2, c2, verts3, c3);
+        }
+
+        void process(int slab)
+        {
+            final int startLayer = slab * slabSize;
+            final int endLayer = Math.min(numLayer, startLayer + slabSize);
+            final DynamicArray.Float mesh = buildMesh ? new DynamicArray.Float(4096) : null;
+            final float[] buffer = new float[18];
+            final int cw3 = cubeW * 3;
+            double area = 0d;
+
+            float[] prevVertices = new float[cubeW * cubeH * 3];
+            float[] vertices = new float[cubeW * cubeH * 3];
+            boolean[] bottom = getSlice(startLayer, null);
+            boolean[] top = getSlice(startLayer + 1, null);
+
+            // previous layer vertices are needed for the first slice edges
+            if (startLayer > 0)
+                computeVertices(startLayer - 1, getSlice(startLayer - 1, null), bottom, prevVertices);
+
+            for (int layer = startLayer; layer < endLayer; layer++)
+            {
+                if (layer > startLayer)
+                {
+                    // reuse buffers
+                    final boolean[] tmpSlice = bottom;
+                    bottom = top;
+                    top = getSlice(layer + 1, tmpSlice);
+
+                    final float[] tmpVertices = prevVertices;
+                    prevVertices = vertices;
+                    vertices = tmpVertices;
+                }
+
+                computeVertices(layer, bottom, top, vertices);
+
+                // Z edges between bottom and top slices (border pixels are always empty)
+                for (int j = 1; j < (sliceH - 1); j++)
+                {
+                    int off = (j * sliceW) + 1;
+                    int cube = ((j * cubeW) + 1) * 3;
+
+                    for (int i = 1; i < (sliceW - 1); i++, off++, cube += 3)
+                    {
+                        final boolean in = bottom[off];
+
+                        if (in != top[off])
+                            area += addQuad(vertices, (cube - cw3) - 3, vertices, cube - cw3, vertices, cube,
+                                    vertices, cube - 3, !in, mesh, buffer);
+                    }
+                }
+
+                // X and Y edges of the bottom slice (first layer bottom slice is always empty)
+                if (layer > 0)
+                {
+                    for (int j = 0; j < (sliceH - 1); j++)
+                    {
+                        int off = j * sliceW;
+                        int cube = j * cw3;
+
+                        for (int i = 0; i < (sliceW - 1); i++, off++, cube += 3)
+                        {
+                            final boolean in = bottom[off];
+
+                            // X edge
+                            if ((j > 0) && (in != bottom[off + 1]))
+                                area += addQuad(prevVertices, cube - cw3, prevVertices, cube, vertices, cube,
+                                        vertices, cube - cw3, !in, mesh, buffer);
+                            // Y edge
+                            if ((i > 0) && (in != bottom[off + sliceW]))
+                                area += addQuad(prevVertices, cube - 3, prevVertices, cube, vertices, cube,
+                                        vertices, cube - 3, in, mesh, buffer);
+                        }
+                    }
+                }
+            }
+
+            areas[slab] = area;
+            if (buildMesh)
+                meshes[slab] = mesh;
+        }
+
+        void execute()
+        {
+            if (numSlab > 1)
+            {
+                final Processor proc = getProcessor();
+                // calling thread does its part of the job too
+                final int numHelper = Math.min(numSlab - 1, proc.getMaximumPoolSize());
+
+                for (int i = 0; i < numHelper; i++)
+                {
+                    try
+                    {
+                        proc.execute(this);
+                    }
+                    catch (RejectedExecutionException e)
+                    {
+                        // processor is busy, just use less threads
+                        break;
+                    }
+                }
+            }
+
+            run();
+
+            // wait for slabs processed by others threads
+            boolean interrupted = false;
+            while (true)
+            {
+                try
+                {
+                    done.await();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+
+        double getArea()
+        {
+            double result = 0d;
+
+            for (double area : areas)
+                result += area;
+
+            return result;
+        }
+
+        float[] getVertices()
+        {
+            final DynamicArray.Float result = new DynamicArray.Float(4096);
+
+            for (DynamicArray.Float mesh : meshes)
+                result.addAll(mesh);
+
+            return result.asArray();
+        }
+    }
+
+    private static void putVertex(float[] out, int outOffset, float[] vertices, int offset)
+    {
+        out[outOffset + 0] = vertices[offset + 0];
+        out[outOffset + 1] = vertices[offset + 1];
+        out[outOffset + 2] = vertices[offset + 2];
+    }
+
+    private static double getTriangleArea(float[] verts0, int c0, float[] verts1, int c1, float[] verts2, int c2)
+    {
+        final double abx = verts1[c1 + 0] - verts0[c0 + 0];
+        final double aby = verts1[c1 + 1] - verts0[c0 + 1];
+        final double abz = verts1[c1 + 2] - verts0[c0 + 2];
+        final double acx = verts2[c2 + 0] - verts0[c0 + 0];
+        final double acy = verts2[c2 + 1] - verts0[c0 + 1];
+        final double acz = verts2[c2 + 2] - verts0[c0 + 2];
+        final double nx = (aby * acz) - (abz * acy);
+        final double ny = (abz * acx) - (abx * acz);
+        final double nz = (abx * acy) - (aby * acx);
+
+        return Math.sqrt((nx * nx) + (ny * ny) + (nz * nz)) / 2d;
+    }
+
+    private static SlabProcessor process(BooleanMask3D mask, double sizeX, double sizeY, double sizeZ,
+            boolean buildMesh)
+    {
+        final Rectangle3D.Integer bounds = mask.bounds;
+
+        if (bounds.sizeZ == Integer.MAX_VALUE)
+            throw new UnsupportedOperationException("Cannot compute surface of a mask with infinite Z dimension !");
+
+        final int numLayer = bounds.sizeZ + 1;
+        final long numCube = (long) (bounds.sizeX + 1) * (long) (bounds.sizeY + 1) * numLayer;
+        final int slabSize;
+
+        if ((numCube >= PARALLEL_THRESHOLD) && (SystemUtil.getNumberOfCPUs() > 1))
+            slabSize = Math.max(MIN_SLAB_SIZE, numLayer / (SystemUtil.getNumberOfCPUs() * 2));
+        else
+            slabSize = numLayer;
+
+        final SlabProcessor result = new SlabProcessor(mask, sizeX, sizeY, sizeZ, buildMesh, slabSize);
+
+        result.execute();
+
+        return result;
+    }
+
+    /**
+     * Returns the surface area of the specified mask.
+     * 
+     * @param mask
+     *        3D boolean mask
+     * @param sizeX
+     *        voxel size in X dimension (pixel size X)
+     * @param sizeY
+     *        voxel size in Y dimension (pixel size Y)
+     * @param sizeZ
+     *        voxel size in Z dimension (pixel size Z)
+     * @throws UnsupportedOperationException
+     *         if the mask has an infinite Z dimension
+     */
+    public static double getSurfaceArea(BooleanMask3D mask, double sizeX, double sizeY, double sizeZ)
+            throws UnsupportedOperationException
+    {
+        if (mask.isEmpty())
+            return 0d;
+
+        return process(mask, sizeX, sizeY, sizeZ, false).getArea();
+    }
+
+    /**
+     * Returns the surface triangle mesh of the specified mask.
+     * 
+     * @param mask
+     *        3D boolean mask
+     * @param sizeX
+     *        voxel size in X dimension (pixel size X)
+     * @param sizeY
+     *        voxel size in Y dimension (pixel size Y)
+     * @param sizeZ
+     *        voxel size in Z dimension (pixel size Z)
+     * @throws UnsupportedOperationException
+     *         if the mask has an infinite Z dimension
+     */
+    public static Mesh getSurfaceMesh(BooleanMask3D mask, double sizeX, double sizeY, double sizeZ)
+            throws UnsupportedOperationException
+    {
+        if (mask.isEmpty())
+            return new Mesh(new float[0], 0d);
+
+        final SlabProcessor result = process(mask, sizeX, sizeY, sizeZ, true);
+
+        return new Mesh(result.getVertices(), result.getArea());
+    }
+}
@@ -26,10 +26,12 @@ import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Point2D;
+import java.lang.ref.SoftReference;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -817,6 +819,14 @@ public abstract class ROI implements ChangeListener, XMLPersistent
                 mousePos.setLocation(pos);
         }
 
+        /**
+         * Returns the ROI painted by this overlay.
+         */
+        public ROI getROI()
+        {
+            return ROI.this;
+        }
+
         public void computePriority()
         {
             if (isFocused())
@@ -1311,6 +1321,80 @@ public abstract class ROI implements ChangeListener, XMLPersistent
     protected boolean numberOfContourPointsInvalid;
     protected boolean numberOfPointsInvalid;
 
+    /**
+     * Default maximum number of boolean mask kept in the ROI mask cache (see {@link #getMaskCacheSize()})
+     */
+    public static final int MASK_CACHE_SIZE = 64;
+
+    /**
+     * Key of the boolean mask cache
+     */
+    private static class MaskCacheKey
+    {
+        final int z;
+        final int t;
+        final int c;
+        final boolean inclusive;
+
+        public MaskCacheKey(int z, int t, int c, boolean inclusive)
+        {
+            super();
+
+            this.z = z;
+            this.t = t;
+            this.c = c;
+            this.inclusive = inclusive;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (((((z * 31) + t) * 31) + c) * 2) + (inclusive ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (obj instanceof MaskCacheKey)
+            {
+                final MaskCacheKey key = (MaskCacheKey) obj;
+
+                return (z == key.z) && (t == key.t) && (c == key.c) && (inclusive == key.inclusive);
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Entry of the boolean mask cache (mask is soft referenced so it can be released on low memory)
+     */
+    private static class MaskCacheEntry
+    {
+        final int version;
+        final SoftReference<BooleanMask2D> mask;
+
+        public MaskCacheEntry(int version, BooleanMask2D mask)
+        {
+            super();
+
+            this.version = version;
+            this.mask = new SoftReference<BooleanMask2D>(mask);
+        }
+    }
+
+    /**
+     * geometry version (incremented on each ROI_CHANGED event)
+     */
+    protected volatile int geometryVersion;
+    /**
+     * boolean mask cache (lazy creation)
+     */
+    private LinkedHashMap<MaskCacheKey, MaskCacheEntry> maskCache;
+    private int maskCacheMaxSize;
+    private long maskCacheHits;
+    private long maskCacheMisses;
+
     /**
      * listeners
      */
@@ -1342,6 +1426,12 @@ public abstract class ROI implements ChangeListener, XMLPersistent
         numberOfPointsInvalid = true;
         numberOfContourPointsInvalid = true;
 
+        geometryVersion = 0;
+        maskCache = null;
+        maskCacheMaxSize = MASK_CACHE_SIZE;
+        maskCacheHits = 0L;
+        maskCacheMisses = 0L;
+
         listeners = new ArrayList<ROIListener>();
         updater = new UpdateEventHandler(this, false);
 
@@ -2428,7 +2518,7 @@ public abstract class ROI implements ChangeListener, XMLPersistent
             {
                 for (int z = minZ; z <= maxZ; z++)
                 {
-                    if (getBooleanMask2D(z, t, c, true).intersects(roi.getBooleanMask2D(z, t, c, true)))
+                    if (getCachedBooleanMask2D(z, t, c, true).intersects(roi.getCachedBooleanMask2D(z, t, c, true)))
                         return true;
                 }
             }
@@ -2541,6 +2631,137 @@ public abstract class ROI implements ChangeListener, XMLPersistent
                 getBooleanMask2D(bounds2D.x, bounds2D.y, bounds2D.width, bounds2D.height, z, t, c, inclusive));
     }
 
+    /**
+     * Same as {@link #getBooleanMask2D(int, int, int, boolean)} except the mask is memoized in the ROI mask cache so
+     * successive calls for the same position don't recompute it from the ROI geometry (cache is invalidated as soon as
+     * the ROI changes).<br>
+     * <b>The returned mask is shared so it should not be modified</b>, use
+     * {@link #getBooleanMask2D(int, int, int, boolean)} to get a mask you can modify.
+     * 
+     * @param z
+     *        Z position we want to retrieve the boolean mask (-1 for whatever is the Z position)
+     * @param t
+     *        T position we want to retrieve the boolean mask (-1 for whatever is the T position)
+     * @param c
+     *        C position we want to retrieve the boolean mask (-1 for whatever is the C position)
+     * @param inclusive
+     *        If true then all partially contained (intersected) pixels are included in the mask.
+     */
+    public BooleanMask2D getCachedBooleanMask2D(int z, int t, int c, boolean inclusive)
+    {
+        final MaskCacheKey key = new MaskCacheKey(z, t, c, inclusive);
+        // get version before computing the mask so we never store a mask computed from an old geometry
+        final int version = geometryVersion;
+
+        synchronized (this)
+        {
+            if (maskCache != null)
+            {
+                final MaskCacheEntry entry = maskCache.get(key);
+
+                if ((entry != null) && (entry.version == version))
+                {
+                    final BooleanMask2D result = entry.mask.get();
+
+                    if (result != null)
+                    {
+                        maskCacheHits++;
+                        return result;
+                    }
+                }
+            }
+
+            maskCacheMisses++;
+        }
+
+        final BooleanMask2D result = getBooleanMask2D(z, t, c, inclusive);
+        // computed outside the lock as it can require ROI bounds
+        final int cacheSize = getMaskCacheSize();
+
+        synchronized (this)
+        {
+            maskCacheMaxSize = cacheSize;
+
+            if (maskCache == null)
+            {
+                maskCache = new LinkedHashMap<MaskCacheKey, MaskCacheEntry>(16, 0.75f, true)
+                {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<MaskCacheKey, MaskCacheEntry> eldest)
+                    {
+                        return size() > maskCacheMaxSize;
+                    }
+                };
+            }
+
+            maskCache.put(key, new MaskCacheEntry(version, result));
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of boolean mask kept in the ROI mask cache.<br>
+     * Default implementation returns {@link #MASK_CACHE_SIZE}, override it when the ROI can use more masks (as one mask
+     * per Z slice) so sequential accesses don't evict all cached masks.
+     */
+    protected int getMaskCacheSize()
+    {
+        return MASK_CACHE_SIZE;
+    }
+
+    /**
+     * Returns the geometry version of the ROI (incremented each time the ROI content or position changes).
+     */
+    public int getGeometryVersion()
+    {
+        return geometryVersion;
+    }
+
+    /**
+     * Returns the number of boolean mask directly returned from the ROI mask cache (see
+     * {@link #getCachedBooleanMask2D(int, int, int, boolean)}).
+     */
+    public synchronized long getMaskCacheHits()
+    {
+        return maskCacheHits;
+    }
+
+    /**
+     * Returns the number of boolean mask which had to be computed (not found in the ROI mask cache).
+     */
+    public synchronized long getMaskCacheMisses()
+    {
+        return maskCacheMisses;
+    }
+
+    /**
+     * Returns the ROI mask cache hit rate (between 0 and 1).
+     */
+    public synchronized double getMaskCacheHitRate()
+    {
+        final long total = maskCacheHits + maskCacheMisses;
+
+        if (total == 0L)
+            return 0d;
+
+        return (double) maskCacheHits / (double) total;
+    }
+
+    /**
+     * Invalidate the boolean mask cache (done automatically on ROI change).
+     */
+    protected void invalidateMaskCache()
+    {
+        geometryVersion++;
+
+        synchronized (this)
+        {
+            if (maskCache != null)
+                maskCache.clear();
+        }
+    }
+
     /**
      * @deprecated Override directly these methods:<br>
      *             {@link #getUnion(ROI)}<br>
@@ -3252,6 +3473,8 @@ public abstract class ROI implements ChangeListener, XMLPersistent
     @Deprecated
     public void roiChanged(ROIPointEventType pointEventType, Object point)
     {
+        // cached masks are no more valid (done now as event may be delayed)
+        invalidateMaskCache();
         // handle with updater
         updater.changed(new ROIEvent(this, ROIEventType.ROI_CHANGED, pointEventType, point));
     }
@@ -3264,6 +3487,8 @@ public abstract class ROI implements ChangeListener, XMLPersistent
      */
     public void roiChanged(boolean contentChanged)
     {
+        // cached masks are no more valid (done now as event may be delayed)
+        invalidateMaskCache();
         // handle with updater
         if (contentChanged)
             updater.changed(new ROIEvent(this, ROIEventType.ROI_CHANGED, ROI_CHANGED_ALL));
@@ -897,7 +897,8 @@ public abstract class ROI2D extends ROI
             final ROI2D roi2d = (ROI2D) roi;
 
             if (onSamePos(roi2d, false))
-                return getBooleanMask(true).intersects(roi2d.getBooleanMask(true));
+                return getCachedBooleanMask2D(-1, -1, -1, true).intersects(
+                        roi2d.getCachedBooleanMask2D(-1, -1, -1, true));
         }
 
         // use default implementation
@@ -40,6 +40,7 @@ import java.awt.RenderingHints;
 import java.awt.event.InputEvent;
 import java.awt.event.MouseEvent;
 import java.awt.geom.Rectangle2D;
+import java.lang.ref.SoftReference;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -333,9 +334,31 @@ public abstract class ROI3D extends ROI
         }
     }
 
+    /**
+     * Entry of the 3D boolean mask cache (mask is soft referenced so it can be released on low memory)
+     */
+    private static class Mask3DCacheEntry
+    {
+        final int version;
+        final SoftReference<BooleanMask3D> mask;
+
+        public Mask3DCacheEntry(int version, BooleanMask3D mask)
+        {
+            super();
+
+            this.version = version;
+            this.mask = new SoftReference<BooleanMask3D>(mask);
+        }
+    }
+
     public static final String ID_T = "t";
     public static final String ID_C = "c";
 
+    /**
+     * Maximum number of 2D boolean mask kept in the ROI mask cache (see {@link #getMaskCacheSize()})
+     */
+    public static final int MAX_MASK_CACHE_SIZE = 4096;
+
     /**
      * t coordinate attachment
      */
@@ -345,6 +368,11 @@ public abstract class ROI3D extends ROI
      */
     protected int c;
 
+    /**
+     * cached 3D boolean masks (index 0 = exclusive, 1 = inclusive)
+     */
+    private final Mask3DCacheEntry[] mask3DCache;
+
     public ROI3D()
     {
         super();
@@ -352,6 +380,7 @@ public abstract class ROI3D extends ROI
         // by default we consider no specific T and C attachment
         t = -1;
         c = -1;
+        mask3DCache = new Mask3DCacheEntry[2];
     }
 
     @Override
@@ -660,7 +689,7 @@ public abstract class ROI3D extends ROI
             final ROI3D roi3d = (ROI3D) roi;
 
             if (onSamePos(roi3d, false))
-                return getBooleanMask(true).intersects(roi3d.getBooleanMask(true));
+                return getCachedBooleanMask(true).intersects(roi3d.getCachedBooleanMask(true));
         }
 
         // use default implementation
@@ -1037,6 +1066,61 @@ public abstract class ROI3D extends ROI
         return new BooleanMask3D(bounds, masks);
     }
 
+    /**
+     * Same as {@link #getBooleanMask(boolean)} except the mask is memoized (one for each <code>inclusive</code> state)
+     * so successive calls don't recompute it from the ROI geometry (cache is invalidated as soon as the ROI changes).
+     * <br>
+     * <b>The returned mask is shared so it should not be modified</b>, use {@link #getBooleanMask(boolean)} to get a
+     * mask you can modify.
+     * 
+     * @param inclusive
+     *        If true then all partially contained (intersected) pixels are included in the mask.
+     */
+    public BooleanMask3D getCachedBooleanMask(boolean inclusive)
+    {
+        final int index = inclusive ? 1 : 0;
+        // get version before computing the mask so we never store a mask computed from an old geometry
+        final int version = geometryVersion;
+
+        synchronized (mask3DCache)
+        {
+            final Mask3DCacheEntry entry = mask3DCache[index];
+
+            if ((entry != null) && (entry.version == version))
+            {
+                final BooleanMask3D result = entry.mask.get();
+
+                if (result != null)
+                    return result;
+            }
+        }
+
+        final BooleanMask3D result = getBooleanMask(inclusive);
+
+        synchronized (mask3DCache)
+        {
+            mask3DCache[index] = new Mask3DCacheEntry(version, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Use one cache entry per Z slice (and inclusive state) so walking all slices of the ROI doesn't evict all cached
+     * masks.
+     */
+    @Override
+    protected int getMaskCacheSize()
+    {
+        final Rectangle3D.Integer bounds = getBounds();
+
+        // infinite Z dimension --> only one mask per inclusive state is needed
+        if (bounds.isInfiniteZ())
+            return MASK_CACHE_SIZE;
+
+        return Math.max(MASK_CACHE_SIZE, (int) Math.min(MAX_MASK_CACHE_SIZE, bounds.sizeZ * 2L));
+    }
+
     /*
      * Generic implementation for ROI3D using the BooleanMask object so the result is just an
      * approximation. This method should be overridden whenever possible to provide more optimal
@@ -1045,7 +1129,7 @@ public abstract class ROI3D extends ROI
     @Override
     public double computeNumberOfContourPoints()
     {
-        return getBooleanMask(true).getContourLength();
+        return getCachedBooleanMask(true).getContourLength();
     }
 
     /*
@@ -1058,8 +1142,8 @@ public abstract class ROI3D extends ROI
         double numPoints = 0;
 
         // approximation by using number of point of boolean mask with and without border
-        numPoints += getBooleanMask(true).getNumberOfPoints();
-        numPoints += getBooleanMask(false).getNumberOfPoints();
+        numPoints += getCachedBooleanMask(true).getNumberOfPoints();
+        numPoints += getCachedBooleanMask(false).getNumberOfPoints();
         numPoints /= 2d;
 
         return numPoints;
@@ -1067,12 +1151,29 @@ public abstract class ROI3D extends ROI
 
     /**
      * Compute the surface area in um2 given the pixel size informations from the specified Sequence.<br>
-     * Generic implementation of surface area computation using the number of contour point (approximation).<br>
+     * Generic implementation of surface area computation using the surface nets surface of the boolean mask
+     * (approximation), the number of contour point is used instead for ROI with infinite Z dimension.<br>
      * This method should be overridden whenever possible to provide faster and accurate calculation.
      */
     public double computeSurfaceArea(Sequence sequence)
     {
-        return sequence.calculateSize(getNumberOfContourPoints(), 3, 2);
+        // surface cannot be extracted on infinite Z dimension --> use contour points approximation
+        if (getBounds().isInfiniteZ())
+            return sequence.calculateSize(getNumberOfContourPoints(), 3, 2);
+
+        return getCachedBooleanMask(true).getSurfaceArea(sequence.getPixelSizeX(), sequence.getPixelSizeY(),
+                sequence.getPixelSizeZ());
+    }
+
+    /**
+     * Compute the surface triangle mesh (vertices in um) given the pixel size informations from the specified
+     * Sequence.<br>
+     * Generic implementation using the surface nets surface of the boolean mask.
+     */
+    public BooleanMask3DSurface.Mesh computeSurfaceMesh(Sequence sequence)
+    {
+        return getCachedBooleanMask(true).getSurfaceMesh(sequence.getPixelSizeX(), sequence.getPixelSizeY(),
+                sequence.getPixelSizeZ());
     }
 
     /**
@@ -0,0 +1,391 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.roi;
+
+import icy.image.IcyBufferedImage;
+import icy.image.ImageUtil;
+import icy.sequence.Sequence;
+import icy.system.SystemUtil;
+import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
+import icy.type.collection.array.Array1DUtil;
+import icy.type.rectangle.Rectangle5D;
+
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fast ROI rasterization into {@link Sequence} data (binary or label image).<br>
+ * Work is split in (T, Z, tile) units processed in parallel, each tile only considers the ROIs whose XY bounds
+ * intersect it (ROIs are bucketed once on the tile grid) and mask rows are written as spans directly in the image
+ * data arrays. ROIs are always written in list order inside a tile so overlapping ROIs give the same result than a
+ * serial fill (last ROI wins).
+ */
+public class ROIRasterizer
+{
+    /**
+     * Tile size used to split image planes.
+     */
+    public static final int TILE_SIZE = 512;
+
+    private static Processor processor = null;
+
+    static synchronized Processor getProcessor()
+    {
+        if (processor == null)
+        {
+            processor = new Processor(SystemUtil.getNumberOfCPUs() * 2, Math.max(1, SystemUtil.getNumberOfCPUs() - 1));
+            processor.setThreadName("ROI rasterizer");
+            processor.setLane(TaskScheduler.Lane.BACKGROUND);
+        }
+
+        return processor;
+    }
+
+    /**
+     * Fill the specified sequence with the given ROIs.<br>
+     * Each ROI is filled with its own value (<code>values[i]</code> for <code>rois.get(i)</code>), <code>null</code>
+     * ROI are ignored. Sequence images should already exist, no data changed event is sent (caller should call
+     * {@link Sequence#dataChanged()} when done).
+     * 
+     * @param sequence
+     *        destination sequence
+     * @param rois
+     *        ROIs to rasterize
+     * @param values
+     *        fill value for each ROI
+     * @param inclusive
+     *        If true then all partially contained (intersected) pixels are filled.
+     */
+    public static void fill(Sequence sequence, List<? extends ROI> rois, double[] values, boolean inclusive)
+    {
+        new TileFiller(sequence, rois, values, inclusive).execute();
+    }
+
+    /**
+     * Same as {@link #fill(Sequence, List, double[], boolean)} with <code>inclusive = false</code> (only pixels
+     * contained in the ROI are filled, as {@link icy.sequence.SequenceDataIterator} does by default).
+     */
+    public static void fill(Sequence sequence, List<? extends ROI> rois, double[] values)
+    {
+        fill(sequence, rois, values, false);
+    }
+
+    /**
+     * Fill the specified sequence with the given ROIs as a binary image (<code>label = false</code>) or a label image
+     * (<code>label = true</code>), in which case the n<sup>th</sup> ROI (null ROI excepted) is filled with value
+     * <code>n</code> (starting from 1).<br>
+     * 
+     * @see #fill(Sequence, List, double[], boolean)
+     */
+    public static void fill(Sequence sequence, List<? extends ROI> rois, boolean label)
+    {
+        final double[] values = new double[rois.size()];
+        double value = 1d;
+
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = value;
+
+            if (label && (rois.get(i) != null))
+                value += 1d;
+        }
+
+        fill(sequence, rois, values);
+    }
+
+    /**
+     * Rasterize ROIs tile by tile.<br>
+     * Units are claimed on the fly so the calling thread always ends the job by itself if the processor is busy (no
+     * dead lock when called from a processor thread).
+     */
+    private static class TileFiller implements Runnable
+    {
+        final Sequence sequence;
+        final List<? extends ROI> rois;
+        final double[] values;
+        final boolean inclusive;
+        final Rectangle5D[] roiBounds;
+        final int sizeC;
+        final int sizeZ;
+        final List<Rectangle> tiles;
+        // ROI indexes (in list order) for each tile
+        final int[][] tileRois;
+        final int numUnit;
+        final AtomicInteger nextUnit;
+        final CountDownLatch done;
+
+        public TileFiller(Sequence sequence, List<? extends ROI> rois, double[] values, boolean inclusive)
+        {
+            super();
+
+            this.sequence = sequence;
+            this.rois = rois;
+            this.values = values;
+            this.inclusive = inclusive;
+
+            final Rectangle imageBounds = new Rectangle(sequence.getSizeX(), sequence.getSizeY());
+            final int numTileX = Math.max(1, ((imageBounds.width + TILE_SIZE) - 1) / TILE_SIZE);
+            final int numTileY = Math.max(1, ((imageBounds.height + TILE_SIZE) - 1) / TILE_SIZE);
+            final int numRoi = rois.size();
+
+            sizeC = sequence.getSizeC();
+            sizeZ = sequence.getSizeZ();
+            tiles = ImageUtil.getTileList(imageBounds, TILE_SIZE, TILE_SIZE);
+            roiBounds = new Rectangle5D[numRoi];
+
+            // bucket ROIs on the tile grid (2 passes so we directly build compact arrays)
+            final int[] counts = new int[tiles.size()];
+            final int[] tileRange = new int[numRoi * 4];
+
+            for (int i = 0; i < numRoi; i++)
+            {
+                final ROI roi = rois.get(i);
+                Rectangle rect = null;
+
+                if (roi != null)
+                {
+                    final Rectangle5D bounds = roi.getBounds5D();
+
+                    if (!bounds.isEmpty())
+                    {
+                        roiBounds[i] = bounds;
+                        rect = bounds.toRectangle2D().getBounds().intersection(imageBounds);
+                    }
+                }
+
+                // empty range by default
+                if ((rect == null) || rect.isEmpty())
+                {
+                    tileRange[(i * 4) + 0] = 0;
+                    tileRange[(i * 4) + 1] = -1;
+                    tileRange[(i * 4) + 2] = 0;
+                    tileRange[(i * 4) + 3] = -1;
+                }
+                else
+                {
+                    tileRange[(i * 4) + 0] = rect.x / TILE_SIZE;
+                    tileRange[(i * 4) + 1] = Math.min(numTileX - 1, ((rect.x + rect.width) - 1) / TILE_SIZE);
+                    tileRange[(i * 4) + 2] = rect.y / TILE_SIZE;
+                    tileRange[(i * 4) + 3] = Math.min(numTileY - 1, ((rect.y + rect.height) - 1) / TILE_SIZE);
+                }
+
+                for (int ty = tileRange[(i * 4) + 2]; ty <= tileRange[(i * 4) + 3]; ty++)
+                    for (int tx = tileRange[(i * 4) + 0]; tx <= tileRange[(i * 4) + 1]; tx++)
+                        counts[(ty * numTileX) + tx]++;
+            }
+
+            tileRois = new int[tiles.size()][];
+            for (int i = 0; i < tileRois.length; i++)
+                tileRois[i] = new int[counts[i]];
+            final int[] positions = new int[tiles.size()];
+
+            for (int i = 0; i < numRoi; i++)
+            {
+                for (int ty = tileRange[(i * 4) + 2]; ty <= tileRange[(i * 4) + 3]; ty++)
+                {
+                    for (int tx = tileRange[(i * 4) + 0]; tx <= tileRange[(i * 4) + 1]; tx++)
+                    {
+                        final int tile = (ty * numTileX) + tx;
+                        tileRois[tile][positions[tile]++] = i;
+                    }
+                }
+            }
+
+            numUnit = sequence.getSizeT() * sizeZ * tiles.size();
+            nextUnit = new AtomicInteger(0);
+            done = new CountDownLatch(numUnit);
+        }
+
+        @Override
+        public void run()
+        {
+            int unit;
+
+            while ((unit = nextUnit.getAndIncrement()) < numUnit)
+            {
+                try
+                {
+                    final int tile = unit % tiles.size();
+                    final int plane = unit / tiles.size();
+
+                    process(plane / sizeZ, plane % sizeZ, tile);
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            }
+        }
+
+        void process(int t, int z, int tile)
+        {
+            final int[] indexes = tileRois[tile];
+
+            if (indexes.length == 0)
+                return;
+
+            final IcyBufferedImage image = sequence.getImage(t, z);
+
+            if (image == null)
+                return;
+
+            final int sizeX = image.getSizeX();
+            // last tiles of the grid can go past image bounds
+            final Rectangle tileRect = tiles.get(tile).intersection(new Rectangle(sizeX, image.getSizeY()));
+
+            if (tileRect.isEmpty())
+                return;
+
+            for (int c = 0; c < sizeC; c++)
+            {
+                Object data = null;
+
+                for (int index : indexes)
+                {
+                    final Rectangle5D bounds = roiBounds[index];
+
+                    // ROI not present on this plane / channel
+                    if ((z < bounds.getMinZ()) || (z >= bounds.getMaxZ()) || (t < bounds.getMinT())
+                            || (t >= bounds.getMaxT()) || (c < bounds.getMinC()) || (c >= bounds.getMaxC()))
+                        continue;
+
+                    final BooleanMask2D mask = getMask(rois.get(index), z, t, c, inclusive);
+
+                    if ((mask == null) || mask.isEmpty())
+                        continue;
+
+                    final Rectangle rect = mask.bounds.intersection(tileRect);
+
+                    if (rect.isEmpty())
+                        continue;
+
+                    if (data == null)
+                        data = image.getDataXY(c);
+
+                    fillSpans(data, sizeX, mask, rect, values[index]);
+                }
+            }
+        }
+
+        void execute()
+        {
+            if (numUnit > 1)
+            {
+                final Processor proc = getProcessor();
+                // calling thread does its part of the job too
+                final int numHelper = Math.min(numUnit - 1, proc.getMaximumPoolSize());
+
+                for (int i = 0; i < numHelper; i++)
+                {
+                    try
+                    {
+                        proc.execute(this);
+                    }
+                    catch (RejectedExecutionException e)
+                    {
+                        // processor is busy, just use less threads
+                        break;
+                    }
+                }
+            }
+
+            run();
+
+            // wait for units processed by others threads
+            boolean interrupted = false;
+            while (true)
+            {
+                try
+                {
+                    done.await();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the 2D mask of the ROI for the given position (same rules as {@link icy.sequence.SequenceDataIterator}
+     * : unused dimensions of the ROI are ignored).
+     */
+    static BooleanMask2D getMask(ROI roi, int z, int t, int c, boolean inclusive)
+    {
+        switch (roi.getDimension())
+        {
+            case 2:
+                return roi.getCachedBooleanMask2D(-1, -1, -1, inclusive);
+
+            case 3:
+                return roi.getCachedBooleanMask2D(z, -1, -1, inclusive);
+
+            case 4:
+                return roi.getCachedBooleanMask2D(z, t, -1, inclusive);
+
+            default:
+                return roi.getCachedBooleanMask2D(z, t, c, inclusive);
+        }
+    }
+
+    /**
+     * Write the given value in <code>data</code> for each span of the mask contained in <code>rect</code>.
+     */
+    static void fillSpans(Object data, int sizeX, BooleanMask2D mask, Rectangle rect, double value)
+    {
+        final boolean[] maskData = mask.mask;
+        final int maskW = mask.bounds.width;
+        final int offX = rect.x - mask.bounds.x;
+        final int endX = offX + rect.width;
+
+        for (int y = rect.y; y < (rect.y + rect.height); y++)
+        {
+            final int maskOff = ((y - mask.bounds.y) * maskW);
+            final int dataOff = (y * sizeX) - mask.bounds.x;
+            int x = offX;
+
+            while (x < endX)
+            {
+                // find span start
+                while ((x < endX) && !maskData[maskOff + x])
+                    x++;
+
+                if (x == endX)
+                    break;
+
+                final int start = x;
+
+                // find span end
+                while ((x < endX) && maskData[maskOff + x])
+                    x++;
+
+                Array1DUtil.fill(data, dataOff + start, dataOff + x, value);
+            }
+        }
+    }
+}
@@ -1344,6 +1344,8 @@ public class ROIUtil
 
     /**
      * Merge the specified array of {@link ROI} with the given {@link BooleanOperator}.<br>
+     * ROIs are merged pairwise (balanced tree) rather than folded one by one into a growing result, so each operation
+     * works on operands of similar complexity.
      * 
      * @param rois
      *        ROIs we want to merge.
@@ -1356,47 +1358,59 @@ public class ROIUtil
         if (rois.size() == 0)
             return null;
 
-        ROI result = rois.get(0).getCopy();
+        List<ROI> current = new ArrayList<ROI>((rois.size() + 1) / 2);
 
-        // copy can fail...
-        if (result != null)
+        // first level: work on copies so source ROIs are never modified
+        for (int i = 0; i < rois.size(); i += 2)
         {
-            switch (operator)
+            ROI roi = rois.get(i).getCopy();
+
+            // copy can fail...
+            if (roi == null)
+                return null;
+
+            if ((i + 1) < rois.size())
+                roi = merge(roi, rois.get(i + 1), operator);
+
+            current.add(roi);
+        }
+
+        // next levels: merge results pairwise until we get a single ROI
+        while (current.size() > 1)
+        {
+            final List<ROI> next = new ArrayList<ROI>((current.size() + 1) / 2);
+
+            for (int i = 0; i < current.size(); i += 2)
             {
-                case AND:
-                    for (int i = 1; i < rois.size(); i++)
-                        result = result.intersect(rois.get(i), true);
-                    break;
-                case OR:
-                    for (int i = 1; i < rois.size(); i++)
-                        result = result.add(rois.get(i), true);
-                    break;
-                case XOR:
-                    for (int i = 1; i < rois.size(); i++)
-                        result = result.exclusiveAdd(rois.get(i), true);
-                    break;
+                if ((i + 1) < current.size())
+                    next.add(merge(current.get(i), current.get(i + 1), operator));
+                else
+                    next.add(current.get(i));
             }
+
+            current = next;
         }
 
-        // for (int i = 1; i < rois.size(); i++)
-        // {
-        // final ROI roi = rois.get(i);
-        //
-        // switch (operator)
-        // {
-        // case AND:
-        // result = result.getIntersection(roi);
-        // break;
-        // case OR:
-        // result = result.getUnion(roi);
-        // break;
-        // case XOR:
-        // result = result.getExclusiveUnion(roi);
-        // break;
-        // }
-        // }
+        return current.get(0);
+    }
 
-        return result;
+    /**
+     * Merge <code>roi2</code> into <code>roi1</code> with the given {@link BooleanOperator} (<code>roi1</code> may be
+     * modified) and returns the result.
+     */
+    private static ROI merge(ROI roi1, ROI roi2, BooleanOperator operator) throws UnsupportedOperationException
+    {
+        switch (operator)
+        {
+            case AND:
+                return roi1.intersect(roi2, true);
+            case OR:
+                return roi1.add(roi2, true);
+            case XOR:
+                return roi1.exclusiveAdd(roi2, true);
+        }
+
+        return roi1;
     }
 
     /**
@@ -1785,10 +1799,11 @@ public class ROIUtil
      *        automatically from
      *        the global ROI bounds.
      * @param dataType
-     *        the wanted dataType of output Sequence
+     *        the wanted dataType of output Sequence (use {@link DataType#UINT} for more than 65535 labels)
      * @param label
      *        if set to <code>true</code> then each ROI will be draw as a separate label (value) in the sequence
      *        starting from 1.
+     * @see ROIRasterizer
      */
     public static Sequence convertToSequence(List<ROI> inputRois, int sizeX, int sizeY, int sizeC, int sizeZ, int sizeT,
             DataType dataType, boolean label)
@@ -1796,25 +1811,14 @@ public class ROIUtil
         final List<ROI> rois = new ArrayList<ROI>();
         final Rectangle5D bounds = new Rectangle5D.Double();
 
-        try
-        {
-            // compute the union of all ROI
-            final ROI roi = ROIUtil.merge(inputRois, BooleanOperator.OR);
-            // get bounds of result
-            bounds.add(roi.getBounds5D());
-            // add this single ROI to list
-            rois.add(roi);
-        }
-        catch (Exception e)
+        // no need to merge ROIs first (even for binary output), the rasterizer handles overlapping ROIs
+        for (ROI roi : inputRois)
         {
-            for (ROI roi : inputRois)
+            // compute global bounds
+            if (roi != null)
             {
-                // compute global bounds
-                if (roi != null)
-                {
-                    bounds.add(roi.getBounds5D());
-                    rois.add(roi);
-                }
+                bounds.add(roi.getBounds5D());
+                rois.add(roi);
             }
         }
 
@@ -1856,17 +1860,8 @@ public class ROIUtil
                 for (int z = 0; z < sZ; z++)
                     out.setImage(t, z, new IcyBufferedImage(sX, sY, sC, dataType));
 
-            double fillValue = 1d;
-
-            // set value from ROI(s)
-            for (ROI roi : rois)
-            {
-                if (!roi.getBounds5D().isEmpty())
-                    DataIteratorUtil.set(new SequenceDataIterator(out, roi), fillValue);
-
-                if (label)
-                    fillValue += 1d;
-            }
+            // set value from ROI(s) (done in parallel)
+            ROIRasterizer.fill(out, rois, label);
 
             // notify data changed
             out.dataChanged();
@@ -1896,12 +1891,25 @@ public class ROIUtil
     {
         if (sequence == null)
             return convertToSequence(inputRois, 0, 0, 0, 0, 0,
-                    label ? ((inputRois.size() > 255) ? DataType.USHORT : DataType.UBYTE) : DataType.UBYTE, label);
+                    label ? getLabelDataType(inputRois.size()) : DataType.UBYTE, label);
 
         return convertToSequence(inputRois, sequence.getSizeX(), sequence.getSizeY(), sequence.getSizeC(),
                 sequence.getSizeZ(), sequence.getSizeT(), sequence.getDataType_(), label);
     }
 
+    /**
+     * Returns the smallest unsigned data type able to store the specified number of labels.
+     */
+    public static DataType getLabelDataType(int numLabel)
+    {
+        if (numLabel > 65535)
+            return DataType.UINT;
+        if (numLabel > 255)
+            return DataType.USHORT;
+
+        return DataType.UBYTE;
+    }
+
     /**
      * Convert a single ROI into a binary / labeled Sequence.
      * 
@@ -84,6 +84,10 @@ public class SearchEngine implements SearchResultConsumer, PluginLoaderListener
                 // get search providers from plugin
                 for (PluginDescriptor plugin : PluginLoader.getPlugins(PluginSearchProvider.class))
                 {
+                    // class cannot be loaded --> ignore
+                    if (plugin.getPluginClass() == null)
+                        continue;
+
                     try
                     {
                         final PluginSearchProvider psp = (PluginSearchProvider) plugin.getPluginClass().newInstance();
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2010-2015 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index used by {@link SearchResultProducer} to quickly retrieve elements matching a
+ * search word.<br>
+ * Each element is indexed from a set of text fields (stored lower cased). The index maintains a
+ * sorted token map for "word start" queries and a trigram map for "contains" queries so a search
+ * request only has to score a small candidate set instead of the whole element list.<br>
+ * Returned candidates are a superset of the matching elements: final scoring should be done on
+ * the indexed fields (see {@link #getFields(Object)}).<br>
+ * Elements are compared by identity and can be added or removed at any time (incremental update).
+ */
+public class SearchIndex<T>
+{
+    /**
+     * Size of n-gram used for "contains" queries
+     */
+    public static final int GRAM_SIZE = 3;
+
+    private static class Entry
+    {
+        final String[] fields;
+        final long order;
+
+        Entry(String[] fields, long order)
+        {
+            super();
+
+            this.fields = fields;
+            this.order = order;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the specified character is part of a token.
+     */
+    public static boolean isTokenChar(char c)
+    {
+        return Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * Returns all tokens (sequences of letter or digit) of the specified text.
+     */
+    public static List<String> getTokens(String text)
+    {
+        final List<String> result = new ArrayList<String>();
+        final int len = text.length();
+        int start = -1;
+
+        for (int i = 0; i < len; i++)
+        {
+            if (isTokenChar(text.charAt(i)))
+            {
+                if (start == -1)
+                    start = i;
+            }
+            else if (start != -1)
+            {
+                result.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start != -1)
+            result.add(text.substring(start, len));
+
+        return result;
+    }
+
+    private static <T> Set<T> createIdentitySet()
+    {
+        return Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+    }
+
+    private final Map<T, Entry> entries;
+    private final TreeMap<String, Set<T>> tokens;
+    private final Map<String, Set<T>> grams;
+    private long nextOrder;
+
+    public SearchIndex()
+    {
+        super();
+
+        entries = new IdentityHashMap<T, Entry>();
+        tokens = new TreeMap<String, Set<T>>();
+        grams = new HashMap<String, Set<T>>();
+        nextOrder = 0;
+    }
+
+    private void addPosting(Map<String, Set<T>> map, String key, T element)
+    {
+        Set<T> posting = map.get(key);
+
+        if (posting == null)
+        {
+            posting = createIdentitySet();
+            map.put(key, posting);
+        }
+
+        posting.add(element);
+    }
+
+    private void removePosting(Map<String, Set<T>> map, String key, T element)
+    {
+        final Set<T> posting = map.get(key);
+
+        if (posting != null)
+        {
+            posting.remove(element);
+            if (posting.isEmpty())
+                map.remove(key);
+        }
+    }
+
+    /**
+     * Add or update the specified element with the given text fields.
+     */
+    public synchronized void put(T element, String... fields)
+    {
+        final Entry old = entries.get(element);
+        final long order;
+
+        // keep original order on update
+        if (old != null)
+        {
+            order = old.order;
+            remove(element);
+        }
+        else
+            order = nextOrder++;
+
+        final String[] lcFields = new String[fields.length];
+
+        for (int i = 0; i < fields.length; i++)
+            lcFields[i] = (fields[i] == null) ? "" : fields[i].toLowerCase();
+
+        entries.put(element, new Entry(lcFields, order));
+
+        for (String field : lcFields)
+        {
+            for (String token : getTokens(field))
+                addPosting(tokens, token, element);
+            for (int i = 0; i + GRAM_SIZE <= field.length(); i++)
+                addPosting(grams, field.substring(i, i + GRAM_SIZE), element);
+        }
+    }
+
+    /**
+     * Remove the specified element from the index.
+     */
+    public synchronized boolean remove(T element)
+    {
+        final Entry entry = entries.remove(element);
+
+        if (entry == null)
+            return false;
+
+        for (String field : entry.fields)
+        {
+            for (String token : getTokens(field))
+                removePosting(tokens, token, element);
+            for (int i = 0; i + GRAM_SIZE <= field.length(); i++)
+                removePosting(grams, field.substring(i, i + GRAM_SIZE), element);
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove all elements which are not contained in the specified collection.
+     */
+    public synchronized void retainAll(Collection<T> elements)
+    {
+        final Set<T> toKeep = createIdentitySet();
+
+        toKeep.addAll(elements);
+
+        for (T element : new ArrayList<T>(entries.keySet()))
+            if (!toKeep.contains(element))
+                remove(element);
+    }
+
+    /**
+     * Returns <code>true</code> if the specified element is indexed.
+     */
+    public synchronized boolean contains(T element)
+    {
+        return entries.containsKey(element);
+    }
+
+    /**
+     * Returns the indexed (lower cased) text fields of the specified element (<code>null</code> if
+     * the element is not indexed).
+     */
+    public synchronized String[] getFields(T element)
+    {
+        final Entry entry = entries.get(element);
+
+        if (entry == null)
+            return null;
+
+        return entry.fields;
+    }
+
+    /**
+     * Returns the number of indexed elements.
+     */
+    public synchronized int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Remove all elements from the index.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        tokens.clear();
+        grams.clear();
+    }
+
+    /**
+     * Returns elements which may contain the specified word in one of their fields.<br>
+     * Elements are returned in their insertion order.
+     * 
+     * @param word
+     *        the search word
+     * @param startWithOnly
+     *        if <code>true</code> we only look for elements having a token starting with the word
+     *        (word start search), otherwise any element containing the word is returned.
+     */
+    public synchronized List<T> getCandidates(String word, boolean startWithOnly)
+    {
+        final String wordlc = word.toLowerCase();
+        final Collection<T> result;
+
+        if (wordlc.length() == 0)
+            result = entries.keySet();
+        else if (startWithOnly && isTokenChar(wordlc.charAt(0)))
+        {
+            // only the first token of the word can be used for prefix search
+            int end = 1;
+            while ((end < wordlc.length()) && isTokenChar(wordlc.charAt(end)))
+                end++;
+            final String prefix = wordlc.substring(0, end);
+
+            result = createIdentitySet();
+            // tokens starting with prefix are contiguous in the sorted map
+            for (Set<T> posting : tokens.subMap(prefix, prefix + Character.MAX_VALUE).values())
+                result.addAll(posting);
+        }
+        else if (wordlc.length() >= GRAM_SIZE)
+        {
+            Set<T> smallest = null;
+
+            for (int i = 0; i + GRAM_SIZE <= wordlc.length(); i++)
+            {
+                final Set<T> posting = grams.get(wordlc.substring(i, i + GRAM_SIZE));
+
+                // no element contains this part of the word --> no result
+                if (posting == null)
+                    return new ArrayList<T>();
+                if ((smallest == null) || (posting.size() < smallest.size()))
+                    smallest = posting;
+            }
+
+            result = smallest;
+        }
+        else
+            // too short for n-gram search
+            result = entries.keySet();
+
+        return sortByOrder(result);
+    }
+
+    private List<T> sortByOrder(Collection<T> elements)
+    {
+        final List<T> result = new ArrayList<T>(elements);
+
+        Collections.sort(result, new Comparator<T>()
+        {
+            @Override
+            public int compare(T o1, T o2)
+            {
+                final long order1 = entries.get(o1).order;
+                final long order2 = entries.get(o2).order;
+
+                if (order1 < order2)
+                    return -1;
+                if (order1 > order2)
+                    return 1;
+                return 0;
+            }
+        });
+
+        return result;
+    }
+}
@@ -284,6 +284,10 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
      */
     protected final List<SequenceListener> listeners;
     protected final List<SequenceModelListener> modelListeners;
+    /**
+     * batched events
+     */
+    protected final SequenceEventBus eventBus;
 
     /**
      * internals
@@ -348,6 +352,7 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
 
         updater = new UpdateEventHandler(this, false);
         listeners = new ArrayList<SequenceListener>();
+        eventBus = new SequenceEventBus(this);
         modelListeners = new ArrayList<SequenceModelListener>();
 
         // no colorModel yet
@@ -486,6 +491,8 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
 
         // notify close
         fireClosedEvent();
+        // batched listeners don't need to be notified anymore
+        eventBus.clear();
     }
 
     /**
@@ -1893,6 +1900,38 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         return listeners.toArray(new SequenceListener[0]);
     }
 
+    /**
+     * Add the specified batch listener (receives coalesced events, see {@link SequenceEventBus}).
+     */
+    public void addBatchListener(SequenceBatchListener listener)
+    {
+        eventBus.addListener(listener);
+    }
+
+    /**
+     * Remove the specified batch listener.
+     */
+    public void removeBatchListener(SequenceBatchListener listener)
+    {
+        eventBus.removeListener(listener);
+    }
+
+    /**
+     * Get batch listeners list
+     */
+    public SequenceBatchListener[] getBatchListeners()
+    {
+        return eventBus.getListeners();
+    }
+
+    /**
+     * Returns the batched event bus of this sequence.
+     */
+    public SequenceEventBus getEventBus()
+    {
+        return eventBus;
+    }
+
     /**
      * Add the specified {@link icy.sequence.SequenceModel.SequenceModelListener} to listeners list
      */
@@ -6855,6 +6894,9 @@ public class Sequence implements SequenceModel, IcyColorModelListener, IcyBuffer
         for (SequenceListener listener : cachedListeners)
             listener.sequenceChanged(e);
 
+        // batched listeners
+        eventBus.post(e);
+
         // provide backward compatibility for painter
         if (e.getSourceType() == SequenceEventSourceType.SEQUENCE_OVERLAY)
         {
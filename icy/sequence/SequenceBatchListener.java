@@ -0,0 +1,40 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.sequence;
+
+import java.util.EventListener;
+
+/**
+ * Sequence listener receiving coalesced events (see {@link SequenceEventBus}).<br>
+ * All events of a sequence received during the bus window are collapsed (per source and type) and delivered as a
+ * single {@link SequenceEventBatch}, heavy listeners should use it instead of {@link SequenceListener}.
+ */
+public interface SequenceBatchListener extends EventListener
+{
+    /**
+     * Called when sequence has changed, the batch contains all (collapsed) events since the previous batch.
+     */
+    public void sequenceChanged(SequenceEventBatch batch);
+
+    /**
+     * Returns <code>true</code> if the listener should be notified on the AWT event dispatch thread, else it is
+     * notified on the sequence event dispatcher thread (never on the thread which generated the events).
+     */
+    public boolean isEDTRequired();
+}
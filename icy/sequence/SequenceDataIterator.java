@@ -21,7 +21,7 @@ package icy.sequence;
 import icy.image.IcyBufferedImage;
 import icy.image.ImageDataIterator;
 import icy.roi.ROI;
-import icy.type.DataIterator;
+import icy.type.DataRunIterator;
 import icy.type.DataType;
 import icy.type.rectangle.Rectangle5D;
 import icy.type.rectangle.Rectangle5D.Integer;
@@ -39,7 +39,7 @@ import java.util.NoSuchElementException;
  * 
  * @author Stephane
  */
-public class SequenceDataIterator implements DataIterator
+public class SequenceDataIterator implements DataRunIterator
 {
     protected final Sequence sequence;
     protected final ROI roi;
@@ -308,22 +308,22 @@ public class SequenceDataIterator implements DataIterator
             {
                 case 2:
                     // ignore Z, T and C roi informations (wanted for fixed Z, T and C positions)
-                    imageIterator = new ImageDataIterator(img, roi.getBooleanMask2D(-1, -1, -1, inclusive), c);
+                    imageIterator = new ImageDataIterator(img, roi.getCachedBooleanMask2D(-1, -1, -1, inclusive), c);
                     break;
 
                 case 3:
                     // ignore T and C roi informations (wanted for fixed T and C positions)
-                    imageIterator = new ImageDataIterator(img, roi.getBooleanMask2D(z, -1, -1, inclusive), c);
+                    imageIterator = new ImageDataIterator(img, roi.getCachedBooleanMask2D(z, -1, -1, inclusive), c);
                     break;
 
                 case 4:
                     // ignore C roi information (wanted for fixed C position)
-                    imageIterator = new ImageDataIterator(img, roi.getBooleanMask2D(z, t, -1, inclusive), c);
+                    imageIterator = new ImageDataIterator(img, roi.getCachedBooleanMask2D(z, t, -1, inclusive), c);
                     break;
 
                 // assume 5D
                 default:
-                    imageIterator = new ImageDataIterator(img, roi.getBooleanMask2D(z, t, c, inclusive), c);
+                    imageIterator = new ImageDataIterator(img, roi.getCachedBooleanMask2D(z, t, c, inclusive), c);
             }
         }
         else
@@ -388,6 +388,60 @@ public class SequenceDataIterator implements DataIterator
         imageIterator.set(value);
     }
 
+    @Override
+    public DataType getDataType()
+    {
+        if (sequence != null)
+            return sequence.getDataType_();
+
+        return DataType.UNDEFINED;
+    }
+
+    @Override
+    public int getRunLength()
+    {
+        if (done)
+            return 0;
+
+        return imageIterator.getRunLength();
+    }
+
+    @Override
+    public int readRun(double[] out, int offset, int length)
+    {
+        if (done)
+            return 0;
+
+        final int result = imageIterator.readRun(out, offset, length);
+        nextImageifNeeded();
+
+        return result;
+    }
+
+    @Override
+    public int readRawRun(Object out, int offset, int length)
+    {
+        if (done)
+            return 0;
+
+        final int result = imageIterator.readRawRun(out, offset, length);
+        nextImageifNeeded();
+
+        return result;
+    }
+
+    @Override
+    public int writeRun(double[] in, int offset, int length)
+    {
+        if (done)
+            return 0;
+
+        final int result = imageIterator.writeRun(in, offset, length);
+        nextImageifNeeded();
+
+        return result;
+    }
+
     /**
      * Return current X position.
      */
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.sequence;
+
+import icy.sequence.SequenceEvent.SequenceEventSourceType;
+import icy.sequence.SequenceEvent.SequenceEventType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Batch of collapsed {@link SequenceEvent} delivered to {@link SequenceBatchListener}.
+ */
+public class SequenceEventBatch
+{
+    private final Sequence sequence;
+    private final List<SequenceEvent> events;
+
+    public SequenceEventBatch(Sequence sequence, List<SequenceEvent> events)
+    {
+        super();
+
+        this.sequence = sequence;
+        this.events = Collections.unmodifiableList(new ArrayList<SequenceEvent>(events));
+    }
+
+    /**
+     * Returns the sequence which generated the events.
+     */
+    public Sequence getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Returns all events of this batch (in arrival order of the first event of each kind).
+     */
+    public List<SequenceEvent> getEvents()
+    {
+        return events;
+    }
+
+    /**
+     * Returns events of the specified source type.
+     */
+    public List<SequenceEvent> getEvents(SequenceEventSourceType sourceType)
+    {
+        final List<SequenceEvent> result = new ArrayList<SequenceEvent>();
+
+        for (SequenceEvent event : events)
+            if (event.getSourceType() == sourceType)
+                result.add(event);
+
+        return result;
+    }
+
+    /**
+     * Returns <code>true</code> if the batch contains at least one event of the specified source type.
+     */
+    public boolean contains(SequenceEventSourceType sourceType)
+    {
+        for (SequenceEvent event : events)
+            if (event.getSourceType() == sourceType)
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if the batch contains at least one event of the specified source type and type.
+     */
+    public boolean contains(SequenceEventSourceType sourceType, SequenceEventType type)
+    {
+        for (SequenceEvent event : events)
+            if ((event.getSourceType() == sourceType) && (event.getType() == type))
+                return true;
+
+        return false;
+    }
+
+    /**
+     * Returns the number of (collapsed) events in this batch.
+     */
+    public int size()
+    {
+        return events.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return events.isEmpty();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SequenceEventBatch[" + events.size() + " events]";
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.sequence;
+
+import icy.common.CollapsibleEvent;
+import icy.sequence.SequenceEvent.SequenceEventSourceType;
+import icy.system.IcyExceptionHandler;
+import icy.system.thread.Processor;
+import icy.system.thread.ThreadUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Batched event bus for {@link Sequence} events.<br>
+ * Events are collected during a small time window (one display frame by default), collapsed per source and type
+ * (see {@link SequenceEvent#collapse(CollapsibleEvent)}) then delivered as a single {@link SequenceEventBatch} to
+ * all {@link SequenceBatchListener}.<br>
+ * Listeners requiring the EDT are notified on it, others are notified on a dedicated dispatcher thread so a burst of
+ * sequence changes never floods the EDT nor the thread modifying the sequence.
+ */
+public class SequenceEventBus
+{
+    /**
+     * Default batch window (ms)
+     */
+    public static final long DEFAULT_WINDOW = 16L;
+
+    // shared batch timer and dispatcher
+    private static Timer timer = null;
+    private static Processor dispatcher = null;
+
+    private static synchronized Timer getTimer()
+    {
+        if (timer == null)
+            timer = new Timer("Sequence event bus", true);
+
+        return timer;
+    }
+
+    private static synchronized Processor getDispatcher()
+    {
+        if (dispatcher == null)
+        {
+            // single thread so batches are delivered in order
+            dispatcher = new Processor(-1, 1);
+            dispatcher.setThreadName("Sequence event dispatcher");
+        }
+
+        return dispatcher;
+    }
+
+    protected final Sequence sequence;
+    protected final List<SequenceBatchListener> listeners;
+    protected final LinkedHashMap<CollapsibleEvent, SequenceEvent> pendingEvents;
+    protected long window;
+    protected boolean flushScheduled;
+
+    public SequenceEventBus(Sequence sequence)
+    {
+        super();
+
+        this.sequence = sequence;
+        listeners = new ArrayList<SequenceBatchListener>();
+        pendingEvents = new LinkedHashMap<CollapsibleEvent, SequenceEvent>();
+        window = DEFAULT_WINDOW;
+        flushScheduled = false;
+    }
+
+    /**
+     * Returns the batch window (ms).
+     */
+    public long getWindow()
+    {
+        return window;
+    }
+
+    /**
+     * Sets the batch window (ms), all events received during this time are delivered in a single batch.
+     */
+    public void setWindow(long value)
+    {
+        window = Math.max(0L, value);
+    }
+
+    public void addListener(SequenceBatchListener listener)
+    {
+        synchronized (listeners)
+        {
+            if (!listeners.contains(listener))
+                listeners.add(listener);
+        }
+    }
+
+    public void removeListener(SequenceBatchListener listener)
+    {
+        synchronized (listeners)
+        {
+            listeners.remove(listener);
+        }
+    }
+
+    public SequenceBatchListener[] getListeners()
+    {
+        synchronized (listeners)
+        {
+            return listeners.toArray(new SequenceBatchListener[listeners.size()]);
+        }
+    }
+
+    public boolean hasListeners()
+    {
+        synchronized (listeners)
+        {
+            return !listeners.isEmpty();
+        }
+    }
+
+    /**
+     * Post an event on the bus (it will be delivered in the next batch).
+     */
+    public void post(SequenceEvent event)
+    {
+        // no need to keep events if nobody listen
+        if (!hasListeners())
+            return;
+        // backward compatibility painter events are not forwarded
+        if (event.getSourceType() == SequenceEventSourceType.SEQUENCE_PAINTER)
+            return;
+
+        // use a copy as the event is collapsed in place and may still be used by synchronous listeners
+        final SequenceEvent e = new SequenceEvent(event.getSequence(), event.getSourceType(), event.getSource(),
+                event.getType(), event.getParam());
+        final boolean schedule;
+
+        synchronized (pendingEvents)
+        {
+            final SequenceEvent previous = pendingEvents.get(e);
+
+            if (previous == null)
+                pendingEvents.put(e, e);
+            else
+                previous.collapse(e);
+
+            schedule = !flushScheduled;
+            flushScheduled = true;
+        }
+
+        if (schedule)
+        {
+            getTimer().schedule(new TimerTask()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        flush();
+                    }
+                    catch (Throwable t)
+                    {
+                        // don't let the timer thread die
+                        IcyExceptionHandler.handleException(t, true);
+                    }
+                }
+            }, window);
+        }
+    }
+
+    /**
+     * Deliver pending events now.
+     */
+    public void flush()
+    {
+        final List<SequenceEvent> events;
+
+        synchronized (pendingEvents)
+        {
+            events = new ArrayList<SequenceEvent>(pendingEvents.values());
+            pendingEvents.clear();
+            flushScheduled = false;
+        }
+
+        if (events.isEmpty())
+            return;
+
+        final SequenceEventBatch batch = new SequenceEventBatch(sequence, events);
+        final List<SequenceBatchListener> edtListeners = new ArrayList<SequenceBatchListener>();
+        final List<SequenceBatchListener> otherListeners = new ArrayList<SequenceBatchListener>();
+
+        for (SequenceBatchListener listener : getListeners())
+        {
+            if (listener.isEDTRequired())
+                edtListeners.add(listener);
+            else
+                otherListeners.add(listener);
+        }
+
+        if (!otherListeners.isEmpty())
+        {
+            getDispatcher().submit(true, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    fireBatch(otherListeners, batch);
+                }
+            });
+        }
+        if (!edtListeners.isEmpty())
+        {
+            ThreadUtil.invokeLater(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    fireBatch(edtListeners, batch);
+                }
+            }, true);
+        }
+    }
+
+    /**
+     * Deliver the batch to each listener, a failing listener doesn't prevent the others to receive it.
+     */
+    private static void fireBatch(List<SequenceBatchListener> listeners, SequenceEventBatch batch)
+    {
+        for (SequenceBatchListener listener : listeners)
+        {
+            try
+            {
+                listener.sequenceChanged(batch);
+            }
+            catch (Throwable t)
+            {
+                IcyExceptionHandler.handleException(t, true);
+            }
+        }
+    }
+
+    /**
+     * Remove all listeners and pending events.
+     */
+    public void clear()
+    {
+        synchronized (listeners)
+        {
+            listeners.clear();
+        }
+        synchronized (pendingEvents)
+        {
+            pendingEvents.clear();
+        }
+    }
+}
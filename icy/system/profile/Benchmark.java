@@ -0,0 +1,75 @@
+/*
+ * Copyright 2010-2015 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.system.profile;
+
+/**
+ * Base class for a micro benchmark executed by {@link BenchmarkRunner}.<br>
+ * {@link #setup()} is called once before measurement, {@link #run()} is called for each warmup
+ * and measured iteration and {@link #tearDown()} is called once at the end.<br>
+ * The value returned by {@link #run()} is consumed by the runner so the JIT cannot eliminate the
+ * benchmarked code.
+ */
+public abstract class Benchmark
+{
+    protected final String name;
+
+    public Benchmark(String name)
+    {
+        super();
+
+        this.name = name;
+    }
+
+    /**
+     * @return the benchmark name (used for report)
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Prepare benchmark data (not measured).
+     */
+    public void setup() throws Exception
+    {
+        // nothing by default
+    }
+
+    /**
+     * Execute one iteration of the benchmarked operation.
+     * 
+     * @return a result object (can be <code>null</code>) consumed by the runner
+     */
+    public abstract Object run() throws Exception;
+
+    /**
+     * Release benchmark data (not measured).
+     */
+    public void tearDown() throws Exception
+    {
+        // nothing by default
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2010-2015 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.system.profile;
+
+import icy.image.IcyBufferedImage;
+import icy.roi.BooleanMask2D;
+import icy.roi.BooleanMask3D;
+import icy.roi.ROI2D;
+import icy.sequence.Sequence;
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+import icy.type.rectangle.Rectangle3D;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import plugins.kernel.roi.roi2d.ROI2DEllipse;
+import plugins.kernel.roi.roi2d.ROI2DPolygon;
+
+/**
+ * Synthetic data generators used by benchmarks.<br>
+ * All generators use a seeded random generator so successive runs work on identical data.
+ */
+public class BenchmarkData
+{
+    public static final long DEFAULT_SEED = 0x1C7L;
+
+    private final Random random;
+
+    public BenchmarkData(long seed)
+    {
+        super();
+
+        random = new Random(seed);
+    }
+
+    public BenchmarkData()
+    {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Create a 1D array of specified data type filled with random values covering the whole
+     * type range (<code>[0..1]</code> for float types).
+     */
+    public Object createArray(DataType dataType, int len)
+    {
+        final Object result = Array1DUtil.createArray(dataType, len);
+
+        switch (dataType.getJavaType())
+        {
+            case BYTE:
+            {
+                final byte[] array = (byte[]) result;
+                random.nextBytes(array);
+                break;
+            }
+
+            case SHORT:
+            {
+                final short[] array = (short[]) result;
+                for (int i = 0; i < len; i++)
+                    array[i] = (short) random.nextInt();
+                break;
+            }
+
+            case INT:
+            {
+                final int[] array = (int[]) result;
+                for (int i = 0; i < len; i++)
+                    array[i] = random.nextInt();
+                break;
+            }
+
+            case LONG:
+            {
+                final long[] array = (long[]) result;
+                for (int i = 0; i < len; i++)
+                    array[i] = random.nextLong();
+                break;
+            }
+
+            case FLOAT:
+            {
+                final float[] array = (float[]) result;
+                for (int i = 0; i < len; i++)
+                    array[i] = random.nextFloat();
+                break;
+            }
+
+            case DOUBLE:
+            {
+                final double[] array = (double[]) result;
+                for (int i = 0; i < len; i++)
+                    array[i] = random.nextDouble();
+                break;
+            }
+
+            default:
+                break;
+        }
+
+        return result;
+    }
+
+    /**
+     * Create a byte array filled with random values.
+     */
+    public byte[] createByteArray(int len)
+    {
+        final byte[] result = new byte[len];
+        random.nextBytes(result);
+        return result;
+    }
+
+    /**
+     * Create an image of specified dimension and data type filled with random data.
+     */
+    public IcyBufferedImage createImage(int sizeX, int sizeY, int sizeC, DataType dataType)
+    {
+        final IcyBufferedImage result = new IcyBufferedImage(sizeX, sizeY, sizeC, dataType);
+
+        result.beginUpdate();
+        try
+        {
+            for (int c = 0; c < sizeC; c++)
+                result.setDataXY(c, createArray(dataType, sizeX * sizeY));
+        }
+        finally
+        {
+            result.endUpdate();
+        }
+
+        return result;
+    }
+
+    /**
+     * Create a sequence of specified dimension and data type filled with random data.
+     */
+    public Sequence createSequence(int sizeX, int sizeY, int sizeZ, int sizeT, int sizeC, DataType dataType)
+    {
+        final Sequence result = new Sequence("benchmark");
+
+        result.beginUpdate();
+        try
+        {
+            for (int t = 0; t < sizeT; t++)
+                for (int z = 0; z < sizeZ; z++)
+                    result.setImage(t, z, createImage(sizeX, sizeY, sizeC, dataType));
+        }
+        finally
+        {
+            result.endUpdate();
+        }
+
+        return result;
+    }
+
+    /**
+     * Create a boolean mask with a random disk shaped object in the specified bounds.
+     */
+    public BooleanMask2D createDiskMask(Rectangle bounds)
+    {
+        final boolean[] mask = new boolean[bounds.width * bounds.height];
+        final double rx = bounds.width / 2d;
+        final double ry = bounds.height / 2d;
+        // small random jitter on center
+        final double cx = rx + ((random.nextDouble() - 0.5d) * rx * 0.2d);
+        final double cy = ry + ((random.nextDouble() - 0.5d) * ry * 0.2d);
+
+        int off = 0;
+        for (int y = 0; y < bounds.height; y++)
+        {
+            final double dy = (y + 0.5d - cy) / ry;
+
+            for (int x = 0; x < bounds.width; x++)
+            {
+                final double dx = (x + 0.5d - cx) / rx;
+                mask[off++] = ((dx * dx) + (dy * dy)) <= 1d;
+            }
+        }
+
+        return new BooleanMask2D(new Rectangle(bounds), mask);
+    }
+
+    /**
+     * Creates a 3D ball mask filling the specified bounds.
+     */
+    public BooleanMask3D createBallMask(Rectangle3D.Integer bounds)
+    {
+        final BooleanMask2D[] masks = new BooleanMask2D[bounds.sizeZ];
+        final double rz = bounds.sizeZ / 2d;
+
+        for (int z = 0; z < bounds.sizeZ; z++)
+        {
+            final double dz = (z + 0.5d - rz) / rz;
+            final double ratio = Math.sqrt(Math.max(0d, 1d - (dz * dz)));
+            final int w = (int) (bounds.sizeX * ratio);
+            final int h = (int) (bounds.sizeY * ratio);
+
+            masks[z] = createDiskMask(new Rectangle(bounds.x + ((bounds.sizeX - w) / 2), bounds.y
+                    + ((bounds.sizeY - h) / 2), w, h));
+        }
+
+        return new BooleanMask3D(new Rectangle3D.Integer(bounds), masks);
+    }
+
+    /**
+     * Create <code>num</code> random ellipse ROI inside the specified area.
+     */
+    public List<ROI2D> createEllipseROIs(int num, int sizeX, int sizeY, int maxRoiSize)
+    {
+        final List<ROI2D> result = new ArrayList<ROI2D>(num);
+
+        for (int i = 0; i < num; i++)
+        {
+            final int w = 1 + random.nextInt(Math.max(1, maxRoiSize));
+            final int h = 1 + random.nextInt(Math.max(1, maxRoiSize));
+            final int x = random.nextInt(Math.max(1, sizeX - w));
+            final int y = random.nextInt(Math.max(1, sizeY - h));
+
+            result.add(new ROI2DEllipse(x, y, x + w, y + h));
+        }
+
+        return result;
+    }
+
+    /**
+     * Create a random star shaped polygon ROI with <code>numPoints</code> vertices.
+     */
+    public ROI2DPolygon createPolygonROI(double centerX, double centerY, double radius, int numPoints)
+    {
+        final List<Point2D> points = new ArrayList<Point2D>(numPoints);
+
+        for (int i = 0; i < numPoints; i++)
+        {
+            final double angle = (2d * Math.PI * i) / numPoints;
+            final double r = radius * (0.5d + (random.nextDouble() * 0.5d));
+
+            points.add(new Point2D.Double(centerX + (Math.cos(angle) * r), centerY + (Math.sin(angle) * r)));
+        }
+
+        return new ROI2DPolygon(points);
+    }
+}
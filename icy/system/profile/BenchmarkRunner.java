@@ -0,0 +1,199 @@
+/*
+ * Copyright 2010-2015 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.system.profile;
+
+import icy.system.IcyExceptionHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Simple micro benchmark runner (warmup, measured iterations, basic statistics).<br>
+ * This is not as accurate as a dedicated harness (no fork, no dead code analysis) but good enough
+ * to compare two implementations of a same hot path in the same JVM.
+ */
+public class BenchmarkRunner
+{
+    public static class BenchmarkResult
+    {
+        public final String name;
+        public final int iterations;
+        public final long minNs;
+        public final long maxNs;
+        public final double meanNs;
+        public final long medianNs;
+
+        BenchmarkResult(String name, long[] times)
+        {
+            super();
+
+            this.name = name;
+            iterations = times.length;
+
+            final long[] sorted = Arrays.copyOf(times, times.length);
+            Arrays.sort(sorted);
+
+            double sum = 0d;
+            for (long t : sorted)
+                sum += t;
+
+            minNs = (sorted.length > 0) ? sorted[0] : 0L;
+            maxNs = (sorted.length > 0) ? sorted[sorted.length - 1] : 0L;
+            medianNs = (sorted.length > 0) ? sorted[sorted.length / 2] : 0L;
+            meanNs = (sorted.length > 0) ? sum / sorted.length : 0d;
+        }
+
+        /**
+         * @return number of operations per second (based on mean time)
+         */
+        public double getOpsPerSecond()
+        {
+            if (meanNs <= 0d)
+                return 0d;
+
+            return 1000000000d / meanNs;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%-48s %8d it  mean %12.3f ms  median %12.3f ms  min %12.3f ms  max %12.3f ms  %10.2f ops/s",
+                    name, Integer.valueOf(iterations), Double.valueOf(meanNs / 1000000d),
+                    Double.valueOf(medianNs / 1000000d), Double.valueOf(minNs / 1000000d),
+                    Double.valueOf(maxNs / 1000000d), Double.valueOf(getOpsPerSecond()));
+        }
+    }
+
+    public static final int DEFAULT_WARMUP_ITERATIONS = 10;
+    public static final int DEFAULT_ITERATIONS = 20;
+
+    /**
+     * Used to consume benchmark results so they can't be optimized away
+     */
+    private static volatile int sink;
+
+    private final List<Benchmark> benchmarks;
+    private final int warmupIterations;
+    private final int iterations;
+    private final boolean verbose;
+
+    public BenchmarkRunner(int warmupIterations, int iterations, boolean verbose)
+    {
+        super();
+
+        benchmarks = new ArrayList<Benchmark>();
+        this.warmupIterations = warmupIterations;
+        this.iterations = iterations;
+        this.verbose = verbose;
+    }
+
+    public BenchmarkRunner()
+    {
+        this(DEFAULT_WARMUP_ITERATIONS, DEFAULT_ITERATIONS, true);
+    }
+
+    public void add(Benchmark benchmark)
+    {
+        benchmarks.add(benchmark);
+    }
+
+    public List<Benchmark> getBenchmarks()
+    {
+        return new ArrayList<Benchmark>(benchmarks);
+    }
+
+    /**
+     * Run all registered benchmarks and returns their results.<br>
+     * Benchmarks throwing an exception are reported and skipped.
+     * 
+     * @param filter
+     *        only benchmarks whose name contains this string are executed (all if <code>null</code>)
+     */
+    public List<BenchmarkResult> run(String filter)
+    {
+        final List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+
+        for (Benchmark benchmark : benchmarks)
+        {
+            if ((filter != null) && !benchmark.getName().contains(filter))
+                continue;
+
+            try
+            {
+                final BenchmarkResult result = run(benchmark);
+
+                results.add(result);
+                if (verbose)
+                    System.out.println(result);
+            }
+            catch (Throwable t)
+            {
+                System.err.println("Benchmark '" + benchmark.getName() + "' failed:");
+                IcyExceptionHandler.showErrorMessage(t, false, true);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Run all registered benchmarks and returns their results.
+     */
+    public List<BenchmarkResult> run()
+    {
+        return run((String) null);
+    }
+
+    /**
+     * Run the specified benchmark and returns its result.
+     */
+    public BenchmarkResult run(Benchmark benchmark) throws Exception
+    {
+        final long[] times = new long[iterations];
+
+        benchmark.setup();
+        try
+        {
+            for (int i = 0; i < warmupIterations; i++)
+                consume(benchmark.run());
+
+            for (int i = 0; i < iterations; i++)
+            {
+                final long start = System.nanoTime();
+                final Object result = benchmark.run();
+                times[i] = System.nanoTime() - start;
+
+                consume(result);
+            }
+        }
+        finally
+        {
+            benchmark.tearDown();
+        }
+
+        return new BenchmarkResult(benchmark.getName(), times);
+    }
+
+    private static void consume(Object value)
+    {
+        if (value != null)
+            sink += System.identityHashCode(value);
+    }
+}
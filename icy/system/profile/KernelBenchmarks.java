@@ -0,0 +1,826 @@
+/*
+ * Copyright 2010-2015 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.system.profile;
+
+import icy.image.IcyBufferedImage;
+import icy.image.IcyBufferedImageUtil;
+import icy.image.lut.LUT;
+import icy.math.DataIteratorMath;
+import icy.math.DataIteratorMath.Statistics;
+import icy.math.Histogram;
+import icy.math.Scaler;
+import icy.roi.BooleanMask2D;
+import icy.roi.BooleanMask3D;
+import icy.roi.ROI;
+import icy.roi.ROI2D;
+import icy.roi.ROI3D;
+import icy.roi.ROIUtil;
+import icy.sequence.Sequence;
+import icy.sequence.SequenceDataIterator;
+import icy.system.profile.BenchmarkRunner.BenchmarkResult;
+import icy.type.DataType;
+import icy.type.collection.array.Array1DUtil;
+import icy.type.collection.array.ArrayUtil;
+import icy.type.collection.array.ByteArrayConvert;
+import icy.type.rectangle.Rectangle3D;
+import icy.util.ShapeUtil;
+import icy.util.ShapeUtil.BooleanOperator;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import plugins.kernel.roi.descriptor.intensity.ROIIntensityDescriptorsPlugin;
+import plugins.kernel.roi.descriptor.measure.ROIContourDescriptor;
+import plugins.kernel.roi.roi3d.ROI3DArea;
+
+/**
+ * Benchmarks of the kernel pixel hot paths (image rendering, scaling, array conversions, masks,
+ * iterators, histogram and ROI descriptors).<br>
+ * Run it with <code>java icy.system.profile.KernelBenchmarks [filter]</code> where the optional
+ * <code>filter</code> restricts execution to benchmarks whose name contains it.
+ */
+public class KernelBenchmarks
+{
+    public static final int IMAGE_SIZE = 2048;
+    public static final int ARRAY_SIZE = IMAGE_SIZE * IMAGE_SIZE;
+    public static final int NUM_ROI = 200;
+
+    /**
+     * Data types used for per type benchmarks
+     */
+    public static final DataType[] DATA_TYPES = {DataType.UBYTE, DataType.BYTE, DataType.USHORT, DataType.SHORT,
+            DataType.UINT, DataType.INT, DataType.FLOAT, DataType.DOUBLE};
+
+    public static void main(String[] args)
+    {
+        final String filter = (args.length > 0) ? args[0] : null;
+
+        final List<BenchmarkResult> results = createRunner().run(filter);
+
+        System.out.println(results.size() + " benchmark(s) done.");
+    }
+
+    /**
+     * Returns a {@link BenchmarkRunner} containing all kernel benchmarks.
+     */
+    public static BenchmarkRunner createRunner()
+    {
+        final BenchmarkRunner result = new BenchmarkRunner();
+
+        addImageBenchmarks(result);
+        addScalerBenchmarks(result);
+        addArrayBenchmarks(result);
+        addByteArrayConvertBenchmarks(result);
+        addBooleanMaskBenchmarks(result);
+        addIteratorBenchmarks(result);
+        addHistogramBenchmarks(result);
+        addDescriptorBenchmarks(result);
+
+        return result;
+    }
+
+    public static void addImageBenchmarks(BenchmarkRunner runner)
+    {
+        for (final DataType dataType : DATA_TYPES)
+        {
+            runner.add(new Benchmark("ARGBImageBuilder.buildARGBImage[3ch " + dataType + "]")
+            {
+                IcyBufferedImage image;
+                LUT lut;
+                BufferedImage out;
+
+                @Override
+                public void setup()
+                {
+                    image = new BenchmarkData().createImage(IMAGE_SIZE, IMAGE_SIZE, 3, dataType);
+                    lut = image.createCompatibleLUT(false);
+                    out = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
+                }
+
+                @Override
+                public Object run()
+                {
+                    return IcyBufferedImageUtil.getARGBImage(image, lut, out);
+                }
+            });
+        }
+
+        runner.add(new Benchmark("IcyBufferedImage.getCachedImage(c)[3ch x 1000]")
+        {
+            IcyBufferedImage image;
+
+            @Override
+            public void setup()
+            {
+                image = new BenchmarkData().createImage(IMAGE_SIZE, IMAGE_SIZE, 3, DataType.USHORT);
+            }
+
+            @Override
+            public Object run()
+            {
+                IcyBufferedImage result = null;
+
+                for (int i = 0; i < 1000; i++)
+                    result = image.getCachedImage(i % 3);
+
+                return result;
+            }
+        });
+    }
+
+    public static void addScalerBenchmarks(BenchmarkRunner runner)
+    {
+        for (final DataType dataType : DATA_TYPES)
+        {
+            runner.add(new Benchmark("Scaler.scale[" + dataType + " -> int]")
+            {
+                Object src;
+                int[] dest;
+                Scaler scaler;
+
+                @Override
+                public void setup()
+                {
+                    src = new BenchmarkData().createArray(dataType, ARRAY_SIZE);
+                    dest = new int[ARRAY_SIZE];
+                    scaler = new Scaler(dataType.getMinValue(), dataType.getMaxValue(), 0, 255,
+                            dataType.isInteger());
+                }
+
+                @Override
+                public Object run()
+                {
+                    scaler.scale(src, dest, dataType.isSigned());
+                    return dest;
+                }
+            });
+        }
+    }
+
+    public static void addArrayBenchmarks(BenchmarkRunner runner)
+    {
+        final DataType[][] pairs = { {DataType.UBYTE, DataType.FLOAT}, {DataType.USHORT, DataType.DOUBLE},
+                {DataType.SHORT, DataType.INT}, {DataType.FLOAT, DataType.UBYTE}, {DataType.DOUBLE, DataType.USHORT},
+                {DataType.INT, DataType.DOUBLE}};
+
+        for (final DataType[] pair : pairs)
+        {
+            runner.add(new Benchmark("Array1DUtil.arrayToArray[" + pair[0] + " -> " + pair[1] + "]")
+            {
+                Object src;
+                Object dest;
+
+                @Override
+                public void setup()
+                {
+                    src = new BenchmarkData().createArray(pair[0], ARRAY_SIZE);
+                    dest = Array1DUtil.createArray(pair[1], ARRAY_SIZE);
+                }
+
+                @Override
+                public Object run()
+                {
+                    return Array1DUtil.arrayToArray(src, dest, pair[0].isSigned());
+                }
+            });
+
+            runner.add(new Benchmark("ArrayUtil.arrayToArray[" + pair[0] + " -> " + pair[1] + "]")
+            {
+                Object src;
+                Object dest;
+
+                @Override
+                public void setup()
+                {
+                    src = new BenchmarkData().createArray(pair[0], ARRAY_SIZE);
+                    dest = Array1DUtil.createArray(pair[1], ARRAY_SIZE);
+                }
+
+                @Override
+                public Object run()
+                {
+                    return ArrayUtil.arrayToArray(src, dest, pair[0].isSigned());
+                }
+            });
+
+            runner.add(new Benchmark("ArrayUtil.arrayToSafeArray[" + pair[0] + " -> " + pair[1] + "]")
+            {
+                Object src;
+                Object dest;
+
+                @Override
+                public void setup()
+                {
+                    src = new BenchmarkData().createArray(pair[0], ARRAY_SIZE);
+                    dest = Array1DUtil.createArray(pair[1], ARRAY_SIZE);
+                }
+
+                @Override
+                public Object run()
+                {
+                    return ArrayUtil.arrayToSafeArray(src, dest, pair[0].isSigned(), pair[1].isSigned());
+                }
+            });
+
+            runner.add(new Benchmark("Array1DUtil.arrayToSafeArray[scaled " + pair[0] + " -> " + pair[1] + "]")
+            {
+                Object src;
+                Object dest;
+                Scaler scaler;
+
+                @Override
+                public void setup()
+                {
+                    src = new BenchmarkData().createArray(pair[0], ARRAY_SIZE);
+                    dest = Array1DUtil.createArray(pair[1], ARRAY_SIZE);
+                    scaler = new Scaler(pair[0].getMinValue(), pair[0].getMaxValue(), pair[1].getMinValue(),
+                            pair[1].getMaxValue(), pair[1].isInteger());
+                }
+
+                @Override
+                public Object run()
+                {
+                    return Array1DUtil.arrayToSafeArray(src, dest, scaler, pair[0].isSigned(), pair[1].isSigned());
+                }
+            });
+
+            // reference for the scaled conversion (full double intermediate array)
+            runner.add(new Benchmark("Array1DUtil.arrayToDoubleArray+scale[" + pair[0] + " -> " + pair[1] + "]")
+            {
+                Object src;
+                Object dest;
+                Scaler scaler;
+
+                @Override
+                public void setup()
+                {
+                    src = new BenchmarkData().createArray(pair[0], ARRAY_SIZE);
+                    dest = Array1DUtil.createArray(pair[1], ARRAY_SIZE);
+                    scaler = new Scaler(pair[0].getMinValue(), pair[0].getMaxValue(), pair[1].getMinValue(),
+                            pair[1].getMaxValue(), pair[1].isInteger());
+                }
+
+                @Override
+                public Object run()
+                {
+                    final double[] darray = Array1DUtil.arrayToDoubleArray(src, pair[0].isSigned());
+                    scaler.scale(darray);
+                    return Array1DUtil.doubleArrayToSafeArray(darray, dest, pair[1].isSigned());
+                }
+            });
+        }
+
+        for (final DataType dataType : DATA_TYPES)
+        {
+            runner.add(new Benchmark("Array1DUtil.getValue/setValue[" + dataType + "]")
+            {
+                Object src;
+                Object dest;
+
+                @Override
+                public void setup()
+                {
+                    src = new BenchmarkData().createArray(dataType, ARRAY_SIZE);
+                    dest = Array1DUtil.createArray(dataType, ARRAY_SIZE);
+                }
+
+                @Override
+                public Object run()
+                {
+                    final boolean signed = dataType.isSigned();
+
+                    for (int i = 0; i < ARRAY_SIZE; i++)
+                        Array1DUtil.setValue(dest, i, Array1DUtil.getValue(src, i, signed));
+
+                    return dest;
+                }
+            });
+        }
+    }
+
+    public static void addByteArrayConvertBenchmarks(BenchmarkRunner runner)
+    {
+        final DataType[] types = {DataType.SHORT, DataType.INT, DataType.LONG, DataType.FLOAT, DataType.DOUBLE};
+
+        for (final DataType dataType : types)
+        {
+            for (final boolean little : new boolean[] {false, true})
+            {
+                final String order = little ? "LE" : "BE";
+
+                runner.add(new Benchmark("ByteArrayConvert.byteArrayTo[" + dataType + " " + order + "]")
+                {
+                    byte[] src;
+                    Object dest;
+
+                    @Override
+                    public void setup()
+                    {
+                        src = new BenchmarkData().createByteArray(ARRAY_SIZE * dataType.getSize());
+                        dest = Array1DUtil.createArray(dataType, ARRAY_SIZE);
+                    }
+
+                    @Override
+                    public Object run()
+                    {
+                        return ByteArrayConvert.byteArrayTo(src, dest, little);
+                    }
+                });
+
+                runner.add(new Benchmark("ByteArrayConvert.toByteArray[" + dataType + " " + order + "]")
+                {
+                    Object src;
+                    byte[] dest;
+
+                    @Override
+                    public void setup()
+                    {
+                        src = new BenchmarkData().createArray(dataType, ARRAY_SIZE);
+                        dest = new byte[ARRAY_SIZE * dataType.getSize()];
+                    }
+
+                    @Override
+                    public Object run()
+                    {
+                        return ByteArrayConvert.toByteArray(src, dest, little);
+                    }
+                });
+
+                runner.add(new Benchmark("ByteArrayConvert.toByteBuffer/byteBufferTo[direct " + dataType + " " + order
+                        + "]")
+                {
+                    Object src;
+                    Object dest;
+                    ByteBuffer buffer;
+
+                    @Override
+                    public void setup()
+                    {
+                        src = new BenchmarkData().createArray(dataType, ARRAY_SIZE);
+                        dest = Array1DUtil.createArray(dataType, ARRAY_SIZE);
+                        buffer = ByteBuffer.allocateDirect(ARRAY_SIZE * dataType.getSize()).order(
+                                ByteArrayConvert.getByteOrder(little));
+                    }
+
+                    @Override
+                    public Object run()
+                    {
+                        buffer.clear();
+                        ByteArrayConvert.toByteBuffer(src, 0, buffer, -1);
+                        buffer.flip();
+                        return ByteArrayConvert.byteBufferTo(buffer, dest, 0, -1);
+                    }
+                });
+            }
+        }
+    }
+
+    public static void addBooleanMaskBenchmarks(BenchmarkRunner runner)
+    {
+        runner.add(new Benchmark("BooleanMask2D.getUnion/getIntersection")
+        {
+            BooleanMask2D mask1;
+            BooleanMask2D mask2;
+
+            @Override
+            public void setup()
+            {
+                final BenchmarkData data = new BenchmarkData();
+
+                mask1 = data.createDiskMask(new Rectangle(0, 0, 1024, 1024));
+                mask2 = data.createDiskMask(new Rectangle(300, 200, 1024, 1024));
+            }
+
+            @Override
+            public Object run()
+            {
+                BooleanMask2D.getUnion(mask1, mask2);
+                return BooleanMask2D.getIntersection(mask1, mask2);
+            }
+        });
+
+        runner.add(new Benchmark("BooleanMask2D.getContourPoints")
+        {
+            BooleanMask2D mask;
+
+            @Override
+            public void setup()
+            {
+                mask = new BenchmarkData().createDiskMask(new Rectangle(0, 0, 1024, 1024));
+            }
+
+            @Override
+            public Object run()
+            {
+                return mask.getContourPoints();
+            }
+        });
+
+        runner.add(new Benchmark("BooleanMask2D.getComponents")
+        {
+            BooleanMask2D mask;
+
+            @Override
+            public void setup()
+            {
+                final BenchmarkData data = new BenchmarkData();
+
+                mask = data.createDiskMask(new Rectangle(0, 0, 512, 512));
+                mask.add(data.createDiskMask(new Rectangle(600, 600, 256, 256)));
+                mask.add(data.createDiskMask(new Rectangle(600, 0, 300, 300)));
+            }
+
+            @Override
+            public Object run()
+            {
+                return mask.getComponents();
+            }
+        });
+
+        // reference for surface area
+        runner.add(new Benchmark("BooleanMask3D.getContourLength[128x128x64]")
+        {
+            BooleanMask3D mask;
+
+            @Override
+            public void setup()
+            {
+                mask = new BenchmarkData().createBallMask(new Rectangle3D.Integer(0, 0, 0, 128, 128, 64));
+            }
+
+            @Override
+            public Object run()
+            {
+                return Double.valueOf(mask.getContourLength());
+            }
+        });
+
+        runner.add(new Benchmark("BooleanMask3D.getSurfaceArea[128x128x64]")
+        {
+            BooleanMask3D mask;
+
+            @Override
+            public void setup()
+            {
+                mask = new BenchmarkData().createBallMask(new Rectangle3D.Integer(0, 0, 0, 128, 128, 64));
+            }
+
+            @Override
+            public Object run()
+            {
+                return Double.valueOf(mask.getSurfaceArea(1d, 1d, 2d));
+            }
+        });
+
+        runner.add(new Benchmark("ROI3D cached masks[deep stack 128x128x512]")
+        {
+            ROI3D roi;
+
+            @Override
+            public void setup()
+            {
+                roi = new ROI3DArea(new BenchmarkData().createBallMask(new Rectangle3D.Integer(0, 0, 0, 128, 128,
+                        512)));
+            }
+
+            @Override
+            public Object run()
+            {
+                final int sizeZ = roi.getBounds().sizeZ;
+                int result = 0;
+
+                // walk all Z slices for both inclusive states (as done by data iterators and descriptors)
+                for (int z = 0; z < sizeZ; z++)
+                {
+                    result += roi.getCachedBooleanMask2D(z, -1, -1, true).bounds.width;
+                    result += roi.getCachedBooleanMask2D(z, -1, -1, false).bounds.width;
+                }
+
+                result += roi.getCachedBooleanMask(true).bounds.sizeZ;
+                result += roi.getCachedBooleanMask(false).bounds.sizeZ;
+
+                return Integer.valueOf(result);
+            }
+        });
+
+        runner.add(new Benchmark("ROI2DPolygon.getBooleanMask[1000 pts]")
+        {
+            ROI2D roi;
+
+            @Override
+            public void setup()
+            {
+                roi = new BenchmarkData().createPolygonROI(1024, 1024, 900, 1000);
+            }
+
+            @Override
+            public Object run()
+            {
+                return roi.getBooleanMask(true);
+            }
+        });
+
+        // LOD drawing of large polygon at 1/8 zoom (tolerance = half a screen pixel)
+        runner.add(new Benchmark("ShapeUtil.getSimplifiedPath[10000 pts, tol 4]")
+        {
+            Shape shape;
+
+            @Override
+            public void setup()
+            {
+                shape = new BenchmarkData().createPolygonROI(1024, 1024, 900, 10000).getShape();
+            }
+
+            @Override
+            public Object run()
+            {
+                return ShapeUtil.getSimplifiedPath(shape, 4d);
+            }
+        });
+
+        // vector union of overlapping polygons (balanced merge)
+        runner.add(new Benchmark("ROIUtil.merge[OR 64 polygons x 200 pts]")
+        {
+            List<ROI2D> rois;
+
+            @Override
+            public void setup()
+            {
+                final BenchmarkData data = new BenchmarkData();
+
+                rois = new ArrayList<ROI2D>(64);
+                for (int i = 0; i < 64; i++)
+                    rois.add(data.createPolygonROI(256 + ((i % 8) * 64), 256 + ((i / 8) * 64), 60, 200));
+            }
+
+            @Override
+            public Object run()
+            {
+                return ROIUtil.merge(rois, BooleanOperator.OR);
+            }
+        });
+
+        runner.add(new Benchmark("ROI.intersects[" + NUM_ROI + " ROIs cached masks]")
+        {
+            List<ROI2D> rois;
+
+            @Override
+            public void setup()
+            {
+                rois = new BenchmarkData().createEllipseROIs(NUM_ROI, IMAGE_SIZE, IMAGE_SIZE, 128);
+            }
+
+            @Override
+            public Object run()
+            {
+                int result = 0;
+
+                // first ROI against all others (masks are computed on first run then reused)
+                for (ROI2D roi : rois)
+                    if (rois.get(0).intersects(roi))
+                        result++;
+
+                return Integer.valueOf(result);
+            }
+        });
+
+        runner.add(new Benchmark("ROIUtil.convertToSequence[label 30000 ROIs]")
+        {
+            List<ROI> rois;
+
+            @Override
+            public void setup()
+            {
+                rois = new ArrayList<ROI>(new BenchmarkData().createEllipseROIs(30000, IMAGE_SIZE, IMAGE_SIZE, 32));
+            }
+
+            @Override
+            public Object run()
+            {
+                return ROIUtil.convertToSequence(rois, IMAGE_SIZE, IMAGE_SIZE, 1, 1, 1,
+                        ROIUtil.getLabelDataType(rois.size()), true);
+            }
+        });
+
+        // image size is not a multiple of the rasterizer tile size and ROIs cross right and bottom image edges
+        runner.add(new Benchmark("ROIUtil.convertToSequence[label 30000 ROIs crossing image edges]")
+        {
+            List<ROI> rois;
+
+            @Override
+            public void setup()
+            {
+                rois = new ArrayList<ROI>(new BenchmarkData().createEllipseROIs(30000, IMAGE_SIZE + 64,
+                        IMAGE_SIZE + 64, 64));
+            }
+
+            @Override
+            public Object run()
+            {
+                return ROIUtil.convertToSequence(rois, IMAGE_SIZE - 100, IMAGE_SIZE - 100, 1, 1, 1,
+                        ROIUtil.getLabelDataType(rois.size()), true);
+            }
+        });
+    }
+
+    public static void addIteratorBenchmarks(BenchmarkRunner runner)
+    {
+        for (final DataType dataType : new DataType[] {DataType.UBYTE, DataType.USHORT, DataType.FLOAT})
+        {
+            runner.add(new Benchmark("SequenceDataIterator.sum[" + NUM_ROI + " ROIs " + dataType + "]")
+            {
+                Sequence sequence;
+                List<ROI2D> rois;
+
+                @Override
+                public void setup()
+                {
+                    final BenchmarkData data = new BenchmarkData();
+
+                    sequence = data.createSequence(IMAGE_SIZE, IMAGE_SIZE, 1, 1, 1, dataType);
+                    rois = data.createEllipseROIs(NUM_ROI, IMAGE_SIZE, IMAGE_SIZE, 128);
+                }
+
+                @Override
+                public Object run()
+                {
+                    double result = 0d;
+
+                    for (ROI2D roi : rois)
+                        result += DataIteratorMath.sum(new SequenceDataIterator(sequence, roi, false, 0, 0, 0));
+
+                    return Double.valueOf(result);
+                }
+            });
+
+            // reference for stats (one pass per statistic)
+            runner.add(new Benchmark("DataIteratorMath.sum/min/max/mean[" + NUM_ROI + " ROIs " + dataType + "]")
+            {
+                Sequence sequence;
+                List<ROI2D> rois;
+
+                @Override
+                public void setup()
+                {
+                    final BenchmarkData data = new BenchmarkData();
+
+                    sequence = data.createSequence(IMAGE_SIZE, IMAGE_SIZE, 1, 1, 1, dataType);
+                    rois = data.createEllipseROIs(NUM_ROI, IMAGE_SIZE, IMAGE_SIZE, 128);
+                }
+
+                @Override
+                public Object run()
+                {
+                    double result = 0d;
+
+                    for (ROI2D roi : rois)
+                    {
+                        final SequenceDataIterator it = new SequenceDataIterator(sequence, roi, false, 0, 0, 0);
+
+                        result += DataIteratorMath.sum(it) + DataIteratorMath.min(it) + DataIteratorMath.max(it)
+                                + DataIteratorMath.mean(it);
+                    }
+
+                    return Double.valueOf(result);
+                }
+            });
+
+            runner.add(new Benchmark("DataIteratorMath.stats[" + NUM_ROI + " ROIs " + dataType + "]")
+            {
+                Sequence sequence;
+                List<ROI2D> rois;
+
+                @Override
+                public void setup()
+                {
+                    final BenchmarkData data = new BenchmarkData();
+
+                    sequence = data.createSequence(IMAGE_SIZE, IMAGE_SIZE, 1, 1, 1, dataType);
+                    rois = data.createEllipseROIs(NUM_ROI, IMAGE_SIZE, IMAGE_SIZE, 128);
+                }
+
+                @Override
+                public Object run()
+                {
+                    double result = 0d;
+
+                    for (ROI2D roi : rois)
+                    {
+                        final Statistics stats = DataIteratorMath.stats(new SequenceDataIterator(sequence, roi, false,
+                                0, 0, 0));
+
+                        result += stats.getSum() + stats.getMin() + stats.getMax() + stats.getMean();
+                    }
+
+                    return Double.valueOf(result);
+                }
+            });
+        }
+    }
+
+    public static void addHistogramBenchmarks(BenchmarkRunner runner)
+    {
+        for (final DataType dataType : DATA_TYPES)
+        {
+            runner.add(new Benchmark("Histogram.addValues[" + dataType + "]")
+            {
+                Object src;
+                Histogram histogram;
+
+                @Override
+                public void setup()
+                {
+                    src = new BenchmarkData().createArray(dataType, ARRAY_SIZE);
+                    histogram = new Histogram(dataType.getMinValue(), dataType.getMaxValue(), 1024,
+                            dataType.isInteger());
+                }
+
+                @Override
+                public Object run()
+                {
+                    histogram.reset();
+                    histogram.addValues(src, dataType.isSigned());
+                    return histogram.getBins();
+                }
+            });
+        }
+    }
+
+    public static void addDescriptorBenchmarks(BenchmarkRunner runner)
+    {
+        runner.add(new Benchmark("ROI intensity descriptors[" + NUM_ROI + " ROIs]")
+        {
+            Sequence sequence;
+            List<ROI2D> rois;
+
+            @Override
+            public void setup()
+            {
+                final BenchmarkData data = new BenchmarkData();
+
+                sequence = data.createSequence(IMAGE_SIZE, IMAGE_SIZE, 1, 1, 1, DataType.USHORT);
+                rois = data.createEllipseROIs(NUM_ROI, IMAGE_SIZE, IMAGE_SIZE, 128);
+                for (ROI2D roi : rois)
+                    roi.setC(0);
+            }
+
+            @Override
+            public Object run() throws Exception
+            {
+                double result = 0d;
+
+                for (ROI2D roi : rois)
+                    result += ROIIntensityDescriptorsPlugin.computeIntensityDescriptors(roi, sequence, false).mean;
+
+                return Double.valueOf(result);
+            }
+        });
+
+        runner.add(new Benchmark("ROI contour/interior descriptors[" + NUM_ROI + " ROIs]")
+        {
+            List<ROI2D> rois;
+
+            @Override
+            public void setup()
+            {
+                rois = new BenchmarkData().createEllipseROIs(NUM_ROI, IMAGE_SIZE, IMAGE_SIZE, 128);
+            }
+
+            @Override
+            public Object run()
+            {
+                double result = 0d;
+
+                for (ROI2D roi : rois)
+                {
+                    // make sure we don't benefit from any cached value
+                    roi.roiChanged(true);
+                    result += ROIContourDescriptor.computeContour(roi);
+                    result += roi.getNumberOfPoints();
+                }
+
+                return Double.valueOf(result);
+            }
+        });
+    }
+}
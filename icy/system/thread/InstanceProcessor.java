@@ -64,10 +64,12 @@ public class InstanceProcessor extends Processor
     protected synchronized <T> FutureTask<T> submit(FutureTaskAdapter<T> task)
     {
         // task already present in queue --> return null (mean the task was ignored)
-        if ((task.runnable != null) && hasWaitingTasks(task.runnable))
-            return null;
-        if ((task.callable != null) && hasWaitingTasks(task.callable))
+        if (((task.runnable != null) && hasWaitingTasks(task.runnable))
+                || ((task.callable != null) && hasWaitingTasks(task.callable)))
+        {
+            metrics.dedupHit();
             return null;
+        }
 
         // add task only if not already present in queue
         return super.submit(task);
@@ -23,8 +23,13 @@ import icy.system.IcyExceptionHandler;
 import icy.system.SystemUtil;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.EventListener;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
@@ -101,17 +106,36 @@ public class Processor extends ThreadPoolExecutor
         @Override
         public void rejectedExecution(Runnable r, ThreadPoolExecutor executor)
         {
+            metrics.taskRejected();
+            removePending(r);
+
             // ignore if we try to submit process while Icy is exiting
             if (!Icy.isExiting())
                 throw new RejectedExecutionException("Cannot add new task, ignore execution of " + r);
         }
     }
 
+    /**
+     * Silently discard rejected task (still counted in metrics).
+     */
+    protected class ProcessorDiscardPolicy implements RejectedExecutionHandler
+    {
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor)
+        {
+            metrics.taskRejected();
+            removePending(r);
+        }
+    }
+
     protected class FutureTaskAdapter<T> extends FutureTask<T>
     {
         public Runnable runnable;
         public Callable<T> callable;
         final boolean handleException;
+        // metrics
+        long submitTime;
+        long startTime;
 
         public FutureTaskAdapter(Runnable runnable, T result, boolean handleException)
         {
@@ -292,12 +316,58 @@ public class Processor extends ThreadPoolExecutor
      * parameters
      */
     int priority;
+    protected TaskScheduler.Lane lane;
 
     /**
      * internal
      */
     protected Runnable waitingExecution;
     protected long lastAdd;
+    protected final ProcessorMetrics metrics;
+    // start time of the task running in the current worker thread (for tasks which are not FutureTaskAdapter)
+    protected final ThreadLocal<Long> runStartTime;
+    // number of waiting tasks per Runnable / Callable instance (for fast pending task lookup)
+    protected final Map<Object, int[]> pendingTasks;
+
+    // all processors (for metrics report)
+    private static final Map<Processor, Boolean> processors = new WeakHashMap<Processor, Boolean>();
+
+    /**
+     * Returns a metrics snapshot of all existing processors (busiest processors first).
+     */
+    public static List<ProcessorMetrics.Snapshot> getAllMetrics()
+    {
+        final List<Processor> list;
+
+        synchronized (processors)
+        {
+            list = new ArrayList<Processor>(processors.keySet());
+        }
+
+        final List<ProcessorMetrics.Snapshot> result = new ArrayList<ProcessorMetrics.Snapshot>(list.size());
+
+        for (Processor processor : list)
+            result.add(processor.getMetricsSnapshot());
+
+        Collections.sort(result, new Comparator<ProcessorMetrics.Snapshot>()
+        {
+            @Override
+            public int compare(ProcessorMetrics.Snapshot s1, ProcessorMetrics.Snapshot s2)
+            {
+                final int load1 = s1.getQueueSize() + s1.getActiveCount();
+                final int load2 = s2.getQueueSize() + s2.getActiveCount();
+
+                if (load1 != load2)
+                    return (load1 > load2) ? -1 : 1;
+                if (s1.getSubmittedCount() != s2.getSubmittedCount())
+                    return (s1.getSubmittedCount() > s2.getSubmittedCount()) ? -1 : 1;
+
+                return 0;
+            }
+        });
+
+        return result;
+    }
 
     /**
      * Create a new Processor with specified number of maximum waiting and processing tasks.<br>
@@ -324,6 +394,15 @@ public class Processor extends ThreadPoolExecutor
         this.priority = priority;
 
         waitingExecution = null;
+        lane = null;
+        metrics = new ProcessorMetrics();
+        runStartTime = new ThreadLocal<Long>();
+        pendingTasks = new IdentityHashMap<Object, int[]>();
+
+        synchronized (processors)
+        {
+            processors.put(this, Boolean.TRUE);
+        }
     }
 
     /**
@@ -410,7 +489,105 @@ public class Processor extends ThreadPoolExecutor
         if (waitingExecution == task)
             waitingExecution = null;
 
-        return super.remove(task);
+        if (super.remove(task))
+        {
+            removePending(task);
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public void purge()
+    {
+        super.purge();
+
+        // cancelled tasks may have been removed from queue
+        synchronized (pendingTasks)
+        {
+            pendingTasks.clear();
+
+            for (Runnable r : getQueue().toArray(new Runnable[0]))
+                addPending(r);
+        }
+    }
+
+    /**
+     * Returns the Runnable / Callable instance of the specified task (<code>null</code> if unknown).
+     */
+    private static Object getTaskKey(Runnable task)
+    {
+        if (task instanceof FutureTaskAdapter)
+        {
+            final FutureTaskAdapter<?> f = (FutureTaskAdapter<?>) task;
+
+            if (f.runnable != null)
+                return f.runnable;
+
+            return f.callable;
+        }
+
+        return null;
+    }
+
+    /**
+     * Register the specified task as waiting in queue.
+     */
+    protected void addPending(Runnable task)
+    {
+        final Object key = getTaskKey(task);
+
+        if (key == null)
+            return;
+
+        synchronized (pendingTasks)
+        {
+            final int[] count = pendingTasks.get(key);
+
+            if (count == null)
+                pendingTasks.put(key, new int[] {1});
+            else
+                count[0]++;
+        }
+    }
+
+    /**
+     * Unregister the specified task from the waiting tasks.
+     */
+    protected void removePending(Runnable task)
+    {
+        final Object key = getTaskKey(task);
+
+        if (key == null)
+            return;
+
+        synchronized (pendingTasks)
+        {
+            final int[] count = pendingTasks.get(key);
+
+            if (count != null)
+            {
+                if (--count[0] <= 0)
+                    pendingTasks.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of waiting tasks for the specified Runnable / Callable instance.
+     */
+    protected int getPendingCount(Object task)
+    {
+        synchronized (pendingTasks)
+        {
+            final int[] count = pendingTasks.get(task);
+
+            if (count == null)
+                return 0;
+
+            return count[0];
+        }
     }
 
     /**
@@ -470,6 +647,9 @@ public class Processor extends ThreadPoolExecutor
         super.execute(task);
         // save the last executed task
         waitingExecution = task;
+        // FutureTaskAdapter are counted in submit(..)
+        if (!(task instanceof FutureTaskAdapter))
+            metrics.taskSubmitted();
     }
 
     /**
@@ -477,7 +657,12 @@ public class Processor extends ThreadPoolExecutor
      */
     protected synchronized <T> FutureTask<T> submit(FutureTaskAdapter<T> task)
     {
+        task.submitTime = System.nanoTime();
+        // register before execution as the task can be started right now (rejection handler unregister it)
+        addPending(task);
         execute(task);
+        metrics.taskSubmitted();
+
         return task;
     }
 
@@ -676,6 +861,25 @@ public class Processor extends ThreadPoolExecutor
         this.priority = priority;
     }
 
+    /**
+     * Returns the {@link TaskScheduler} lane used by this processor (<code>null</code> if not scheduled).
+     */
+    public TaskScheduler.Lane getLane()
+    {
+        return lane;
+    }
+
+    /**
+     * Set the {@link TaskScheduler} lane used by this processor.<br>
+     * When defined, each task waits for a free slot in the lane before being executed so concurrent tasks from all
+     * processors sharing the same lane never exceed the lane cap.<br>
+     * Use <code>null</code> (default) to execute tasks without any global scheduling.
+     */
+    public void setLane(TaskScheduler.Lane value)
+    {
+        lane = value;
+    }
+
     /**
      * @deprecated Use {@link #getThreadName()} instead
      */
@@ -710,6 +914,22 @@ public class Processor extends ThreadPoolExecutor
         ((ProcessorThreadFactory) getThreadFactory()).setName(defaultThreadName);
     }
 
+    /**
+     * Returns the execution metrics of this processor.
+     */
+    public ProcessorMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Returns a snapshot of the execution metrics of this processor.
+     */
+    public ProcessorMetrics.Snapshot getMetricsSnapshot()
+    {
+        return new ProcessorMetrics.Snapshot(this, metrics);
+    }
+
     /**
      * Get the number of free slot in queue
      */
@@ -805,13 +1025,7 @@ public class Processor extends ThreadPoolExecutor
      */
     public int getWaitingTasksCount(Runnable task)
     {
-        int result = 0;
-
-        for (FutureTaskAdapter<?> f : getWaitingTasks())
-            if (f.runnable == task)
-                result++;
-
-        return result;
+        return getPendingCount(task);
     }
 
     /**
@@ -819,13 +1033,7 @@ public class Processor extends ThreadPoolExecutor
      */
     public int getWaitingTasksCount(Callable<?> task)
     {
-        int result = 0;
-
-        for (FutureTaskAdapter<?> f : getWaitingTasks())
-            if (f.callable == task)
-                result++;
-
-        return result;
+        return getPendingCount(task);
     }
 
     /**
@@ -851,12 +1059,7 @@ public class Processor extends ThreadPoolExecutor
      */
     public boolean hasWaitingTasks(Runnable task)
     {
-        // scan all tasks
-        for (FutureTaskAdapter<?> f : getWaitingTasks())
-            if (f.runnable == task)
-                return true;
-
-        return false;
+        return getPendingCount(task) > 0;
     }
 
     /**
@@ -864,12 +1067,7 @@ public class Processor extends ThreadPoolExecutor
      */
     public boolean hasWaitingTasks(Callable<?> task)
     {
-        // scan all tasks
-        for (FutureTaskAdapter<?> f : getWaitingTasks())
-            if (f.callable == task)
-                return true;
-
-        return false;
+        return getPendingCount(task) > 0;
     }
 
     /**
@@ -997,6 +1195,11 @@ public class Processor extends ThreadPoolExecutor
             // remove all tasks
             q.clear();
         }
+
+        synchronized (pendingTasks)
+        {
+            pendingTasks.clear();
+        }
     }
 
     /**
@@ -1076,5 +1279,47 @@ public class Processor extends ThreadPoolExecutor
 
         // ok we can remove reference...
         waitingExecution = null;
+
+        // not anymore waiting
+        removePending(r);
+
+        // wait for a free slot in the scheduler lane (lane wait is part of the task wait time)
+        if (lane != null)
+            TaskScheduler.enter(lane);
+
+        final long now = System.nanoTime();
+
+        if (r instanceof FutureTaskAdapter)
+        {
+            final FutureTaskAdapter<?> f = (FutureTaskAdapter<?>) r;
+
+            f.startTime = now;
+            metrics.taskStarted(now - f.submitTime);
+        }
+        else
+            // submit time is unknown for plain Runnable so only run time is measured
+            runStartTime.set(Long.valueOf(now));
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t)
+    {
+        // release scheduler lane slot (does nothing if we don't own one)
+        TaskScheduler.exit();
+
+        if (r instanceof FutureTaskAdapter)
+            metrics.taskDone(System.nanoTime() - ((FutureTaskAdapter<?>) r).startTime);
+        else
+        {
+            final Long start = runStartTime.get();
+
+            if (start != null)
+            {
+                metrics.taskDone(System.nanoTime() - start.longValue());
+                runStartTime.remove();
+            }
+        }
+
+        super.afterExecute(r, t);
     }
 }
@@ -0,0 +1,383 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.system.thread;
+
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Execution metrics of a {@link Processor} (submitted / rejected / deduplicated tasks, task wait and run time
+ * histograms).<br>
+ * Use {@link Processor#getMetrics()} to get metrics of a processor and {@link Processor#getAllMetrics()} to get a
+ * snapshot of all existing processors.
+ */
+public class ProcessorMetrics
+{
+    /**
+     * Number of histogram buckets, bucket <code>i</code> contains times in [2^i, 2^(i+1)[ micro seconds (first bucket
+     * also contains times < 1 us and last bucket contains all larger times).
+     */
+    public static final int NUM_BUCKETS = 32;
+
+    /**
+     * Immutable snapshot of processor metrics.
+     */
+    public static class Snapshot
+    {
+        final String name;
+        final TaskScheduler.Lane lane;
+        final int queueSize;
+        final int activeCount;
+        final int poolSize;
+        final long submitted;
+        final long completed;
+        final long rejected;
+        final long dedupHits;
+        final long totalWaitTime;
+        final long totalRunTime;
+        final long[] waitHistogram;
+        final long[] runHistogram;
+
+        Snapshot(Processor processor, ProcessorMetrics metrics)
+        {
+            super();
+
+            name = processor.getThreadName();
+            lane = processor.getLane();
+            queueSize = processor.getQueue().size();
+            activeCount = processor.getActiveCount();
+            poolSize = processor.getPoolSize();
+            submitted = metrics.submitted.get();
+            completed = metrics.completed.get();
+            rejected = metrics.rejected.get();
+            dedupHits = metrics.dedupHits.get();
+            totalWaitTime = metrics.totalWaitTime.get();
+            totalRunTime = metrics.totalRunTime.get();
+            waitHistogram = toArray(metrics.waitHistogram);
+            runHistogram = toArray(metrics.runHistogram);
+        }
+
+        private static long[] toArray(AtomicLongArray array)
+        {
+            final long[] result = new long[array.length()];
+
+            for (int i = 0; i < result.length; i++)
+                result[i] = array.get(i);
+
+            return result;
+        }
+
+        /**
+         * Returns the processor (thread) name.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * Returns the {@link TaskScheduler} lane of the processor (<code>null</code> if not scheduled).
+         */
+        public TaskScheduler.Lane getLane()
+        {
+            return lane;
+        }
+
+        /**
+         * Returns the number of tasks waiting in queue.
+         */
+        public int getQueueSize()
+        {
+            return queueSize;
+        }
+
+        /**
+         * Returns the number of tasks being executed.
+         */
+        public int getActiveCount()
+        {
+            return activeCount;
+        }
+
+        /**
+         * Returns the number of threads in the pool.
+         */
+        public int getPoolSize()
+        {
+            return poolSize;
+        }
+
+        /**
+         * Returns the number of submitted tasks.
+         */
+        public long getSubmittedCount()
+        {
+            return submitted;
+        }
+
+        /**
+         * Returns the number of completed tasks.
+         */
+        public long getCompletedCount()
+        {
+            return completed;
+        }
+
+        /**
+         * Returns the number of rejected (or discarded) tasks.
+         */
+        public long getRejectedCount()
+        {
+            return rejected;
+        }
+
+        /**
+         * Returns the number of tasks ignored because the same task was already pending.
+         */
+        public long getDedupHitCount()
+        {
+            return dedupHits;
+        }
+
+        /**
+         * Returns the mean time (in ms) tasks spent waiting in queue.
+         */
+        public double getMeanWaitTime()
+        {
+            if (completed == 0)
+                return 0d;
+
+            return (totalWaitTime / 1000000d) / completed;
+        }
+
+        /**
+         * Returns the mean execution time (in ms) of tasks.
+         */
+        public double getMeanRunTime()
+        {
+            if (completed == 0)
+                return 0d;
+
+            return (totalRunTime / 1000000d) / completed;
+        }
+
+        /**
+         * Returns the wait time histogram (see {@link ProcessorMetrics#NUM_BUCKETS}).
+         */
+        public long[] getWaitHistogram()
+        {
+            return waitHistogram.clone();
+        }
+
+        /**
+         * Returns the run time histogram (see {@link ProcessorMetrics#NUM_BUCKETS}).
+         */
+        public long[] getRunHistogram()
+        {
+            return runHistogram.clone();
+        }
+
+        /**
+         * Returns the approximated wait time (in ms) for the specified percentile (0-100).
+         */
+        public double getWaitTimePercentile(double percentile)
+        {
+            return getPercentile(waitHistogram, percentile);
+        }
+
+        /**
+         * Returns the approximated run time (in ms) for the specified percentile (0-100).
+         */
+        public double getRunTimePercentile(double percentile)
+        {
+            return getPercentile(runHistogram, percentile);
+        }
+
+        /**
+         * Returns the upper bound (in ms) of the histogram bucket containing the specified percentile.
+         */
+        private static double getPercentile(long[] histogram, double percentile)
+        {
+            long total = 0;
+            for (long v : histogram)
+                total += v;
+
+            if (total == 0)
+                return 0d;
+
+            final double limit = (total * Math.max(0d, Math.min(100d, percentile))) / 100d;
+            long count = 0;
+
+            for (int i = 0; i < histogram.length; i++)
+            {
+                count += histogram[i];
+                if (count >= limit)
+                    return (1L << (i + 1)) / 1000d;
+            }
+
+            return (1L << histogram.length) / 1000d;
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + ((lane != null) ? " [" + lane + "]" : "") + ": queue=" + queueSize + " active="
+                    + activeCount + "/" + poolSize + " submitted=" + submitted + " completed=" + completed
+                    + " rejected=" + rejected + " dedup=" + dedupHits + " wait(mean/p95)="
+                    + String.format("%.2f/%.2f", Double.valueOf(getMeanWaitTime()),
+                            Double.valueOf(getWaitTimePercentile(95d)))
+                    + " ms run(mean/p95)=" + String.format("%.2f/%.2f", Double.valueOf(getMeanRunTime()),
+                            Double.valueOf(getRunTimePercentile(95d)))
+                    + " ms";
+        }
+    }
+
+    // periodic log
+    private static Timer logTimer = null;
+
+    /**
+     * Enable periodic dump of all processors metrics (and {@link TaskScheduler} state) in the console.
+     * 
+     * @param period
+     *        log period in ms (0 to disable logging)
+     */
+    public static synchronized void setLogPeriod(long period)
+    {
+        if (logTimer != null)
+        {
+            logTimer.cancel();
+            logTimer = null;
+        }
+
+        if (period > 0)
+        {
+            logTimer = new Timer("Processor metrics logger", true);
+            logTimer.schedule(new TimerTask()
+            {
+                @Override
+                public void run()
+                {
+                    System.out.println(getReport());
+                }
+            }, period, period);
+        }
+    }
+
+    /**
+     * Returns a text report of all processors metrics (busiest processors first) and {@link TaskScheduler} state.
+     */
+    public static String getReport()
+    {
+        final List<Snapshot> snapshots = Processor.getAllMetrics();
+        final StringBuilder result = new StringBuilder();
+
+        result.append("Scheduler: " + TaskScheduler.getState() + "\n");
+        for (Snapshot snapshot : snapshots)
+            result.append(snapshot.toString() + "\n");
+
+        return result.toString();
+    }
+
+    final AtomicLong submitted;
+    final AtomicLong completed;
+    final AtomicLong rejected;
+    final AtomicLong dedupHits;
+    final AtomicLong totalWaitTime;
+    final AtomicLong totalRunTime;
+    final AtomicLongArray waitHistogram;
+    final AtomicLongArray runHistogram;
+
+    public ProcessorMetrics()
+    {
+        super();
+
+        submitted = new AtomicLong();
+        completed = new AtomicLong();
+        rejected = new AtomicLong();
+        dedupHits = new AtomicLong();
+        totalWaitTime = new AtomicLong();
+        totalRunTime = new AtomicLong();
+        waitHistogram = new AtomicLongArray(NUM_BUCKETS);
+        runHistogram = new AtomicLongArray(NUM_BUCKETS);
+    }
+
+    /**
+     * Returns histogram bucket for the specified time (in ns).
+     */
+    private static int getBucket(long time)
+    {
+        final long us = TimeUnit.NANOSECONDS.toMicros(time);
+
+        if (us <= 1)
+            return 0;
+
+        return Math.min(NUM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(us));
+    }
+
+    void taskSubmitted()
+    {
+        submitted.incrementAndGet();
+    }
+
+    void taskRejected()
+    {
+        rejected.incrementAndGet();
+    }
+
+    void dedupHit()
+    {
+        dedupHits.incrementAndGet();
+    }
+
+    void taskStarted(long waitTime)
+    {
+        totalWaitTime.addAndGet(waitTime);
+        waitHistogram.incrementAndGet(getBucket(waitTime));
+    }
+
+    void taskDone(long runTime)
+    {
+        completed.incrementAndGet();
+        totalRunTime.addAndGet(runTime);
+        runHistogram.incrementAndGet(getBucket(runTime));
+    }
+
+    /**
+     * Reset all counters.
+     */
+    public void reset()
+    {
+        submitted.set(0);
+        completed.set(0);
+        rejected.set(0);
+        dedupHits.set(0);
+        totalWaitTime.set(0);
+        totalRunTime.set(0);
+
+        for (int i = 0; i < NUM_BUCKETS; i++)
+        {
+            waitHistogram.set(i, 0);
+            runHistogram.set(i, 0);
+        }
+    }
+}
@@ -35,7 +35,7 @@ public class SingleProcessor extends Processor
         super(1, 1);
 
         queueEnabled = enableQueue;
-        setRejectedExecutionHandler(new DiscardPolicy());
+        setRejectedExecutionHandler(new ProcessorDiscardPolicy());
         setThreadName(name);
     }
 
@@ -69,6 +69,7 @@ public class SingleProcessor extends Processor
         }
 
         // return null mean the task was ignored
+        metrics.dedupHit();
         return null;
     }
 
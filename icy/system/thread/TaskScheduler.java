@@ -0,0 +1,312 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.system.thread;
+
+import icy.system.SystemUtil;
+
+/**
+ * Global task scheduler used to share CPU resources between all {@link Processor} instances.<br>
+ * Tasks are dispatched in {@link Lane lanes} (interactive rendering, I/O, background compute) and each lane has its
+ * own concurrency cap which is shared by all processors (and threads) assigned to it. This prevents the application
+ * from oversubscribing cores when several subsystems are busy at the same time.<br>
+ * Background lane is also priority aware: its cap is reduced by the number of running interactive tasks so rendering
+ * always gets CPU first.<br>
+ * <br>
+ * Caps are soft limits: a task waiting for a slot longer than the lane maximum wait time is executed anyway. Hard caps
+ * (even for pooled worker threads) would deadlock as soon as all slots of a lane are owned by tasks waiting for sub
+ * tasks submitted to another processor of the same lane. This is the case of the "caller participates" pattern used
+ * by parallel kernels (mask surface extraction, ROI rasterization, array conversion...): the calling task, itself
+ * possibly running in a lane, waits for helper tasks which need a slot in the same lane to start. With soft caps such
+ * helpers are only delayed by the lane maximum wait time, and as the caller does all the remaining work by itself the
+ * delay is bounded. The number of tasks running over cap is reported by {@link #getOverflowCount(Lane)}.
+ * 
+ * @see Processor#setLane(Lane)
+ */
+public class TaskScheduler
+{
+    public static enum Lane
+    {
+        /**
+         * Interactive tasks (rendering, GUI refresh), highest priority.
+         */
+        INTERACTIVE(Thread.NORM_PRIORITY, 20),
+        /**
+         * I/O bound tasks (file reading / writing).
+         */
+        IO(Thread.NORM_PRIORITY, 200),
+        /**
+         * Background compute tasks, lowest priority.
+         */
+        BACKGROUND(Thread.MIN_PRIORITY, 500);
+
+        final int priority;
+        final long maxWait;
+
+        private Lane(int priority, long maxWait)
+        {
+            this.priority = priority;
+            this.maxWait = maxWait;
+        }
+
+        /**
+         * Returns the default thread priority for this lane.
+         */
+        public int getPriority()
+        {
+            return priority;
+        }
+
+        /**
+         * Returns the maximum time (in ms) a task wait for a free slot in this lane before being executed anyway.
+         */
+        public long getMaxWait()
+        {
+            return maxWait;
+        }
+    }
+
+    /**
+     * Lane slot owned by a thread (supports nested enter / exit).
+     */
+    private static class Ticket
+    {
+        final Lane lane;
+        int depth;
+
+        Ticket(Lane lane)
+        {
+            super();
+
+            this.lane = lane;
+            depth = 1;
+        }
+    }
+
+    private static final Object lock = new Object();
+    private static final int[] caps;
+    private static final int[] running;
+    private static final long[] executed;
+    private static final long[] overflows;
+    private static final ThreadLocal<Ticket> tickets = new ThreadLocal<Ticket>();
+
+    static
+    {
+        final int numLane = Lane.values().length;
+        final int numCPU = SystemUtil.getNumberOfCPUs();
+
+        caps = new int[numLane];
+        running = new int[numLane];
+        executed = new long[numLane];
+        overflows = new long[numLane];
+
+        caps[Lane.INTERACTIVE.ordinal()] = numCPU;
+        // I/O tasks spend most of their time waiting so we can have more of them
+        caps[Lane.IO.ordinal()] = Math.max(2, numCPU);
+        // always keep a core for interactive tasks
+        caps[Lane.BACKGROUND.ordinal()] = Math.max(1, numCPU - 1);
+    }
+
+    /**
+     * Returns the maximum number of tasks which can run concurrently in the specified lane.
+     */
+    public static int getCap(Lane lane)
+    {
+        synchronized (lock)
+        {
+            return caps[lane.ordinal()];
+        }
+    }
+
+    /**
+     * Sets the maximum number of tasks which can run concurrently in the specified lane.
+     */
+    public static void setCap(Lane lane, int value)
+    {
+        synchronized (lock)
+        {
+            caps[lane.ordinal()] = Math.max(1, value);
+            // cap changed, waiting tasks may be able to run now
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns the number of tasks currently running in the specified lane.
+     */
+    public static int getRunningCount(Lane lane)
+    {
+        synchronized (lock)
+        {
+            return running[lane.ordinal()];
+        }
+    }
+
+    /**
+     * Returns the total number of tasks executed in the specified lane.
+     */
+    public static long getExecutedCount(Lane lane)
+    {
+        synchronized (lock)
+        {
+            return executed[lane.ordinal()];
+        }
+    }
+
+    /**
+     * Returns the number of tasks executed over the lane cap (max wait time elapsed) in the specified lane.
+     */
+    public static long getOverflowCount(Lane lane)
+    {
+        synchronized (lock)
+        {
+            return overflows[lane.ordinal()];
+        }
+    }
+
+    /**
+     * Returns the lane the current thread is running in (<code>null</code> if none).
+     */
+    public static Lane getCurrentLane()
+    {
+        final Ticket ticket = tickets.get();
+
+        if (ticket == null)
+            return null;
+
+        return ticket.lane;
+    }
+
+    /**
+     * Returns <code>true</code> if a new task can be started now in the specified lane (lock should be owned).
+     */
+    private static boolean canRun(Lane lane)
+    {
+        final int ind = lane.ordinal();
+
+        if (lane == Lane.BACKGROUND)
+            // interactive tasks get CPU first
+            return running[ind] < Math.max(1, caps[ind] - running[Lane.INTERACTIVE.ordinal()]);
+
+        return running[ind] < caps[ind];
+    }
+
+    /**
+     * Waits for a free slot in the specified lane then assign it to the current thread.<br>
+     * Each call should be followed by a call to {@link #exit()} (in a <code>finally</code> block) once the task is
+     * done. Nested calls are allowed, only the first one actually wait for a slot.<br>
+     * The slot is assigned anyway if none is freed within the lane maximum wait time (see class documentation for why
+     * caps can't be hard limits).<br>
+     * Interrupt flag is preserved but waiting is not interrupted.
+     */
+    public static void enter(Lane lane)
+    {
+        final Ticket current = tickets.get();
+
+        // already in a lane --> just nest
+        if (current != null)
+        {
+            current.depth++;
+            return;
+        }
+
+        final int ind = lane.ordinal();
+        final long end = System.currentTimeMillis() + lane.maxWait;
+        boolean interrupted = false;
+        boolean acquired = false;
+
+        synchronized (lock)
+        {
+            long remaining = lane.maxWait;
+
+            while (!(acquired = canRun(lane)) && (remaining > 0))
+            {
+                try
+                {
+                    lock.wait(remaining);
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+
+                remaining = end - System.currentTimeMillis();
+            }
+
+            // we count it even when running over cap so release is symmetric
+            running[ind]++;
+            executed[ind]++;
+            if (!acquired)
+                overflows[ind]++;
+        }
+
+        tickets.set(new Ticket(lane));
+
+        // restore interrupted state
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Release the lane slot owned by the current thread (see {@link #enter(Lane)}).
+     */
+    public static void exit()
+    {
+        final Ticket current = tickets.get();
+
+        // not in a lane
+        if (current == null)
+            return;
+
+        // nested call
+        if (--current.depth > 0)
+            return;
+
+        tickets.remove();
+
+        synchronized (lock)
+        {
+            running[current.lane.ordinal()]--;
+            // a slot is free now (it can be any lane as background depends from interactive)
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Returns a short description of lanes state (for debugging purpose).
+     */
+    public static String getState()
+    {
+        final StringBuilder result = new StringBuilder();
+
+        synchronized (lock)
+        {
+            for (Lane lane : Lane.values())
+            {
+                final int ind = lane.ordinal();
+
+                if (result.length() > 0)
+                    result.append(", ");
+                result.append(lane.toString() + " " + running[ind] + "/" + caps[ind] + " (" + executed[ind]
+                        + " executed, " + overflows[ind] + " over cap)");
+            }
+        }
+
+        return result.toString();
+    }
+}
@@ -115,6 +115,7 @@ public class ThreadUtil
         bgProcessor.setPriority(MIN_PRIORITY);
         bgProcessor.setThreadName("Background processor");
         bgProcessor.setKeepAliveTime(3, TimeUnit.SECONDS);
+        bgProcessor.setLane(TaskScheduler.Lane.BACKGROUND);
 
         for (int i = 0; i < instanceProcessors.length; i++)
         {
@@ -122,9 +123,11 @@ public class ThreadUtil
             instanceProcessors[i] = new InstanceProcessor(NORM_PRIORITY);
             instanceProcessors[i].setThreadName("Background instance processor");
             instanceProcessors[i].setKeepAliveTime(3, TimeUnit.SECONDS);
+            instanceProcessors[i].setLane(TaskScheduler.Lane.INTERACTIVE);
             bgInstanceProcessors[i] = new InstanceProcessor(MIN_PRIORITY);
             bgInstanceProcessors[i].setThreadName("Background instance processor (low priority)");
             bgInstanceProcessors[i].setKeepAliveTime(3, TimeUnit.SECONDS);
+            bgInstanceProcessors[i].setLane(TaskScheduler.Lane.BACKGROUND);
         }
     }
 
@@ -572,6 +575,24 @@ public class ThreadUtil
         return result;
     }
 
+    /**
+     * Create a thread pool with the given name and scheduled in the specified {@link TaskScheduler} lane.<br>
+     * The number of processing thread is automatically calculated given the number of core of the
+     * system, the lane cap limits the number of concurrently running tasks.
+     * 
+     * @see Processor#setLane(TaskScheduler.Lane)
+     */
+    public static ExecutorService createThreadPool(String name, TaskScheduler.Lane lane)
+    {
+        final Processor result = new Processor(SystemUtil.getNumberOfCPUs());
+
+        result.setThreadName(name);
+        result.setPriority(lane.getPriority());
+        result.setLane(lane);
+
+        return result;
+    }
+
     /**
      * Same as {@link Thread#sleep(long)} except Exception is caught and ignored.
      */
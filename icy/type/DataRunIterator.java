@@ -0,0 +1,83 @@
+/*
+ * Copyright 2010-2018 Institut Pasteur.
+ * 
+ * This file is part of Icy.
+ * 
+ * Icy is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * Icy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with Icy. If not, see <http://www.gnu.org/licenses/>.
+ */
+package icy.type;
+
+/**
+ * {@link DataIterator} providing bulk access to runs of consecutive elements.<br>
+ * A run is a set of elements stored contiguously in the underlying data array (part of an image
+ * line for instance) so it can be read or written with a single typed array copy instead of per
+ * element access.
+ */
+public interface DataRunIterator extends DataIterator
+{
+    /**
+     * Returns the data type of the iterated data.
+     */
+    public DataType getDataType();
+
+    /**
+     * Returns the number of consecutive elements available from the current position (<code>0</code> if the iteration
+     * is done).
+     */
+    public int getRunLength();
+
+    /**
+     * Reads up to <code>length</code> consecutive elements from the current position as double values and moves the
+     * iterator after them.
+     * 
+     * @param out
+     *        array receiving the values
+     * @param offset
+     *        position where we start to write in <code>out</code>
+     * @param length
+     *        maximum number of element to read
+     * @return number of element read (<code>0</code> if the iteration is done)
+     */
+    public int readRun(double[] out, int offset, int length);
+
+    /**
+     * Reads up to <code>length</code> consecutive elements from the current position in their native data type and
+     * moves the iterator after them.<br>
+     * <code>out</code> should have the same primitive type than the iterated data (see {@link #getDataType()}),
+     * unsigned values are not converted.
+     * 
+     * @param out
+     *        primitive array receiving the values
+     * @param offset
+     *        position where we start to write in <code>out</code>
+     * @param length
+     *        maximum number of element to read
+     * @return number of element read (<code>0</code> if the iteration is done)
+     */
+    public int readRawRun(Object out, int offset, int length);
+
+    /**
+     * Writes up to <code>length</code> double values into the consecutive elements from the current position and moves
+     * the iterator after them.
+     * 
+     * @param in
+     *        values to write
+     * @param offset
+     *        position where we start to read in <code>in</code>
+     * @param length
+     *        maximum number of element to write
+     * @return number of element written (<code>0</code> if the iteration is done)
+     */
+    public int writeRun(double[] in, int offset, int length);
+}
@@ -19,6 +19,10 @@
 package icy.type.collection.array;
 
 import icy.math.MathUtil;
+import icy.math.Scaler;
+import icy.system.SystemUtil;
+import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
 import icy.type.DataType;
 import icy.type.TypeUtil;
 import icy.util.StringUtil;
@@ -28,12 +32,146 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.lang.reflect.Array;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Stephane
  */
 public class Array1DUtil
 {
+    /**
+     * Conversion of array containing at least this number of elements is done using several threads (see
+     * {@link #arrayToArray(Object, int, Object, int, int, boolean)} and
+     * {@link #arrayToSafeArray(Object, int, Object, int, int, boolean, boolean)}).
+     */
+    public static final int PARALLEL_CONVERSION_THRESHOLD = 1 << 21;
+    /**
+     * Number of elements converted by a single conversion task.
+     */
+    static final int CONVERSION_CHUNK_SIZE = 1 << 18;
+    /**
+     * Size of the intermediate double buffer used for scaled conversion.
+     */
+    static final int SCALE_BUFFER_SIZE = 4096;
+
+    /**
+     * Shared processor for multi threaded array conversion
+     */
+    private static Processor conversionProcessor = null;
+
+    /**
+     * Split a conversion in chunks which are processed by the conversion processor threads and the calling thread.<br>
+     * Chunks are claimed on the fly so the calling thread always ends the conversion by itself if the processor is
+     * busy (no dead lock when conversion is done from a processor thread).
+     * 
+     * @author Stephane
+     */
+    private static abstract class ParallelConversion implements Runnable
+    {
+        final int length;
+        final int numChunk;
+        final AtomicInteger nextChunk;
+        final CountDownLatch done;
+
+        ParallelConversion(int length)
+        {
+            super();
+
+            this.length = length;
+            numChunk = (length + (CONVERSION_CHUNK_SIZE - 1)) / CONVERSION_CHUNK_SIZE;
+            nextChunk = new AtomicInteger(0);
+            done = new CountDownLatch(numChunk);
+        }
+
+        /**
+         * Convert the specified part of the array (offset is relative to the conversion start).
+         */
+        abstract void convert(int offset, int len);
+
+        @Override
+        public void run()
+        {
+            int chunk;
+
+            while ((chunk = nextChunk.getAndIncrement()) < numChunk)
+            {
+                try
+                {
+                    final int offset = chunk * CONVERSION_CHUNK_SIZE;
+                    convert(offset, Math.min(CONVERSION_CHUNK_SIZE, length - offset));
+                }
+                finally
+                {
+                    done.countDown();
+                }
+            }
+        }
+
+        void process()
+        {
+            final Processor processor = getConversionProcessor();
+            // calling thread does its part of the job too
+            final int numHelper = Math.min(numChunk - 1, processor.getMaximumPoolSize());
+
+            for (int i = 0; i < numHelper; i++)
+            {
+                try
+                {
+                    processor.execute(this);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // processor is busy, just use less threads
+                    break;
+                }
+            }
+
+            run();
+
+            // wait for chunks still in conversion in others threads
+            boolean interrupted = false;
+            while (true)
+            {
+                try
+                {
+                    done.await();
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    // we can't leave while others threads are still writing result
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    static synchronized Processor getConversionProcessor()
+    {
+        if (conversionProcessor == null)
+        {
+            conversionProcessor = new Processor(SystemUtil.getNumberOfCPUs() * 2,
+                    Math.max(1, SystemUtil.getNumberOfCPUs() - 1));
+            conversionProcessor.setThreadName("Array conversion");
+            conversionProcessor.setLane(TaskScheduler.Lane.BACKGROUND);
+        }
+
+        return conversionProcessor;
+    }
+
+    /**
+     * Returns <code>true</code> if the specified conversion should be done using several threads.
+     */
+    static boolean isParallelConversion(Object out, int len)
+    {
+        return (out != null) && (len >= PARALLEL_CONVERSION_THRESHOLD) && (SystemUtil.getNumberOfCPUs() > 1);
+    }
+
     /**
      * Return the total number of element of the specified array
      */
@@ -1540,8 +1678,26 @@ public class Array1DUtil
      * @param signed
      *        if input data are integer type then we assume them as signed data
      */
-    public static Object arrayToArray(Object in, int inOffset, Object out, int outOffset, int length, boolean signed)
+    public static Object arrayToArray(final Object in, final int inOffset, final Object out, final int outOffset,
+            int length, final boolean signed)
     {
+        final int len = ArrayUtil.getCopyLength(in, inOffset, out, outOffset, length);
+
+        // large array --> multi threaded conversion
+        if (isParallelConversion(out, len))
+        {
+            new ParallelConversion(len)
+            {
+                @Override
+                void convert(int offset, int l)
+                {
+                    arrayToArray(in, inOffset + offset, out, outOffset + offset, l, signed);
+                }
+            }.process();
+
+            return out;
+        }
+
         switch (ArrayUtil.getDataType(in))
         {
             case BYTE:
@@ -1576,6 +1732,169 @@ public class Array1DUtil
         return arrayToArray(in, 0, out, 0, -1, signed);
     }
 
+    /**
+     * Safely converts the 'in' 1D array in 'out' 1D array type (values are clamped to output type bounds).<br>
+     * Large arrays (see {@link #PARALLEL_CONVERSION_THRESHOLD}) are converted using several threads.
+     * 
+     * @param in
+     *        input array
+     * @param inOffset
+     *        position where we start read data from
+     * @param out
+     *        output array which is used to receive result (and so define wanted type)
+     * @param outOffset
+     *        position where we start to write data to
+     * @param length
+     *        number of value to convert (-1 means we will use the maximum possible length)
+     * @param srcSigned
+     *        considers value from input array as signed (meaningful only for integer type array)
+     * @param dstSigned
+     *        considers output value as signed (meaningful only for integer type array)
+     * @return the output array
+     */
+    public static Object arrayToSafeArray(final Object in, final int inOffset, final Object out, final int outOffset,
+            int length, final boolean srcSigned, final boolean dstSigned)
+    {
+        final int len = ArrayUtil.getCopyLength(in, inOffset, out, outOffset, length);
+
+        // large array --> multi threaded conversion
+        if (isParallelConversion(out, len))
+        {
+            new ParallelConversion(len)
+            {
+                @Override
+                void convert(int offset, int l)
+                {
+                    arrayToSafeArray(in, inOffset + offset, out, outOffset + offset, l, srcSigned, dstSigned);
+                }
+            }.process();
+
+            return out;
+        }
+
+        switch (ArrayUtil.getDataType(in))
+        {
+            case BYTE:
+                return byteArrayToSafeArray((byte[]) in, inOffset, out, outOffset, length, srcSigned, dstSigned);
+            case SHORT:
+                return shortArrayToSafeArray((short[]) in, inOffset, out, outOffset, length, srcSigned, dstSigned);
+            case INT:
+                return intArrayToSafeArray((int[]) in, inOffset, out, outOffset, length, srcSigned, dstSigned);
+            case LONG:
+                return longArrayToSafeArray((long[]) in, inOffset, out, outOffset, length, srcSigned, dstSigned);
+            case FLOAT:
+                return floatArrayToSafeArray((float[]) in, inOffset, out, outOffset, length, dstSigned);
+            case DOUBLE:
+                return doubleArrayToSafeArray((double[]) in, inOffset, out, outOffset, length, dstSigned);
+            default:
+                return out;
+        }
+    }
+
+    /**
+     * Safely converts the 'in' 1D array in 'out' 1D array type (values are clamped to output type bounds).
+     * 
+     * @see #arrayToSafeArray(Object, int, Object, int, int, boolean, boolean)
+     */
+    public static Object arrayToSafeArray(Object in, Object out, boolean srcSigned, boolean dstSigned)
+    {
+        return arrayToSafeArray(in, 0, out, 0, -1, srcSigned, dstSigned);
+    }
+
+    /**
+     * Scales the 'in' 1D array values with the given {@link Scaler} and safely converts them in 'out' 1D array type
+     * (values are clamped to output type bounds).<br>
+     * This is equivalent to {@link #arrayToDoubleArray(Object, boolean)} followed by {@link Scaler#scale(double[])}
+     * and {@link #doubleArrayToSafeArray(double[], Object, boolean)} except data is processed by small blocks so no
+     * intermediate double array of the whole input size is allocated.<br>
+     * Large arrays (see {@link #PARALLEL_CONVERSION_THRESHOLD}) are converted using several threads.
+     * 
+     * @param in
+     *        input array
+     * @param inOffset
+     *        position where we start read data from
+     * @param out
+     *        output array which is used to receive result (and so define wanted type)
+     * @param outOffset
+     *        position where we start to write data to
+     * @param length
+     *        number of value to convert (-1 means we will use the maximum possible length)
+     * @param scaler
+     *        scaler applied on input values
+     * @param srcSigned
+     *        considers value from input array as signed (meaningful only for integer type array)
+     * @param dstSigned
+     *        considers output value as signed (meaningful only for integer type array)
+     * @return the output array
+     */
+    public static Object arrayToSafeArray(final Object in, final int inOffset, final Object out, final int outOffset,
+            int length, final Scaler scaler, final boolean srcSigned, final boolean dstSigned)
+    {
+        final int len = ArrayUtil.getCopyLength(in, inOffset, out, outOffset, length);
+
+        // large array --> multi threaded conversion
+        if (isParallelConversion(out, len))
+        {
+            new ParallelConversion(len)
+            {
+                @Override
+                void convert(int offset, int l)
+                {
+                    arrayToSafeArray(in, inOffset + offset, out, outOffset + offset, l, scaler, srcSigned, dstSigned);
+                }
+            }.process();
+
+            return out;
+        }
+
+        final Object result = allocIfNull(out, ArrayUtil.getDataType(in, dstSigned), outOffset + len);
+        final double[] buffer = new double[Math.min(len, SCALE_BUFFER_SIZE)];
+        final DataType inType = ArrayUtil.getDataType(in);
+
+        for (int off = 0; off < len; off += SCALE_BUFFER_SIZE)
+        {
+            final int l = Math.min(SCALE_BUFFER_SIZE, len - off);
+
+            switch (inType)
+            {
+                case BYTE:
+                    scaler.scale((byte[]) in, inOffset + off, buffer, 0, l, srcSigned);
+                    break;
+                case SHORT:
+                    scaler.scale((short[]) in, inOffset + off, buffer, 0, l, srcSigned);
+                    break;
+                case INT:
+                    scaler.scale((int[]) in, inOffset + off, buffer, 0, l, srcSigned);
+                    break;
+                case LONG:
+                    scaler.scale((long[]) in, inOffset + off, buffer, 0, l, srcSigned);
+                    break;
+                case FLOAT:
+                    scaler.scale((float[]) in, inOffset + off, buffer, 0, l);
+                    break;
+                case DOUBLE:
+                    scaler.scale((double[]) in, inOffset + off, buffer, 0, l);
+                    break;
+                default:
+                    return result;
+            }
+
+            doubleArrayToSafeArray(buffer, 0, result, outOffset + off, l, dstSigned);
+        }
+
+        return result;
+    }
+
+    /**
+     * Scales the 'in' 1D array values with the given {@link Scaler} and safely converts them in 'out' 1D array type.
+     * 
+     * @see #arrayToSafeArray(Object, int, Object, int, int, Scaler, boolean, boolean)
+     */
+    public static Object arrayToSafeArray(Object in, Object out, Scaler scaler, boolean srcSigned, boolean dstSigned)
+    {
+        return arrayToSafeArray(in, 0, out, 0, -1, scaler, srcSigned, dstSigned);
+    }
+
     /**
      * Convert and return the 'in' double array in 'out' array type.<br>
      * 
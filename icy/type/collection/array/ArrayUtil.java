@@ -674,6 +674,10 @@ public class ArrayUtil
             return result;
         }
 
+        // large 1D array --> multi threaded conversion
+        if ((dim == 1) && Array1DUtil.isParallelConversion(out, getCopyLength(in, inOffset, out, outOffset, length)))
+            return Array1DUtil.arrayToArray(in, inOffset, out, outOffset, length, signed);
+
         switch (type.getDataType().getJavaType())
         {
             case BYTE:
@@ -1971,6 +1975,10 @@ public class ArrayUtil
             return result;
         }
 
+        // large 1D array --> multi threaded conversion
+        if ((dim == 1) && Array1DUtil.isParallelConversion(out, getCopyLength(in, inOffset, out, outOffset, length)))
+            return Array1DUtil.arrayToSafeArray(in, inOffset, out, outOffset, length, srcSigned, dstSigned);
+
         switch (type.getDataType().getJavaType())
         {
             case BYTE:
@@ -20,6 +20,9 @@ package icy.type.collection.array;
 
 import icy.type.DataType;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * Utilities class to convert any data array from/to byte array.
  * 
@@ -61,6 +64,14 @@ public class ByteArrayConvert
         return ArrayUtil.getCopyLength(array, offset) * ArrayUtil.getDataType(array).getSize();
     }
 
+    /**
+     * Returns the {@link ByteOrder} corresponding to the specified endianness.
+     */
+    public static ByteOrder getByteOrder(boolean littleEndian)
+    {
+        return littleEndian ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    }
+
     /**
      * Read a byte from the input byte array at specified position.
      */
@@ -298,14 +309,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length) / 2;
         final short[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len; i++)
-        {
-            result[outOff++] = readShort(in, inOff, little);
-            inOff += 2;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(in, inOffset, len * 2).order(getByteOrder(little)).asShortBuffer().get(result, outOffset, len);
 
         return result;
     }
@@ -360,14 +365,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length) / 4;
         final int[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len; i++)
-        {
-            result[outOff++] = readInt(in, inOff, little);
-            inOff += 4;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(in, inOffset, len * 4).order(getByteOrder(little)).asIntBuffer().get(result, outOffset, len);
 
         return result;
     }
@@ -422,14 +421,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length) / 8;
         final long[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len; i++)
-        {
-            result[outOff++] = readLong(in, inOff, little);
-            inOff += 8;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(in, inOffset, len * 8).order(getByteOrder(little)).asLongBuffer().get(result, outOffset, len);
 
         return result;
     }
@@ -484,14 +477,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length) / 4;
         final float[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len; i++)
-        {
-            result[outOff++] = readFloat(in, inOff, little);
-            inOff += 4;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(in, inOffset, len * 4).order(getByteOrder(little)).asFloatBuffer().get(result, outOffset, len);
 
         return result;
     }
@@ -546,14 +533,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length) / 8;
         final double[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len; i++)
-        {
-            result[outOff++] = readDouble(in, inOff, little);
-            inOff += 8;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(in, inOffset, len * 8).order(getByteOrder(little)).asDoubleBuffer().get(result, outOffset, len);
 
         return result;
     }
@@ -608,14 +589,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length);
         final byte[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len / 2; i++)
-        {
-            writeShort(result, outOff, in[inOff++], little);
-            outOff += 2;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(result, outOffset, len).order(getByteOrder(little)).asShortBuffer().put(in, inOffset, len / 2);
 
         return result;
     }
@@ -642,14 +617,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length);
         final byte[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len / 4; i++)
-        {
-            writeInt(result, outOff, in[inOff++], little);
-            outOff += 4;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(result, outOffset, len).order(getByteOrder(little)).asIntBuffer().put(in, inOffset, len / 4);
 
         return result;
     }
@@ -676,14 +645,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length);
         final byte[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len / 8; i++)
-        {
-            writeLong(result, outOff, in[inOff++], little);
-            outOff += 8;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(result, outOffset, len).order(getByteOrder(little)).asLongBuffer().put(in, inOffset, len / 8);
 
         return result;
     }
@@ -710,14 +673,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length);
         final byte[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len / 4; i++)
-        {
-            writeFloat(result, outOff, in[inOff++], little);
-            outOff += 4;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(result, outOffset, len).order(getByteOrder(little)).asFloatBuffer().put(in, inOffset, len / 4);
 
         return result;
     }
@@ -744,14 +701,8 @@ public class ByteArrayConvert
         final int len = getCopyLengthInBytes(in, inOffset, out, outOffset, length);
         final byte[] result = Array1DUtil.allocIfNull(out, outOffset + len);
 
-        int inOff = inOffset;
-        int outOff = outOffset;
-
-        for (int i = 0; i < len / 8; i++)
-        {
-            writeDouble(result, outOff, in[inOff++], little);
-            outOff += 8;
-        }
+        // bulk conversion (byte order handled by the buffer view)
+        ByteBuffer.wrap(result, outOffset, len).order(getByteOrder(little)).asDoubleBuffer().put(in, inOffset, len / 8);
 
         return result;
     }
@@ -1002,4 +953,111 @@ public class ByteArrayConvert
     {
         return toByteArray(in, 0, null, 0, -1, little);
     }
+
+    /**
+     * Bit transform the 'in' array and put the result in the specified {@link ByteBuffer} (starting at current buffer
+     * position).<br>
+     * The buffer byte order is used and its position is moved after the written data. Direct buffer can be used to
+     * avoid an extra copy when data is then written to a NIO channel.
+     * 
+     * @param in
+     *        input array (define input type)
+     * @param inOffset
+     *        position where we start read data from
+     * @param out
+     *        output buffer which receive result
+     * @param length
+     *        number of <b>elements</b> to compute (-1 means we will use the maximum possible)
+     * @return the output buffer
+     */
+    public static ByteBuffer toByteBuffer(Object in, int inOffset, ByteBuffer out, int length)
+    {
+        final DataType dataType = ArrayUtil.getDataType(in);
+        int len = Math.min(ArrayUtil.getCopyLength(in, inOffset), out.remaining() / dataType.getSize());
+        if (length != -1)
+            len = Math.min(len, length);
+
+        switch (dataType)
+        {
+            case BYTE:
+                out.put((byte[]) in, inOffset, len);
+                break;
+            case SHORT:
+                out.asShortBuffer().put((short[]) in, inOffset, len);
+                break;
+            case INT:
+                out.asIntBuffer().put((int[]) in, inOffset, len);
+                break;
+            case LONG:
+                out.asLongBuffer().put((long[]) in, inOffset, len);
+                break;
+            case FLOAT:
+                out.asFloatBuffer().put((float[]) in, inOffset, len);
+                break;
+            case DOUBLE:
+                out.asDoubleBuffer().put((double[]) in, inOffset, len);
+                break;
+            default:
+                return out;
+        }
+
+        // views don't move the buffer position
+        if (dataType != DataType.BYTE)
+            out.position(out.position() + (len * dataType.getSize()));
+
+        return out;
+    }
+
+    /**
+     * Bit transform data from the specified {@link ByteBuffer} (starting at current buffer position) and put the
+     * result in the 'out' array.<br>
+     * The buffer byte order is used and its position is moved after the read data.
+     * 
+     * @param in
+     *        input buffer
+     * @param out
+     *        output array which is used to receive result (and so define wanted type)
+     * @param outOffset
+     *        position where we start to write data to
+     * @param length
+     *        number of <b>elements</b> to compute (-1 means we will use the maximum possible)
+     * @return the output array
+     */
+    public static Object byteBufferTo(ByteBuffer in, Object out, int outOffset, int length)
+    {
+        final DataType dataType = ArrayUtil.getDataType(out);
+        int len = Math.min(ArrayUtil.getCopyLength(out, outOffset), in.remaining() / dataType.getSize());
+        if (length != -1)
+            len = Math.min(len, length);
+
+        switch (dataType)
+        {
+            case BYTE:
+                in.get((byte[]) out, outOffset, len);
+                break;
+            case SHORT:
+                in.asShortBuffer().get((short[]) out, outOffset, len);
+                break;
+            case INT:
+                in.asIntBuffer().get((int[]) out, outOffset, len);
+                break;
+            case LONG:
+                in.asLongBuffer().get((long[]) out, outOffset, len);
+                break;
+            case FLOAT:
+                in.asFloatBuffer().get((float[]) out, outOffset, len);
+                break;
+            case DOUBLE:
+                in.asDoubleBuffer().get((double[]) out, outOffset, len);
+                break;
+            default:
+                return out;
+        }
+
+        // views don't move the buffer position
+        if (dataType != DataType.BYTE)
+            in.position(in.position() + (len * dataType.getSize()));
+
+        return out;
+    }
 }
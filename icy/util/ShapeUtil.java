@@ -560,6 +560,152 @@ public class ShapeUtil
         return result;
     }
 
+    /**
+     * Returns a simplified polygonal version of the specified Shape.<br>
+     * Curves are first flattened then each sub path is simplified using the Douglas-Peucker algorithm so the result
+     * never deviates from the original shape by more than the given tolerance.<br>
+     * This is mainly useful to speed up drawing of complex shapes at low zoom level.
+     * 
+     * @param shape
+     *        the shape to simplify
+     * @param tolerance
+     *        maximum allowed distance between the original and the simplified shape (in shape unit)
+     */
+    public static Path2D getSimplifiedPath(Shape shape, double tolerance)
+    {
+        final PathIterator pathIt = shape.getPathIterator(null, tolerance);
+        final Path2D result = new Path2D.Double(pathIt.getWindingRule());
+        final double tolSq = tolerance * tolerance;
+        final double crd[] = new double[6];
+        double[] pts = new double[256];
+        int numPts = 0;
+        double startX = 0d;
+        double startY = 0d;
+
+        while (!pathIt.isDone())
+        {
+            switch (pathIt.currentSegment(crd))
+            {
+                case PathIterator.SEG_MOVETO:
+                    // flush previous open sub path
+                    appendSimplifiedPath(result, pts, numPts, false, tolSq);
+                    startX = crd[0];
+                    startY = crd[1];
+                    pts[0] = startX;
+                    pts[1] = startY;
+                    numPts = 1;
+                    break;
+
+                case PathIterator.SEG_CLOSE:
+                    appendSimplifiedPath(result, pts, numPts, true, tolSq);
+                    numPts = 0;
+                    break;
+
+                default:
+                    // flattened path so we can only have LINETO here
+                    if (numPts == 0)
+                    {
+                        // LINETO after a CLOSE starts from the last MOVETO point
+                        pts[0] = startX;
+                        pts[1] = startY;
+                        numPts = 1;
+                    }
+
+                    if (((numPts + 1) * 2) > pts.length)
+                        pts = Arrays.copyOf(pts, pts.length * 2);
+                    pts[(numPts * 2) + 0] = crd[0];
+                    pts[(numPts * 2) + 1] = crd[1];
+                    numPts++;
+                    break;
+            }
+
+            pathIt.next();
+        }
+
+        // flush last open sub path
+        appendSimplifiedPath(result, pts, numPts, false, tolSq);
+
+        return result;
+    }
+
+    /**
+     * Simplify the given poly line (Douglas-Peucker) and append it to the specified path.
+     */
+    private static void appendSimplifiedPath(Path2D path, double[] pts, int numPts, boolean closed, double tolSq)
+    {
+        if (numPts == 0)
+            return;
+
+        // for closed path the first point is also used as the end anchor
+        final int last = closed ? numPts : numPts - 1;
+        final boolean[] keep = new boolean[last + 1];
+        // pending segments to process (start and end index)
+        final int[] stack = new int[(last + 1) * 2];
+        int sp = 0;
+
+        keep[0] = true;
+        keep[last] = true;
+
+        if (last > 1)
+        {
+            stack[sp++] = 0;
+            stack[sp++] = last;
+        }
+
+        while (sp > 0)
+        {
+            final int end = stack[--sp];
+            final int start = stack[--sp];
+            final int si = (start % numPts) * 2;
+            final int ei = (end % numPts) * 2;
+            final double x1 = pts[si + 0];
+            final double y1 = pts[si + 1];
+            final double x2 = pts[ei + 0];
+            final double y2 = pts[ei + 1];
+            double maxDist = -1d;
+            int maxInd = start;
+
+            for (int i = start + 1; i < end; i++)
+            {
+                final double d = Line2D.ptSegDistSq(x1, y1, x2, y2, pts[(i * 2) + 0], pts[(i * 2) + 1]);
+
+                if (d > maxDist)
+                {
+                    maxDist = d;
+                    maxInd = i;
+                }
+            }
+
+            // keep the farthest point if needed (a closed path is always split once to preserve its surface)
+            if ((maxDist > tolSq) || (closed && (start == 0) && (end == last)))
+            {
+                keep[maxInd] = true;
+
+                if ((maxInd - start) > 1)
+                {
+                    stack[sp++] = start;
+                    stack[sp++] = maxInd;
+                }
+                if ((end - maxInd) > 1)
+                {
+                    stack[sp++] = maxInd;
+                    stack[sp++] = end;
+                }
+            }
+        }
+
+        path.moveTo(pts[0], pts[1]);
+        // for closed path the end anchor is the start point so closePath() is enough
+        for (int i = 1; i < numPts; i++)
+            if (keep[i])
+                path.lineTo(pts[(i * 2) + 0], pts[(i * 2) + 1]);
+        // single point sub path
+        if (numPts == 1)
+            path.lineTo(pts[0], pts[1]);
+        if (closed)
+            path.closePath();
+    }
+
     /**
      * Return all PathAnchor points from the specified shape
      */
@@ -11,8 +11,17 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.channels.ClosedByInterruptException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.filechooser.FileFilter;
 
@@ -27,10 +36,12 @@ import icy.image.IcyBufferedImageUtil.FilterType;
 import icy.image.ImageUtil;
 import icy.image.colormap.IcyColorMap;
 import icy.image.colormap.LinearColorMap;
+import icy.math.UnitUtil;
 import icy.plugin.abstract_.PluginSequenceFileImporter;
 import icy.sequence.MetaDataUtil;
 import icy.system.SystemUtil;
 import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
 import icy.type.DataType;
 import icy.type.collection.array.Array1DUtil;
 import icy.type.collection.array.Array2DUtil;
@@ -74,62 +85,121 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
     };
 
     /**
-     * Used for multi thread tile image reading.
-     * 
+     * Statistics of a tile read operation (see {@link LociImporterPlugin#getLastTileReadStatistics()}).
+     *
      * @author Stephane
      */
-    class LociTilePixelsReader
+    public static class TileReadStatistics
     {
-        class TilePixelsWorkBuffer
+        final int tiles;
+        final long bytes;
+        final long time;
+        final long readerWaitTime;
+
+        public TileReadStatistics(int tiles, long bytes, long time, long readerWaitTime)
         {
-            final byte[] rawBuffer;
-            final byte[] channelBuffer;
-            final Object pixelBuffer;
+            super();
 
-            public TilePixelsWorkBuffer(int sizeX, int sizeY, int rgbChannel, DataType dataType)
-            {
-                super();
+            this.tiles = tiles;
+            this.bytes = bytes;
+            this.time = time;
+            this.readerWaitTime = readerWaitTime;
+        }
 
-                // allocate arrays
-                rawBuffer = new byte[sizeX * sizeY * rgbChannel * dataType.getSize()];
-                channelBuffer = new byte[sizeX * sizeY * dataType.getSize()];
-                pixelBuffer = Array1DUtil.createArray(dataType, sizeX * sizeY);
-            }
+        /**
+         * Returns the number of read tiles.
+         */
+        public int getTiles()
+        {
+            return tiles;
+        }
+
+        /**
+         * Returns the number of read bytes (pixel data).
+         */
+        public long getBytes()
+        {
+            return bytes;
         }
 
-        class TilePixelsReaderWorker implements Runnable
+        /**
+         * Returns the total read time (in nano second).
+         */
+        public long getTime()
+        {
+            return time;
+        }
+
+        /**
+         * Returns the cumulated time spent by reading threads to obtain a reader (in nano second).
+         */
+        public long getReaderWaitTime()
+        {
+            return readerWaitTime;
+        }
+
+        public double getTilesPerSecond()
+        {
+            if (time == 0L)
+                return 0d;
+
+            return (tiles * 1000000000d) / time;
+        }
+
+        public double getBytesPerSecond()
+        {
+            if (time == 0L)
+                return 0d;
+
+            return (bytes * 1000000000d) / time;
+        }
+
+        @Override
+        public String toString()
+        {
+            return tiles + " tiles in " + (time / 1000000L) + " ms (" + StringUtil.toString(getTilesPerSecond(), 1)
+                    + " tiles/s, " + UnitUtil.getBytesString(getBytesPerSecond()) + "/s), reader wait time: "
+                    + (readerWaitTime / 1000000L) + " ms";
+        }
+    }
+
+    /**
+     * Base class for multi thread tile reading.<br>
+     * Tiles are read by the shared tile reader processor in the on-disk tile order, the number of pending tiles for a
+     * single read operation is bounded so we never flood the processor.
+     *
+     * @author Stephane
+     */
+    abstract class LociTileReader
+    {
+        class TileReaderWorker implements Runnable
         {
             final Rectangle region;
-            boolean done;
-            boolean failed;
 
-            public TilePixelsReaderWorker(Rectangle region)
+            public TileReaderWorker(Rectangle region)
             {
                 super();
 
                 this.region = region;
-                done = false;
-                failed = false;
             }
 
             @SuppressWarnings("resource")
             @Override
             public void run()
             {
-                Object pixels;
-
                 try
                 {
-                    // get reader and working buffers
-                    final IFormatReader r = getReader();
-                    final TilePixelsWorkBuffer buf = buffers.pop();
-
-                    try
+                    if (!canceled)
                     {
+                        final long start = System.nanoTime();
+                        // get reader
+                        final IFormatReader r = getReader();
+
+                        readerWaitTime.addAndGet(System.nanoTime() - start);
+
                         try
                         {
-                            pixels = getPixelsInternal(r, region, z, t, c, false, downScaleLevel, buf.rawBuffer,
-                                    buf.channelBuffer, buf.pixelBuffer);
+                            readTile(r, region);
                         }
                         finally
                         {
@@ -137,30 +207,26 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
                             releaseReader(r);
                         }
 
-                        // define destination in destination
-                        final Point pt = region.getLocation();
-                        pt.translate(-imageRegion.x, -imageRegion.y);
-
-                        // copy tile to result
-                        Array1DUtil.copyRect(pixels, region.getSize(), null, result, imageRegion.getSize(), pt, signed);
-                    }
-                    finally
-                    {
-                        // release working buffer
-                        buffers.push(buf);
+                        readTiles.incrementAndGet();
+                        readBytes.addAndGet((long) region.width * (long) region.height * pixelSize);
                     }
                 }
                 catch (Exception e)
                 {
-                    failed = true;
+                    // ignore failed tile
+                }
+                finally
+                {
+                    completed.incrementAndGet();
+                    slots.release();
                 }
-
-                done = true;
             }
         }
 
         // final image region
         final Rectangle imageRegion;
+        // region to load (reader resolution)
+        final Rectangle readerRegion;
         // required image down scaling
         final int downScaleLevel;
         // resolution shift divider
@@ -168,12 +234,23 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
         final int z;
         final int t;
         final int c;
-        final boolean signed;
-        final Object result;
-        final Stack<TilePixelsWorkBuffer> buffers;
-
-        public LociTilePixelsReader(int series, int resolution, Rectangle region, int z, int t, int c, int tileW,
-                int tileH, ProgressListener listener) throws IOException, UnsupportedFormatException
+        final DataType type;
+        final int rgbChannelCount;
+        final int tileW;
+        final int tileH;
+        // pending tile slots
+        final Semaphore slots;
+        final AtomicInteger completed;
+        final AtomicInteger readTiles;
+        final AtomicLong readBytes;
+        final AtomicLong readerWaitTime;
+
+        // size of a pixel in bytes (for statistics)
+        int pixelSize;
+        volatile boolean canceled;
+
+        public LociTileReader(int series, int resolution, Rectangle region, int z, int t, int c, int tileW, int tileH)
+                throws IOException, UnsupportedFormatException
         {
             super();
 
@@ -184,8 +261,7 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
             final OMEXMLMetadata meta = getOMEXMLMetaData();
             final int sizeX = MetaDataUtil.getSizeX(meta, series);
             final int sizeY = MetaDataUtil.getSizeY(meta, series);
-            final DataType type = MetaDataUtil.getDataType(meta, series);
-            signed = type.isSigned();
+            type = MetaDataUtil.getDataType(meta, series);
 
             // define XY region to load
             Rectangle adjRegion = new Rectangle(sizeX, sizeY);
@@ -201,14 +277,10 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
             imageRegion = new Rectangle(adjRegion.x >> resolution, adjRegion.y >> resolution,
                     adjRegion.width >> resolution, adjRegion.height >> resolution);
             // adapt region size to reader resolution
-            adjRegion = new Rectangle(adjRegion.x >> resShift, adjRegion.y >> resShift, adjRegion.width >> resShift,
-                    adjRegion.height >> resShift);
+            readerRegion = new Rectangle(adjRegion.x >> resShift, adjRegion.y >> resShift,
+                    adjRegion.width >> resShift, adjRegion.height >> resShift);
 
-            // allocate result (adapted to final wanted resolution)
-            result = Array1DUtil.createArray(type, imageRegion.width * imageRegion.height);
-
-            // allocate working buffers
-            final int rgbChannelCount = reader.getRGBChannelCount();
+            rgbChannelCount = reader.getRGBChannelCount();
 
             int tw = tileW;
             int th = tileH;
@@ -223,203 +295,241 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
             if (th <= 0)
                 th = 512;
 
-            final int numThread = Math.max(1, SystemUtil.getNumberOfCPUs() - 1);
+            this.tileW = tw;
+            this.tileH = th;
 
-            buffers = new Stack<TilePixelsWorkBuffer>();
-            for (int i = 0; i < numThread; i++)
-                buffers.push(new TilePixelsWorkBuffer(tw, th, rgbChannelCount, type));
+            slots = new Semaphore(MAX_PENDING_TILE);
+            completed = new AtomicInteger(0);
+            readTiles = new AtomicInteger(0);
+            readBytes = new AtomicLong(0L);
+            readerWaitTime = new AtomicLong(0L);
+            pixelSize = type.getSize();
+            canceled = false;
+        }
 
-            // create processor
-            final Processor readerProcessor = new Processor(numThread);
-            readerProcessor.setThreadName("Pixels tile reader");
+        /**
+         * Read the specified tile (reader resolution) and copy it into the result.
+         */
+        abstract void readTile(IFormatReader r, Rectangle region) throws Exception;
 
-            // get all required tiles
-            final List<Rectangle> tiles = ImageUtil.getTileList(adjRegion, tw, th);
+        /**
+         * Returns the list of tiles to read ordered as they are stored in the file (tiles from the same native tile
+         * are read consecutively).
+         */
+        List<Rectangle> getTiles()
+        {
+            final List<Rectangle> result = ImageUtil.getTileList(readerRegion, tileW, tileH);
+            final int nativeTileW = reader.getOptimalTileWidth();
+            final int nativeTileH = reader.getOptimalTileHeight();
 
-            // submit all tasks
-            for (Rectangle tile : tiles)
+            // tile size is adjusted to power of 2 so it may not match native tile layout
+            if ((nativeTileW > 0) && (nativeTileH > 0) && ((nativeTileW != tileW) || (nativeTileH != tileH)))
             {
-                // wait a bit if the process queue is full
-                while (readerProcessor.isFull())
+                Collections.sort(result, new Comparator<Rectangle>()
                 {
-                    try
+                    @Override
+                    public int compare(Rectangle r1, Rectangle r2)
                     {
-                        Thread.sleep(0);
-                    }
-                    catch (InterruptedException e)
-                    {
-                        // interrupt all processes
-                        readerProcessor.shutdownNow();
-                        break;
-                    }
-                }
+                        int result = (r1.y / nativeTileH) - (r2.y / nativeTileH);
 
-                // submit next task
-                readerProcessor.submit(new TilePixelsReaderWorker(tile.intersection(adjRegion)));
+                        if (result == 0)
+                            result = (r1.x / nativeTileW) - (r2.x / nativeTileW);
+                        if (result == 0)
+                            result = r1.y - r2.y;
+                        if (result == 0)
+                            result = r1.x - r2.x;
 
-                // display progression
-                if (listener != null)
-                {
-                    // process cancel requested ?
-                    if (!listener.notifyProgress(readerProcessor.getCompletedTaskCount(), tiles.size()))
-                    {
-                        // interrupt processes
-                        readerProcessor.shutdownNow();
-                        break;
+                        return result;
                     }
-                }
+                });
             }
 
-            // wait for completion
-            while (readerProcessor.isProcessing())
+            return result;
+        }
+
+        /**
+         * Read all tiles (blocking)
+         */
+        void readTiles(ProgressListener listener)
+        {
+            final long start = System.nanoTime();
+            final List<Rectangle> tiles = getTiles();
+
+            // submit all tasks
+            for (Rectangle tile : tiles)
             {
+                // wait for a free slot
                 try
                 {
-                    Thread.sleep(1);
+                    slots.acquire();
                 }
                 catch (InterruptedException e)
                 {
                     // interrupt all processes
-                    readerProcessor.shutdownNow();
+                    canceled = true;
                     break;
                 }
 
+                final TileReaderWorker worker = new TileReaderWorker(tile.intersection(readerRegion));
+
+                try
+                {
+                    tileReaderProcessor.execute(worker);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // processor queue is full (too many concurrent reads) --> do it directly
+                    worker.run();
+                }
+
                 // display progression
                 if (listener != null)
                 {
                     // process cancel requested ?
-                    if (!listener.notifyProgress(readerProcessor.getCompletedTaskCount(), tiles.size()))
+                    if (!listener.notifyProgress(completed.get(), tiles.size()))
                     {
                         // interrupt processes
-                        readerProcessor.shutdownNow();
+                        canceled = true;
                         break;
                     }
                 }
             }
 
-            // last wait for completion just in case we were interrupted
-            readerProcessor.waitAll();
+            // wait for completion (all slots released)
+            try
+            {
+                while (!slots.tryAcquire(MAX_PENDING_TILE, 10, TimeUnit.MILLISECONDS))
+                {
+                    // display progression
+                    if ((listener != null) && !canceled)
+                    {
+                        // process cancel requested ?
+                        if (!listener.notifyProgress(completed.get(), tiles.size()))
+                            // interrupt processes
+                            canceled = true;
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // interrupt processes and wait for pending ones
+                canceled = true;
+                slots.acquireUninterruptibly(MAX_PENDING_TILE);
+            }
 
-            // faster memory release
-            buffers.clear();
+            lastTileReadStatistics = new TileReadStatistics(readTiles.get(), readBytes.get(), System.nanoTime()
+                    - start, readerWaitTime.get());
         }
     }
 
     /**
      * Used for multi thread tile image reading.
-     * 
+     *
      * @author Stephane
      */
-    class LociTileImageReader
+    class LociTilePixelsReader extends LociTileReader
     {
-        class TileImageWorkBuffer
+        class TilePixelsWorkBuffer
         {
             final byte[] rawBuffer;
             final byte[] channelBuffer;
-            final Object[] pixelBuffer;
+            final Object pixelBuffer;
 
-            public TileImageWorkBuffer(int sizeX, int sizeY, int sizeC, int rgbChannel, DataType dataType)
+            public TilePixelsWorkBuffer(int sizeX, int sizeY, int rgbChannel, DataType dataType)
             {
                 super();
 
                 // allocate arrays
                 rawBuffer = new byte[sizeX * sizeY * rgbChannel * dataType.getSize()];
                 channelBuffer = new byte[sizeX * sizeY * dataType.getSize()];
-                pixelBuffer = Array2DUtil.createArray(dataType, sizeC);
-                for (int i = 0; i < sizeC; i++)
-                    pixelBuffer[i] = Array1DUtil.createArray(dataType, sizeX * sizeY);
+                pixelBuffer = Array1DUtil.createArray(dataType, sizeX * sizeY);
             }
         }
 
-        class TileImageReaderWorker implements Runnable
+        final boolean signed;
+        final Object result;
+        final Stack<TilePixelsWorkBuffer> buffers;
+
+        public LociTilePixelsReader(int series, int resolution, Rectangle region, int z, int t, int c, int tileW,
+                int tileH, ProgressListener listener) throws IOException, UnsupportedFormatException
         {
-            final Rectangle region;
-            boolean done;
-            boolean failed;
+            super(series, resolution, region, z, t, c, tileW, tileH);
 
-            public TileImageReaderWorker(Rectangle region)
-            {
-                super();
+            signed = type.isSigned();
+            // allocate result (adapted to final wanted resolution)
+            result = Array1DUtil.createArray(type, imageRegion.width * imageRegion.height);
+            // working buffers are allocated on demand
+            buffers = new Stack<TilePixelsWorkBuffer>();
 
-                this.region = region;
-                done = false;
-                failed = false;
+            readTiles(listener);
+
+            // faster memory release
+            buffers.clear();
+        }
+
+        TilePixelsWorkBuffer getBuffer()
+        {
+            synchronized (buffers)
+            {
+                if (!buffers.isEmpty())
+                    return buffers.pop();
             }
 
-            @SuppressWarnings("resource")
-            @Override
-            public void run()
+            return new TilePixelsWorkBuffer(tileW, tileH, rgbChannelCount, type);
+        }
+
+        @Override
+        void readTile(IFormatReader r, Rectangle region) throws Exception
+        {
+            // get working buffers
+            final TilePixelsWorkBuffer buf = getBuffer();
+
+            try
             {
-                IcyBufferedImage img;
+                final Object pixels = getPixelsInternal(r, region, z, t, c, false, downScaleLevel, buf.rawBuffer,
+                        buf.channelBuffer, buf.pixelBuffer);
 
-                try
-                {
-                    // get reader and working buffers
-                    final IFormatReader r = getReader();
-                    final TileImageWorkBuffer buf = buffers.pop();
+                // define destination in destination
+                final Point pt = region.getLocation();
+                pt.translate(-imageRegion.x, -imageRegion.y);
 
-                    try
-                    {
-                        try
-                        {
-                            // get image tile
-                            if (c == -1)
-                            {
-                                img = getImageInternal(r, region, z, t, false, downScaleLevel, buf.rawBuffer,
-                                        buf.channelBuffer, buf.pixelBuffer);
-                                // colormaps not yet set ?
-                                if (colormaps[0] == null)
-                                {
-                                    for (int c = 0; c < img.getSizeC(); c++)
-                                        colormaps[c] = img.getColorMap(c);
-                                }
-                            }
-                            else
-                            {
-                                img = getImageInternal(r, region, z, t, c, false, downScaleLevel, buf.rawBuffer,
-                                        buf.channelBuffer, buf.pixelBuffer[0]);
-                                // colormap not yet set ?
-                                if (colormaps[0] == null)
-                                    colormaps[0] = img.getColorMap(0);
-                            }
-                        }
-                        finally
-                        {
-                            // release reader
-                            releaseReader(r);
-                        }
+                // copy tile to result
+                Array1DUtil.copyRect(pixels, region.getSize(), null, result, imageRegion.getSize(), pt, signed);
+            }
+            finally
+            {
+                // release working buffer
+                buffers.push(buf);
+            }
+        }
+    }
 
-                        // define destination point in destination
-                        final Point pt = region.getLocation();
-                        pt.translate(-imageRegion.x, -imageRegion.y);
+    /**
+     * Used for multi thread tile image reading.
+     *
+     * @author Stephane
+     */
+    class LociTileImageReader extends LociTileReader
+    {
+        class TileImageWorkBuffer
+        {
+            final byte[] rawBuffer;
+            final byte[] channelBuffer;
+            final Object[] pixelBuffer;
 
-                        // copy tile to image result
-                        result.copyData(img, null, pt);
-                    }
-                    finally
-                    {
-                        // release working buffer
-                        buffers.push(buf);
-                    }
-                }
-                catch (Exception e)
-                {
-                    failed = true;
-                }
+            public TileImageWorkBuffer(int sizeX, int sizeY, int sizeC, int rgbChannel, DataType dataType)
+            {
+                super();
 
-                done = true;
+                // allocate arrays
+                rawBuffer = new byte[sizeX * sizeY * rgbChannel * dataType.getSize()];
+                channelBuffer = new byte[sizeX * sizeY * dataType.getSize()];
+                pixelBuffer = Array2DUtil.createArray(dataType, sizeC);
+                for (int i = 0; i < sizeC; i++)
+                    pixelBuffer[i] = Array1DUtil.createArray(dataType, sizeX * sizeY);
             }
         }
 
-        // final image region
-        final Rectangle imageRegion;
-        // required image down scaling
-        final int downScaleLevel;
-        // resolution shift divider
-        final int resShift;
-        final int z;
-        final int t;
-        final int c;
         final IcyBufferedImage result;
         final IcyColorMap[] colormaps;
         final Stack<TileImageWorkBuffer> buffers;
@@ -427,151 +537,112 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
         public LociTileImageReader(int series, int resolution, Rectangle region, int z, int t, int c, int tileW,
                 int tileH, ProgressListener listener) throws IOException, UnsupportedFormatException
         {
-            super();
+            super(series, resolution, region, z, t, c, tileW, tileH);
 
-            this.z = z;
-            this.t = t;
-            this.c = c;
-
-            final OMEXMLMetadata meta = getOMEXMLMetaData();
-            final int sizeX = MetaDataUtil.getSizeX(meta, series);
-            final int sizeY = MetaDataUtil.getSizeY(meta, series);
-            final DataType type = MetaDataUtil.getDataType(meta, series);
-            final int sizeC = (c == -1) ? MetaDataUtil.getSizeC(meta, series) : 1;
-
-            // define XY region to load
-            Rectangle adjRegion = new Rectangle(sizeX, sizeY);
-            if (region != null)
-                adjRegion = adjRegion.intersection(region);
-
-            // prepare main reader and get needed downScale
-            downScaleLevel = prepareReader(series, resolution);
-            // real resolution shift used by reader
-            resShift = getResolutionShift();
-
-            // adapt region size to final image resolution
-            imageRegion = new Rectangle(adjRegion.x >> resolution, adjRegion.y >> resolution,
-                    adjRegion.width >> resolution, adjRegion.height >> resolution);
-            // adapt region size to reader resolution
-            adjRegion = new Rectangle(adjRegion.x >> resShift, adjRegion.y >> resShift, adjRegion.width >> resShift,
-                    adjRegion.height >> resShift);
+            final int sizeC = (c == -1) ? MetaDataUtil.getSizeC(getOMEXMLMetaData(), series) : 1;
 
+            pixelSize = type.getSize() * sizeC;
             // allocate result (adapted to final wanted resolution)
             result = new IcyBufferedImage(imageRegion.width, imageRegion.height, sizeC, type);
             // allocate colormaps
             colormaps = new IcyColorMap[sizeC];
-            // allocate working buffers
-            final int rgbChannelCount = reader.getRGBChannelCount();
+            // working buffers are allocated on demand
+            buffers = new Stack<TileImageWorkBuffer>();
 
-            int tw = tileW;
-            int th = tileH;
+            // to avoid multiple update
+            result.beginUpdate();
+            try
+            {
+                readTiles(listener);
+            }
+            finally
+            {
+                result.endUpdate();
+            }
 
-            // adjust tile size if needed
-            if (tw <= 0)
-                tw = getTileWidth(series);
-            if (tw <= 0)
-                tw = 512;
-            if (th <= 0)
-                th = getTileHeight(series);
-            if (th <= 0)
-                th = 512;
+            // set back colormap
+            for (int i = 0; i < colormaps.length; i++)
+                result.setColorMap(i, colormaps[i], true);
 
-            final int numThread = Math.max(1, SystemUtil.getNumberOfCPUs() - 1);
+            // faster memory release
+            buffers.clear();
+        }
 
-            buffers = new Stack<TileImageWorkBuffer>();
-            for (int i = 0; i < numThread; i++)
-                buffers.push(new TileImageWorkBuffer(tw, th, sizeC, rgbChannelCount, type));
+        TileImageWorkBuffer getBuffer()
+        {
+            synchronized (buffers)
+            {
+                if (!buffers.isEmpty())
+                    return buffers.pop();
+            }
 
-            // create processor
-            final Processor readerProcessor = new Processor(numThread);
+            return new TileImageWorkBuffer(tileW, tileH, colormaps.length, rgbChannelCount, type);
+        }
 
-            readerProcessor.setThreadName("Image tile reader");
-            // to avoid multiple update
-            result.beginUpdate();
+        @Override
+        void readTile(IFormatReader r, Rectangle region) throws Exception
+        {
+            // get working buffers
+            final TileImageWorkBuffer buf = getBuffer();
 
             try
             {
-                // get all required tiles
-                final List<Rectangle> tiles = ImageUtil.getTileList(adjRegion, tw, th);
+                final IcyBufferedImage img;
 
-                // submit all tasks
-                for (Rectangle tile : tiles)
+                // get image tile
+                if (c == -1)
                 {
-                    // wait a bit if the process queue is full
-                    while (readerProcessor.isFull())
+                    img = getImageInternal(r, region, z, t, false, downScaleLevel, buf.rawBuffer, buf.channelBuffer,
+                            buf.pixelBuffer);
+                    // colormaps not yet set ?
+                    if (colormaps[0] == null)
                     {
-                        try
-                        {
-                            Thread.sleep(0);
-                        }
-                        catch (InterruptedException e)
-                        {
-                            // interrupt all processes
-                            readerProcessor.shutdownNow();
-                            break;
-                        }
-                    }
-
-                    // submit next task
-                    readerProcessor.submit(new TileImageReaderWorker(tile.intersection(adjRegion)));
-
-                    // display progression
-                    if (listener != null)
-                    {
-                        // process cancel requested ?
-                        if (!listener.notifyProgress(readerProcessor.getCompletedTaskCount(), tiles.size()))
-                        {
-                            // interrupt processes
-                            readerProcessor.shutdownNow();
-                            break;
-                        }
+                        for (int c = 0; c < img.getSizeC(); c++)
+                            colormaps[c] = img.getColorMap(c);
                     }
                 }
-
-                // wait for completion
-                while (readerProcessor.isProcessing())
+                else
                 {
-                    try
-                    {
-                        Thread.sleep(1);
-                    }
-                    catch (InterruptedException e)
-                    {
-                        // interrupt all processes
-                        readerProcessor.shutdownNow();
-                        break;
-                    }
-
-                    // display progression
-                    if (listener != null)
-                    {
-                        // process cancel requested ?
-                        if (!listener.notifyProgress(readerProcessor.getCompletedTaskCount(), tiles.size()))
-                        {
-                            // interrupt processes
-                            readerProcessor.shutdownNow();
-                            break;
-                        }
-                    }
+                    img = getImageInternal(r, region, z, t, c, false, downScaleLevel, buf.rawBuffer,
+                            buf.channelBuffer, buf.pixelBuffer[0]);
+                    // colormap not yet set ?
+                    if (colormaps[0] == null)
+                        colormaps[0] = img.getColorMap(0);
                 }
 
-                // last wait for completion just in case we were interrupted
-                readerProcessor.waitAll();
+                // define destination point in destination
+                final Point pt = region.getLocation();
+                pt.translate(-imageRegion.x, -imageRegion.y);
+
+                // copy tile to image result
+                result.copyData(img, null, pt);
             }
             finally
             {
-                result.endUpdate();
+                // release working buffer
+                buffers.push(buf);
             }
-
-            // set back colormap
-            for (int i = 0; i < colormaps.length; i++)
-                result.setColorMap(i, colormaps[i], true);
-
-            // faster memory release
-            buffers.clear();
         }
     }
 
+    /**
+     * Number of tile reader thread
+     */
+    static final int TILE_READER_THREAD = Math.max(1, SystemUtil.getNumberOfCPUs() - 1);
+    /**
+     * Maximum number of pending tiles for a single read operation
+     */
+    static final int MAX_PENDING_TILE = TILE_READER_THREAD * 2;
+    /**
+     * Tile reader processor shared by all importer instances
+     */
+    static final Processor tileReaderProcessor = new Processor(MAX_PENDING_TILE * 8, TILE_READER_THREAD);
+
+    static
+    {
+        tileReaderProcessor.setThreadName("Tile reader");
+        tileReaderProcessor.setLane(TaskScheduler.Lane.IO);
+    }
     /**
      * Main image reader used to retrieve a specific format reader
      */
@@ -592,7 +663,11 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
     /**
      * Shared readers for multi threading
      */
-    protected final List<IFormatReader> readersPool;
+    protected final Queue<IFormatReader> readersPool;
+    /**
+     * Statistics of the last tile read operation
+     */
+    protected volatile TileReadStatistics lastTileReadStatistics;
 
     /**
      * Metadata options
@@ -628,7 +703,8 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
         reader = null;
         internalReader = null;
         acceptReader = null;
-        readersPool = new ArrayList<IFormatReader>();
+        readersPool = new ConcurrentLinkedQueue<IFormatReader>();
+        lastTileReadStatistics = null;
 
         options = new DynamicMetadataOptions();
 
@@ -833,10 +909,7 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
             openReader(reader, adjPath, flags);
 
             // set reader in reader pool
-            synchronized (readersPool)
-            {
-                readersPool.add(reader);
-            }
+            readersPool.add(reader);
 
             // adjust opened path (always in 'generic format')
             openedPath = FileUtil.getGenericPath(path);
@@ -861,14 +934,11 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
         {
             openedPath = null;
 
-            synchronized (readersPool)
-            {
-                // close all readers
-                for (IFormatReader r : readersPool)
-                    r.close();
+            IFormatReader r;
 
-                readersPool.clear();
-            }
+            // close all readers
+            while ((r = readersPool.poll()) != null)
+                r.close();
         }
     }
 
@@ -955,16 +1025,11 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
     {
         try
         {
-            final IFormatReader result;
+            IFormatReader result = readersPool.poll();
 
-            synchronized (readersPool)
-            {
-                if (readersPool.isEmpty())
-                    result = cloneReader();
-                // allocate last reader (faster)
-                else
-                    result = readersPool.remove(readersPool.size() - 1);
-            }
+            // no more reader available --> create a new one
+            if (result == null)
+                result = cloneReader();
 
             final int s = reader.getSeries();
             final int r = reader.getResolution();
@@ -996,10 +1061,18 @@ public class LociImporterPlugin extends PluginSequenceFileImporter
      */
     public void releaseReader(IFormatReader r)
     {
-        synchronized (readersPool)
-        {
-            readersPool.add(r);
-        }
+        readersPool.add(r);
+    }
+
+    /**
+     * Returns statistics (tiles/s, bytes/s, reader wait time) of the last tile read operation (see
+     * {@link #getImageByTile(int, int, Rectangle, int, int, int, int, int, ProgressListener)} and
+     * {@link #getPixelsByTile(int, int, Rectangle, int, int, int, int, int, ProgressListener)}), <code>null</code> if
+     * no tile read operation was done yet.
+     */
+    public TileReadStatistics getLastTileReadStatistics()
+    {
+        return lastTileReadStatistics;
     }
 
     /**
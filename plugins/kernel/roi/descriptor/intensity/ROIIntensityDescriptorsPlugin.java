@@ -3,6 +3,8 @@
  */
 package plugins.kernel.roi.descriptor.intensity;
 
+import icy.math.DataIteratorMath;
+import icy.math.DataIteratorMath.Statistics;
 import icy.plugin.abstract_.Plugin;
 import icy.plugin.interface_.PluginROIDescriptor;
 import icy.roi.ROI;
@@ -74,43 +76,18 @@ public class ROIIntensityDescriptorsPlugin extends Plugin implements PluginROIDe
 
         final IntensityDescriptorInfos result = new IntensityDescriptorInfos();
 
-        long numPixels = 0;
-        double min = Double.MAX_VALUE;
-        double max = -Double.MAX_VALUE;
-        double sum = 0;
-        double sum2 = 0;
-
         // FIXME: we were using interior pixels only, now we also use edge pixels so we can have intensities info
         // for intersection only ROI --> see if that is a good idea...
-        final SequenceDataIterator it = new SequenceDataIterator(sequence, roi, true);
-
-        while (!it.done())
-        {
-            final double value = it.get();
-
-            if (min > value)
-                min = value;
-            if (max < value)
-                max = value;
-            sum += value;
-            sum2 += value * value;
-            numPixels++;
+        // single pass computation (data is read by runs)
+        final Statistics stats = DataIteratorMath.stats(new SequenceDataIterator(sequence, roi, true));
 
-            it.next();
-        }
-
-        if (numPixels > 0)
+        if (stats.getCount() > 0)
         {
-            result.min = min;
-            result.max = max;
-            result.sum = sum;
-
-            final double mean = sum / numPixels;
-            final double x1 = (sum2 / numPixels);
-            final double x2 = mean * mean;
-
-            result.mean = mean;
-            result.deviation = Math.sqrt(x1 - x2);
+            result.min = stats.getMin();
+            result.max = stats.getMax();
+            result.sum = stats.getSum();
+            result.mean = stats.getMean();
+            result.deviation = stats.getStandardDeviation();
         }
         else
         {
@@ -113,6 +113,10 @@ public class ROI2DArea extends ROI2D
         protected double scaling[];
         protected WeakReference<VtkCanvas> canvas3d;
         protected int lastBuildPosZ;
+        // downscaled mask images for low zoom level (index 0 = mask / 2)
+        protected BufferedImage[] lodMasks;
+        protected BufferedImage lodSource;
+        protected int lodVersion;
 
         // internal
         protected final Point2D brushPosition;
@@ -137,6 +141,10 @@ public class ROI2DArea extends ROI2D
             needRebuild = true;
             canvas3d = new WeakReference<VtkCanvas>(null);
             lastBuildPosZ = getZ();
+
+            lodMasks = new BufferedImage[0];
+            lodSource = null;
+            lodVersion = -1;
         }
 
         @Override
@@ -409,8 +417,31 @@ public class ROI2DArea extends ROI2D
 
             brush.setFrameFromDiagonal(x - brushSize, y - brushSize, x + brushSize, y + brushSize);
 
-            // if roi selected (cursor displayed) --> painter changed
-            if (isSelected())
+            // if roi selected (cursor displayed) --> painter changed (brush stroke does its own repaint)
+            if (isSelected() && !isStroking())
+                painterChanged();
+        }
+
+        /**
+         * Interim repaint during brush stroke: only repaint the canvas region covered by the previous and current
+         * brush position (which contains the modified part of the mask).
+         */
+        void repaintStroke(IcyCanvas canvas, Rectangle2D previousBrush)
+        {
+            if ((canvas instanceof IcyCanvas2D) && (canvas.getViewComponent() != null))
+            {
+                final Rectangle2D region = brush.getBounds2D();
+                region.add(previousBrush);
+
+                final Rectangle canvasRegion = ((IcyCanvas2D) canvas).imageToCanvas(region.getX() - 1d,
+                        region.getY() - 1d, region.getWidth() + 2d, region.getHeight() + 2d);
+                // cursor stroke
+                canvasRegion.grow(4, 4);
+
+                canvas.getViewComponent().repaint(canvasRegion.x, canvasRegion.y, canvasRegion.width,
+                        canvasRegion.height);
+            }
+            else
                 painterChanged();
         }
 
@@ -641,20 +672,28 @@ public class ROI2DArea extends ROI2D
                     ROI2DArea.this.beginUpdate();
                     try
                     {
+                        final Rectangle2D previousBrush = brush.getBounds2D();
+
                         // left button action
                         if (EventUtil.isLeftMouseButton(e))
                         {
+                            // start brush stroke (single change event at the end)
+                            beginStroke();
                             // add point first
                             addToMask(imagePoint.toPoint2D());
                             roiModifiedByMouse = true;
+                            repaintStroke(canvas, previousBrush);
                             e.consume();
                         }
                         // right button action
                         else if (EventUtil.isRightMouseButton(e))
                         {
+                            // start brush stroke (single change event at the end)
+                            beginStroke();
                             // remove point
                             removeFromMask(imagePoint.toPoint2D());
                             roiModifiedByMouse = true;
+                            repaintStroke(canvas, previousBrush);
                             e.consume();
                         }
                     }
@@ -677,20 +716,28 @@ public class ROI2DArea extends ROI2D
             {
                 if (roiModifiedByMouse)
                 {
-                    if (boundsNeedUpdate)
+                    boolean changed = false;
+
+                    // end brush stroke (optimize bounds and notify ROI changed)
+                    if (isStroking())
                     {
-                        if (optimizeBounds())
-                        {
-                            roiChanged(true);
+                        changed = !getStrokeRegion().isEmpty();
+                        endStroke();
+                        // cursor was not refreshed during stroke
+                        painterChanged();
+                    }
+                    else if (boundsNeedUpdate && optimizeBounds())
+                    {
+                        roiChanged(true);
+                        changed = true;
+                    }
 
-                            // empty ? delete ROI
-                            if (bounds.isEmpty())
-                            {
-                                ROI2DArea.this.remove();
-                                // nothing more to do
-                                return;
-                            }
-                        }
+                    // empty ? delete ROI
+                    if (changed && bounds.isEmpty())
+                    {
+                        ROI2DArea.this.remove();
+                        // nothing more to do
+                        return;
                     }
 
                     final Sequence sequence = canvas.getSequence();
@@ -800,20 +847,28 @@ public class ROI2DArea extends ROI2D
                     ROI2DArea.this.beginUpdate();
                     try
                     {
+                        final Rectangle2D previousBrush = brush.getBounds2D();
+
                         // left button action
                         if (EventUtil.isLeftMouseButton(e))
                         {
+                            // continue (or start) brush stroke
+                            beginStroke();
                             // add point first
                             addToMask(imagePoint.toPoint2D());
                             roiModifiedByMouse = true;
+                            repaintStroke(canvas, previousBrush);
                             e.consume();
                         }
                         // right button action
                         else if (EventUtil.isRightMouseButton(e))
                         {
+                            // continue (or start) brush stroke
+                            beginStroke();
                             // remove point
                             removeFromMask(imagePoint.toPoint2D());
                             roiModifiedByMouse = true;
+                            repaintStroke(canvas, previousBrush);
                             e.consume();
                         }
                     }
@@ -857,22 +912,39 @@ public class ROI2DArea extends ROI2D
                 if (shapeVisible)
                 {
                     final Graphics2D g2 = (Graphics2D) g.create();
+                    final double scale = Math.max(Math.abs(canvas.getScaleX()), Math.abs(canvas.getScaleY()));
+                    final double size = Math.max(scale * bounds.getWidth(), scale * bounds.getHeight());
                     final boolean small;
+                    final int level;
 
                     // disable LOD when creating the ROI
                     if (isCreating())
+                    {
                         small = false;
+                        level = 0;
+                    }
                     else
                     {
-                        final double scale = Math.max(Math.abs(canvas.getScaleX()), Math.abs(canvas.getScaleY()));
-                        small = Math.max(scale * bounds.getWidth(), scale * bounds.getHeight()) < LOD_SMALL;
+                        small = size < LOD_SMALL;
+                        // mask pyramid level: scale in ]1/2^(level+1), 1/2^level]
+                        level = ((scale < 0.5d) && (scale > 0d)) ? (int) Math.floor(-Math.log(scale) / Math.log(2d))
+                                : 0;
                     }
 
+                    // less than a pixel on screen --> draw a single point
+                    if (!isCreating() && !isSelected() && !isFocused() && (size < LOD_POINT))
+                    {
+                        final double ps = 1d / scale;
+
+                        g2.setColor(getDisplayColor());
+                        g2.fill(new Rectangle2D.Double(bounds.getCenterX() - (ps / 2d), bounds.getCenterY()
+                                - (ps / 2d), ps, ps));
+                    }
                     // simplified draw
-                    if (small)
+                    else if (small)
                     {
                         g2.setColor(getDisplayColor());
-                        g2.drawImage(imageMask, null, bounds.x, bounds.y);
+                        drawMask(g2, bounds, level);
                     }
                     // normal draw
                     else
@@ -886,7 +958,7 @@ public class ROI2DArea extends ROI2D
                         g2.setComposite(prevAlpha.derive(newAlpha));
 
                         // draw mask
-                        g2.drawImage(imageMask, null, bounds.x, bounds.y);
+                        drawMask(g2, bounds, level);
 
                         // restore alpha
                         g2.setComposite(prevAlpha);
@@ -952,6 +1024,92 @@ public class ROI2DArea extends ROI2D
             }
         }
 
+        /**
+         * Draw the mask image at the specified pyramid level (0 = full resolution).
+         */
+        protected void drawMask(Graphics2D g, Rectangle bounds, int level)
+        {
+            final BufferedImage mask = getMaskImage(level);
+
+            if (mask == imageMask)
+                g.drawImage(imageMask, null, bounds.x, bounds.y);
+            else
+            {
+                final int f = 1 << level;
+                // downscaled image may cover a slightly larger area than the original one
+                g.drawImage(mask, bounds.x, bounds.y, mask.getWidth() * f, mask.getHeight() * f, null);
+            }
+        }
+
+        /**
+         * Returns the mask image for the specified pyramid level (0 = full resolution, 1 = half resolution...).<br>
+         * Downscaled masks are built on demand (a pixel is set if any of the original pixels it covers is set so thin
+         * structures remain visible) and kept until the ROI is modified.
+         */
+        protected BufferedImage getMaskImage(int level)
+        {
+            final BufferedImage source = imageMask;
+
+            // nothing to downscale
+            if ((level <= 0) || ((source.getWidth() <= 1) && (source.getHeight() <= 1)))
+                return source;
+
+            final int version = getGeometryVersion();
+            BufferedImage[] masks = lodMasks;
+
+            // ROI or color changed --> reset pyramid
+            if ((lodSource != source) || (lodVersion != version))
+                masks = new BufferedImage[0];
+
+            if (masks.length < level)
+            {
+                final BufferedImage[] newMasks = Arrays.copyOf(masks, level);
+
+                for (int l = masks.length; l < level; l++)
+                {
+                    final BufferedImage src = (l == 0) ? source : newMasks[l - 1];
+                    newMasks[l] = downscaleMask(src, (IndexColorModel) source.getColorModel());
+                }
+
+                masks = newMasks;
+            }
+
+            // store (only if ROI was not modified in the meantime)
+            if (version == getGeometryVersion())
+            {
+                lodMasks = masks;
+                lodSource = source;
+                lodVersion = version;
+            }
+
+            return masks[level - 1];
+        }
+
+        /**
+         * Returns a half size version of the specified mask image (logical OR of each 2x2 block).
+         */
+        protected BufferedImage downscaleMask(BufferedImage mask, IndexColorModel cm)
+        {
+            final int w = mask.getWidth();
+            final int h = mask.getHeight();
+            final int nw = (w + 1) / 2;
+            final int nh = (h + 1) / 2;
+            final byte[] src = ((DataBufferByte) mask.getRaster().getDataBuffer()).getData();
+            final byte[] dst = new byte[nw * nh];
+
+            for (int y = 0; y < h; y++)
+            {
+                int offSrc = y * w;
+                final int offDst = (y >> 1) * nw;
+
+                for (int x = 0; x < w; x++, offSrc++)
+                    if (src[offSrc] != 0)
+                        dst[offDst + (x >> 1)] = 1;
+            }
+
+            return ImageUtil.createIndexedImage(nw, nh, cm, dst);
+        }
+
         /**
          * draw the ROI cursor
          */
@@ -1038,6 +1196,11 @@ public class ROI2DArea extends ROI2D
     // protected static final String ID_BOOLMASK_LEN = "boolMaskLen";
     public static final String ID_BOOLMASK_DATA = "boolMaskData";
 
+    /**
+     * Minimum growing step (in pixel) of the mask storage during a brush stroke
+     */
+    public static final int STROKE_CHUNK_SIZE = 64;
+
     /**
      * image containing the mask
      */
@@ -1060,6 +1223,11 @@ public class ROI2DArea extends ROI2D
     protected boolean boundsNeedUpdate;
     protected boolean roiModifiedByMouse;
     protected BooleanMask2D undoSave;
+    // region modified by the current brush stroke (null if no stroke in progress)
+    protected Rectangle strokeDirty;
+    // number of point maintained during brush stroke (-1 if unknown)
+    protected double strokeNumberOfPoints;
+    boolean strokeEnding;
 
     /**
      * Create a ROI2D Area type from the specified {@link BooleanMask2D}.
@@ -1072,6 +1240,9 @@ public class ROI2DArea extends ROI2D
         boundsNeedUpdate = false;
         roiModifiedByMouse = false;
         undoSave = null;
+        strokeDirty = null;
+        strokeNumberOfPoints = -1d;
+        strokeEnding = false;
         translateX = 0d;
         translateY = 0d;
 
@@ -1148,6 +1319,9 @@ public class ROI2DArea extends ROI2D
         boundsNeedUpdate = false;
         roiModifiedByMouse = false;
         undoSave = null;
+        strokeDirty = null;
+        strokeNumberOfPoints = -1d;
+        strokeEnding = false;
         translateX = 0d;
         translateY = 0d;
 
@@ -1194,6 +1368,25 @@ public class ROI2DArea extends ROI2D
         {
             newBounds = new Rectangle(bounds);
             newBounds.add(bnd);
+
+            // brush stroke in progress ? --> grow by chunk so we don't re allocate the mask for each brush dab
+            if ((strokeDirty != null) && !newBounds.equals(bounds))
+            {
+                final int marginX = Math.max(STROKE_CHUNK_SIZE, bounds.width / 4);
+                final int marginY = Math.max(STROKE_CHUNK_SIZE, bounds.height / 4);
+
+                if (newBounds.x < bounds.x)
+                    newBounds.add(newBounds.x - marginX, newBounds.y);
+                if ((newBounds.x + newBounds.width) > (bounds.x + bounds.width))
+                    newBounds.add(newBounds.x + newBounds.width + marginX, newBounds.y);
+                if (newBounds.y < bounds.y)
+                    newBounds.add(newBounds.x, newBounds.y - marginY);
+                if ((newBounds.y + newBounds.height) > (bounds.y + bounds.height))
+                    newBounds.add(newBounds.x, newBounds.y + newBounds.height + marginY);
+
+                // we will need to restore optimal bounds at stroke end
+                boundsNeedUpdate = true;
+            }
         }
 
         try
@@ -1797,6 +1990,8 @@ public class ROI2DArea extends ROI2D
      */
     public void updateMask(Shape shape, boolean remove, boolean inclusive, boolean accurate, boolean immediateUpdate)
     {
+        final boolean stroke = (strokeDirty != null);
+
         if (remove)
         {
             // outside bounds ? --> nothing to remove so nothing to do...
@@ -1804,13 +1999,20 @@ public class ROI2DArea extends ROI2D
                 return;
 
             // mark that bounds need to be updated
-            if (isUpdating() || !immediateUpdate)
+            if (stroke || isUpdating() || !immediateUpdate)
                 boundsNeedUpdate = true;
         }
         else
             // update bounds (this update the image dimension if needed)
             addToBounds(shape.getBounds());
 
+        // region modified in the mask (with a 1 pixel margin for edge drawing)
+        final Rectangle region = shape.getBounds();
+        region.grow(1, 1);
+        Rectangle2D.intersect(region, bounds, region);
+        // point number before modification
+        final int numPointsBefore = (stroke && (strokeNumberOfPoints >= 0d)) ? getNumberOfPoints(region) : 0;
+
         // get image graphics object
         final Graphics2D g = imageMask.createGraphics();
 
@@ -1836,6 +2038,30 @@ public class ROI2DArea extends ROI2D
 
         g.dispose();
 
+        // brush stroke in progress ? --> just update stroke informations (single change event at stroke end)
+        if (stroke)
+        {
+            if (strokeNumberOfPoints >= 0d)
+            {
+                strokeNumberOfPoints += getNumberOfPoints(region) - numPointsBefore;
+                // keep cached point number up to date
+                cachedNumberOfPoints = strokeNumberOfPoints;
+                numberOfPointsInvalid = false;
+            }
+            numberOfContourPointsInvalid = true;
+            if (!region.isEmpty())
+            {
+                if (strokeDirty.isEmpty())
+                    strokeDirty.setBounds(region);
+                else
+                    strokeDirty.add(region);
+            }
+
+            // cached masks are no more valid
+            invalidateMaskCache();
+            return;
+        }
+
         // need to optimize bounds
         if (remove && !isUpdating() && immediateUpdate)
             optimizeBounds();
@@ -1844,6 +2070,120 @@ public class ROI2DArea extends ROI2D
         roiChanged(true);
     }
 
+    /**
+     * Returns the number of point of the mask contained in the specified region.
+     */
+    int getNumberOfPoints(Rectangle region)
+    {
+        final byte[] data;
+        final Rectangle bnds;
+
+        synchronized (this)
+        {
+            data = maskData;
+            bnds = bounds;
+        }
+
+        final Rectangle adjRegion = region.intersection(bnds);
+        int result = 0;
+
+        for (int y = 0; y < adjRegion.height; y++)
+        {
+            int offset = (adjRegion.x - bnds.x) + (((adjRegion.y - bnds.y) + y) * bnds.width);
+
+            for (int x = 0; x < adjRegion.width; x++)
+                if (data[offset++] != 0)
+                    result++;
+        }
+
+        return result;
+    }
+
+    /**
+     * Start a brush stroke edit session.<br>
+     * Until {@link #endStroke()} is called, brush operations ({@link #addBrush(Point2D)}, {@link #removeBrush(Point2D)}
+     * and shape updates) only modify the mask: storage grows by chunk, the number of point is updated incrementally
+     * and no ROI change event is sent.
+     * 
+     * @see #endStroke()
+     */
+    public void beginStroke()
+    {
+        if (strokeDirty != null)
+            return;
+
+        // initialize point number (we will update it incrementally)
+        strokeNumberOfPoints = getNumberOfPoints();
+        strokeDirty = new Rectangle();
+    }
+
+    /**
+     * End the current brush stroke edit session: optimize the mask bounds and send a single ROI change event if the
+     * mask has been modified.
+     * 
+     * @see #beginStroke()
+     */
+    public void endStroke()
+    {
+        final Rectangle dirty = strokeDirty;
+
+        if (dirty == null)
+            return;
+
+        strokeDirty = null;
+
+        // nothing changed
+        if (dirty.isEmpty())
+            return;
+
+        if (boundsNeedUpdate)
+            optimizeBounds();
+
+        // keep point number computed during the stroke
+        strokeEnding = true;
+        try
+        {
+            roiChanged(true);
+        }
+        finally
+        {
+            strokeEnding = false;
+        }
+    }
+
+    @Override
+    public void roiChanged(boolean contentChanged)
+    {
+        // content modified outside a brush stroke --> point number has to be computed again
+        if (contentChanged && !strokeEnding)
+            strokeNumberOfPoints = -1d;
+
+        super.roiChanged(contentChanged);
+    }
+
+    /**
+     * Returns <code>true</code> if a brush stroke edit session is in progress.
+     * 
+     * @see #beginStroke()
+     */
+    public boolean isStroking()
+    {
+        return strokeDirty != null;
+    }
+
+    /**
+     * Returns the region modified by the current brush stroke (empty if no stroke in progress).
+     */
+    public Rectangle getStrokeRegion()
+    {
+        final Rectangle dirty = strokeDirty;
+
+        if (dirty == null)
+            return new Rectangle();
+
+        return new Rectangle(dirty);
+    }
+
     /**
      * Update mask from specified shape
      */
@@ -2337,6 +2677,10 @@ public class ROI2DArea extends ROI2D
     @Override
     public double computeNumberOfPoints()
     {
+        // already known from last brush stroke
+        if (strokeNumberOfPoints >= 0d)
+            return strokeNumberOfPoints;
+
         // just count the number of point contained in the mask
         double result = 0d;
         final byte[] data = maskData;
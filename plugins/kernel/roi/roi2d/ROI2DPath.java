@@ -376,8 +376,8 @@ public class ROI2DPath extends ROI2DShape
                 {
                     final ROI2DPath roiPath = (ROI2DPath) roi;
 
-                    // compute closed area intersection and clear open path parts
-                    closedArea.exclusiveOr(roiPath.closedArea);
+                    // compute closed area subtraction and clear open path parts
+                    closedArea.subtract(roiPath.closedArea);
                     if (!roiPath.closedArea.isEmpty())
                         openPath.reset();
                 }
@@ -392,7 +392,7 @@ public class ROI2DPath extends ROI2DShape
                         area = new Area(ShapeUtil.getClosedPath(roiShape));
                     if (!area.isEmpty())
                     {
-                        closedArea.exclusiveOr(area);
+                        closedArea.subtract(area);
                         openPath.reset();
                     }
                 }
@@ -103,6 +103,11 @@ public abstract class ROI2DShape extends ROI2D implements Shape
         protected WeakReference<VtkCanvas> canvas3d;
         protected Set<Anchor2D> actorsToAdd;
         protected Set<Anchor2D> actorsToRemove;
+        // simplified shape cache for low zoom level
+        protected Shape lodShape;
+        protected int lodLevel;
+        protected int lodStamp;
+        protected volatile int shapeStamp;
 
         public ROI2DShapePainter()
         {
@@ -127,6 +132,11 @@ public abstract class ROI2DShape extends ROI2D implements Shape
 
             needRebuild = true;
             canvas3d = new WeakReference<VtkCanvas>(null);
+
+            lodShape = null;
+            lodLevel = -1;
+            lodStamp = -1;
+            shapeStamp = 0;
         }
 
         @Override
@@ -745,6 +755,14 @@ public abstract class ROI2DShape extends ROI2D implements Shape
 
                 final Rectangle2D bounds = shape.getBounds2D();
 
+                // less than a pixel on screen ? --> just draw a point
+                if (isPoint(bounds, g, canvas))
+                {
+                    if (isVisible(bounds, g, canvas))
+                        drawPoint(g, bounds, canvas);
+                    return;
+                }
+
                 // enlarge bounds with stroke
                 final double over = getAdjustedStroke(canvas) * 2;
                 ShapeUtil.enlarge(bounds, over, over, true);
@@ -760,8 +778,8 @@ public abstract class ROI2DShape extends ROI2D implements Shape
                     // draw shape
                     drawShape(g, sequence, canvas, small);
 
-                    // draw control points (only if not tiny)
-                    if (!tiny && isSelected() && !isReadOnly())
+                    // draw control points (only if not tiny and not too dense to be usable)
+                    if (!tiny && isSelected() && !isReadOnly() && !isAnchorsCluttered(bounds, canvas))
                     {
                         // draw control point if selected
                         synchronized (controlPoints)
@@ -842,7 +860,74 @@ public abstract class ROI2DShape extends ROI2D implements Shape
          */
         protected void drawShape(Graphics2D g, Sequence sequence, IcyCanvas canvas, boolean simplified)
         {
-            drawShape(g, sequence, canvas, shape, simplified);
+            drawShape(g, sequence, canvas, getLODShape(canvas), simplified);
+        }
+
+        /**
+         * Draw the ROI as a single screen pixel point (used when the ROI is smaller than a pixel on screen).
+         */
+        protected void drawPoint(Graphics2D g, Rectangle2D bounds, IcyCanvas canvas)
+        {
+            final double scale = getScale(canvas);
+            final double size = (scale > 0d) ? 1d / scale : 1d;
+
+            g.setColor(getDisplayColor());
+            g.fill(new Rectangle2D.Double(bounds.getCenterX() - (size / 2d), bounds.getCenterY() - (size / 2d), size,
+                    size));
+        }
+
+        /**
+         * Returns the shape to draw for the current zoom level of the specified canvas.<br>
+         * When zoomed out the shape is simplified (Douglas-Peucker) with a tolerance below half a screen pixel, the
+         * simplified shape is cached per power of 2 zoom level.
+         */
+        protected Shape getLODShape(IcyCanvas canvas)
+        {
+            // keep exact shape while creating or when not zoomed out
+            if (isCreating())
+                return shape;
+
+            final double scale = getScale(canvas);
+            if ((scale >= 1d) || (scale <= 0d))
+                return shape;
+
+            // zoom level bucket: scale in ]1/2^(level+1), 1/2^level]
+            final int level = (int) Math.floor(-Math.log(scale) / Math.log(2d));
+            final int stamp = shapeStamp;
+            Shape result = lodShape;
+
+            if ((result == null) || (lodLevel != level) || (lodStamp != stamp))
+            {
+                // maximum error = half a screen pixel
+                result = ShapeUtil.getSimplifiedPath(shape, 0.5d * (1 << Math.min(level, 30)));
+
+                // shape not modified in the meantime ? --> cache it
+                if (stamp == shapeStamp)
+                {
+                    lodShape = result;
+                    lodLevel = level;
+                    lodStamp = stamp;
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Invalidate the cached simplified shape (should be called when the shape changed).
+         */
+        protected void invalidateLODShape()
+        {
+            shapeStamp++;
+            lodShape = null;
+        }
+
+        /**
+         * Returns the canvas scale (max of X and Y).
+         */
+        protected double getScale(IcyCanvas canvas)
+        {
+            return Math.max(Math.abs(canvas.getScaleX()), Math.abs(canvas.getScaleY()));
         }
 
         /**
@@ -946,6 +1031,46 @@ public abstract class ROI2DShape extends ROI2D implements Shape
             return size < LOD_TINY;
         }
 
+        /**
+         * Returns <code>true</code> if the specified bounds are smaller than a pixel in the specified canvas / graphics
+         * context (ROI can be drawn as a single point).
+         */
+        protected boolean isPoint(Rectangle2D bounds, Graphics2D g, IcyCanvas canvas)
+        {
+            if (isCreating() || isSelected() || isFocused())
+                return false;
+
+            final double scale = getScale(canvas);
+            final double size = Math.max(scale * bounds.getWidth(), scale * bounds.getHeight());
+
+            return size < LOD_POINT;
+        }
+
+        /**
+         * Returns <code>true</code> if control points are too dense on screen to be usable (they are not displayed
+         * then).
+         */
+        protected boolean isAnchorsCluttered(Rectangle2D bounds, IcyCanvas canvas)
+        {
+            if (isCreating())
+                return false;
+
+            final int numPoints;
+            synchronized (controlPoints)
+            {
+                numPoints = controlPoints.size();
+            }
+
+            if (numPoints < 2)
+                return false;
+
+            final double scale = getScale(canvas);
+            // approximated available screen length per control point
+            final double lengthPerPoint = (2d * scale * (bounds.getWidth() + bounds.getHeight())) / numPoints;
+
+            return lengthPerPoint < LOD_TINY;
+        }
+
         @Override
         public void setColor(Color value)
         {
@@ -1108,6 +1233,7 @@ public abstract class ROI2DShape extends ROI2D implements Shape
 
         // the shape should have been rebuilt here
         ((ROI2DShapePainter) painter).needRebuild = true;
+        ((ROI2DShapePainter) painter).invalidateLODShape();
     }
 
     /**
@@ -1748,6 +1874,63 @@ public abstract class ROI2DShape extends ROI2D implements Shape
         return result;
     }
 
+    /**
+     * Build the ROI for the result of a boolean operation between 2 shapes.<br>
+     * A result made of a single closed polygonal contour (union of 2 overlapping polygons for instance) is returned as
+     * a {@link ROI2DPolygon} so it stays editable point by point, any other result (holes, several parts, curves...) is
+     * returned as a {@link ROI2DPath}.
+     */
+    protected static ROI2DShape createBooleanOpResult(Shape shape)
+    {
+        final List<Point2D> points = new ArrayList<Point2D>();
+        final PathIterator it = shape.getPathIterator(null);
+        final double[] crd = new double[6];
+        boolean closed = false;
+
+        while (!it.isDone())
+        {
+            final int segType = it.currentSegment(crd);
+
+            // only a single polygonal contour can be converted
+            if (closed)
+                return new ROI2DPath(shape);
+
+            switch (segType)
+            {
+                case PathIterator.SEG_MOVETO:
+                    if (!points.isEmpty())
+                        return new ROI2DPath(shape);
+                    points.add(new Point2D.Double(crd[0], crd[1]));
+                    break;
+
+                case PathIterator.SEG_LINETO:
+                    if (points.isEmpty())
+                        return new ROI2DPath(shape);
+                    points.add(new Point2D.Double(crd[0], crd[1]));
+                    break;
+
+                case PathIterator.SEG_CLOSE:
+                    closed = true;
+                    break;
+
+                default:
+                    // curve segment
+                    return new ROI2DPath(shape);
+            }
+
+            it.next();
+        }
+
+        // remove duplicated closing point
+        if ((points.size() > 1) && points.get(0).equals(points.get(points.size() - 1)))
+            points.remove(points.size() - 1);
+
+        if (!closed || (points.size() < 3))
+            return new ROI2DPath(shape);
+
+        return new ROI2DPolygon(points);
+    }
+
     @Override
     public ROI getUnion(ROI roi) throws UnsupportedOperationException
     {
@@ -1758,7 +1941,7 @@ public abstract class ROI2DShape extends ROI2D implements Shape
             // only if on same position
             if ((getZ() == roiShape.getZ()) && (getT() == roiShape.getT()) && (getC() == roiShape.getC()))
             {
-                final ROI2DPath result = new ROI2DPath(ShapeUtil.union(this, roiShape));
+                final ROI2DShape result = createBooleanOpResult(ShapeUtil.union(this, roiShape));
 
                 // don't forget to restore 5D position
                 result.setZ(getZ());
@@ -1782,7 +1965,7 @@ public abstract class ROI2DShape extends ROI2D implements Shape
             // only if on same position
             if ((getZ() == roiShape.getZ()) && (getT() == roiShape.getT()) && (getC() == roiShape.getC()))
             {
-                final ROI2DPath result = new ROI2DPath(ShapeUtil.intersect(this, roiShape));
+                final ROI2DShape result = createBooleanOpResult(ShapeUtil.intersect(this, roiShape));
 
                 // don't forget to restore 5D position
                 result.setZ(getZ());
@@ -1806,7 +1989,7 @@ public abstract class ROI2DShape extends ROI2D implements Shape
             // only if on same position
             if ((getZ() == roiShape.getZ()) && (getT() == roiShape.getT()) && (getC() == roiShape.getC()))
             {
-                final ROI2DPath result = new ROI2DPath(ShapeUtil.exclusiveUnion(this, roiShape));
+                final ROI2DShape result = createBooleanOpResult(ShapeUtil.exclusiveUnion(this, roiShape));
 
                 // don't forget to restore 5D position
                 result.setZ(getZ());
@@ -1830,7 +2013,7 @@ public abstract class ROI2DShape extends ROI2D implements Shape
             // only if on same position
             if ((getZ() == roiShape.getZ()) && (getT() == roiShape.getT()) && (getC() == roiShape.getC()))
             {
-                final ROI2DPath result = new ROI2DPath(ShapeUtil.subtract(this, roiShape));
+                final ROI2DShape result = createBooleanOpResult(ShapeUtil.subtract(this, roiShape));
 
                 // don't forget to restore 5D position
                 result.setZ(getZ());
@@ -1098,32 +1098,6 @@ public class ROI3DStack<R extends ROI2D> extends ROI3D implements ROIListener, O
         }
     }
 
-    // default approximated implementation for ROI3DStack
-    @Override
-    public double computeSurfaceArea(Sequence sequence) throws UnsupportedOperationException
-    {
-        // 3D contour points = first slice points + all slices perimeter + last slice points
-        double result = 0;
-
-        synchronized (slices)
-        {
-            if (!slices.isEmpty())
-            {
-                final double psx = sequence.getPixelSizeX();
-                final double psy = sequence.getPixelSizeY();
-                final double psz = sequence.getPixelSizeZ();
-
-                result = slices.firstEntry().getValue().getNumberOfPoints() * psx * psy;
-                result += slices.lastEntry().getValue().getNumberOfPoints() * psx * psy;
-
-                for (R slice : slices.values())
-                    result += slice.getLength(sequence) * psz;
-            }
-        }
-
-        return result;
-    }
-
     // default approximated implementation for ROI3DStack
     @Override
     public double computeNumberOfContourPoints()
@@ -21,6 +21,7 @@ package plugins.kernel.searchprovider;
 import icy.action.ActionManager;
 import icy.action.IcyAbstractAction;
 import icy.resource.icon.IcyIcon;
+import icy.search.SearchIndex;
 import icy.search.SearchResult;
 import icy.search.SearchResultConsumer;
 import icy.search.SearchResultProducer;
@@ -28,6 +29,7 @@ import icy.util.StringUtil;
 
 import java.awt.Image;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.pushingpixels.flamingo.api.common.RichTooltip;
 
@@ -159,6 +161,48 @@ public class KernelSearchResultProducer extends SearchResultProducer
         }
     }
 
+    /**
+     * Search index of kernel actions (description and long description)
+     */
+    static final SearchIndex<IcyAbstractAction> index = new SearchIndex<IcyAbstractAction>();
+
+    /**
+     * Update the action search index: removed actions are dropped and added actions or actions
+     * which had their description changed are (re)indexed.
+     */
+    static void updateIndex()
+    {
+        final List<IcyAbstractAction> actions = ActionManager.actions;
+
+        if (actions == null)
+            return;
+
+        synchronized (index)
+        {
+            // retain is done on action identity
+            index.retainAll(actions);
+
+            for (IcyAbstractAction action : actions)
+            {
+                final String description = toLowerCase(action.getDescription());
+                final String longDescription = toLowerCase(action.getLongDescription());
+                final String[] fields = index.getFields(action);
+
+                // not yet indexed or description changed --> (re)index
+                if ((fields == null) || !fields[0].equals(description) || !fields[1].equals(longDescription))
+                    index.put(action, description, longDescription);
+            }
+        }
+    }
+
+    private static String toLowerCase(String text)
+    {
+        if (text == null)
+            return "";
+
+        return text.toLowerCase();
+    }
+
     @Override
     public int getOrder()
     {
@@ -186,15 +230,35 @@ public class KernelSearchResultProducer extends SearchResultProducer
 
         final ArrayList<SearchResult> tmpResults = new ArrayList<SearchResult>();
         final boolean shortSearch = (words.length == 1) && (words[0].length() <= 2);
+        List<IcyAbstractAction> candidates = null;
+
+        updateIndex();
+
+        // all words should be present so we only need to check candidates of one word
+        for (String word : words)
+        {
+            final List<IcyAbstractAction> wordCandidates = index.getCandidates(word.trim(), shortSearch);
+
+            if ((candidates == null) || (wordCandidates.size() < candidates.size()))
+                candidates = wordCandidates;
+        }
+
+        if (candidates == null)
+            candidates = new ArrayList<IcyAbstractAction>();
 
-        for (IcyAbstractAction action : ActionManager.actions)
+        for (IcyAbstractAction action : candidates)
         {
             // abort
             if (hasWaitingSearch())
                 return;
 
+            final String[] fields = index.getFields(action);
+            // removed in between
+            if (fields == null)
+                continue;
+
             // action match filter
-            final int prio = searchInAction(action, words, shortSearch);
+            final int prio = searchInText(fields[0], fields[1], words, shortSearch);
 
             if (prio > 0)
                 tmpResults.add(new KernelSearchResult(this, action, words, prio));
@@ -224,34 +288,57 @@ public class KernelSearchResultProducer extends SearchResultProducer
         return result / words.length;
     }
 
-    public static int searchInAction(IcyAbstractAction action, String word, boolean startWithOnly)
+    /**
+     * Same as {@link #searchInAction(IcyAbstractAction, String[], boolean)} but works directly on
+     * lower cased action description and long description (as stored in the search index).
+     */
+    public static int searchInText(String description, String longDescription, String words[],
+            boolean startWithOnly)
+    {
+        int result = 0;
+
+        // we accept action which contains all words only
+        for (String word : words)
+        {
+            final int r = searchInText(description, longDescription, word.trim().toLowerCase(), startWithOnly);
+
+            // word not found ? --> reject
+            if (r == 0)
+                return 0;
+
+            result += r;
+        }
+
+        // return mean score
+        return result / words.length;
+    }
+
+    /**
+     * Returns the score of the specified lower cased word in the given lower cased action
+     * description and long description.
+     */
+    public static int searchInText(String description, String longDescription, String wordlc,
+            boolean startWithOnly)
     {
-        final String wordlc = word.trim().toLowerCase();
-        String text;
-
-        // text = action.getName();
-        // if (!StringUtil.isEmpty(text) && text.toLowerCase().startsWith(wordlc))
-        // return 10;
-        text = action.getDescription();
-        if (!StringUtil.isEmpty(text) && text.toLowerCase().startsWith(wordlc))
+        if (!StringUtil.isEmpty(description) && description.startsWith(wordlc))
             return 8;
-        text = action.getLongDescription();
-        if (!StringUtil.isEmpty(text) && text.toLowerCase().startsWith(wordlc))
+        if (!StringUtil.isEmpty(longDescription) && longDescription.startsWith(wordlc))
             return 5;
 
         if (!startWithOnly)
         {
-            // text = action.getName();
-            // if (!StringUtil.isEmpty(text) && text.toLowerCase().contains(wordlc))
-            // return 9;
-            text = action.getDescription();
-            if (!StringUtil.isEmpty(text) && text.toLowerCase().contains(wordlc))
+            if (!StringUtil.isEmpty(description) && description.contains(wordlc))
                 return 7;
-            text = action.getLongDescription();
-            if (!StringUtil.isEmpty(text) && text.toLowerCase().contains(wordlc))
+            if (!StringUtil.isEmpty(longDescription) && longDescription.contains(wordlc))
                 return 3;
         }
 
         return 0;
     }
+
+    public static int searchInAction(IcyAbstractAction action, String word, boolean startWithOnly)
+    {
+        return searchInText(toLowerCase(action.getDescription()), toLowerCase(action.getLongDescription()),
+                word.trim().toLowerCase(), startWithOnly);
+    }
 }
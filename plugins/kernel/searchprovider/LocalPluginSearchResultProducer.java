@@ -22,12 +22,21 @@ import icy.gui.plugin.PluginDetailPanel;
 import icy.plugin.PluginDescriptor;
 import icy.plugin.PluginLauncher;
 import icy.plugin.PluginLoader;
+import icy.plugin.PluginLoader.PluginLoaderEvent;
+import icy.plugin.PluginLoader.PluginLoaderListener;
+import icy.search.SearchIndex;
 import icy.search.SearchResult;
 import icy.search.SearchResultConsumer;
 import icy.search.SearchResultProducer;
+import icy.system.thread.Processor;
+import icy.system.thread.TaskScheduler;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
 
 import plugins.kernel.searchprovider.PluginSearchResultProducerHelper.SearchWord;
 
@@ -87,18 +96,117 @@ public class LocalPluginSearchResultProducer extends SearchResultProducer
         return "Result(s) from installed plugins";
     }
 
+    /**
+     * Maximum number of waiting icon loading tasks.
+     */
+    public static final int ICON_LOADER_QUEUE_SIZE = 64;
+
+    /**
+     * Search index of installed plugins (name, description and author), shared by all producer
+     * instances and updated on plugin loader change.
+     */
+    static final SearchIndex<PluginDescriptor> index = new SearchIndex<PluginDescriptor>();
+    static boolean indexDirty = true;
+    /**
+     * Icons are loaded in background so we can display results immediately.
+     */
+    static final Processor iconLoader = new Processor(ICON_LOADER_QUEUE_SIZE, 1);
+
+    static
+    {
+        iconLoader.setThreadName("Plugin search icon loader");
+        iconLoader.setLane(TaskScheduler.Lane.IO);
+
+        PluginLoader.addListener(new PluginLoaderListener()
+        {
+            @Override
+            public void pluginLoaderChanged(PluginLoaderEvent e)
+            {
+                synchronized (index)
+                {
+                    indexDirty = true;
+                }
+            }
+        });
+    }
+
+    static void indexPlugin(PluginDescriptor plugin)
+    {
+        index.put(plugin, plugin.getName(), plugin.getDescription(), plugin.getAuthor());
+    }
+
+    /**
+     * Update the plugin search index if plugin list changed (incremental update, only new plugins
+     * are indexed).
+     */
+    static void updateIndex()
+    {
+        synchronized (index)
+        {
+            if (!indexDirty)
+                return;
+
+            indexDirty = false;
+
+            final List<PluginDescriptor> plugins = PluginLoader.getPlugins();
+
+            // remove plugins which are no more present
+            index.retainAll(plugins);
+            // and add new ones
+            for (PluginDescriptor plugin : plugins)
+                if (!index.contains(plugin) && PluginSearchResultProducerHelper.isSearchable(plugin))
+                    indexPlugin(plugin);
+        }
+    }
+
+    /**
+     * Returns plugins which may match the specified search words.
+     */
+    static List<PluginDescriptor> getCandidates(List<SearchWord> words)
+    {
+        final boolean startWithOnly = PluginSearchResultProducerHelper.getShortSearch(words);
+
+        // a mandatory word should be present in all results
+        for (SearchWord sw : words)
+            if (sw.mandatory)
+                return index.getCandidates(sw.word, startWithOnly);
+
+        final Set<PluginDescriptor> done = Collections.newSetFromMap(new IdentityHashMap<PluginDescriptor, Boolean>());
+        final List<PluginDescriptor> result = new ArrayList<PluginDescriptor>();
+
+        // otherwise result can contains any of the words
+        for (SearchWord sw : words)
+        {
+            if (!sw.reject)
+            {
+                for (PluginDescriptor plugin : index.getCandidates(sw.word, startWithOnly))
+                    if (done.add(plugin))
+                        result.add(plugin);
+            }
+        }
+
+        return result;
+    }
+
     @Override
     public void doSearch(String text, SearchResultConsumer consumer)
     {
         final List<SearchWord> words = PluginSearchResultProducerHelper.getSearchWords(text);
         final List<SearchResult> tmpResults = new ArrayList<SearchResult>();
 
-        for (PluginDescriptor plugin : PluginLoader.getPlugins())
+        updateIndex();
+
+        for (PluginDescriptor plugin : getCandidates(words))
         {
             if (hasWaitingSearch())
                 return;
 
-            final int prio = PluginSearchResultProducerHelper.searchInPlugin(plugin, words);
+            final String[] fields = index.getFields(plugin);
+            // removed in between
+            if (fields == null)
+                continue;
+
+            final int prio = PluginSearchResultProducerHelper.searchInText(fields[0], fields[1], fields[2], words);
 
             if (prio > 0)
                 tmpResults.add(new LocalPluginResult(this, plugin, plugin.getDescription(), words, prio));
@@ -108,26 +216,75 @@ public class LocalPluginSearchResultProducer extends SearchResultProducer
         results = new ArrayList<SearchResult>(tmpResults);
         consumer.resultsChanged(this);
 
-        // load descriptions
+        // previous icon requests are obsoletes now
+        iconLoader.removeAllWaitingTasks();
+
+        // load descriptions and images in background
         for (SearchResult result : tmpResults)
         {
+            final LocalPluginResult pluginResult = (LocalPluginResult) result;
+            final PluginDescriptor plugin = pluginResult.getPlugin();
+
+            if (plugin.isDescriptorLoaded() && plugin.isIconLoaded() && plugin.isImageLoaded())
+                continue;
+
             // abort
             if (hasWaitingSearch())
                 return;
 
-            ((LocalPluginResult) result).getPlugin().loadDescriptor();
-            consumer.resultChanged(this, result);
+            try
+            {
+                iconLoader.submit(new IconLoader(pluginResult, consumer));
+            }
+            catch (RejectedExecutionException e)
+            {
+                // queue is full, remaining icons will be loaded by next search request
+                return;
+            }
+        }
+    }
+
+    private class IconLoader implements Runnable
+    {
+        private final LocalPluginResult result;
+        private final SearchResultConsumer consumer;
+
+        public IconLoader(LocalPluginResult result, SearchResultConsumer consumer)
+        {
+            super();
+
+            this.result = result;
+            this.consumer = consumer;
         }
 
-        // load images
-        for (SearchResult result : tmpResults)
+        @Override
+        public void run()
         {
-            // abort
-            if (hasWaitingSearch())
-                return;
+            final PluginDescriptor plugin = result.getPlugin();
+
+            if (!plugin.isDescriptorLoaded())
+            {
+                plugin.loadDescriptor();
+                // description may have changed
+                synchronized (index)
+                {
+                    if (index.contains(plugin))
+                        indexPlugin(plugin);
+                }
+            }
+
+            plugin.loadImages();
+
+            final boolean displayed;
+
+            synchronized (results)
+            {
+                displayed = results.contains(result);
+            }
 
-            ((LocalPluginResult) result).getPlugin().loadImages();
-            consumer.resultChanged(this, result);
+            // result is still displayed ? --> notify change
+            if (displayed)
+                consumer.resultChanged(LocalPluginSearchResultProducer.this, result);
         }
     }
-}
\ No newline at end of file
+}
@@ -96,7 +96,46 @@ public class PluginSearchResultProducerHelper
         return (words.size() == 1) && (words.get(0).length() <= 2);
     }
 
+    /**
+     * Returns <code>true</code> if the specified plugin can appear in search results.
+     */
+    public static boolean isSearchable(PluginDescriptor plugin)
+    {
+        if (plugin.isClassAvailable())
+        {
+            // we don't want abstract nor interface nor bundled plugin in results list
+            if (plugin.isAbstract() || plugin.isInterface())
+                return false;
+            // we don't want bundled plugin which are not actionable
+            if (plugin.isBundled() && !plugin.isActionable())
+                return false;
+        }
+
+        return true;
+    }
+
+    private static String toLowerCase(String text)
+    {
+        if (text == null)
+            return "";
+
+        return text.toLowerCase();
+    }
+
     public static int searchInPlugin(PluginDescriptor plugin, List<SearchWord> words)
+    {
+        if (!isSearchable(plugin))
+            return 0;
+
+        return searchInText(toLowerCase(plugin.getName()), toLowerCase(plugin.getDescription()),
+                toLowerCase(plugin.getAuthor()), words);
+    }
+
+    /**
+     * Same as {@link #searchInPlugin(PluginDescriptor, List)} but works directly on lower cased
+     * plugin name, description and author (as stored in the search index).
+     */
+    public static int searchInText(String name, String description, String author, List<SearchWord> words)
     {
         final boolean startWithOnly = PluginSearchResultProducerHelper.getShortSearch(words);
         int result = 0;
@@ -104,7 +143,7 @@ public class PluginSearchResultProducerHelper
         // search for all word
         for (SearchWord sw : words)
         {
-            final int r = searchInPlugin(plugin, sw.word, startWithOnly);
+            final int r = searchInText(name, description, author, sw.word.toLowerCase(), startWithOnly);
 
             // mandatory word not found ? --> reject
             if ((r == 0) && sw.mandatory)
@@ -122,18 +161,20 @@ public class PluginSearchResultProducerHelper
 
     public static int searchInPlugin(PluginDescriptor plugin, String word, boolean startWithOnly)
     {
-        if (plugin.getPluginClass() != null)
-        {
-            // we don't want abstract nor interface nor bundled plugin in results list
-            if (plugin.isAbstract() || plugin.isInterface())
-                return 0;
-            // we don't want bundled plugin which are not actionable
-            if (plugin.isBundled() && !plugin.isActionable())
-                return 0;
-        }
+        if (!isSearchable(plugin))
+            return 0;
+
+        return searchInText(toLowerCase(plugin.getName()), toLowerCase(plugin.getDescription()),
+                toLowerCase(plugin.getAuthor()), word.toLowerCase(), startWithOnly);
+    }
 
-        final String wordlc = word.toLowerCase();
-        final String name = plugin.getName().toLowerCase();
+    /**
+     * Returns the score of the specified lower cased word in the given lower cased plugin name,
+     * description and author.
+     */
+    public static int searchInText(String name, String description, String author, String wordlc,
+            boolean startWithOnly)
+    {
         int ind;
 
         ind = name.indexOf(wordlc);
@@ -156,8 +197,6 @@ public class PluginSearchResultProducerHelper
         // more search...
         if (!startWithOnly)
         {
-            final String description = plugin.getDescription().toLowerCase();
-
             ind = description.indexOf(wordlc);
             if (ind >= 0)
             {
@@ -171,6 +210,11 @@ public class PluginSearchResultProducerHelper
                 else
                     return 1;
             }
+
+            ind = author.indexOf(wordlc);
+            // author name has a word starting by keyword --> low priority result
+            if ((ind == 0) || ((ind > 0) && (author.charAt(ind - 1) == ' ')))
+                return 2;
         }
 
         // not found